@@ -1,8 +1,16 @@
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
 import managers.*;
+import server.StoreHttpServer;
+import server.TillServer;
+import server.VirtualThreads;
 import entities.*;
+import utils.Durability;
 import utils.FileHandler;
+import utils.IdSequence;
+import utils.LatencyHistogram;
+import utils.Metrics;
 
 /*
  * Comic Book Store System - Main Application Class
@@ -22,10 +30,47 @@ public class ComicBookStoreSystem {
     // Scanner for user input throughout the application
     private static Scanner sc = new Scanner(System.in);
 
+    // Orders shown per page of the order history
+    private static final int HISTORY_PAGE_SIZE = 5;
+
+    // Most comics listed for a word search
+    private static final int SEARCH_RESULT_LIMIT = 10;
+
+    // Prometheus text file the metrics are dumped to
+    private static final String METRICS_FILE = "data/metrics.prom";
+
+    // CSV file a sales report is saved to
+    private static final String SALES_REPORT_FILE = "data/sales_report.csv";
+
+    // Rows shown per group on the sales report screen; the CSV has every row
+    private static final int SALES_REPORT_TOP = 5;
+
     // Manager instances for handling comic and inventory data
     private static ComicManager comicManager = new ComicManager("data/comics.txt");
     private static InventoryManager inventoryManager = new InventoryManager("data/stocks.txt");
     private static PurchaseManager purchaseManager = new PurchaseManager("data/orders.txt", comicManager, inventoryManager);
+    private static IdSequence idSequence = new IdSequence("data/sequences.txt");
+
+    // Genre, year, price and stock facets over the catalog, kept current by both managers
+    private static ComicFacets comicFacets = new ComicFacets(comicManager, inventoryManager);
+
+    // Append each catalog and stock change to a log instead of rewriting the whole file.
+    // Durability is chosen at launch, e.g. java -Dstore.durability=DATA ComicBookStoreSystem
+    static {
+        FileHandler.setDurability(Durability.valueOf(System.getProperty("store.durability", "NONE")));
+        comicManager.setPersistenceMode(PersistenceMode.LOG);
+        inventoryManager.setPersistenceMode(PersistenceMode.LOG);
+
+        // New IDs come from one durable sequence file. Stock IDs are comic IDs, so stocks
+        // share the comic sequence, which then also skips IDs held by orphaned stock records.
+        comicManager.useIdSequence(idSequence, "comics");
+        inventoryManager.useIdSequence(idSequence, "comics");
+        purchaseManager.useIdSequence(idSequence, "orders");
+
+        // Operation latencies and counts are dumped for a local Prometheus scraper,
+        // every store.metrics.interval seconds (default 15)
+        Metrics.startDumping(METRICS_FILE, Long.getLong("store.metrics.interval", 15));
+    }
 
     // Admin validation
     private static final String ADMIN_FILE = "data/admin.txt";
@@ -117,9 +162,15 @@ public class ComicBookStoreSystem {
      * Main entry point of the Comic Book Store System application.
      * Displays the main menu and handles user navigation between different modules.
      *
-     * @param args Command line arguments (not used)
+     * Run with "serve [httpPort] [tillPort]" instead to run the store headless.
+     *
+     * @param args Command line arguments: none for the console, or serve and optional ports
      */
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("serve")) {
+            serve(args.length > 1 ? Integer.parseInt(args[1]) : 8080, args.length > 2 ? Integer.parseInt(args[2]) : 7070);
+            return;
+        }
         if (!adminLogin()) {
             System.out.println("Access denied. Exiting program...");
             return;
@@ -171,16 +222,30 @@ public class ComicBookStoreSystem {
             }
 
             // Route to appropriate menu based on user selection
-            switch (choice) {
-                case 1: adminMenu(); break;
-                case 2: manageCart(); break;
-                case 3: searchComics(); break;
-                case 4: orderHistory(); break;
-                case 5: {
-                    System.out.println("Exiting...");
-                    return;
+            try {
+                switch (choice) {
+                    case 1: adminMenu(); break;
+                    case 2: manageCart(); break;
+                    case 3: searchComics(); break;
+                    case 4: orderHistory(); break;
+                    case 5: {
+                        System.out.println("Exiting...");
+                        // Fold the change logs back into the data files before leaving
+                        comicManager.save();
+                        inventoryManager.save();
+                        purchaseManager.getSales().save();
+                        // Snapshot the data files so the next start does not have to parse them
+                        comicManager.writeSnapshot();
+                        inventoryManager.writeSnapshot();
+                        return;
+                    }
+                    default: System.out.println("Invalid option!"); break;
                 }
-                default: System.out.println("Invalid option!"); break;
+            } catch (UncheckedIOException e) {
+                // A data file could not be written; the change was not saved
+                System.out.println("    " + e.getMessage() + " (" + e.getCause().getMessage() + ")");
+                System.out.println("    Press enter to continue...");
+                sc.nextLine();
             }
         }
     }
@@ -209,7 +274,13 @@ public class ComicBookStoreSystem {
             spc();
             System.out.println("    [2] Manage Stocks");
             spc();
-            System.out.println("    [3] Back To Main Menu");
+            System.out.println("    [3] Performance Metrics");
+            spc();
+            System.out.println("    [4] Sales Report");
+            spc();
+            System.out.println("    [5] Sales Dashboard");
+            spc();
+            System.out.println("    [6] Back To Main Menu");
             spc();
             ln();
            
@@ -231,7 +302,10 @@ public class ComicBookStoreSystem {
             switch (choice) {
                 case 1 : manageComics(); break;      // Navigate to comic management
                 case 2 : manageInventory(); break;   // Navigate to inventory management
-                case 3 : { return; }          // Return to main menu
+                case 3 : performanceMetrics(); break; // View operation latencies
+                case 4 : salesReport(); break;        // Revenue and units from the order history
+                case 5 : salesDashboard(); break;     // Running totals kept at checkout
+                case 6 : { return; }          // Return to main menu
                 default : System.out.println("Invalid option!"); break;
             }
         }
@@ -264,7 +338,9 @@ public class ComicBookStoreSystem {
             spc();
             System.out.println("    [4] Delete Comic");
             spc();
-            System.out.println("    [5] Return");
+            System.out.println("    [5] Import Supplier Feed");
+            spc();
+            System.out.println("    [6] Return");
             spc();
             ln();
            
@@ -396,12 +472,51 @@ public class ComicBookStoreSystem {
                 } }} break;
 
 
-                case 5 : { return; } // Return to admin menu
+                case 5 : importSupplierFeed(); break; // Bulk add and update comics from a CSV feed
+                case 6 : { return; } // Return to admin menu
                 default : System.out.println("Invalid option!"); break;
             }
         }
     
     } 
+
+    /**
+     * Imports a supplier's catalog feed: new comics are added and known ones
+     * (matched by ID, or by title when the feed has no ID) are updated, all in
+     * one write. Rows that fail validation are listed in a reject file next to
+     * the feed.
+     */
+    private static void importSupplierFeed() {
+        spc();
+        System.out.print("      Feed file (id,title,author,price,genre,year): ");
+        String feed = sc.nextLine().trim();
+        if (feed.isEmpty()) return;
+        if (!new File(feed).isFile()) {
+            System.out.println("      File not found: " + feed);
+        } else {
+            String rejects = feed + ".rejects.csv";
+            try {
+                CatalogImporter.ImportReport report = new CatalogImporter(comicManager).importFeed(feed, rejects);
+                spc();
+                System.out.println("      Rows read:  " + report.getRows());
+                System.out.println("      Added:      " + report.getAdded());
+                System.out.println("      Updated:    " + report.getUpdated());
+                System.out.println("      Unchanged:  " + report.getUnchanged());
+                System.out.println("      Rejected:   " + report.getRejected()
+                                   + (report.getRejected() > 0 ? "  (see " + rejects + ")" : ""));
+                System.out.printf("      Took %.0f ms, %.0f rows/s%n", report.getParseMillis() + report.getApplyMillis(),
+                                  report.getRowsPerSecond());
+            } catch (UncheckedIOException | IllegalArgumentException e) {
+                System.out.println("      Import failed, nothing was changed: " + e.getMessage());
+            }
+        }
+        spc();
+        System.out.println("            [1] Return        ");
+        spc();
+        System.out.println("          What would you like to do?      ");
+        spc();
+        sc.nextLine();
+    }
     /**
      * Inventory Management Module - Handles all inventory-related operations.
      */
@@ -697,9 +812,8 @@ public class ComicBookStoreSystem {
      * Order History - Displays all past orders from saved files.
      */
     private static void orderHistory() {
-        File dataDir = new File("data");
-        File[] files = dataDir.listFiles((dir, name) -> name.startsWith("order_") && name.endsWith(".txt"));
-        if (files == null || files.length == 0) {
+        OrderLedger ledger = purchaseManager.getLedger();
+        if (ledger.size() == 0) {
             System.out.println("No order history found.");
             spc();
             System.out.println("    [1] Return");
@@ -709,34 +823,102 @@ public class ComicBookStoreSystem {
             return;
         }
 
-        // Sort files by order ID (assuming order_1.txt, order_2.txt, etc.)
-        Arrays.sort(files, (f1, f2) -> {
-            int id1 = Integer.parseInt(f1.getName().replace("order_", "").replace(".txt", ""));
-            int id2 = Integer.parseInt(f2.getName().replace("order_", "").replace(".txt", ""));
-            return Integer.compare(id1, id2);
-        });
+        // Position of the newest order on the current page; pages run towards older orders
+        int top = ledger.size() - 1;
+        while (true) {
+            cls();
+            Iterator<OrderRecord> orders = ledger.newestFirst(top);
+            for (int shown = 0; shown < HISTORY_PAGE_SIZE && orders.hasNext(); shown++) {
+                OrderRecord order = orders.next();
+                ln();
+                System.out.println("                      Order " + order.getOrderId());
+                ln();
+                for (String line : order.toReceipt()) {
+                    System.out.println(line);
+                }
+                System.out.println();
+            }
+            int oldest = Math.max(0, top - HISTORY_PAGE_SIZE + 1);
+            System.out.println("    Showing orders " + (ledger.size() - top) + "-" + (ledger.size() - oldest) +
+                               " of " + ledger.size() + ", newest first");
 
-        for (File file : files) {
-            ln();
-            System.out.println("                      " + file.getName());
-            ln();
-            List<String> lines = FileHandler.readFile(file.getPath());
-            for (String line : lines) {
-                System.out.println(line);
+            spc();
+            System.out.println("      [1] Older Orders");
+            System.out.println("      [2] Newer Orders");
+            System.out.println("      [3] Jump to Order ID");
+            System.out.println("      [4] Jump to Date");
+            System.out.println("      [5] Return");
+            spc();
+
+            int choice = -1;
+            try {
+                System.out.print("   What would you like to do?        ");
+                choice = sc.nextInt();
+                sc.nextLine();
+            } catch (InputMismatchException e) {
+                sc.nextLine(); // clear invalid input
             }
-            System.out.println();
-        }
 
-        spc();
-        System.out.println("      [1] Return");
-        spc();
-        int choice = sc.nextInt();
-        sc.nextLine();
+            switch (choice) {
+                case 1:
+                    if (oldest > 0) top = oldest - 1;
+                    break;
+                case 2:
+                    top = Math.min(ledger.size() - 1, top + HISTORY_PAGE_SIZE);
+                    break;
+                case 3: {
+                    System.out.print("     Enter Order ID: ");
+                    String input = sc.nextLine().trim();
+                    int position = -1;
+                    try {
+                        position = ledger.positionOf(Integer.parseInt(input));
+                    } catch (NumberFormatException e) {
+                        // Reported below
+                    }
+                    if (position >= 0) {
+                        top = position;
+                    } else {
+                        System.out.println("    Order not found: " + input);
+                        System.out.println("    Press enter to continue...");
+                        sc.nextLine();
+                    }
+                    break;
+                }
+                case 4: {
+                    System.out.print("     Enter date (yyyy-MM-dd): ");
+                    String input = sc.nextLine().trim();
+                    try {
+                        // Start at the newest order placed on or before the end of that day
+                        long endOfDay = java.time.LocalDate.parse(input).plusDays(1)
+                                .atStartOfDay(java.time.ZoneId.systemDefault()).toInstant().toEpochMilli() - 1;
+                        int position = ledger.positionAtOrBefore(endOfDay);
+                        if (position >= 0) {
+                            top = position;
+                        } else {
+                            System.out.println("    No orders on or before " + input);
+                            System.out.println("    Press enter to continue...");
+                            sc.nextLine();
+                        }
+                    } catch (java.time.format.DateTimeParseException e) {
+                        System.out.println("    Invalid date: " + input);
+                        System.out.println("    Press enter to continue...");
+                        sc.nextLine();
+                    }
+                    break;
+                }
+                case 5:
+                    return;
+                default:
+                    System.out.println("Invalid option!");
+                    break;
+            }
+        }
     }
 
     /**
-     * Search Comics - Allows users to search for comics by ID or name.
-     * Displays the details of the found comic or shows a "not found" message.
+     * Search Comics - Allows users to search for comics by ID, name, or words.
+     * An exact ID or title shows that comic; otherwise the best matches for the words
+     * across titles, authors and genres are listed, or a "not found" message.
      */
     private static void searchComics() {
         while (true) {
@@ -768,19 +950,26 @@ public class ComicBookStoreSystem {
 
 
         Comic comic = comicManager.findByIdOrName(input);
-        if (comic != null) {
+        List<Comic> matches = comic != null ? Collections.singletonList(comic)
+                                            : comicManager.search(input, SEARCH_RESULT_LIMIT);
+        if (!matches.isEmpty()) {
             System.out.println("            Results:              ");
             line();
-            System.out.println(comic.display());
-            line();
+            for (Comic match : matches) {
+                System.out.println(match.display());
+                line();
+            }
         } else {
             System.out.println("Comic not found!");
+            System.out.println("Tip: search words from a title, author or genre; use OR to match either word.");
         }
 
         spc();
         spc();
         System.out.println("          [1] Search again    ");
-        System.out.println(  "          [2] Exit Menu    ");
+        System.out.println("          [2] Browse by Filters    ");
+        System.out.println("          [3] Browse by Price or Year    ");
+        System.out.println(  "          [4] Exit Menu    ");
         choice = sc.nextInt();
         sc.nextLine();
 
@@ -791,7 +980,15 @@ public class ComicBookStoreSystem {
                 
                 break;
         
-        case 2: 
+            case 2:
+                browseComics();
+                return;
+
+            case 3:
+                browseRanges();
+                return;
+
+        case 4: 
                 return;
             
         
@@ -806,4 +1003,352 @@ public class ComicBookStoreSystem {
 
     }
 }
+
+    /**
+     * Browse Comics - Filters the catalog by genre, year range, price and stock.
+     * Shows how many comics match, how they spread over each facet, and the first matches.
+     */
+    private static void browseComics() {
+        while (true) {
+            cls();
+            line();
+            System.out.println("                              Browse by Filters");
+            line();
+            System.out.println("    Leave a filter blank to skip it.");
+            spc();
+
+            ComicFacets.Filter filter = new ComicFacets.Filter();
+            try {
+                System.out.print("     Genres (comma-separated): ");
+                for (String genre : sc.nextLine().split(",")) {
+                    if (!genre.trim().isEmpty()) filter.genre(genre.trim());
+                }
+                System.out.print("     Years (e.g. 2010-2016): ");
+                String years = sc.nextLine().trim();
+                if (!years.isEmpty()) {
+                    String[] range = years.split("-");
+                    int from = Integer.parseInt(range[0].trim());
+                    filter.years(from, range.length > 1 ? Integer.parseInt(range[1].trim()) : from);
+                }
+                System.out.print("     Under price (e.g. 500): P");
+                String price = sc.nextLine().trim();
+                if (!price.isEmpty()) filter.under(Double.parseDouble(price));
+                System.out.print("     In stock only? (y/n): ");
+                if (sc.nextLine().trim().equalsIgnoreCase("y")) filter.inStock();
+            } catch (IllegalArgumentException e) { // Includes NumberFormatException
+                System.out.println("    Invalid filter: " + e.getMessage());
+                System.out.println("    Press enter to continue...");
+                sc.nextLine();
+                continue;
+            }
+
+            ComicFacets.Result result = comicFacets.filter(filter);
+            spc();
+            ln();
+            System.out.println("    " + result.getCount() + " comics match, " + result.getInStockCount() + " in stock");
+            ln();
+            System.out.println("    Genres:      " + result.getGenreCounts());
+            System.out.println("    Years:       " + result.getYearCounts());
+            System.out.println("    Price bands: " + result.getPriceBandCounts());
+            line();
+            for (Comic comic : result.getComics(SEARCH_RESULT_LIMIT)) {
+                System.out.println(comic.display());
+                ln();
+            }
+            if (result.getCount() > SEARCH_RESULT_LIMIT) {
+                System.out.println("    Showing the first " + SEARCH_RESULT_LIMIT + "; narrow the filters to see the rest.");
+            }
+
+            spc();
+            System.out.println("          [1] Filter again    ");
+            System.out.println("          [2] Exit Menu    ");
+            int choice = -1;
+            try {
+                choice = sc.nextInt();
+                sc.nextLine();
+            } catch (InputMismatchException e) {
+                sc.nextLine(); // clear invalid input
+            }
+            if (choice != 1) return;
+        }
+    }
+
+    /**
+     * Browse Ranges - Lists the comics within a price range or a range of years,
+     * in ascending order of price or year.
+     */
+    private static void browseRanges() {
+        while (true) {
+            cls();
+            line();
+            System.out.println("                           Browse by Price or Year");
+            line();
+            System.out.println("          [1] Price range");
+            System.out.println("          [2] Publication years");
+            System.out.println("          [3] Exit Menu");
+            spc();
+
+            int choice = -1;
+            try {
+                System.out.print("   What would you like to do?        ");
+                choice = sc.nextInt();
+                sc.nextLine();
+            } catch (InputMismatchException e) {
+                sc.nextLine(); // clear invalid input
+            }
+            if (choice != 1 && choice != 2) return;
+
+            List<Comic> comics;
+            int count;
+            try {
+                if (choice == 1) {
+                    System.out.print("     Lowest price (blank for any): P");
+                    String low = sc.nextLine().trim();
+                    System.out.print("     Highest price (blank for any): P");
+                    String high = sc.nextLine().trim();
+                    double min = low.isEmpty() ? Double.NEGATIVE_INFINITY : Double.parseDouble(low);
+                    double max = high.isEmpty() ? Double.POSITIVE_INFINITY : Double.parseDouble(high);
+                    comics = comicManager.findByPriceRange(min, max, SEARCH_RESULT_LIMIT);
+                    count = comicManager.countByPriceRange(min, max);
+                } else {
+                    System.out.print("     First year (blank for any): ");
+                    String first = sc.nextLine().trim();
+                    System.out.print("     Last year (blank for any): ");
+                    String last = sc.nextLine().trim();
+                    int from = first.isEmpty() ? Integer.MIN_VALUE : Integer.parseInt(first);
+                    int to = last.isEmpty() ? Integer.MAX_VALUE : Integer.parseInt(last);
+                    comics = comicManager.findByYearRange(from, to, SEARCH_RESULT_LIMIT);
+                    count = comicManager.countByYearRange(from, to);
+                }
+            } catch (NumberFormatException e) {
+                System.out.println("    Invalid number: " + e.getMessage());
+                System.out.println("    Press enter to continue...");
+                sc.nextLine();
+                continue;
+            }
+
+            spc();
+            ln();
+            System.out.println("    " + count + " comics match" + (choice == 1 ? ", cheapest first" : ", oldest first"));
+            line();
+            for (Comic comic : comics) {
+                System.out.println(comic.display());
+                ln();
+            }
+            if (count > comics.size()) {
+                System.out.println("    Showing the first " + comics.size() + "; narrow the range to see the rest.");
+            }
+            System.out.println("    Press enter to continue...");
+            sc.nextLine();
+        }
+    }
+
+    /**
+     * Performance Metrics - Shows how many times each store operation ran and how
+     * long it took: the median, the 99th percentile and the slowest, in milliseconds.
+     * The figures are live; refreshing reads them again.
+     */
+    private static void performanceMetrics() {
+        while (true) {
+            cls();
+            line();
+            System.out.println("                                  Performance Metrics");
+            line();
+            System.out.printf("    %-52s %9s %9s %9s %9s%n", "Operation", "Count", "p50 ms", "p99 ms", "Max ms");
+            ln();
+            for (Map.Entry<String, LatencyHistogram> entry : Metrics.getHistograms().entrySet()) {
+                LatencyHistogram histogram = entry.getValue();
+                if (histogram.getCount() == 0) continue;
+                System.out.printf("    %-52s %9d %9.3f %9.3f %9.3f%n", entry.getKey(), histogram.getCount(),
+                                  histogram.getPercentile(50) / 1e6, histogram.getPercentile(99) / 1e6,
+                                  histogram.getMax() / 1e6);
+            }
+            ln();
+            for (Map.Entry<String, LongAdder> entry : Metrics.getCounters().entrySet()) {
+                System.out.printf("    %-52s %9d%n", entry.getKey(), entry.getValue().sum());
+            }
+            line();
+            System.out.println("    Also written to " + METRICS_FILE + " for scraping.");
+            System.out.println("          [1] Refresh");
+            System.out.println("          [2] Return");
+            spc();
+
+            int choice = -1;
+            try {
+                System.out.print("   What would you like to do?        ");
+                choice = sc.nextInt();
+                sc.nextLine();
+            } catch (InputMismatchException e) {
+                sc.nextLine(); // clear invalid input
+            }
+            if (choice != 1) return;
+        }
+    }
+
+    /**
+     * Sales Report - Totals the order history over a range of days by comic, genre,
+     * author and day, shows the best sellers and the average basket, and can save
+     * the whole report as CSV.
+     */
+    private static void salesReport() {
+        cls();
+        line();
+        System.out.println("                                  Sales Report");
+        line();
+        java.time.LocalDate from, to;
+        try {
+            System.out.print("     From date (yyyy-MM-dd, blank for the first order): ");
+            String input = sc.nextLine().trim();
+            from = input.isEmpty() ? null : java.time.LocalDate.parse(input);
+            System.out.print("     To date (yyyy-MM-dd, blank for today): ");
+            input = sc.nextLine().trim();
+            to = input.isEmpty() ? null : java.time.LocalDate.parse(input);
+        } catch (java.time.format.DateTimeParseException e) {
+            System.out.println("    Invalid date: " + e.getParsedString());
+            System.out.println("    Press enter to continue...");
+            sc.nextLine();
+            return;
+        }
+
+        SalesReport.Result report;
+        try {
+            report = new SalesReport(purchaseManager.getLedger(), comicManager).run(from, to);
+        } catch (IllegalArgumentException | UncheckedIOException e) {
+            System.out.println("    Could not run the report: " + e.getMessage());
+            System.out.println("    Press enter to continue...");
+            sc.nextLine();
+            return;
+        }
+
+        ln();
+        System.out.printf("    %d orders, %d units, P%.2f revenue  (scanned in %.0f ms)%n", report.getOrders(),
+                          report.getUnits(), report.getRevenue(), report.getScanMillis());
+        System.out.printf("    Average basket: %.2f units, P%.2f%n", report.getAverageBasketUnits(),
+                          report.getAverageBasketRevenue());
+        printTopSellers("Comic", report.getByComic());
+        printTopSellers("Genre", report.getByGenre());
+        printTopSellers("Author", report.getByAuthor());
+        line();
+        System.out.println("          [1] Save as CSV (" + SALES_REPORT_FILE + ")");
+        System.out.println("          [2] Return");
+        spc();
+
+        int choice = -1;
+        try {
+            System.out.print("   What would you like to do?        ");
+            choice = sc.nextInt();
+            sc.nextLine();
+        } catch (InputMismatchException e) {
+            sc.nextLine(); // clear invalid input
+        }
+        if (choice != 1) return;
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(SALES_REPORT_FILE), java.nio.charset.StandardCharsets.UTF_8))) {
+            report.writeCsv(out);
+            System.out.println("    Saved to " + SALES_REPORT_FILE);
+        } catch (IOException e) {
+            System.out.println("    Could not save the report: " + e.getMessage());
+        }
+        System.out.println("    Press enter to continue...");
+        sc.nextLine();
+    }
+
+    private static void printTopSellers(String group, List<SalesReport.Totals> totals) {
+        ln();
+        System.out.printf("    %-50s %9s %9s %14s%n", "Top " + group, "Orders", "Units", "Revenue");
+        for (SalesReport.Totals t : totals.subList(0, Math.min(SALES_REPORT_TOP, totals.size()))) {
+            String name = t.getName().length() > 50 ? t.getName().substring(0, 47) + "..." : t.getName();
+            System.out.printf("    %-50s %9d %9d %14.2f%n", name, t.getOrders(), t.getUnits(), t.getRevenue());
+        }
+    }
+
+    /**
+     * Sales Dashboard - Shows the running sales totals: today, yesterday, the last 7
+     * and 30 days and all time, with this week's best-selling comics and genres.
+     * The totals are kept up to date at every checkout, so nothing is scanned.
+     */
+    private static void salesDashboard() {
+        SalesAggregates sales = purchaseManager.getSales();
+        while (true) {
+            java.time.LocalDate today = java.time.LocalDate.now();
+            java.time.LocalDate weekStart = today.minusDays(6);
+            cls();
+            line();
+            System.out.println("                                  Sales Dashboard");
+            line();
+            System.out.printf("    %-30s %9s %9s %14s%n", "Period", "Orders", "Units", "Revenue");
+            ln();
+            printSales("Today", sales.getDays(today, today));
+            printSales("Yesterday", sales.getDays(today.minusDays(1), today.minusDays(1)));
+            printSales("Last 7 days", sales.getDays(weekStart, today));
+            printSales("Last 30 days", sales.getDays(today.minusDays(29), today));
+            printSales("All time", sales.getTotal());
+            try {
+                printTopSellers("Comic, last 7 days", sales.topComics(weekStart, today, SALES_REPORT_TOP));
+                printTopSellers("Genre, last 7 days", sales.topGenres(weekStart, today, SALES_REPORT_TOP));
+            } catch (IllegalArgumentException e) {
+                System.out.println("    " + e.getMessage()); // The clock is behind the newest sale
+            }
+            line();
+            System.out.println("    Totals cover " + sales.getOrdersCovered() + " orders.");
+            System.out.println("          [1] Refresh");
+            System.out.println("          [2] Rebuild From Order History");
+            System.out.println("          [3] Return");
+            spc();
+
+            int choice = -1;
+            try {
+                System.out.print("   What would you like to do?        ");
+                choice = sc.nextInt();
+                sc.nextLine();
+            } catch (InputMismatchException e) {
+                sc.nextLine(); // clear invalid input
+            }
+            if (choice == 2) {
+                try {
+                    sales.rebuild();
+                } catch (UncheckedIOException e) {
+                    System.out.println("    Rebuilt, but the totals could not be saved: " + e.getMessage());
+                    System.out.println("    Press enter to continue...");
+                    sc.nextLine();
+                }
+            } else if (choice != 1) {
+                return;
+            }
+        }
+    }
+
+    private static void printSales(String period, SalesReport.Totals totals) {
+        System.out.printf("    %-30s %9d %9d %14.2f%n", period, totals.getOrders(), totals.getUnits(), totals.getRevenue());
+    }
+
+    /**
+     * Serve - Runs the store headless until the process is stopped, serving the HTTP
+     * API on one port and tills on another, all against the same managers. The
+     * managers persist every change as usual.
+     *
+     * @param httpPort The port for the HTTP API
+     * @param tillPort The port tills connect to
+     */
+    private static void serve(int httpPort, int tillPort) {
+        StoreHttpServer api = new StoreHttpServer(comicManager, inventoryManager, purchaseManager);
+        TillServer tills = new TillServer(comicManager, inventoryManager, purchaseManager);
+        try {
+            api.start(httpPort);
+            tills.start(tillPort);
+        } catch (IOException e) {
+            System.out.println("Could not start serving: " + e.getMessage());
+            api.close();
+            tills.close();
+            return;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            tills.close();
+            api.close();
+            purchaseManager.getSales().save();
+        }));
+        String threads = VirtualThreads.isAvailable() ? "virtual threads" : "platform threads";
+        System.out.println("Serving the store API on http://localhost:" + api.getPort() + "/ (" + threads + ")");
+        System.out.println("Accepting tills on port " + tills.getPort() + ", e.g. nc localhost " + tills.getPort());
+    }
 }
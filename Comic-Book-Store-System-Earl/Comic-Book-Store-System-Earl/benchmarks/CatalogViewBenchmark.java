@@ -0,0 +1,70 @@
+package benchmarks;
+
+import entities.Comic;
+import entities.Stock;
+import managers.CatalogView;
+import managers.ComicManager;
+import managers.InventoryManager;
+import utils.FileHandler;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CatalogViewBenchmark - Compares the joined catalog view with per-row lookups.
+ *
+ * Generates comics and stock files, then times one pass over the comics in stock
+ * the way PurchaseManager.displayAvailableComics used to find them, with a stock
+ * lookup per comic, against one pass over the maintained CatalogView. Printing is
+ * left out so only the join is measured.
+ *
+ * Run from the project folder after compiling:
+ *   java -cp out benchmarks.CatalogViewBenchmark [records]
+ *
+ * @author Comic Book Store System
+ * @version 1.0
+ */
+public class CatalogViewBenchmark {
+    // Passes timed for each approach
+    private static final int REPEATS = 10;
+
+    public static void main(String[] args) throws Exception {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        File comicsFile = File.createTempFile("comics-view-", ".txt");
+        File stocksFile = File.createTempFile("stocks-view-", ".txt");
+        comicsFile.deleteOnExit();
+        stocksFile.deleteOnExit();
+        FileHandler.writeFile(comicsFile.getPath(), EntityManagerBenchmark.generateCatalog(size));
+        List<String> stocks = new ArrayList<>(size);
+        for (int i = 1; i <= size; i++) stocks.add(new Stock(i, i % 4 == 0 ? 0 : i % 50).toString());
+        FileHandler.writeFile(stocksFile.getPath(), stocks);
+        ComicManager comics = new ComicManager(comicsFile.getPath());
+        InventoryManager inventory = new InventoryManager(stocksFile.getPath());
+
+        long start = System.nanoTime();
+        CatalogView view = inventory.catalogView(comics);
+        view.size();
+        System.out.printf("View over %d comics built in %.1f ms%n%n", size, (System.nanoTime() - start) / 1e6);
+
+        long inStock = 0;
+        start = System.nanoTime();
+        for (int r = 0; r < REPEATS; r++) {
+            inStock = 0;
+            for (Comic comic : comics.getAll())
+                if (inventory.getStockQuantity(comic.getId()) > 0) inStock += comic.getTitle().length();
+        }
+        System.out.printf("Lookup per comic: %8.1f ms/pass%n", (System.nanoTime() - start) / 1e6 / REPEATS);
+
+        long[] joined = {0};
+        start = System.nanoTime();
+        for (int r = 0; r < REPEATS; r++) {
+            joined[0] = 0;
+            view.forEach(row -> {
+                if (row.getComic() != null && row.getQuantity() > 0) joined[0] += row.getTitle().length();
+            });
+        }
+        System.out.printf("Joined view:      %8.1f ms/pass%n", (System.nanoTime() - start) / 1e6 / REPEATS);
+        System.out.println("Same rows: " + (inStock == joined[0] ? "OK" : "MISMATCH"));
+    }
+}
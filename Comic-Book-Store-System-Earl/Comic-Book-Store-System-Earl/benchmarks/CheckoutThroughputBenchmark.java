@@ -0,0 +1,145 @@
+package benchmarks;
+
+import entities.Comic;
+import entities.Order;
+import entities.Stock;
+import managers.ComicManager;
+import managers.InventoryManager;
+import managers.OrderLedger;
+import managers.PersistenceMode;
+import managers.PurchaseManager;
+import utils.Durability;
+import utils.FileHandler;
+
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * CheckoutThroughputBenchmark - Measures checkouts per second with group commit.
+ *
+ * Runs 1, 8 and 64 concurrent sessions, each repeatedly reserving a multi-line
+ * cart and committing its stock changes, which is the stock side of
+ * PurchaseManager.checkout. Each durability level is measured, and the number of
+ * log writes is reported next to the number of checkouts to show how many
+ * checkouts shared each write and force.
+ *
+ * The same sessions then run whole checkouts through PurchaseManager.checkout,
+ * which also records each order in the order ledger and the sales totals; the
+ * ledger's group writes are reported next to the stock log's.
+ *
+ * Run from the project folder after compiling:
+ *   java -cp out benchmarks.CheckoutThroughputBenchmark [directory] [seconds]
+ *
+ * @author Comic Book Store System
+ * @version 1.0
+ */
+public class CheckoutThroughputBenchmark {
+    // Comics in the catalog the carts are drawn from
+    private static final int COMICS = 1_000;
+
+    // Lines in each cart
+    private static final int CART_LINES = 5;
+
+    public static void main(String[] args) throws Exception {
+        File dir = args.length > 0 ? new File(args[0]) : new File(System.getProperty("java.io.tmpdir"));
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+        List<Comic> comics = new ArrayList<>(COMICS);
+        for (int i = 1; i <= COMICS; i++) comics.add(new Comic(i, "Title " + i, "Author", 100.0, "Genre", 2000));
+
+        System.out.printf("%-20s %-9s %14s %12s %16s%n", "durability", "sessions", "checkouts/s", "writes", "checkouts/write");
+        for (Durability level : Durability.values()) {
+            FileHandler.setDurability(level);
+            for (int sessions : new int[] {1, 8, 64}) {
+                File file = new File(dir, "checkout-bench-" + level + "-" + sessions + ".txt");
+                file.delete();
+                InventoryManager inventory = new InventoryManager(file.getPath());
+                for (Comic comic : comics) inventory.add(new Stock(comic.getId(), Integer.MAX_VALUE));
+                inventory.setPersistenceMode(PersistenceMode.LOG);
+
+                long writesBefore = inventory.getCommitWrites();
+                long checkouts = run(inventory, comics, sessions, seconds);
+                long writes = inventory.getCommitWrites() - writesBefore;
+                System.out.printf("%-20s %-9d %14.0f %12d %16.1f%n", level, sessions,
+                        checkouts / (double) seconds, writes, checkouts / (double) Math.max(1, writes));
+
+                inventory.save();
+                file.delete();
+            }
+        }
+
+        System.out.printf("%nWhole checkouts (stock, order ledger and sales totals)%n");
+        System.out.printf("%-20s %-9s %14s %12s %14s %16s%n", "durability", "sessions", "checkouts/s", "stock writes",
+                          "ledger writes", "orders/write");
+        for (Durability level : Durability.values()) {
+            FileHandler.setDurability(level);
+            for (int sessions : new int[] {1, 8, 64}) {
+                File runDir = new File(dir, "checkout-bench-" + level + "-" + sessions);
+                runDir.mkdirs();
+                List<String> catalog = new ArrayList<>(COMICS);
+                for (Comic comic : comics) catalog.add(comic.toString());
+                FileHandler.writeFile(new File(runDir, "comics.txt").getPath(), catalog);
+                InventoryManager inventory = new InventoryManager(new File(runDir, "stocks.txt").getPath());
+                for (Comic comic : comics) inventory.add(new Stock(comic.getId(), Integer.MAX_VALUE));
+                inventory.setPersistenceMode(PersistenceMode.LOG);
+                ComicManager comicManager = new ComicManager(new File(runDir, "comics.txt").getPath());
+                PurchaseManager purchases = new PurchaseManager(new File(runDir, "orders.txt").getPath(), comicManager, inventory);
+                OrderLedger ledger = purchases.getLedger();
+
+                long stockWritesBefore = inventory.getCommitWrites();
+                long checkouts = run(cart -> purchases.checkout(cart), comics, sessions, seconds);
+                long stockWrites = inventory.getCommitWrites() - stockWritesBefore;
+                long ledgerWrites = ledger.getCommitWrites();
+                System.out.printf("%-20s %-9d %14.0f %12d %14d %16.1f%n", level, sessions, checkouts / (double) seconds,
+                        stockWrites, ledgerWrites, ledger.getCommitRequests() / (double) Math.max(1, ledgerWrites));
+
+                ledger.close();
+                for (File file : Objects.requireNonNull(runDir.listFiles())) file.delete();
+                runDir.delete();
+            }
+        }
+        FileHandler.setDurability(Durability.NONE);
+    }
+
+    /**
+     * Runs concurrent sessions reserving and committing random carts for a fixed time.
+     *
+     * @return The number of completed checkouts
+     */
+    private static long run(InventoryManager inventory, List<Comic> comics, int sessions, int seconds)
+            throws Exception {
+        return run(cart -> inventory.reserve(cart).commit(), comics, sessions, seconds);
+    }
+
+    /**
+     * Runs concurrent sessions checking out random carts for a fixed time.
+     *
+     * @return The number of completed checkouts
+     */
+    private static long run(Consumer<List<Order>> checkout, List<Comic> comics, int sessions, int seconds)
+            throws Exception {
+        AtomicLong completed = new AtomicLong();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        ExecutorService pool = Executors.newFixedThreadPool(sessions);
+        List<Future<?>> done = new ArrayList<>();
+        for (int s = 0; s < sessions; s++) {
+            done.add(pool.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                List<Order> cart = new ArrayList<>(CART_LINES);
+                while (System.nanoTime() < deadline) {
+                    cart.clear();
+                    for (int i = 0; i < CART_LINES; i++) cart.add(new Order(comics.get(random.nextInt(COMICS)), 1));
+                    checkout.accept(cart);
+                    completed.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        for (Future<?> f : done) f.get();
+        pool.shutdown();
+        return completed.get();
+    }
+}
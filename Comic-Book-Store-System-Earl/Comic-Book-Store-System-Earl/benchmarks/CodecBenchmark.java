@@ -0,0 +1,124 @@
+package benchmarks;
+
+import entities.Comic;
+import entities.Stock;
+import managers.ComicManager;
+import utils.CsvCursor;
+import utils.CsvWriter;
+import utils.FileHandler;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+/**
+ * CodecBenchmark - Counts the garbage created by parsing and serializing records.
+ *
+ * Compares the old String.split / concatenation codec with CsvCursor and CsvWriter,
+ * reporting time and bytes allocated per record, and then measures a full
+ * ComicManager load and save of a generated catalog.
+ *
+ * Run from the project folder after compiling:
+ *   java -cp out benchmarks.CodecBenchmark [records]
+ *
+ * @author Comic Book Store System
+ * @version 1.0
+ */
+public class CodecBenchmark {
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) throws Exception {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        List<String> lines = EntityManagerBenchmark.generateCatalog(size);
+        Comic[] comics = new Comic[size];
+        for (int i = 0; i < size; i++) comics[i] = Comic.fromString(lines.get(i));
+        String stockLine = "42,42,17";
+
+        System.out.printf("%-28s %12s %16s%n", "operation", "ns/record", "bytes/record");
+        for (int round = 0; round < 3; round++) { // Later rounds are the warmed-up numbers
+            CsvCursor cursor = new CsvCursor();
+            CsvWriter writer = new CsvWriter();
+            long sink = 0;
+
+            long[] mark = start();
+            for (String line : lines) sink += legacyComicParse(line).getYear();
+            report("Comic split parse", mark, size);
+
+            mark = start();
+            for (String line : lines) {
+                cursor.reset(line);
+                sink += cursor.nextInt(); // Parsing only; no Comic, no strings
+                cursor.skip();
+                cursor.skip();
+                sink += (long) cursor.nextDouble();
+            }
+            report("cursor numeric fields", mark, size);
+
+            mark = start();
+            for (String line : lines) sink += Comic.fromCsv(cursor.reset(line)).getYear();
+            report("Comic.fromCsv", mark, size);
+
+            mark = start();
+            for (Comic c : comics) sink += legacyComicSerialize(c).length();
+            report("Comic concat serialize", mark, size);
+
+            mark = start();
+            for (Comic c : comics) {
+                c.writeCsv(writer.reset());
+                sink += writer.length();
+            }
+            report("Comic.writeCsv", mark, size);
+
+            mark = start();
+            for (int i = 0; i < size; i++) sink += legacyStockParse(stockLine)[2];
+            report("Stock split parse", mark, size);
+
+            mark = start();
+            for (int i = 0; i < size; i++) sink += Stock.fromCsv(cursor.reset(stockLine)).getQuantity();
+            report("Stock.fromCsv", mark, size);
+
+            if (sink == 42) System.out.println();
+            System.out.println();
+        }
+
+        File file = File.createTempFile("comics-codec-", ".txt");
+        file.deleteOnExit();
+        FileHandler.writeFile(file.getPath(), lines);
+        lines = null;
+        for (int round = 0; round < 3; round++) {
+            long[] mark = start();
+            ComicManager manager = new ComicManager(file.getPath());
+            report("ComicManager load", mark, size);
+            mark = start();
+            manager.save();
+            report("ComicManager save", mark, size);
+        }
+    }
+
+    private static long[] start() {
+        return new long[] {System.nanoTime(), THREADS.getThreadAllocatedBytes(Thread.currentThread().getId())};
+    }
+
+    private static void report(String label, long[] mark, int records) {
+        long nanos = System.nanoTime() - mark[0];
+        long bytes = THREADS.getThreadAllocatedBytes(Thread.currentThread().getId()) - mark[1];
+        System.out.printf("%-28s %12.1f %16.1f%n", label, (double) nanos / records, (double) bytes / records);
+    }
+
+    // The codec Comic and Stock used before CsvCursor and CsvWriter
+    private static Comic legacyComicParse(String line) {
+        String[] parts = line.split(",");
+        return new Comic(Integer.parseInt(parts[0]), parts[1], parts[2],
+                Double.parseDouble(parts[3]), parts[4], Integer.parseInt(parts[5]));
+    }
+
+    private static String legacyComicSerialize(Comic c) {
+        return c.getId() + "," + c.getTitle() + "," + c.getAuthor() + "," + c.getPrice() + "," + c.getGenre() + "," + c.getYear();
+    }
+
+    private static int[] legacyStockParse(String line) {
+        String[] parts = line.split(",");
+        return new int[] {Integer.parseInt(parts[0]), Integer.parseInt(parts[1]), Integer.parseInt(parts[2])};
+    }
+}
@@ -0,0 +1,98 @@
+package benchmarks;
+
+import entities.Comic;
+import managers.ComicManager;
+import utils.FileHandler;
+
+import java.io.File;
+import java.util.*;
+
+/**
+ * EntityManagerBenchmark - Measures primary-key lookups on generated catalogs.
+ *
+ * For each catalog size this benchmark loads a generated comics file through
+ * ComicManager and compares the hash-indexed findById against the linear scan
+ * the manager used before the index was introduced.
+ *
+ * Run from the project folder after compiling:
+ *   java -cp out benchmarks.EntityManagerBenchmark
+ *
+ * @author Comic Book Store System
+ * @version 1.0
+ */
+public class EntityManagerBenchmark {
+    // Catalog sizes to measure
+    private static final int[] SIZES = {10_000, 100_000, 1_000_000};
+
+    // Number of indexed lookups per size
+    private static final int INDEXED_LOOKUPS = 2_000_000;
+
+    // Number of linear-scan lookups per size (kept small because each one is O(N))
+    private static final int SCAN_LOOKUPS = 200;
+
+    public static void main(String[] args) throws Exception {
+        System.out.printf("%-10s %14s %18s %18s %10s%n", "records", "load (ms)", "findById (ns/op)", "linear (ns/op)", "speedup");
+        for (int size : SIZES) {
+            File file = File.createTempFile("comics-bench-", ".txt");
+            file.deleteOnExit();
+            FileHandler.writeFile(file.getPath(), generateCatalog(size));
+
+            long start = System.nanoTime();
+            ComicManager manager = new ComicManager(file.getPath());
+            double loadMs = (System.nanoTime() - start) / 1e6;
+
+            int[] ids = randomIds(size, INDEXED_LOOKUPS);
+            double indexedNs = timeIndexed(manager, ids);
+            double scanNs = timeLinearScan(manager, randomIds(size, SCAN_LOOKUPS));
+
+            System.out.printf("%-10d %14.1f %18.1f %18.1f %9.0fx%n", size, loadMs, indexedNs, scanNs, scanNs / indexedNs);
+        }
+    }
+
+    /**
+     * Generates comic records in the comics.txt format.
+     *
+     * @param size The number of records to generate
+     * @return List of serialized comic lines
+     */
+    static List<String> generateCatalog(int size) {
+        List<String> lines = new ArrayList<>(size);
+        for (int i = 1; i <= size; i++) {
+            lines.add(new Comic(i, "Title " + i, "Author " + (i % 5000), 50.0 + (i % 950), "Genre " + (i % 40), 1980 + (i % 45)).toString());
+        }
+        return lines;
+    }
+
+    private static int[] randomIds(int size, int count) {
+        Random random = new Random(42);
+        int[] ids = new int[count];
+        for (int i = 0; i < count; i++) ids[i] = 1 + random.nextInt(size);
+        return ids;
+    }
+
+    private static double timeIndexed(ComicManager manager, int[] ids) {
+        long sink = 0;
+        for (int i = 0; i < ids.length; i++) sink += manager.findById(ids[i]).getYear(); // Warm up
+        long start = System.nanoTime();
+        for (int i = 0; i < ids.length; i++) sink += manager.findById(ids[i]).getYear();
+        long elapsed = System.nanoTime() - start;
+        if (sink == 42) System.out.println(); // Keep the loop from being optimised away
+        return (double) elapsed / ids.length;
+    }
+
+    private static double timeLinearScan(ComicManager manager, int[] ids) {
+        long sink = 0;
+        long start = System.nanoTime();
+        for (int id : ids) {
+            for (Comic c : manager.getAll()) {
+                if (c.getId() == id) {
+                    sink += c.getYear();
+                    break;
+                }
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        if (sink == 42) System.out.println();
+        return (double) elapsed / ids.length;
+    }
+}
@@ -0,0 +1,94 @@
+package benchmarks;
+
+import entities.Comic;
+import entities.Stock;
+import managers.ComicFacets;
+import managers.ComicManager;
+import managers.InventoryManager;
+import utils.FileHandler;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * FacetBenchmark - Measures faceted filtering over a large catalog.
+ *
+ * Generates a comics file and a stock file with every third comic sold out, times
+ * the first filter (which builds the bitmaps), then times typical filters against
+ * a plain scan of every comic for the same filter. Facet counts are part of every
+ * timed filter.
+ *
+ * Run from the project folder after compiling:
+ *   java -cp out benchmarks.FacetBenchmark [records]
+ *
+ * @author Comic Book Store System
+ * @version 1.0
+ */
+public class FacetBenchmark {
+    // Times each filter is repeated
+    private static final int REPEATS = 50;
+
+    public static void main(String[] args) throws Exception {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        File comicsFile = File.createTempFile("comics-facets-", ".txt");
+        File stocksFile = File.createTempFile("stocks-facets-", ".txt");
+        comicsFile.deleteOnExit();
+        stocksFile.deleteOnExit();
+        FileHandler.writeFile(comicsFile.getPath(), EntityManagerBenchmark.generateCatalog(size));
+        List<String> stocks = new ArrayList<>(size);
+        for (int i = 1; i <= size; i++) stocks.add(new Stock(i, i % 3 == 0 ? 0 : i % 50).toString());
+        FileHandler.writeFile(stocksFile.getPath(), stocks);
+
+        ComicManager comics = new ComicManager(comicsFile.getPath());
+        InventoryManager inventory = new InventoryManager(stocksFile.getPath());
+        ComicFacets facets = new ComicFacets(comics, inventory);
+
+        long start = System.nanoTime();
+        facets.filter(new ComicFacets.Filter());
+        System.out.printf("Bitmaps over %d comics built in %.1f ms%n%n", size, (System.nanoTime() - start) / 1e6);
+
+        System.out.printf("%-40s %10s %12s %12s%n", "filter", "matches", "bitmap ms", "scan ms");
+        time("Genre 7, 2010-2016, under P500, in stock", facets, comics, inventory,
+                new ComicFacets.Filter().genre("Genre 7").years(2010, 2016).under(500).inStock(),
+                "genre 7", 2010, 2016, 500, true);
+        time("Genre 7 or Genre 8", facets, comics, inventory,
+                new ComicFacets.Filter().genre("Genre 7").genre("Genre 8"),
+                null, Integer.MIN_VALUE, Integer.MAX_VALUE, Double.MAX_VALUE, false);
+        time("2000-2004, in stock", facets, comics, inventory,
+                new ComicFacets.Filter().years(2000, 2004).inStock(),
+                null, 2000, 2004, Double.MAX_VALUE, true);
+        time("everything", facets, comics, inventory, new ComicFacets.Filter(),
+                null, Integer.MIN_VALUE, Integer.MAX_VALUE, Double.MAX_VALUE, false);
+    }
+
+    private static void time(String name, ComicFacets facets, ComicManager comics, InventoryManager inventory,
+                             ComicFacets.Filter filter, String genre, int from, int to, double under, boolean inStock) {
+        int matches = facets.filter(filter).getCount();
+        long start = System.nanoTime();
+        for (int i = 0; i < REPEATS; i++) facets.filter(filter);
+        double bitmapMs = (System.nanoTime() - start) / 1e6 / REPEATS;
+
+        // Genre 8 is only used by the OR filter; the scan matches it by hand
+        boolean either = genre == null && name.startsWith("Genre 7 or");
+        start = System.nanoTime();
+        int scanned = 0;
+        for (int i = 0; i < REPEATS; i++) {
+            scanned = 0;
+            for (Comic comic : comics.getAll()) {
+                String g = comic.getGenre().toLowerCase();
+                if (genre != null && !g.equals(genre)) continue;
+                if (either && !g.equals("genre 7") && !g.equals("genre 8")) continue;
+                if (comic.getYear() < from || comic.getYear() > to || comic.getPrice() >= under) continue;
+                if (inStock) {
+                    Stock stock = inventory.findById(comic.getId());
+                    if (stock == null || stock.getQuantity() == 0) continue;
+                }
+                scanned++;
+            }
+        }
+        double scanMs = (System.nanoTime() - start) / 1e6 / REPEATS;
+        System.out.printf("%-40s %10d %12.3f %12.3f%s%n", name, matches, bitmapMs, scanMs,
+                scanned == matches ? "" : "  (scan found " + scanned + ")");
+    }
+}
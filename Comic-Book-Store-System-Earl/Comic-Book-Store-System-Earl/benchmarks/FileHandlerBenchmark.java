@@ -0,0 +1,67 @@
+package benchmarks;
+
+import utils.Durability;
+import utils.FileHandler;
+
+import java.io.File;
+import java.util.*;
+
+/**
+ * FileHandlerBenchmark - Measures the latency cost of each durability level.
+ *
+ * For every Durability level this benchmark times whole-file replacements of a
+ * stocks-sized file and single-record log appends, and prints the median, 99th
+ * percentile and mean latency of each.
+ *
+ * Run from the project folder after compiling:
+ *   java -cp out benchmarks.FileHandlerBenchmark [directory]
+ *
+ * @author Comic Book Store System
+ * @version 1.0
+ */
+public class FileHandlerBenchmark {
+    // Lines in each whole-file write, roughly a stocks.txt for a mid-sized store
+    private static final int LINES_PER_FILE = 5_000;
+
+    // Timed operations per level
+    private static final int ITERATIONS = 200;
+
+    public static void main(String[] args) throws Exception {
+        File dir = args.length > 0 ? new File(args[0]) : new File(System.getProperty("java.io.tmpdir"));
+        List<String> lines = new ArrayList<>(LINES_PER_FILE);
+        for (int i = 1; i <= LINES_PER_FILE; i++) lines.add(i + "," + i + "," + (i % 97));
+        List<String> record = Collections.singletonList("P 1,1,42");
+
+        System.out.printf("%-20s %-8s %12s %12s %12s%n", "durability", "op", "p50 (us)", "p99 (us)", "mean (us)");
+        for (Durability level : Durability.values()) {
+            FileHandler.setDurability(level);
+            File file = new File(dir, "durability-bench-" + level + ".txt");
+            File log = new File(dir, "durability-bench-" + level + ".log");
+
+            long[] writes = new long[ITERATIONS];
+            long[] appends = new long[ITERATIONS];
+            for (int i = 0; i < ITERATIONS; i++) {
+                long start = System.nanoTime();
+                FileHandler.writeFile(file.getPath(), lines);
+                writes[i] = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                FileHandler.appendLines(log.getPath(), record);
+                appends[i] = System.nanoTime() - start;
+            }
+            report(level, "write", writes);
+            report(level, "append", appends);
+            file.delete();
+            log.delete();
+        }
+        FileHandler.setDurability(Durability.NONE);
+    }
+
+    private static void report(Durability level, String op, long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        double mean = Arrays.stream(sorted).average().orElse(0);
+        System.out.printf("%-20s %-8s %12.1f %12.1f %12.1f%n", level, op,
+                sorted[sorted.length / 2] / 1e3, sorted[(int) (sorted.length * 0.99)] / 1e3, mean / 1e3);
+    }
+}
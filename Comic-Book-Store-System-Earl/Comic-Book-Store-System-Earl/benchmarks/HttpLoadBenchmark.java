@@ -0,0 +1,169 @@
+package benchmarks;
+
+import entities.Stock;
+import managers.ComicManager;
+import managers.InventoryManager;
+import managers.PersistenceMode;
+import managers.PurchaseManager;
+import server.StoreHttpServer;
+import server.VirtualThreads;
+import utils.FileHandler;
+import utils.LatencyHistogram;
+
+import java.io.*;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * HttpLoadBenchmark - Load test of the HTTP API with many concurrent clients.
+ *
+ * Starts a StoreHttpServer over a generated catalog and runs a fixed number of
+ * clients against it for a fixed time, each on a thread of its own and each
+ * sending its next request as soon as the previous one is answered. A client
+ * searches the catalog 60% of the time, looks up stock 25% of the time and
+ * otherwise buys: create a cart, add two comics, check out. Every request is
+ * timed on the client side, and the report gives requests per second and the
+ * latency percentiles per kind of request.
+ *
+ * Run from the project folder after compiling:
+ *   java -cp out benchmarks.HttpLoadBenchmark [clients] [seconds] [comics]
+ *
+ * @author Comic Book Store System
+ * @version 1.0
+ */
+public class HttpLoadBenchmark {
+    // Kinds of request timed separately
+    private static final String[] KINDS = {"search", "stock", "create cart", "add item", "checkout"};
+
+    // Time under full load before measuring starts
+    private static final long WARMUP_MILLIS = 3_000;
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 1_000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int size = args.length > 2 ? Integer.parseInt(args[2]) : 100_000;
+
+        // Keep one connection per client alive instead of the default five
+        System.setProperty("http.maxConnections", String.valueOf(clients));
+
+        File dir = Files.createTempDirectory("http-load-").toFile();
+        FileHandler.writeFile(new File(dir, "comics.txt").getPath(), EntityManagerBenchmark.generateCatalog(size));
+        List<String> stocks = new ArrayList<>(size);
+        for (int i = 1; i <= size; i++) stocks.add(new Stock(i, 1_000_000_000).toString());
+        FileHandler.writeFile(new File(dir, "stocks.txt").getPath(), stocks);
+
+        ComicManager comics = new ComicManager(new File(dir, "comics.txt").getPath());
+        InventoryManager inventory = new InventoryManager(new File(dir, "stocks.txt").getPath());
+        inventory.setPersistenceMode(PersistenceMode.LOG); // As the store runs: sales share log writes
+        PurchaseManager purchases = new PurchaseManager(new File(dir, "orders.txt").getPath(), comics, inventory);
+        comics.search("title", 1); // Build the text index before the clock starts
+
+        StoreHttpServer server = new StoreHttpServer(comics, inventory, purchases);
+        server.start(0);
+        String base = "http://localhost:" + server.getPort();
+        System.out.printf("%d clients for %d s against %d comics, on %s threads%n%n", clients, seconds, size,
+                          VirtualThreads.isAvailable() ? "virtual" : "platform");
+
+        Map<String, LatencyHistogram> latency = new LinkedHashMap<>();
+        for (String kind : KINDS) latency.put(kind, new LatencyHistogram());
+        LatencyHistogram all = new LatencyHistogram();
+        LongAdder errors = new LongAdder();
+
+        // Clients send unmeasured requests until every one of them has connected and the
+        // server has settled, so the measurement sees steady load, not the connection storm
+        CountDownLatch connected = new CountDownLatch(clients);
+        AtomicBoolean measuring = new AtomicBoolean();
+        AtomicBoolean stopping = new AtomicBoolean();
+        ExecutorService pool = VirtualThreads.newPerTaskExecutor("http-client");
+        List<Future<?>> done = new ArrayList<>();
+        for (int c = 0; c < clients; c++) {
+            done.add(pool.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                call(base + "/stock/1", "GET", null, null, errors);
+                connected.countDown();
+                while (!stopping.get()) {
+                    boolean measured = measuring.get();
+                    int roll = random.nextInt(100);
+                    if (roll < 60) {
+                        call(base + "/comics?q=title+" + (1 + random.nextInt(size)) + "&limit=10", "GET",
+                             measured ? latency.get("search") : null, all, errors);
+                    } else if (roll < 85) {
+                        call(base + "/stock/" + (1 + random.nextInt(size)), "GET",
+                             measured ? latency.get("stock") : null, all, errors);
+                    } else {
+                        String cart = call(base + "/carts", "POST", measured ? latency.get("create cart") : null, all, errors);
+                        if (cart == null) continue;
+                        String cartUrl = base + "/carts/" + cart.replaceAll("\\D", "");
+                        for (int i = 0; i < 2; i++) {
+                            call(cartUrl + "/items?comic=" + (1 + random.nextInt(size)) + "&quantity=1", "POST",
+                                 measured ? latency.get("add item") : null, all, errors);
+                        }
+                        call(cartUrl + "/checkout", "POST", measured ? latency.get("checkout") : null, all, errors);
+                    }
+                }
+                return null;
+            }));
+        }
+        connected.await();
+        Thread.sleep(WARMUP_MILLIS);
+        errors.reset(); // Only errors under measurement count
+        long start = System.nanoTime();
+        measuring.set(true);
+        Thread.sleep(TimeUnit.SECONDS.toMillis(seconds));
+        stopping.set(true);
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        for (Future<?> f : done) f.get();
+        pool.shutdown();
+        server.close();
+
+        System.out.printf("%-12s %10s %10s %10s %10s %10s %10s%n", "request", "count", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Map.Entry<String, LatencyHistogram> entry : latency.entrySet()) print(entry.getKey(), entry.getValue());
+        print("all", all);
+        System.out.printf("%nThroughput: %.0f requests/s, %d errors%n", all.getCount() / elapsed, errors.sum());
+
+        for (File file : Objects.requireNonNull(dir.listFiles())) file.delete();
+        dir.delete();
+    }
+
+    /**
+     * Sends one request and reads the whole response so the connection can be reused.
+     *
+     * @param latency Where the request's time is recorded, or null not to time it
+     * @return The response body, or null if the request failed
+     */
+    private static String call(String url, String method, LatencyHistogram latency, LatencyHistogram all,
+                               LongAdder errors) {
+        long start = System.nanoTime();
+        String body = null;
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+            connection.setRequestMethod(method);
+            int status = connection.getResponseCode();
+            try (InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+                String text = in == null ? "" : new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                if (status < 400) body = text;
+            }
+        } catch (IOException e) {
+            // Counted as an error below
+        }
+        if (body == null) errors.increment();
+        if (latency != null) {
+            long elapsed = System.nanoTime() - start;
+            latency.record(elapsed);
+            all.record(elapsed);
+        }
+        return body;
+    }
+
+    private static void print(String kind, LatencyHistogram histogram) {
+        System.out.printf("%-12s %10d %10.2f %10.2f %10.2f %10.2f %10.2f%n", kind, histogram.getCount(),
+                histogram.getPercentile(50) / 1e6, histogram.getPercentile(90) / 1e6, histogram.getPercentile(99) / 1e6,
+                histogram.getPercentile(99.9) / 1e6, histogram.getMax() / 1e6);
+    }
+}
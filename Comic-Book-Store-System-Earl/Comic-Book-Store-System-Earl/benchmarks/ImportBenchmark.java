@@ -0,0 +1,104 @@
+package benchmarks;
+
+import entities.Comic;
+import managers.CatalogImporter;
+import managers.ComicManager;
+import utils.FileHandler;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+
+/**
+ * ImportBenchmark - Throughput of a supplier feed import into a loaded catalog.
+ *
+ * Generates a catalog and a feed against it. The feed mixes the kinds of row a
+ * supplier sends: price changes to comics given by ID, reprints matched only by
+ * title (written in a different case and spacing), titles new to the store, and
+ * a few broken rows (bad price, year out of range, missing fields). The feed is
+ * imported and the rows per second reported, then the catalog is loaded fresh
+ * from disk and checked against the one in memory.
+ *
+ * Run from the project folder after compiling:
+ *   java -cp out benchmarks.ImportBenchmark [catalog] [feedRows]
+ *
+ * @author Comic Book Store System
+ * @version 1.0
+ */
+public class ImportBenchmark {
+    public static void main(String[] args) throws Exception {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int rows = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+
+        File dir = Files.createTempDirectory("import-bench-").toFile();
+        File comicsFile = new File(dir, "comics.txt");
+        File feedFile = new File(dir, "feed.csv");
+        File rejectFile = new File(dir, "feed.rejects.csv");
+        FileHandler.writeFile(comicsFile.getPath(), EntityManagerBenchmark.generateCatalog(size));
+        int expectedRejects = writeFeed(feedFile, size, rows);
+
+        ComicManager comics = new ComicManager(comicsFile.getPath());
+        comics.search("title", 1); // Build the indexes, as in a running store
+        comics.findByPriceRange(0, 100, 1);
+        comics.findByYearRange(1980, 1990, 1);
+        System.out.printf("Importing %d feed rows into %d comics on %d cores%n", rows, size,
+                          Runtime.getRuntime().availableProcessors());
+
+        CatalogImporter.ImportReport report = new CatalogImporter(comics).importFeed(feedFile.getPath(), rejectFile.getPath());
+        System.out.println(report);
+        System.out.printf("Parse and match %.0f ms, apply and persist %.0f ms%n", report.getParseMillis(), report.getApplyMillis());
+        System.out.printf("Rejects: %d expected, %d reported, %d lines in reject file%n", expectedRejects,
+                          report.getRejected(), Files.readAllLines(rejectFile.toPath()).size() - 1);
+
+        ComicManager reloaded = new ComicManager(comicsFile.getPath());
+        boolean same = reloaded.getAll().size() == comics.getAll().size();
+        for (Comic comic : comics.getAll()) {
+            Comic other = reloaded.findById(comic.getId());
+            same &= other != null && other.toString().equals(comic.toString());
+        }
+        System.out.println("Catalog reloaded from disk " + (same ? "matches" : "DOES NOT match") + " the one in memory ("
+                           + comics.getAll().size() + " comics)");
+
+        for (File file : Objects.requireNonNull(dir.listFiles())) file.delete();
+        dir.delete();
+    }
+
+    /**
+     * Writes a feed of the given number of rows against a generated catalog.
+     *
+     * @return How many of its rows are broken
+     */
+    private static int writeFeed(File feed, int size, int rows) throws IOException {
+        Random random = new Random(42);
+        int rejects = 0;
+        int fresh = 0;
+        try (BufferedWriter out = Files.newBufferedWriter(feed.toPath(), StandardCharsets.UTF_8)) {
+            out.write("id,title,author,price,genre,year");
+            out.newLine();
+            for (int r = 0; r < rows; r++) {
+                int roll = random.nextInt(100);
+                int i = 1 + random.nextInt(size);
+                String line;
+                if (roll < 40) { // Price change by ID
+                    line = i + ",Title " + i + ",Author " + (i % 5000) + "," + (60.0 + random.nextInt(900)) + ",Genre " + (i % 40) + "," + (1980 + i % 45);
+                } else if (roll < 60) { // Reprint known only by title
+                    line = ",TITLE  " + i + ",Author " + (i % 5000) + "," + (50.0 + i % 950) + ",Genre " + (i % 40) + "," + (1980 + i % 45);
+                } else if (roll < 98) { // New to the store
+                    fresh++;
+                    line = ",Supplier Title " + fresh + ",Supplier Author " + (fresh % 700) + ",99.5,Genre " + (fresh % 40) + ",2024";
+                } else { // Broken
+                    rejects++;
+                    switch (random.nextInt(3)) {
+                        case 0: line = i + ",Title " + i + ",Author,-5.0,Genre,2000"; break;
+                        case 1: line = i + ",Title " + i + ",Author,10.0,Genre,1066"; break;
+                        default: line = i + ",Title " + i + ",Author"; break;
+                    }
+                }
+                out.write(line);
+                out.newLine();
+            }
+        }
+        return rejects;
+    }
+}
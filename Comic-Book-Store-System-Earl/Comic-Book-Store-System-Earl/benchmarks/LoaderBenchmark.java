@@ -0,0 +1,61 @@
+package benchmarks;
+
+import entities.Comic;
+import managers.ComicManager;
+import utils.FileHandler;
+import utils.LoadStats;
+import utils.MappedFileReader;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * LoaderBenchmark - Compares the line-list loader with the memory-mapped loader.
+ *
+ * Generates a comics file and loads it three ways: the old readFile-then-parse
+ * path, a bare scan of the mapped file, and a full ComicManager load (mapped scan
+ * plus parsing and indexing). Load time and throughput are printed for each.
+ *
+ * Run from the project folder after compiling:
+ *   java -cp out benchmarks.LoaderBenchmark [records]
+ *
+ * @author Comic Book Store System
+ * @version 1.0
+ */
+public class LoaderBenchmark {
+    public static void main(String[] args) throws Exception {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        File file = File.createTempFile("comics-load-", ".txt");
+        file.deleteOnExit();
+        FileHandler.writeFile(file.getPath(), EntityManagerBenchmark.generateCatalog(size));
+        long bytes = file.length();
+
+        for (int round = 1; round <= 3; round++) {
+            System.out.println("Round " + round + " (" + size + " records, " + bytes / (1024 * 1024) + " MB)");
+
+            long start = System.nanoTime();
+            List<String> lines = FileHandler.readFile(file.getPath());
+            List<Comic> comics = new ArrayList<>();
+            for (String line : lines) {
+                Comic comic = Comic.fromString(line);
+                if (comic != null) comics.add(comic);
+            }
+            print("readFile + fromString", new LoadStats(bytes, comics.size(), System.nanoTime() - start));
+            lines = null;
+            comics = null;
+
+            long[] chars = new long[1];
+            LoadStats scan = MappedFileReader.read(file.getPath(), record -> chars[0] += record.length());
+            print("mapped scan only", scan);
+
+            ComicManager manager = new ComicManager(file.getPath());
+            print("ComicManager.load", manager.getLastLoadStats());
+            System.out.println();
+        }
+    }
+
+    private static void print(String label, LoadStats stats) {
+        System.out.printf("  %-24s %s%n", label, stats);
+    }
+}
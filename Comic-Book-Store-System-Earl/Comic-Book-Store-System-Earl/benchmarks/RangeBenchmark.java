@@ -0,0 +1,108 @@
+package benchmarks;
+
+import entities.Comic;
+import managers.ComicManager;
+import managers.PersistenceMode;
+import utils.FileHandler;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Scanner;
+
+/**
+ * RangeBenchmark - Measures price and year range queries over a large catalog.
+ *
+ * Generates a comics file, times the first query of each index (which builds it),
+ * then times range queries against a scan-filter-sort of every comic. Price edits
+ * made through the interactive update are timed too, and the results are checked
+ * against a scan afterwards.
+ *
+ * Run from the project folder after compiling:
+ *   java -cp out benchmarks.RangeBenchmark [records]
+ *
+ * @author Comic Book Store System
+ * @version 1.0
+ */
+public class RangeBenchmark {
+    // Times each query is repeated
+    private static final int REPEATS = 50;
+
+    // Comics returned per query
+    private static final int LIMIT = 100;
+
+    public static void main(String[] args) throws Exception {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        File file = File.createTempFile("comics-range-", ".txt");
+        file.deleteOnExit();
+        FileHandler.writeFile(file.getPath(), EntityManagerBenchmark.generateCatalog(size));
+        ComicManager comics = new ComicManager(file.getPath());
+
+        long start = System.nanoTime();
+        comics.countByPriceRange(0, 0);
+        comics.countByYearRange(0, 0);
+        System.out.printf("Price and year indexes over %d comics built in %.1f ms%n%n", size, (System.nanoTime() - start) / 1e6);
+
+        System.out.printf("%-28s %10s %12s %12s%n", "range", "matches", "index ms", "scan ms");
+        timePrice(comics, 200, 800);
+        timePrice(comics, 500, 501);
+        timeYear(comics, 2016, Integer.MAX_VALUE);
+        timeYear(comics, 1990, 1990);
+
+        // Edit prices the way the admin menu does, with its prompts sent nowhere
+        comics.setPersistenceMode(PersistenceMode.LOG);
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        start = System.nanoTime();
+        for (int id = 1; id <= REPEATS; id++)
+            comics.update(id, new Scanner("3\n" + (10_000 + id) + "\n6\n"));
+        long elapsed = System.nanoTime() - start;
+        System.setOut(console);
+        System.out.printf("%nPrice edit through update: %.3f ms/edit%n", elapsed / 1e6 / REPEATS);
+
+        List<Comic> top = comics.findByPriceRange(10_000, Double.MAX_VALUE, LIMIT);
+        boolean ok = top.size() == REPEATS && top.get(0).getId() == 1 && top.get(REPEATS - 1).getPrice() == 10_000 + REPEATS
+                && comics.countByPriceRange(200, 800) == scan(comics, c -> c.getPrice() >= 200 && c.getPrice() <= 800).size();
+        System.out.println("Index agrees with a scan after edits: " + (ok ? "OK" : "MISMATCH"));
+        comics.save();
+    }
+
+    private static void timePrice(ComicManager comics, double min, double max) {
+        int matches = comics.countByPriceRange(min, max);
+        long start = System.nanoTime();
+        for (int i = 0; i < REPEATS; i++) comics.findByPriceRange(min, max, LIMIT);
+        double indexMs = (System.nanoTime() - start) / 1e6 / REPEATS;
+        start = System.nanoTime();
+        for (int i = 0; i < REPEATS; i++) {
+            List<Comic> found = scan(comics, c -> c.getPrice() >= min && c.getPrice() <= max);
+            found.sort(Comparator.comparingDouble(Comic::getPrice).thenComparingInt(Comic::getId));
+        }
+        double scanMs = (System.nanoTime() - start) / 1e6 / REPEATS;
+        System.out.printf("%-28s %10d %12.3f %12.3f%n", "price " + min + "-" + max, matches, indexMs, scanMs);
+    }
+
+    private static void timeYear(ComicManager comics, int from, int to) {
+        int matches = comics.countByYearRange(from, to);
+        long start = System.nanoTime();
+        for (int i = 0; i < REPEATS; i++) comics.findByYearRange(from, to, LIMIT);
+        double indexMs = (System.nanoTime() - start) / 1e6 / REPEATS;
+        start = System.nanoTime();
+        for (int i = 0; i < REPEATS; i++) {
+            List<Comic> found = scan(comics, c -> c.getYear() >= from && c.getYear() <= to);
+            found.sort(Comparator.comparingInt(Comic::getYear).thenComparingInt(Comic::getId));
+        }
+        double scanMs = (System.nanoTime() - start) / 1e6 / REPEATS;
+        System.out.printf("%-28s %10d %12.3f %12.3f%n", "year " + from + "-" + (to == Integer.MAX_VALUE ? "" : to),
+                matches, indexMs, scanMs);
+    }
+
+    private static List<Comic> scan(ComicManager comics, java.util.function.Predicate<Comic> test) {
+        List<Comic> found = new ArrayList<>();
+        for (Comic comic : comics.getAll())
+            if (test.test(comic)) found.add(comic);
+        return found;
+    }
+}
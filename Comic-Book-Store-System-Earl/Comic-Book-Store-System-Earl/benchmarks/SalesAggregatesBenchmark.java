@@ -0,0 +1,135 @@
+package benchmarks;
+
+import entities.Order;
+import entities.Stock;
+import managers.*;
+import utils.Durability;
+import utils.FileHandler;
+import utils.LatencyHistogram;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * SalesAggregatesBenchmark - Running sales totals under concurrent checkouts.
+ *
+ * Runs concurrent checkouts through PurchaseManager, which keeps the sales totals
+ * as it records each order, then:
+ *   - times the dashboard questions (today's revenue, this week's best sellers)
+ *     against the running totals and against a SalesReport scan of the ledger,
+ *   - checks the running totals against the scan, comic by comic,
+ *   - simulates a crash: the store is reopened without saving, so the totals come
+ *     from the last checkpoint plus the ledger, and must still match the scan,
+ *   - breaks the checkpoint file and reopens again, so the totals are rebuilt
+ *     from the ledger alone.
+ *
+ * Run from the project folder after compiling:
+ *   java -cp out benchmarks.SalesAggregatesBenchmark [threads] [seconds]
+ *
+ * @author Comic Book Store System
+ * @version 1.0
+ */
+public class SalesAggregatesBenchmark {
+    // Comics the carts are drawn from
+    private static final int COMICS = 5_000;
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        FileHandler.setDurability(Durability.NONE); // Measure the totals, not the disk
+        File dir = Files.createTempDirectory("sales-agg-").toFile();
+        FileHandler.writeFile(new File(dir, "comics.txt").getPath(), EntityManagerBenchmark.generateCatalog(COMICS));
+        List<String> stocks = new ArrayList<>(COMICS);
+        for (int i = 1; i <= COMICS; i++) stocks.add(new Stock(i, 1_000_000_000).toString());
+        FileHandler.writeFile(new File(dir, "stocks.txt").getPath(), stocks);
+
+        ComicManager comics = new ComicManager(new File(dir, "comics.txt").getPath());
+        InventoryManager inventory = new InventoryManager(new File(dir, "stocks.txt").getPath());
+        inventory.setPersistenceMode(PersistenceMode.LOG);
+        PurchaseManager purchases = new PurchaseManager(new File(dir, "orders.txt").getPath(), comics, inventory);
+
+        LatencyHistogram checkoutLatency = new LatencyHistogram();
+        AtomicBoolean stopping = new AtomicBoolean();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> done = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            done.add(pool.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (!stopping.get()) {
+                    List<Order> cart = new ArrayList<>();
+                    int lines = 1 + random.nextInt(3);
+                    for (int l = 0; l < lines; l++) {
+                        cart.add(new Order(comics.findById(1 + random.nextInt(COMICS)), 1 + random.nextInt(3)));
+                    }
+                    long start = System.nanoTime();
+                    purchases.checkout(cart);
+                    checkoutLatency.recordSince(start);
+                }
+                return null;
+            }));
+        }
+        Thread.sleep(seconds * 1000L);
+        stopping.set(true);
+        for (Future<?> f : done) f.get();
+        pool.shutdown();
+        System.out.printf("%d threads, %d s: %d checkouts, %.0f/s, p50 %.3f ms, p99 %.3f ms%n%n", threads, seconds,
+                          checkoutLatency.getCount(), checkoutLatency.getCount() / (double) seconds,
+                          checkoutLatency.getPercentile(50) / 1e6, checkoutLatency.getPercentile(99) / 1e6);
+
+        SalesAggregates sales = purchases.getSales();
+        LocalDate today = LocalDate.now();
+        long start = System.nanoTime();
+        int repeats = 1_000;
+        for (int i = 0; i < repeats; i++) {
+            sales.getDays(today, today);
+            sales.topComics(today.minusDays(6), today, 5);
+        }
+        double runningMicros = (System.nanoTime() - start) / 1e3 / repeats;
+        start = System.nanoTime();
+        SalesReport.Result scanned = new SalesReport(purchases.getLedger(), comics).run(today.minusDays(6), today);
+        double scanMicros = (System.nanoTime() - start) / 1e3;
+        System.out.printf("Today's revenue and this week's top 5: %.0f us from running totals, %.0f us by scanning %d orders%n%n",
+                          runningMicros, scanMicros, scanned.getOrders());
+
+        check("Running totals", sales, purchases.getLedger(), comics);
+
+        // Crash: reopen without saving; the checkpoint is up to 999 sales behind the ledger
+        purchases.getLedger().close();
+        PurchaseManager reopened = new PurchaseManager(new File(dir, "orders.txt").getPath(), comics, inventory);
+        check("After a crash (checkpoint + ledger)", reopened.getSales(), reopened.getLedger(), comics);
+
+        // Broken checkpoint: rebuilt from the ledger alone
+        reopened.getLedger().close();
+        FileHandler.writeFile(new File(dir, "sales.agg").getPath(), List.of("covered,not-a-number"));
+        start = System.nanoTime();
+        PurchaseManager rebuilt = new PurchaseManager(new File(dir, "orders.txt").getPath(), comics, inventory);
+        System.out.printf("(rebuilt in %.0f ms)%n", (System.nanoTime() - start) / 1e6);
+        check("After losing the checkpoint (ledger only)", rebuilt.getSales(), rebuilt.getLedger(), comics);
+        rebuilt.getLedger().close();
+
+        for (File file : Objects.requireNonNull(dir.listFiles())) file.delete();
+        dir.delete();
+    }
+
+    /**
+     * Compares running totals with a scan of the whole ledger.
+     */
+    private static void check(String what, SalesAggregates sales, OrderLedger ledger, ComicManager comics) {
+        SalesReport.Result report = new SalesReport(ledger, comics).run(null, null);
+        SalesReport.Totals total = sales.getTotal();
+        boolean same = sales.getOrdersCovered() == ledger.size() && total.getOrders() == report.getOrders()
+                && total.getUnits() == report.getUnits() && Math.abs(total.getRevenue() - report.getRevenue()) < 0.01;
+        for (SalesReport.Totals comic : report.getByComic()) {
+            SalesReport.Totals running = sales.getComic(Integer.parseInt(comic.getKey()));
+            same &= running.getUnits() == comic.getUnits() && running.getOrders() == comic.getOrders();
+        }
+        same &= sales.topComics(null, null, Integer.MAX_VALUE).size() == report.getByComic().size();
+        System.out.printf("%-42s %d orders, %d units, P%.2f -> %s the ledger scan%n", what + ":", total.getOrders(),
+                          total.getUnits(), total.getRevenue(), same ? "matches" : "DOES NOT match");
+    }
+}
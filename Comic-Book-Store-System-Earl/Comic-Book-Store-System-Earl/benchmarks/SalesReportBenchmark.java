@@ -0,0 +1,97 @@
+package benchmarks;
+
+import entities.OrderRecord;
+import managers.ComicManager;
+import managers.OrderLedger;
+import managers.SalesReport;
+import utils.Durability;
+import utils.FileHandler;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.*;
+
+/**
+ * SalesReportBenchmark - Sales report over a year of generated order history.
+ *
+ * Fills an order ledger with a year of orders of one to five lines each against a
+ * generated catalog, then times a full report, a report of the last 30 days and,
+ * for comparison, a plain loop reading every order with OrderLedger.get and adding
+ * up revenue. The report's totals are checked against the loop's.
+ *
+ * Run from the project folder after compiling (more cores, more speed-up):
+ *   java -cp out benchmarks.SalesReportBenchmark [orders] [comics]
+ *
+ * @author Comic Book Store System
+ * @version 1.0
+ */
+public class SalesReportBenchmark {
+    public static void main(String[] args) throws Exception {
+        int orders = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int size = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+
+        File dir = Files.createTempDirectory("sales-report-").toFile();
+        FileHandler.writeFile(new File(dir, "comics.txt").getPath(), EntityManagerBenchmark.generateCatalog(size));
+        ComicManager comics = new ComicManager(new File(dir, "comics.txt").getPath());
+
+        FileHandler.setDurability(Durability.NONE); // Generating history, not timing appends
+        OrderLedger ledger = new OrderLedger(new File(dir, "orders.ledger").getPath());
+        ZoneId zone = ZoneId.systemDefault();
+        LocalDate lastDay = LocalDate.now(zone);
+        long first = lastDay.minusDays(364).atStartOfDay(zone).toInstant().toEpochMilli();
+        long span = lastDay.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli() - first;
+        Random random = new Random(42);
+        long lines = 0;
+        for (int i = 1; i <= orders; i++) {
+            int count = 1 + random.nextInt(5);
+            List<OrderRecord.Line> items = new ArrayList<>(count);
+            for (int l = 0; l < count; l++) {
+                int id = 1 + random.nextInt(size);
+                items.add(new OrderRecord.Line(id, "Title " + id, 1 + random.nextInt(3), 50.0 + (id % 950)));
+            }
+            lines += count;
+            ledger.append(new OrderRecord(i, first + span * (i - 1) / orders, items));
+        }
+        System.out.printf("%d orders, %d lines over 365 days, %d comics, %d cores%n%n", orders, lines, size,
+                          Runtime.getRuntime().availableProcessors());
+
+        SalesReport report = new SalesReport(ledger, comics, zone);
+        report.run(lastDay, lastDay); // Warm up
+        SalesReport.Result all = report.run(null, null);
+        System.out.printf("Full year:    %8.0f ms  (%.0f lines/s)%n", all.getScanMillis(), lines / (all.getScanMillis() / 1e3));
+        SalesReport.Result month = report.run(lastDay.minusDays(29), lastDay);
+        System.out.printf("Last 30 days: %8.0f ms  (%d orders)%n", month.getScanMillis(), month.getOrders());
+
+        long start = System.nanoTime();
+        double revenue = 0;
+        long units = 0;
+        for (int i = 0; i < ledger.size(); i++) {
+            OrderRecord order = ledger.get(i);
+            for (OrderRecord.Line line : order.getLines()) {
+                revenue += line.getTotal();
+                units += line.getQuantity();
+            }
+        }
+        double loopMs = (System.nanoTime() - start) / 1e6;
+        System.out.printf("Order-by-order loop, revenue only: %.0f ms%n%n", loopMs);
+
+        System.out.printf("Report: %d units, P%.2f; loop: %d units, P%.2f -> %s%n", all.getUnits(), all.getRevenue(),
+                          units, revenue, units == all.getUnits() && Math.abs(revenue - all.getRevenue()) < 0.01 * orders
+                                  ? "consistent" : "MISMATCH");
+        System.out.printf("Days: %d, comics: %d, genres: %d, authors: %d, average basket %.2f units / P%.2f%n",
+                          all.getByDay().size(), all.getByComic().size(), all.getByGenre().size(), all.getByAuthor().size(),
+                          all.getAverageBasketUnits(), all.getAverageBasketRevenue());
+
+        File csv = new File(dir, "report.csv");
+        try (Writer out = new BufferedWriter(new FileWriter(csv))) {
+            all.writeCsv(out);
+        }
+        System.out.printf("CSV: %d rows, %d KB%n", Files.lines(csv.toPath()).count() - 1, csv.length() / 1024);
+
+        ledger.close();
+        for (File file : Objects.requireNonNull(dir.listFiles())) file.delete();
+        dir.delete();
+    }
+}
@@ -0,0 +1,68 @@
+package benchmarks;
+
+import entities.Comic;
+import managers.ComicManager;
+import managers.PersistenceMode;
+import utils.FileHandler;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * SearchBenchmark - Measures full-text search over a large catalog.
+ *
+ * Generates a comics file, times the first search (which builds the text index),
+ * then times typical queries: a rare word, an AND of a rare and a common word, an
+ * OR of two genres, and a word every comic contains. Adds and deletes are timed as
+ * well, since the index is updated one comic at a time.
+ *
+ * Run from the project folder after compiling:
+ *   java -cp out benchmarks.SearchBenchmark [records]
+ *
+ * @author Comic Book Store System
+ * @version 1.0
+ */
+public class SearchBenchmark {
+    // Times each query is repeated
+    private static final int REPEATS = 200;
+
+    public static void main(String[] args) throws Exception {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        File file = File.createTempFile("comics-search-", ".txt");
+        file.deleteOnExit();
+        FileHandler.writeFile(file.getPath(), EntityManagerBenchmark.generateCatalog(size));
+        ComicManager comics = new ComicManager(file.getPath());
+
+        long start = System.nanoTime();
+        comics.search("title", 1);
+        System.out.printf("Index of %d comics built in %.1f ms%n%n", size, (System.nanoTime() - start) / 1e6);
+
+        String[] queries = {
+            String.valueOf(size / 2),
+            "title " + (size / 3),
+            "author 4242",
+            "genre 7 OR genre 8",
+            "title",
+        };
+        System.out.printf("%-24s %10s %14s%n", "query", "hits", "ms/query");
+        for (String query : queries) {
+            int hits = comics.search(query, Integer.MAX_VALUE).size();
+            start = System.nanoTime();
+            for (int i = 0; i < REPEATS; i++) comics.search(query, 10);
+            System.out.printf("%-24s %10d %14.3f%n", query, hits, (System.nanoTime() - start) / 1e6 / REPEATS);
+        }
+
+        comics.setPersistenceMode(PersistenceMode.LOG); // Keep the timing on the index, not on rewriting the file
+        start = System.nanoTime();
+        for (int i = 1; i <= REPEATS; i++)
+            comics.add(new Comic(size + i, "Late Arrival " + i, "New Author", 99.0, "Genre 1", 2024));
+        System.out.printf("%nAdd and index: %.3f ms/comic%n", (System.nanoTime() - start) / 1e6 / REPEATS);
+        start = System.nanoTime();
+        for (int i = 1; i <= REPEATS; i++)
+            comics.delete(size + i);
+        System.out.printf("Delete and unindex: %.3f ms/comic%n", (System.nanoTime() - start) / 1e6 / REPEATS);
+        List<Comic> gone = comics.search("late arrival", 10);
+        System.out.println("Search after delete finds: " + gone.size() + " comics");
+        comics.save();
+    }
+}
@@ -0,0 +1,62 @@
+package benchmarks;
+
+import managers.ComicManager;
+import utils.FileHandler;
+
+import java.io.File;
+
+/**
+ * SnapshotBenchmark - Compares text startup with binary snapshot startup.
+ *
+ * Generates a comics file, loads it once from text and writes a snapshot, then
+ * times constructing a ComicManager from the text file and from the snapshot.
+ * The first findByName after a snapshot load is timed separately, since secondary
+ * indexes are built on first use.
+ *
+ * Run from the project folder after compiling:
+ *   java -cp out benchmarks.SnapshotBenchmark [records]
+ *
+ * @author Comic Book Store System
+ * @version 1.0
+ */
+public class SnapshotBenchmark {
+    public static void main(String[] args) throws Exception {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        File file = File.createTempFile("comics-snapshot-", ".txt");
+        File snapshot = new File(file.getPath() + ".snap");
+        file.deleteOnExit();
+        snapshot.deleteOnExit();
+        FileHandler.writeFile(file.getPath(), EntityManagerBenchmark.generateCatalog(size));
+
+        long start = System.nanoTime();
+        new ComicManager(file.getPath()).writeSnapshot();
+        System.out.printf("Snapshot of %d records written in %.1f ms (%d MB text, %d MB snapshot)%n%n",
+                size, (System.nanoTime() - start) / 1e6,
+                file.length() / (1024 * 1024), snapshot.length() / (1024 * 1024));
+
+        for (int round = 1; round <= 5; round++) {
+            System.out.println("Round " + round);
+
+            File hidden = new File(snapshot.getPath() + ".off");
+            snapshot.renameTo(hidden);
+            start = System.nanoTime();
+            ComicManager text = new ComicManager(file.getPath());
+            print("text load", System.nanoTime() - start, text.getAll().size());
+            text = null;
+            hidden.renameTo(snapshot);
+
+            start = System.nanoTime();
+            ComicManager fast = new ComicManager(file.getPath());
+            print("snapshot load", System.nanoTime() - start, fast.getAll().size());
+
+            start = System.nanoTime();
+            fast.findByName("Title " + (size / 2));
+            print("first findByName", System.nanoTime() - start, fast.getAll().size());
+            System.out.println();
+        }
+    }
+
+    private static void print(String label, long nanos, int records) {
+        System.out.printf("  %-20s %8.1f ms  (%d records)%n", label, nanos / 1e6, records);
+    }
+}
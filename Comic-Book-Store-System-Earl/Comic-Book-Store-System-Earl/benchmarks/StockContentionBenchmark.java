@@ -0,0 +1,121 @@
+package benchmarks;
+
+import entities.Stock;
+import managers.InventoryManager;
+import managers.PersistenceMode;
+
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * StockContentionBenchmark - Measures concurrent stock decrements and checks for overselling.
+ *
+ * The first part times Stock.tryRemoveStock from 1 up to 2x the core count of
+ * threads, on one hot comic and spread over many comics, next to a baseline where
+ * every decrement takes one shared lock. The second part lets several threads buy
+ * the last copies of a comic through InventoryManager.decrementIfSufficient and
+ * checks that exactly the available stock was sold, in memory and on disk.
+ *
+ * Run from the project folder after compiling:
+ *   java -cp out benchmarks.StockContentionBenchmark
+ *
+ * @author Comic Book Store System
+ * @version 1.0
+ */
+public class StockContentionBenchmark {
+    // Decrements per thread in each timed run
+    private static final int OPS_PER_THREAD = 2_000_000;
+
+    // Comics the decrements are spread over in the low-contention runs (a power of two)
+    private static final int SPREAD = 1024;
+
+    public static void main(String[] args) throws Exception {
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.println("Cores: " + cores);
+        System.out.printf("%-8s %-10s %16s %16s%n", "threads", "comics", "CAS (Mops/s)", "locked (Mops/s)");
+        for (int threads = 1; threads <= Math.max(2, cores * 2); threads *= 2) {
+            for (int comics : new int[] {1, SPREAD}) {
+                double cas = run(threads, comics, false);
+                double locked = run(threads, comics, true);
+                System.out.printf("%-8d %-10d %16.1f %16.1f%n", threads, comics, cas, locked);
+            }
+        }
+        System.out.println();
+        checkNoOversell(Math.max(4, cores * 2), 10_000);
+    }
+
+    /**
+     * Runs one timed round of decrements.
+     *
+     * @return Millions of decrements per second across all threads
+     */
+    private static double run(int threads, int comics, boolean locked) throws Exception {
+        Stock[] stocks = new Stock[comics];
+        for (int i = 0; i < comics; i++) stocks[i] = new Stock(i + 1, Integer.MAX_VALUE);
+        Object lock = new Object();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch ready = new CountDownLatch(threads);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<?>> done = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int seed = t;
+            done.add(pool.submit(() -> {
+                int next = seed * 7919;
+                ready.countDown();
+                go.await();
+                for (int i = 0; i < OPS_PER_THREAD; i++) {
+                    Stock stock = stocks[(next += 31) & (comics - 1)];
+                    if (locked) {
+                        synchronized (lock) {
+                            stock.tryRemoveStock(1);
+                        }
+                    } else {
+                        stock.tryRemoveStock(1);
+                    }
+                }
+                return null;
+            }));
+        }
+        ready.await();
+        long start = System.nanoTime();
+        go.countDown();
+        for (Future<?> f : done) f.get();
+        long nanos = System.nanoTime() - start;
+        pool.shutdown();
+        return (double) threads * OPS_PER_THREAD / nanos * 1_000;
+    }
+
+    /**
+     * Lets many threads race to buy the last copies of one comic and checks the totals.
+     */
+    private static void checkNoOversell(int threads, int copies) throws Exception {
+        File file = File.createTempFile("stocks-contention-", ".txt");
+        file.delete();
+        InventoryManager inventory = new InventoryManager(file.getPath());
+        inventory.setPersistenceMode(PersistenceMode.LOG);
+        inventory.add(new Stock(1, copies));
+
+        AtomicLong sold = new AtomicLong();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> done = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            done.add(pool.submit(() -> {
+                while (inventory.decrementIfSufficient(1, 1)) sold.incrementAndGet();
+            }));
+        }
+        for (Future<?> f : done) f.get();
+        long nanos = System.nanoTime() - start;
+        pool.shutdown();
+
+        int left = inventory.getStockQuantity(1);
+        int onDisk = new InventoryManager(file.getPath()).getStockQuantity(1);
+        System.out.printf("Oversell check: %d threads sold %d of %d copies in %.1f ms, %d left, %d on disk -> %s%n",
+                threads, sold.get(), copies, nanos / 1e6, left, onDisk,
+                sold.get() == copies && left == 0 && onDisk == 0 ? "OK" : "OVERSOLD");
+        inventory.save(); // Folds the log away
+        file.delete();
+    }
+}
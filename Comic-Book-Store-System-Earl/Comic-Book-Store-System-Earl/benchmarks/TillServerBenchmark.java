@@ -0,0 +1,149 @@
+package benchmarks;
+
+import entities.Stock;
+import managers.ComicManager;
+import managers.InventoryManager;
+import managers.PersistenceMode;
+import managers.PurchaseManager;
+import server.TillServer;
+import utils.FileHandler;
+import utils.LatencyHistogram;
+
+import java.io.*;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * TillServerBenchmark - Many scripted tills selling from one shared store.
+ *
+ * Starts a TillServer and connects a number of tills to it, each driving the till
+ * menu as a cashier would: add two comics to its cart, check out, repeat. The
+ * comics are drawn from a small set so that tills compete for the same stock.
+ * Afterwards the stock is checked two ways: the units taken from the shared
+ * inventory must equal the units on the tills' receipts, and the stock file
+ * loaded fresh from disk must agree with the inventory in memory.
+ *
+ * Run from the project folder after compiling:
+ *   java -cp out benchmarks.TillServerBenchmark [tills] [seconds]
+ *
+ * @author Comic Book Store System
+ * @version 1.0
+ */
+public class TillServerBenchmark {
+    // Comics the tills sell from; few, so that tills contend for them
+    private static final int COMICS = 50;
+
+    // Starting stock of each comic
+    private static final int INITIAL_STOCK = 1_000_000;
+
+    public static void main(String[] args) throws Exception {
+        int tills = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        File dir = Files.createTempDirectory("till-bench-").toFile();
+        File stocksFile = new File(dir, "stocks.txt");
+        FileHandler.writeFile(new File(dir, "comics.txt").getPath(), EntityManagerBenchmark.generateCatalog(COMICS));
+        List<String> stocks = new ArrayList<>(COMICS);
+        for (int i = 1; i <= COMICS; i++) stocks.add(new Stock(i, INITIAL_STOCK).toString());
+        FileHandler.writeFile(stocksFile.getPath(), stocks);
+
+        ComicManager comics = new ComicManager(new File(dir, "comics.txt").getPath());
+        InventoryManager inventory = new InventoryManager(stocksFile.getPath());
+        inventory.setPersistenceMode(PersistenceMode.LOG);
+        PurchaseManager purchases = new PurchaseManager(new File(dir, "orders.txt").getPath(), comics, inventory);
+
+        TillServer server = new TillServer(comics, inventory, purchases);
+        server.start(0);
+
+        LatencyHistogram checkoutLatency = new LatencyHistogram();
+        LongAdder unitsSold = new LongAdder();
+        AtomicBoolean stopping = new AtomicBoolean();
+        ExecutorService pool = Executors.newFixedThreadPool(tills);
+        List<Future<?>> done = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int t = 0; t < tills; t++) {
+            done.add(pool.submit(() -> {
+                try (Socket socket = new Socket("localhost", server.getPort())) {
+                    Reader in = new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8);
+                    Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    readPrompt(in);
+                    while (!stopping.get()) {
+                        int units = 0;
+                        for (int i = 0; i < 2; i++) {
+                            int quantity = 1 + random.nextInt(3);
+                            send(out, "2");
+                            readPrompt(in);
+                            send(out, String.valueOf(1 + random.nextInt(COMICS)));
+                            readPrompt(in);
+                            send(out, String.valueOf(quantity));
+                            units += quantity;
+                            readPrompt(in);
+                        }
+                        long began = System.nanoTime();
+                        send(out, "5");
+                        String receipt = readPrompt(in);
+                        checkoutLatency.recordSince(began);
+                        if (!receipt.contains("Purchase completed successfully")) throw new IllegalStateException(receipt);
+                        unitsSold.add(units);
+                    }
+                    send(out, "7");
+                }
+                return null;
+            }));
+        }
+        Thread.sleep(seconds * 1000L);
+        stopping.set(true);
+        for (Future<?> f : done) f.get();
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        pool.shutdown();
+        server.close();
+
+        long checkouts = checkoutLatency.getCount();
+        System.out.printf("%d tills, %.1f s: %d checkouts, %.0f checkouts/s%n", tills, elapsed, checkouts, checkouts / elapsed);
+        System.out.printf("Checkout latency: p50 %.2f ms, p99 %.2f ms, max %.2f ms%n",
+                checkoutLatency.getPercentile(50) / 1e6, checkoutLatency.getPercentile(99) / 1e6, checkoutLatency.getMax() / 1e6);
+
+        long taken = 0;
+        for (Stock stock : inventory.getAll()) taken += INITIAL_STOCK - stock.getQuantity();
+        System.out.printf("Units on receipts: %d, units taken from stock: %d -> %s%n", unitsSold.sum(), taken,
+                          unitsSold.sum() == taken ? "consistent" : "MISMATCH");
+        System.out.printf("Orders in ledger: %d%n", purchases.getLedger().size());
+
+        inventory.save();
+        InventoryManager reloaded = new InventoryManager(stocksFile.getPath());
+        boolean same = true;
+        for (Stock stock : inventory.getAll()) same &= reloaded.getStockQuantity(stock.getComicId()) == stock.getQuantity();
+        System.out.println("Stock file reloaded from disk " + (same ? "matches" : "DOES NOT match") + " the shared inventory");
+
+        purchases.getLedger().close();
+        for (File file : Objects.requireNonNull(dir.listFiles())) file.delete();
+        dir.delete();
+    }
+
+    private static void send(Writer out, String line) throws IOException {
+        out.write(line + "\n");
+        out.flush();
+    }
+
+    /**
+     * Reads the till's output up to and including its next prompt.
+     *
+     * @return Everything the till printed before the prompt
+     */
+    private static String readPrompt(Reader in) throws IOException {
+        StringBuilder text = new StringBuilder();
+        int c;
+        while ((c = in.read()) != -1) {
+            text.append((char) c);
+            int n = text.length();
+            if (n >= 2 && text.charAt(n - 2) == '>' && text.charAt(n - 1) == ' ') return text.toString();
+        }
+        throw new EOFException("Till closed the connection");
+    }
+}
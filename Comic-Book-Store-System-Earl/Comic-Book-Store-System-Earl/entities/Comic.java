@@ -1,5 +1,8 @@
 package entities;
 
+import utils.CsvCursor;
+import utils.CsvWriter;
+
 /**
  * Comic entity class representing a comic book in the Comic Book Store System.
  * 
@@ -146,8 +149,21 @@ public class Comic {
      */
     @Override
     public String toString() {
-        return id + "," + title + "," + author + "," + price + "," + genre + "," + year;
+        CsvWriter out = new CsvWriter();
+        writeCsv(out);
+        return out.toString();
     }
+
+    /**
+     * Writes the comic as a comma-separated record into a reusable writer.
+     * Text fields containing commas or quotes are quoted so they read back intact.
+     *
+     * @param out The writer to append the fields to
+     */
+    public void writeCsv(CsvWriter out) {
+        out.field(id).field(title).field(author).field(price).field(genre).field(year);
+    }
+
     /**
      * Static factory method to create a Comic instance from a string.
      * This method parses a comma-separated string to reconstruct a Comic object.
@@ -157,17 +173,27 @@ public class Comic {
      * @return Comic object if parsing is successful, null otherwise
      */
     public static Comic fromString(String line) {
-        String[] parts = line.split(",");
+        return fromCsv(new CsvCursor(line));
+    }
+
+    /**
+     * Static factory method to create a Comic instance from a record under a cursor.
+     * Numbers are read directly from the record, so no intermediate strings are created.
+     *
+     * @param cursor A cursor reset onto a record in the format: id,title,author,price,genre,year
+     * @return Comic object if parsing is successful, null otherwise
+     */
+    public static Comic fromCsv(CsvCursor cursor) {
+        int fields = cursor.countFields();
         // Handle both old format (4 fields) and new format (6 fields)
-        if (parts.length == 4) {
+        if (fields == 4) {
             // Old format - set default values for new fields
-            return new Comic(Integer.parseInt(parts[0]), parts[1], parts[2], 
-                           Double.parseDouble(parts[3]), "Unknown", 2000);
-        } else if (parts.length == 6) {
+            return new Comic(cursor.nextInt(), cursor.nextString(), cursor.nextString(),
+                           cursor.nextDouble(), "Unknown", 2000);
+        } else if (fields == 6) {
             // New format without stocks
-            return new Comic(Integer.parseInt(parts[0]), parts[1], parts[2], 
-                           Double.parseDouble(parts[3]), parts[4], 
-                           Integer.parseInt(parts[5]));
+            return new Comic(cursor.nextInt(), cursor.nextString(), cursor.nextString(),
+                           cursor.nextDouble(), cursor.nextString(), cursor.nextInt());
         } else {
             return null; // Invalid format
         }
@@ -0,0 +1,163 @@
+package entities;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+
+/**
+ * OrderRecord entity class representing a completed sale in the Comic Book Store System.
+ *
+ * Unlike Order, which is a line in a shopping cart, an OrderRecord is the permanent
+ * record of a checkout: when it happened and what was sold at which price. Each line
+ * keeps the comic's title as it was at the time of sale, so receipts can be rendered
+ * exactly even after the comic is renamed or deleted.
+ *
+ * @author Comic Book Store System
+ * @version 1.0
+ */
+public class OrderRecord {
+    // Format of the date line on receipts
+    private static final DateTimeFormatter RECEIPT_DATE = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    // Unique identifier for the order
+    private final int orderId;
+
+    // When the order was placed, in milliseconds since the epoch
+    private final long timestamp;
+
+    // The items sold
+    private final List<Line> lines;
+
+    /**
+     * Constructor for creating an OrderRecord instance.
+     *
+     * @param orderId The unique identifier for the order
+     * @param timestamp When the order was placed, in milliseconds since the epoch
+     * @param lines The items sold
+     */
+    public OrderRecord(int orderId, long timestamp, List<Line> lines) {
+        this.orderId = orderId;
+        this.timestamp = timestamp;
+        this.lines = Collections.unmodifiableList(new ArrayList<>(lines));
+    }
+
+    /**
+     * Creates the order lines for a cart being checked out, at the current prices.
+     *
+     * @param cart The cart lines being sold
+     * @return The order lines
+     */
+    public static List<Line> linesOf(List<Order> cart) {
+        List<Line> lines = new ArrayList<>(cart.size());
+        for (Order order : cart) {
+            Comic comic = order.getComic();
+            lines.add(new Line(comic.getId(), comic.getTitle(), order.getQuantity(), comic.getPrice()));
+        }
+        return lines;
+    }
+
+    /**
+     * Gets the unique identifier of the order.
+     *
+     * @return The order's ID
+     */
+    public int getOrderId() { return orderId; }
+
+    /**
+     * Gets when the order was placed.
+     *
+     * @return Milliseconds since the epoch
+     */
+    public long getTimestamp() { return timestamp; }
+
+    /**
+     * Gets when the order was placed, in the store's local time.
+     *
+     * @return The local date and time of the order
+     */
+    public LocalDateTime getDateTime() {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(timestamp), ZoneId.systemDefault());
+    }
+
+    /**
+     * Gets the items sold.
+     *
+     * @return Unmodifiable list of order lines
+     */
+    public List<Line> getLines() { return lines; }
+
+    /**
+     * Gets the total amount of the order.
+     *
+     * @return The sum of every line total, in pesos
+     */
+    public double getTotal() {
+        double total = 0.0;
+        for (Line line : lines) total += line.getTotal();
+        return total;
+    }
+
+    /**
+     * Renders the order as receipt text, in the same layout as the printed receipt.
+     *
+     * @return The receipt lines
+     */
+    public List<String> toReceipt() {
+        List<String> receipt = new ArrayList<>(lines.size() + 4);
+        receipt.add("Order ID: " + orderId);
+        receipt.add("Date: " + getDateTime().format(RECEIPT_DATE));
+        receipt.add("Items:");
+        for (Line line : lines) {
+            receipt.add("Comic: " + line.getTitle() + " Quantity: " + line.getQuantity() +
+                        " Price: P" + line.getUnitPrice() + " Total: P" + line.getTotal());
+        }
+        receipt.add("Total: P" + getTotal());
+        return receipt;
+    }
+
+    /**
+     * One item of an order: which comic, how many, and at what price.
+     */
+    public static class Line {
+        // ID of the comic sold, or -1 if it could not be identified
+        private final int comicId;
+
+        // Title of the comic at the time of sale
+        private final String title;
+
+        // Number of copies sold
+        private final int quantity;
+
+        // Price of one copy at the time of sale, in pesos
+        private final double unitPrice;
+
+        /**
+         * Constructor for creating an order line.
+         *
+         * @param comicId The ID of the comic sold, or -1 if unknown
+         * @param title The title of the comic at the time of sale
+         * @param quantity The number of copies sold
+         * @param unitPrice The price of one copy at the time of sale
+         */
+        public Line(int comicId, String title, int quantity, double unitPrice) {
+            this.comicId = comicId;
+            this.title = title;
+            this.quantity = quantity;
+            this.unitPrice = unitPrice;
+        }
+
+        public int getComicId() { return comicId; }
+        public String getTitle() { return title; }
+        public int getQuantity() { return quantity; }
+        public double getUnitPrice() { return unitPrice; }
+
+        /**
+         * Gets the total amount of the line.
+         *
+         * @return Quantity times unit price, in pesos
+         */
+        public double getTotal() { return quantity * unitPrice; }
+    }
+}
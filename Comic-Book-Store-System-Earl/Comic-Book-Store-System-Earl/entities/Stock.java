@@ -1,10 +1,18 @@
 package entities;
 
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import utils.CsvCursor;
+import utils.CsvWriter;
+
 /**
  * Stock entity class representing inventory stock for a comic book in the Comic Book Store System.
  * 
  * This class models the inventory management aspect separately from the comic product details,
  * allowing for better separation of concerns and more flexible inventory operations.
+ *
+ * The quantity is a lock-free counter: every change is a compare-and-set on the
+ * field, so several tills can sell from the same stock record at once without
+ * ever taking it below zero.
  * 
  * @author Comic Book Store System
  * @version 1.0
@@ -19,8 +27,18 @@ public class Stock {
     // Reference to the comic ID this stock belongs to
     private int comicId;
     
-    // Current quantity in stock
-    private int quantity;
+    // Current quantity in stock; only changed through QUANTITY
+    private volatile int quantity;
+
+    // Atomic access to the quantity field
+    private static final AtomicIntegerFieldUpdater<Stock> QUANTITY =
+            AtomicIntegerFieldUpdater.newUpdater(Stock.class, "quantity");
+
+    // Reorder threshold for records that don't set one (the old store-wide low-stock level)
+    public static final int DEFAULT_REORDER_THRESHOLD = 10;
+
+    // The quantity at or below which the comic should be reordered
+    private volatile int reorderThreshold;
 
    // private String comicStockName;
 
@@ -32,9 +50,22 @@ public class Stock {
      * @param quantity The current quantity in stock
      */
     public Stock(int comicId, int quantity) {
+        this(comicId, quantity, DEFAULT_REORDER_THRESHOLD);
+    }
+
+    /**
+     * Constructor for creating a Stock instance with its own reorder threshold.
+     * Stock ID must equal comic ID
+     *
+     * @param comicId The ID of the comic this stock belongs to (also becomes stock ID)
+     * @param quantity The current quantity in stock
+     * @param reorderThreshold The quantity at or below which the comic should be reordered
+     */
+    public Stock(int comicId, int quantity, int reorderThreshold) {
         this.id = comicId;
         this.comicId = comicId;
         setQuantity(quantity);
+        setReorderThreshold(reorderThreshold);
     }
 
     /**
@@ -68,9 +99,43 @@ public class Stock {
         if (quantity < 0) {
             throw new IllegalArgumentException("Quantity cannot be negative");
         }
-        this.quantity = quantity; 
+        QUANTITY.set(this, quantity);
+    }
+
+    /**
+     * Gets the reorder threshold.
+     *
+     * @return The quantity at or below which the comic should be reordered
+     */
+    public int getReorderThreshold() { return reorderThreshold; }
+
+    /**
+     * Sets the reorder threshold with validation.
+     *
+     * @param reorderThreshold The quantity at or below which the comic should be reordered
+     * @throws IllegalArgumentException if reorderThreshold is negative
+     */
+    public void setReorderThreshold(int reorderThreshold) {
+        if (reorderThreshold < 0) {
+            throw new IllegalArgumentException("Reorder threshold cannot be negative");
+        }
+        this.reorderThreshold = reorderThreshold;
     }
 
+    /**
+     * Checks whether the stock is at or below its reorder threshold.
+     *
+     * @return true if the comic should be reordered
+     */
+    public boolean isLow() { return quantity <= reorderThreshold; }
+
+    /**
+     * Gets how far the stock is below its reorder threshold.
+     *
+     * @return Threshold minus quantity; zero at the threshold, negative above it
+     */
+    public long getShortfall() { return (long) reorderThreshold - quantity; }
+
    // public void setComicStockName(Comic )
 
     
@@ -85,7 +150,13 @@ public class Stock {
         if (amount < 0) {
             throw new IllegalArgumentException("Amount to add cannot be negative");
         }
-        quantity += amount;
+        int current;
+        do {
+            current = quantity;
+            if (amount > Integer.MAX_VALUE - current) {
+                throw new IllegalArgumentException("Quantity cannot exceed " + Integer.MAX_VALUE);
+            }
+        } while (!QUANTITY.compareAndSet(this, current, current + amount));
     }
 
     /**
@@ -98,21 +169,56 @@ public class Stock {
         if (amount < 0) {
             throw new IllegalArgumentException("Amount to remove cannot be negative");
         }
-        if (amount > quantity) {
-            throw new IllegalArgumentException("Insufficient stock. Available: " + quantity);
+        int current;
+        do {
+            current = quantity;
+            if (amount > current) {
+                throw new IllegalArgumentException("Insufficient stock. Available: " + current);
+            }
+        } while (!QUANTITY.compareAndSet(this, current, current - amount));
+    }
+
+    /**
+     * Decreases the stock quantity only if enough is left, as one atomic step.
+     * Unlike removeStock, running out of stock is an expected outcome here and is
+     * reported through the return value instead of an exception.
+     *
+     * @param amount The amount to remove from stock
+     * @return true if the amount was removed, false if there was not enough stock
+     * @throws IllegalArgumentException if amount is negative
+     */
+    public boolean tryRemoveStock(int amount) {
+        if (amount < 0) {
+            throw new IllegalArgumentException("Amount to remove cannot be negative");
         }
-        quantity -= amount;
+        int current;
+        do {
+            current = quantity;
+            if (amount > current) return false; // Never sell stock that is not there
+        } while (!QUANTITY.compareAndSet(this, current, current - amount));
+        return true;
     }
 
     /**
      * Converts the stock to a string representation for file storage.
-     * Uses comma-separated format: id,comicId,quantity
+     * Uses comma-separated format: id,comicId,quantity,reorderThreshold
      * 
      * @return String representation suitable for file storage
      */
     @Override
     public String toString() {
-        return id + "," + comicId + "," + quantity;
+        CsvWriter out = new CsvWriter();
+        writeCsv(out);
+        return out.toString();
+    }
+
+    /**
+     * Writes the stock as a comma-separated record into a reusable writer.
+     *
+     * @param out The writer to append the fields to
+     */
+    public void writeCsv(CsvWriter out) {
+        out.field(id).field(comicId).field(quantity).field(reorderThreshold);
     }
 
     /**
@@ -121,15 +227,30 @@ public class Stock {
      * Used for loading stock data from text files.
      * Note: Stock ID must equal comic ID, so the second parameter (comicId) is used for both.
      *
-     * @param line A comma-separated string in the format: id,comicId,quantity
+     * @param line A comma-separated string in the format: id,comicId,quantity[,reorderThreshold]
      * @return Stock object if parsing is successful, null otherwise
      */
     public static Stock fromString(String line) {
-        String[] parts = line.split(",");
-        if (parts.length == 3) {
-            int id = Integer.parseInt(parts[0]);
-            int comicId = Integer.parseInt(parts[1]);
-            int quantity = Integer.parseInt(parts[2]);
+        return fromCsv(new CsvCursor(line));
+    }
+
+    /**
+     * Static factory method to create a Stock instance from a record under a cursor.
+     * Numbers are read directly from the record, so no intermediate strings are created.
+     *
+     * Records written before reorder thresholds existed have no fourth field and get
+     * the default threshold.
+     *
+     * @param cursor A cursor reset onto a record in the format: id,comicId,quantity[,reorderThreshold]
+     * @return Stock object if parsing is successful, null otherwise
+     */
+    public static Stock fromCsv(CsvCursor cursor) {
+        int fields = cursor.countFields();
+        if (fields == 3 || fields == 4) {
+            int id = cursor.nextInt();
+            int comicId = cursor.nextInt();
+            int quantity = cursor.nextInt();
+            int reorderThreshold = fields == 4 ? cursor.nextInt() : DEFAULT_REORDER_THRESHOLD;
 
             // Validate that ID equals comic ID
             if (id != comicId) {
@@ -137,7 +258,7 @@ public class Stock {
                                  "). Using comic ID as stock ID.");
             }
 
-            return new Stock(comicId, quantity);
+            return new Stock(comicId, quantity, reorderThreshold);
         } else {
             return null; // Invalid format
         }
@@ -149,6 +270,7 @@ public class Stock {
      * @return Formatted string for display purposes
      */
     public String display() {
-        return "Stock ID: " + id + "  Comic ID: " + comicId + "  Quantity: " + quantity;
+        return "Stock ID: " + id + "  Comic ID: " + comicId + "  Quantity: " + quantity +
+               "  Reorder At: " + reorderThreshold;
     }
 }
@@ -0,0 +1,24 @@
+package benchmarks.jmh;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * BenchmarkRunner - Entry point of benchmarks.jar.
+ *
+ * Accepts the usual JMH command line (benchmark name patterns, -p size=..., -f, -wi,
+ * and so on) and always adds the GC profiler, so every result is reported as
+ * throughput together with its allocation rate (gc.alloc.rate and
+ * gc.alloc.rate.norm, bytes allocated per operation).
+ *
+ * @author Comic Book Store System
+ * @version 1.0
+ */
+public class BenchmarkRunner {
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        new Runner(new OptionsBuilder().parent(commandLine).addProfiler(GCProfiler.class).build()).run();
+    }
+}
@@ -0,0 +1,92 @@
+package benchmarks.jmh;
+
+import entities.Comic;
+import entities.Stock;
+import utils.FileHandler;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Catalogs - Generated data files shared by the benchmarks.
+ *
+ * Every benchmark state works in its own temporary folder, so log, snapshot and
+ * ledger files never leak between runs; the folder is removed on tear-down.
+ *
+ * @author Comic Book Store System
+ * @version 1.0
+ */
+final class Catalogs {
+    private Catalogs() { }
+
+    /**
+     * Creates an empty temporary folder for one benchmark state.
+     *
+     * @return The new folder
+     * @throws IOException if the folder cannot be created
+     */
+    static File newFolder() throws IOException {
+        return Files.createTempDirectory("comic-store-jmh-").toFile();
+    }
+
+    /**
+     * Generates a comic for every ID from 1 to size. Titles, authors, prices,
+     * genres and years repeat with different periods, like a real catalog.
+     *
+     * @param id The comic ID
+     * @return The comic
+     */
+    static Comic comic(int id) {
+        return new Comic(id, "Title " + id, "Author " + (id % 5000), 50.0 + (id % 950), "Genre " + (id % 40), 1980 + (id % 45));
+    }
+
+    /**
+     * Writes a comics file with comics 1 to size.
+     *
+     * @param folder The folder to write into
+     * @param size The number of comics
+     * @return The comics file
+     */
+    static File writeComics(File folder, int size) {
+        List<String> lines = new ArrayList<>(size);
+        for (int id = 1; id <= size; id++) lines.add(comic(id).toString());
+        File file = new File(folder, "comics.txt");
+        FileHandler.writeFile(file.getPath(), lines);
+        return file;
+    }
+
+    /**
+     * Writes a stocks file with a record for comics 1 to size.
+     *
+     * @param folder The folder to write into
+     * @param size The number of stock records
+     * @param quantity The quantity of every record
+     * @return The stocks file
+     */
+    static File writeStocks(File folder, int size, int quantity) {
+        List<String> lines = new ArrayList<>(size);
+        for (int id = 1; id <= size; id++) lines.add(new Stock(id, quantity).toString());
+        File file = new File(folder, "stocks.txt");
+        FileHandler.writeFile(file.getPath(), lines);
+        return file;
+    }
+
+    /**
+     * Deletes a folder and everything in it.
+     *
+     * @param folder The folder to delete
+     */
+    static void delete(File folder) {
+        File[] files = folder.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.isDirectory()) delete(file);
+                else file.delete();
+            }
+        }
+        folder.delete();
+    }
+}
@@ -0,0 +1,80 @@
+package benchmarks.jmh;
+
+import managers.ComicManager;
+import managers.InventoryManager;
+import managers.PersistenceMode;
+import managers.PurchaseManager;
+import org.openjdk.jmh.annotations.*;
+import utils.Durability;
+import utils.FileHandler;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CheckoutBenchmark - Filling a three-line cart and checking it out.
+ *
+ * Each call adds three random comics by typed ID and runs PurchaseManager.checkout:
+ * the stock reservation, one persist of the stock changes and one ledger record.
+ * The receipt the checkout prints is sent nowhere while measuring.
+ *
+ * @author Comic Book Store System
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CheckoutBenchmark {
+    // Random comics cycled through
+    private static final int TARGETS = 1024;
+
+    // Lines in each cart
+    private static final int CART_LINES = 3;
+
+    @Param({"10000", "100000", "1000000"})
+    public int size;
+
+    private File folder;
+    private ComicManager comics;
+    private InventoryManager inventory;
+    private PurchaseManager purchases;
+    private String[] typedIds;
+    private int next;
+    private PrintStream console;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        FileHandler.setDurability(Durability.NONE);
+        folder = Catalogs.newFolder();
+        comics = new ComicManager(Catalogs.writeComics(folder, size).getPath());
+        inventory = new InventoryManager(Catalogs.writeStocks(folder, size, Integer.MAX_VALUE).getPath());
+        comics.setPersistenceMode(PersistenceMode.LOG);
+        inventory.setPersistenceMode(PersistenceMode.LOG);
+        purchases = new PurchaseManager(new File(folder, "orders.txt").getPath(), comics, inventory);
+        Random random = new Random(42);
+        typedIds = new String[TARGETS];
+        for (int i = 0; i < TARGETS; i++) typedIds[i] = String.valueOf(1 + random.nextInt(size));
+        console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        System.setOut(console);
+        purchases.getLedger().close();
+        inventory.save();
+        Catalogs.delete(folder);
+    }
+
+    @Benchmark
+    public void checkout() {
+        for (int i = 0; i < CART_LINES; i++) purchases.addOrder(typedIds[next++ & (TARGETS - 1)], 1);
+        purchases.checkout();
+    }
+}
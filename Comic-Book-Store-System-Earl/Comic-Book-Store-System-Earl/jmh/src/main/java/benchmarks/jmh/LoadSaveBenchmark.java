@@ -0,0 +1,56 @@
+package benchmarks.jmh;
+
+import managers.ComicManager;
+import org.openjdk.jmh.annotations.*;
+import utils.Durability;
+import utils.FileHandler;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LoadSaveBenchmark - Loading and saving a whole catalog through EntityManager.
+ *
+ * load constructs a ComicManager from the text file (no snapshot is written, so
+ * the text path is measured); save rewrites the whole file.
+ *
+ * @author Comic Book Store System
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoadSaveBenchmark {
+    @Param({"10000", "100000", "1000000"})
+    public int size;
+
+    private File folder;
+    private File comics;
+    private ComicManager manager;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        FileHandler.setDurability(Durability.NONE);
+        folder = Catalogs.newFolder();
+        comics = Catalogs.writeComics(folder, size);
+        manager = new ComicManager(comics.getPath());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Catalogs.delete(folder);
+    }
+
+    @Benchmark
+    public ComicManager load() {
+        return new ComicManager(comics.getPath());
+    }
+
+    @Benchmark
+    public void save() {
+        manager.save();
+    }
+}
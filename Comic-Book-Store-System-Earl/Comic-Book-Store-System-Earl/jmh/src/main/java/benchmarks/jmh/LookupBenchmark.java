@@ -0,0 +1,78 @@
+package benchmarks.jmh;
+
+import entities.Comic;
+import managers.ComicManager;
+import org.openjdk.jmh.annotations.*;
+import utils.Durability;
+import utils.FileHandler;
+
+import java.io.File;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LookupBenchmark - Finding one comic by ID, by typed ID and by typed title.
+ *
+ * Each call looks up the next of 1,024 random comics, so the lookups are spread
+ * over the whole catalog instead of hitting one cached entry.
+ *
+ * @author Comic Book Store System
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LookupBenchmark {
+    // Random targets cycled through by each benchmark
+    private static final int TARGETS = 1024;
+
+    @Param({"10000", "100000", "1000000"})
+    public int size;
+
+    private File folder;
+    private ComicManager manager;
+    private int[] ids;
+    private String[] typedIds;
+    private String[] titles;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        FileHandler.setDurability(Durability.NONE);
+        folder = Catalogs.newFolder();
+        manager = new ComicManager(Catalogs.writeComics(folder, size).getPath());
+        Random random = new Random(42);
+        ids = new int[TARGETS];
+        typedIds = new String[TARGETS];
+        titles = new String[TARGETS];
+        for (int i = 0; i < TARGETS; i++) {
+            ids[i] = 1 + random.nextInt(size);
+            typedIds[i] = String.valueOf(ids[i]);
+            titles[i] = Catalogs.comic(ids[i]).getTitle();
+        }
+        manager.findByName(titles[0]); // Build the title index outside the measurement
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Catalogs.delete(folder);
+    }
+
+    @Benchmark
+    public Comic findById() {
+        return manager.findById(ids[next++ & (TARGETS - 1)]);
+    }
+
+    @Benchmark
+    public Comic findByIdOrNameWithId() {
+        return manager.findByIdOrName(typedIds[next++ & (TARGETS - 1)]);
+    }
+
+    @Benchmark
+    public Comic findByIdOrNameWithTitle() {
+        return manager.findByIdOrName(titles[next++ & (TARGETS - 1)]);
+    }
+}
@@ -0,0 +1,43 @@
+package benchmarks.jmh;
+
+import entities.Comic;
+import entities.Stock;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ParseBenchmark - Parsing one record of each data file.
+ *
+ * The comic record has a quoted title with an embedded comma, the case that needs
+ * the full CSV rules.
+ *
+ * @author Comic Book Store System
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseBenchmark {
+    private String comicLine;
+    private String stockLine;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        comicLine = new Comic(4242, "Saga, Volume 1", "Brian K. Vaughan", 499.0, "Science Fiction", 2012).toString();
+        stockLine = new Stock(4242, 17, 5).toString();
+    }
+
+    @Benchmark
+    public Comic comicFromString() {
+        return Comic.fromString(comicLine);
+    }
+
+    @Benchmark
+    public Stock stockFromString() {
+        return Stock.fromString(stockLine);
+    }
+}
@@ -0,0 +1,61 @@
+package benchmarks.jmh;
+
+import managers.InventoryManager;
+import managers.PersistenceMode;
+import org.openjdk.jmh.annotations.*;
+import utils.Durability;
+import utils.FileHandler;
+
+import java.io.File;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * StockBenchmark - Selling one copy with InventoryManager.removeStockFromComic.
+ *
+ * The inventory appends to its change log, as the store runs it, so each call is
+ * a hash lookup, an atomic decrement, the listener updates and one log append.
+ *
+ * @author Comic Book Store System
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StockBenchmark {
+    // Random comics cycled through
+    private static final int TARGETS = 1024;
+
+    @Param({"10000", "100000", "1000000"})
+    public int size;
+
+    private File folder;
+    private InventoryManager inventory;
+    private int[] comicIds;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        FileHandler.setDurability(Durability.NONE);
+        folder = Catalogs.newFolder();
+        inventory = new InventoryManager(Catalogs.writeStocks(folder, size, Integer.MAX_VALUE).getPath());
+        inventory.setPersistenceMode(PersistenceMode.LOG);
+        Random random = new Random(42);
+        comicIds = new int[TARGETS];
+        for (int i = 0; i < TARGETS; i++) comicIds[i] = 1 + random.nextInt(size);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        inventory.save();
+        Catalogs.delete(folder);
+    }
+
+    @Benchmark
+    public boolean removeStockFromComic() {
+        return inventory.removeStockFromComic(comicIds[next++ & (TARGETS - 1)], 1);
+    }
+}
@@ -2,12 +2,19 @@ package managers;
 
 import entities.Admin;
 import utils.FileHandler;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 public class AdminManager {
 
     public Admin loadAdmin() {
-        List<String> lines = FileHandler.readFile("data/admin.txt");
+        List<String> lines;
+        try {
+            lines = FileHandler.readFile("data/admin.txt");
+        } catch (UncheckedIOException e) {
+            System.err.println("Warning: " + e.getMessage() + "; admin login is unavailable.");
+            return null; // No login succeeds without the admin record
+        }
 
         if (lines.isEmpty()) return null;
 
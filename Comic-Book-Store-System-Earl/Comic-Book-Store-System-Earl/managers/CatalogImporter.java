@@ -0,0 +1,346 @@
+package managers;
+
+import entities.Comic;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import utils.CsvCursor;
+import utils.CsvWriter;
+
+/**
+ * CatalogImporter class - Bulk import and upsert of a supplier catalog feed.
+ *
+ * A feed is a CSV file in the comics.txt layout, id,title,author,price,genre,year,
+ * with an optional header row; the id may be left blank for a title the store does
+ * not carry yet. The import runs as a pipeline:
+ *
+ *   1. The feed is read as a stream, in chunks of lines, so it is never held whole.
+ *   2. Chunks are parsed and validated in parallel on the common fork/join pool,
+ *      with the same rules as Comic: price above 0 and a year Comic.setYear accepts.
+ *   3. Parsed rows are matched in feed order to existing comics, by ID if given and
+ *      otherwise by normalized title (case, spacing and punctuation ignored). A
+ *      later row for the same comic replaces an earlier one.
+ *   4. The whole batch is applied with ComicManager.applyBatch: one persist, and
+ *      one notification to the search and filter indexes.
+ *
+ * Rows that fail validation are written to a reject file with their line number
+ * and reason, and nothing else about them changes the catalog.
+ *
+ * @author Comic Book Store System
+ * @version 1.0
+ */
+public class CatalogImporter {
+    // Lines parsed per parallel task
+    private static final int CHUNK_LINES = 4096;
+
+    // Fields in a feed row
+    private static final int FIELDS = 6;
+
+    // The catalog being imported into
+    private final ComicManager comics;
+
+    /**
+     * Constructor for creating an importer for a catalog.
+     *
+     * @param comics The catalog to import into
+     */
+    public CatalogImporter(ComicManager comics) {
+        this.comics = comics;
+    }
+
+    /**
+     * Imports a supplier feed: adds new comics and updates matched ones, then
+     * persists the batch once.
+     *
+     * @param feedFile The CSV feed to read
+     * @param rejectFile Where rows that fail validation are written, as line,reason,record
+     * @return What the import did and how long it took
+     * @throws UncheckedIOException if the feed cannot be read or the reject file written
+     */
+    public ImportReport importFeed(String feedFile, String rejectFile) {
+        long start = System.nanoTime();
+        Batch batch = new Batch();
+        int window = 2 * ForkJoinPool.getCommonPoolParallelism() + 1; // Chunks in flight: bounds memory
+        ArrayDeque<CompletableFuture<Chunk>> pending = new ArrayDeque<>();
+
+        try (BufferedReader in = Files.newBufferedReader(Paths.get(feedFile), StandardCharsets.UTF_8);
+             BufferedWriter rejects = Files.newBufferedWriter(Paths.get(rejectFile), StandardCharsets.UTF_8)) {
+            rejects.write("line,reason,record");
+            rejects.newLine();
+            List<String> lines = new ArrayList<>(CHUNK_LINES);
+            int lineNumber = 0;
+            int firstLine = 1;
+            String line;
+            while ((line = in.readLine()) != null) {
+                lineNumber++;
+                if (lineNumber == 1 && isHeader(line)) {
+                    firstLine = 2;
+                    continue;
+                }
+                lines.add(line);
+                if (lines.size() == CHUNK_LINES) {
+                    List<String> chunk = lines;
+                    int from = firstLine;
+                    pending.add(CompletableFuture.supplyAsync(() -> parse(chunk, from)));
+                    if (pending.size() >= window) batch.take(pending.poll().join(), rejects);
+                    lines = new ArrayList<>(CHUNK_LINES);
+                    firstLine = lineNumber + 1;
+                }
+            }
+            if (!lines.isEmpty()) {
+                List<String> chunk = lines;
+                int from = firstLine;
+                pending.add(CompletableFuture.supplyAsync(() -> parse(chunk, from)));
+            }
+            while (!pending.isEmpty()) batch.take(pending.poll().join(), rejects);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error importing feed: " + feedFile, e);
+        }
+
+        long parsed = System.nanoTime();
+        List<Comic> added = batch.numberAdded();
+        List<Comic> changed = batch.applyEdits();
+        comics.applyBatch(added, changed);
+        long applied = System.nanoTime();
+        return new ImportReport(batch.rows, added.size(), changed.size(), batch.rows - batch.rejected
+                - added.size() - changed.size(), batch.rejected, parsed - start, applied - parsed);
+    }
+
+    /**
+     * Normalizes a title for matching: lower case, words of letters and digits only,
+     * separated by single spaces, so "Spider-Man: Blue" matches "spider man  blue".
+     *
+     * @param title The title to normalize
+     * @return The normalized title
+     */
+    public static String normalizeTitle(String title) {
+        return String.join(" ", TextIndex.tokenize(title));
+    }
+
+    private static boolean isHeader(String line) {
+        return line.trim().toLowerCase(Locale.ROOT).startsWith("id,");
+    }
+
+    /**
+     * Parses and validates one chunk of lines; runs on a pool thread.
+     */
+    private static Chunk parse(List<String> lines, int firstLine) {
+        Chunk chunk = new Chunk(lines.size());
+        CsvCursor cursor = new CsvCursor();
+        CsvWriter writer = new CsvWriter();
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            if (line.isBlank()) continue;
+            try {
+                chunk.rows.add(parseRow(cursor.reset(line)));
+            } catch (IllegalArgumentException e) { // Includes NumberFormatException
+                chunk.rejects.add(writer.reset().field(firstLine + i).field(e.getMessage()).field(line).toString());
+            }
+        }
+        return chunk;
+    }
+
+    /**
+     * Parses one row into a comic, validated as Comic validates edits.
+     * A comic without an ID in the feed gets ID 0 until it is matched or numbered.
+     */
+    private static Comic parseRow(CsvCursor cursor) {
+        int fields = cursor.countFields();
+        if (fields != FIELDS) throw new IllegalArgumentException("Expected " + FIELDS + " fields, found " + fields);
+        String idField = cursor.nextString().trim();
+        int id = idField.isEmpty() ? 0 : Integer.parseInt(idField);
+        if (id < 0 || (id == 0 && !idField.isEmpty())) throw new IllegalArgumentException("ID must be positive: " + idField);
+        String title = cursor.nextString().trim();
+        if (title.isEmpty()) throw new IllegalArgumentException("Title is empty");
+        String author = cursor.nextString().trim();
+        double price = cursor.nextDouble();
+        if (!Double.isFinite(price)) throw new IllegalArgumentException("Price must be a number");
+        String genre = cursor.nextString().trim();
+        int year = cursor.nextInt();
+        Comic comic = new Comic(id, title, author, price, genre, year); // Checks the price
+        comic.setYear(year); // Checks the year
+        return comic;
+    }
+
+    /**
+     * The parsed rows and reject records of one chunk, in feed order.
+     */
+    private static final class Chunk {
+        final List<Comic> rows;
+        final List<String> rejects = new ArrayList<>();
+
+        Chunk(int lines) {
+            rows = new ArrayList<>(lines);
+        }
+    }
+
+    /**
+     * The batch being assembled from parsed rows, in feed order.
+     */
+    private final class Batch {
+        // Comics new to the catalog
+        final List<Comic> added = new ArrayList<>();
+
+        // Existing comic -> the row holding its new values
+        final Map<Comic, Comic> edits = new LinkedHashMap<>();
+
+        // Normalized title -> the comic that title matches, existing or new
+        final Map<String, Comic> byTitle;
+
+        // ID -> comic added by this batch under an ID the feed gave
+        final Map<Integer, Comic> addedById = new HashMap<>();
+
+        int rows;
+        int rejected;
+
+        Batch() {
+            // Ordered parallel collection; the first comic wins a shared title, as in the title index
+            byTitle = comics.getAll().parallelStream()
+                    .collect(Collectors.toMap(c -> normalizeTitle(c.getTitle()), c -> c, (a, b) -> a, HashMap::new));
+        }
+
+        /**
+         * Matches the rows of a chunk and writes its rejects.
+         */
+        void take(Chunk chunk, BufferedWriter rejects) throws IOException {
+            for (String reject : chunk.rejects) {
+                rejects.write(reject);
+                rejects.newLine();
+            }
+            rows += chunk.rows.size() + chunk.rejects.size();
+            rejected += chunk.rejects.size();
+            for (Comic row : chunk.rows) match(row);
+        }
+
+        private void match(Comic row) {
+            String title = normalizeTitle(row.getTitle());
+            Comic target;
+            if (row.getId() > 0) {
+                target = addedById.get(row.getId());
+                if (target == null) target = comics.findById(row.getId());
+            } else {
+                target = byTitle.get(title);
+            }
+
+            if (target == null) { // New to the catalog; keeps ID 0 until numbered
+                added.add(row);
+                if (row.getId() > 0) addedById.put(row.getId(), row);
+                byTitle.putIfAbsent(title, row);
+            } else if (target.getId() == 0 || addedById.get(target.getId()) == target) { // Added earlier in this feed
+                copy(row, target);
+            } else {
+                edits.put(target, row);
+            }
+        }
+
+        /**
+         * Gives the new comics that came without an ID the next free IDs, after
+         * every ID the feed asked for is known.
+         *
+         * @return The new comics, in feed order
+         */
+        List<Comic> numberAdded() {
+            List<Comic> numbered = new ArrayList<>(added.size());
+            int next = comics.nextId();
+            for (Comic comic : added) {
+                if (comic.getId() > 0) {
+                    numbered.add(comic);
+                    continue;
+                }
+                while (addedById.containsKey(next) || comics.findById(next) != null) next++;
+                numbered.add(new Comic(next++, comic.getTitle(), comic.getAuthor(), comic.getPrice(),
+                                       comic.getGenre(), comic.getYear()));
+            }
+            return numbered;
+        }
+
+        /**
+         * Writes the newest row for each matched comic into it.
+         *
+         * @return The comics whose fields actually changed
+         */
+        List<Comic> applyEdits() {
+            List<Comic> changed = new ArrayList<>();
+            for (Map.Entry<Comic, Comic> edit : edits.entrySet()) {
+                Comic comic = edit.getKey();
+                Comic row = edit.getValue();
+                if (comic.getTitle().equals(row.getTitle()) && comic.getAuthor().equals(row.getAuthor())
+                        && comic.getPrice() == row.getPrice() && comic.getGenre().equals(row.getGenre())
+                        && comic.getYear() == row.getYear()) {
+                    continue; // Unchanged; nothing to write
+                }
+                copy(row, comic);
+                changed.add(comic);
+            }
+            return changed;
+        }
+
+        private void copy(Comic from, Comic to) {
+            to.setTitle(from.getTitle());
+            to.setAuthor(from.getAuthor());
+            to.setPrice(from.getPrice());
+            to.setGenre(from.getGenre());
+            to.setYear(from.getYear());
+        }
+    }
+
+    /**
+     * The outcome of an import.
+     */
+    public static final class ImportReport {
+        private final int rows;
+        private final int added;
+        private final int updated;
+        private final int unchanged;
+        private final int rejected;
+        private final long parseNanos;
+        private final long applyNanos;
+
+        ImportReport(int rows, int added, int updated, int unchanged, int rejected, long parseNanos, long applyNanos) {
+            this.rows = rows;
+            this.added = added;
+            this.updated = updated;
+            this.unchanged = unchanged;
+            this.rejected = rejected;
+            this.parseNanos = parseNanos;
+            this.applyNanos = applyNanos;
+        }
+
+        /** @return Rows read from the feed, not counting a header or blank lines */
+        public int getRows() { return rows; }
+
+        /** @return Comics new to the catalog */
+        public int getAdded() { return added; }
+
+        /** @return Existing comics whose fields changed */
+        public int getUpdated() { return updated; }
+
+        /** @return Rows that matched a comic without changing it, or were replaced by a later row */
+        public int getUnchanged() { return unchanged; }
+
+        /** @return Rows written to the reject file */
+        public int getRejected() { return rejected; }
+
+        /** @return Time to read, parse, validate and match the feed, in milliseconds */
+        public double getParseMillis() { return parseNanos / 1e6; }
+
+        /** @return Time to apply and persist the batch, in milliseconds */
+        public double getApplyMillis() { return applyNanos / 1e6; }
+
+        /** @return Feed rows processed per second, end to end */
+        public double getRowsPerSecond() {
+            return rows / Math.max(1e-9, (parseNanos + applyNanos) / 1e9);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d rows: %d added, %d updated, %d unchanged, %d rejected in %.0f ms (%.0f rows/s)",
+                    rows, added, updated, unchanged, rejected, getParseMillis() + getApplyMillis(), getRowsPerSecond());
+        }
+    }
+}
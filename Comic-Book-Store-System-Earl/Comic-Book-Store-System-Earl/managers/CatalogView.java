@@ -0,0 +1,145 @@
+package managers;
+
+import entities.Comic;
+import entities.Stock;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * CatalogView class - A maintained join of every comic with its stock record.
+ *
+ * Screens and reports that show comics next to their stock walk this view once,
+ * in comic ID order, instead of looking each row up in the other manager. A row
+ * holds the comic and stock objects themselves, so edits to their fields, and
+ * every sale, show through without touching the view; only adding or deleting a
+ * comic or a stock record changes it. It listens to both managers for those.
+ *
+ * A row may lack its stock record (the comic is not stocked yet) or its comic
+ * (an orphaned stock record), so both sides stay visible.
+ *
+ * @author Comic Book Store System
+ * @version 1.0
+ */
+public class CatalogView {
+    // Where comics are read on first use
+    private final ComicManager comics;
+
+    // Where stock records are read on first use
+    private final InventoryManager inventory;
+
+    // Comic ID -> its row, in ID order
+    private final TreeMap<Integer, Row> rows = new TreeMap<>();
+
+    // Whether the rows have been filled from the managers
+    private boolean built;
+
+    /**
+     * Constructor for creating the view and subscribing it to both managers.
+     *
+     * @param comics The manager of the comics
+     * @param inventory The manager of their stock records
+     */
+    public CatalogView(ComicManager comics, InventoryManager inventory) {
+        this.comics = comics;
+        this.inventory = inventory;
+        comics.addListener(new EntityListener<Comic>() {
+            @Override
+            public void added(Comic comic) { setComic(comic.getId(), comic); }
+            @Override
+            public void removed(Comic comic) { setComic(comic.getId(), null); }
+            @Override
+            public void changed(Comic comic) { } // Rows hold the comic itself
+        });
+        inventory.addListener(new EntityListener<Stock>() {
+            @Override
+            public void added(Stock stock) { setStock(stock.getComicId(), stock); }
+            @Override
+            public void removed(Stock stock) { setStock(stock.getComicId(), null); }
+            @Override
+            public void changed(Stock stock) { } // Rows hold the stock record itself
+        });
+    }
+
+    /**
+     * Visits every row in comic ID order.
+     * Rows cannot be added or removed while the visit runs.
+     *
+     * @param action Called with each row
+     */
+    public synchronized void forEach(Consumer<Row> action) {
+        ensureBuilt();
+        for (Row row : rows.values()) action.accept(row);
+    }
+
+    /**
+     * Gets the row of one comic.
+     *
+     * @param comicId The comic ID to look up
+     * @return The row, or null if there is neither a comic nor a stock record with that ID
+     */
+    public synchronized Row get(int comicId) {
+        ensureBuilt();
+        return rows.get(comicId);
+    }
+
+    /**
+     * Counts the rows.
+     *
+     * @return The number of comic IDs with a comic, a stock record, or both
+     */
+    public synchronized int size() {
+        ensureBuilt();
+        return rows.size();
+    }
+
+    private synchronized void setComic(int comicId, Comic comic) {
+        if (!built) return;
+        Row row = rows.computeIfAbsent(comicId, Row::new);
+        row.comic = comic;
+        if (row.comic == null && row.stock == null) rows.remove(comicId);
+    }
+
+    private synchronized void setStock(int comicId, Stock stock) {
+        if (!built) return;
+        Row row = rows.computeIfAbsent(comicId, Row::new);
+        row.stock = stock;
+        if (row.comic == null && row.stock == null) rows.remove(comicId);
+    }
+
+    /**
+     * Fills the rows from both managers if that has not happened yet.
+     */
+    private void ensureBuilt() {
+        if (built) return;
+        built = true;
+        for (Comic comic : comics.getAll()) setComic(comic.getId(), comic);
+        for (Stock stock : inventory.getAll()) setStock(stock.getComicId(), stock);
+    }
+
+    /**
+     * One comic ID with its comic and stock record.
+     */
+    public static final class Row {
+        private final int comicId;
+        private Comic comic;
+        private Stock stock;
+
+        Row(int comicId) {
+            this.comicId = comicId;
+        }
+
+        public int getComicId() { return comicId; }
+
+        /** @return The comic, or null for a stock record whose comic is gone */
+        public Comic getComic() { return comic; }
+
+        /** @return The stock record, or null if the comic is not stocked */
+        public Stock getStock() { return stock; }
+
+        /** @return The comic's title, or "Unknown Comic" if the comic is gone */
+        public String getTitle() { return comic != null ? comic.getTitle() : "Unknown Comic"; }
+
+        /** @return The quantity in stock, or -1 if the comic is not stocked */
+        public int getQuantity() { return stock != null ? stock.getQuantity() : -1; }
+    }
+}
@@ -0,0 +1,396 @@
+package managers;
+
+import entities.Comic;
+import entities.Stock;
+import java.util.*;
+import utils.CompressedBitmap;
+import utils.IntHashIndex;
+
+/**
+ * ComicFacets class - Faceted filtering of the catalog by genre, year, price band and stock.
+ *
+ * For every genre, publication year and price band the IDs of the matching comics
+ * are kept in a compressed bitmap, plus one bitmap of the comics that are in stock.
+ * A filter such as "Shounen, 2010-2016, under P500, in stock" is answered by OR-ing
+ * the bitmaps chosen within each facet and AND-ing the facets together, and the
+ * count for every facet value within the result is one AND-count per bitmap, so no
+ * comic is looked at unless it is displayed. A price cap keeps whole bands below it and
+ * checks the exact price of only the comics in the band the cap falls inside.
+ *
+ * The bitmaps are built from both managers on the first filter and then kept
+ * current as an EntityListener on comics and on stock records.
+ *
+ * @author Comic Book Store System
+ * @version 1.0
+ */
+public class ComicFacets implements EntityListener<Comic> {
+    // Lower bound of each price band, in pesos; a band runs up to the next bound
+    private static final double[] PRICE_BANDS = {0, 200, 500, 1000};
+
+    // Years per bucket in the year facet counts
+    private static final int YEAR_BUCKET = 5;
+
+    // Where comics are looked up for results
+    private final ComicManager comics;
+
+    // Where stock records are read on first use
+    private final InventoryManager inventory;
+
+    // Every comic
+    private final CompressedBitmap all = new CompressedBitmap();
+
+    // Case-folded genre -> comics of that genre; and the genre as first written
+    private final Map<String, CompressedBitmap> byGenre = new TreeMap<>();
+    private final Map<String, String> genreNames = new HashMap<>();
+
+    // Publication year -> comics of that year, sorted so ranges are a sub-map
+    private final TreeMap<Integer, CompressedBitmap> byYear = new TreeMap<>();
+
+    // Comics in each price band, indexed like PRICE_BANDS
+    private final CompressedBitmap[] byPriceBand = new CompressedBitmap[PRICE_BANDS.length];
+
+    // Comic IDs whose stock record has a positive quantity
+    private final CompressedBitmap inStock = new CompressedBitmap();
+
+    // Comic ID -> the facet values it was filed under, so it can be refiled after an edit
+    private final IntHashIndex<Filed> filed = new IntHashIndex<>();
+
+    // Whether the bitmaps have been filled from the managers
+    private boolean built;
+
+    /**
+     * Constructor for creating the facets and subscribing them to both managers.
+     *
+     * @param comics The manager of the comics to filter
+     * @param inventory The manager of their stock records
+     */
+    public ComicFacets(ComicManager comics, InventoryManager inventory) {
+        this.comics = comics;
+        this.inventory = inventory;
+        for (int band = 0; band < byPriceBand.length; band++) byPriceBand[band] = new CompressedBitmap();
+        comics.addListener(this);
+        inventory.addListener(new EntityListener<Stock>() {
+            @Override
+            public void added(Stock stock) { stockChanged(stock); }
+            @Override
+            public void removed(Stock stock) { stockRemoved(stock); }
+            @Override
+            public void changed(Stock stock) { stockChanged(stock); }
+        });
+    }
+
+    /**
+     * Gets the display name of every price band, in band order.
+     *
+     * @return One label per band, e.g. "P200-P499"
+     */
+    public static List<String> priceBandNames() {
+        List<String> names = new ArrayList<>(PRICE_BANDS.length);
+        for (int band = 0; band < PRICE_BANDS.length; band++) names.add(priceBandName(band));
+        return names;
+    }
+
+    /**
+     * Finds the comics matching a filter and counts every facet value among them.
+     *
+     * @param filter The facet values to keep; an empty facet keeps everything
+     * @return The matching comics with their facet counts
+     */
+    public synchronized Result filter(Filter filter) {
+        ensureBuilt();
+        CompressedBitmap matches = all;
+        if (!filter.genres.isEmpty()) {
+            CompressedBitmap any = new CompressedBitmap();
+            for (String genre : filter.genres) {
+                CompressedBitmap ids = byGenre.get(fold(genre));
+                if (ids != null) any = CompressedBitmap.or(any, ids);
+            }
+            matches = CompressedBitmap.and(matches, any);
+        }
+        if (filter.fromYear != Integer.MIN_VALUE || filter.toYear != Integer.MAX_VALUE) {
+            CompressedBitmap any = new CompressedBitmap();
+            for (CompressedBitmap ids : byYear.subMap(filter.fromYear, true, filter.toYear, true).values())
+                any = CompressedBitmap.or(any, ids);
+            matches = CompressedBitmap.and(matches, any);
+        }
+        if (!filter.priceBands.isEmpty() || filter.priceCap > 0) {
+            CompressedBitmap any = new CompressedBitmap();
+            for (int band : filter.priceBands) any = CompressedBitmap.or(any, byPriceBand[band]);
+            if (filter.priceCap > 0) any = CompressedBitmap.or(any, pricedUnder(filter.priceCap));
+            matches = CompressedBitmap.and(matches, any);
+        }
+        if (filter.inStockOnly) matches = CompressedBitmap.and(matches, inStock);
+        if (matches == all) matches = all.copy(); // The result must not change with later edits
+
+        Result result = new Result(matches, comics);
+        for (Map.Entry<String, CompressedBitmap> entry : byGenre.entrySet())
+            addCount(result.genreCounts, genreNames.get(entry.getKey()), matches, entry.getValue());
+        for (Map.Entry<Integer, CompressedBitmap> entry : byYear.entrySet())
+            addCount(result.yearCounts, yearBucketName(entry.getKey()), matches, entry.getValue());
+        for (int band = 0; band < byPriceBand.length; band++)
+            addCount(result.priceBandCounts, priceBandName(band), matches, byPriceBand[band]);
+        result.inStockCount = CompressedBitmap.andCardinality(matches, inStock);
+        return result;
+    }
+
+    @Override
+    public synchronized void added(Comic comic) {
+        if (built) file(comic);
+    }
+
+    @Override
+    public synchronized void removed(Comic comic) {
+        if (built) unfile(comic.getId());
+    }
+
+    @Override
+    public synchronized void changed(Comic comic) {
+        if (!built) return;
+        unfile(comic.getId());
+        file(comic);
+    }
+
+    private synchronized void stockChanged(Stock stock) {
+        if (!built) return;
+        if (stock.getQuantity() > 0) {
+            inStock.add(stock.getComicId());
+        } else {
+            inStock.remove(stock.getComicId());
+        }
+    }
+
+    private synchronized void stockRemoved(Stock stock) {
+        if (built) inStock.remove(stock.getComicId());
+    }
+
+    /**
+     * Gets the comics priced under a cap: every band that ends at or below the cap whole,
+     * plus the comics of the band the cap falls inside whose price is under it.
+     */
+    private CompressedBitmap pricedUnder(double cap) {
+        CompressedBitmap partial = new CompressedBitmap();
+        int boundary = priceBandOf(cap);
+        if (PRICE_BANDS[boundary] < cap) {
+            byPriceBand[boundary].forEach(id -> {
+                if (filed.get(id).price < cap) partial.add(id);
+            });
+        }
+        CompressedBitmap under = partial;
+        for (int band = 0; band < boundary; band++) under = CompressedBitmap.or(under, byPriceBand[band]);
+        return under;
+    }
+
+    /**
+     * Fills the bitmaps from both managers if that has not happened yet.
+     */
+    private void ensureBuilt() {
+        if (built) return;
+        built = true;
+        for (Comic comic : comics.getAll()) file(comic);
+        for (Stock stock : inventory.getAll()) stockChanged(stock);
+    }
+
+    /**
+     * Adds a comic to the bitmap of each of its facet values.
+     */
+    private void file(Comic comic) {
+        int id = comic.getId();
+        if (id < 0) return; // Bitmaps hold non-negative IDs only
+        if (filed.containsKey(id)) unfile(id); // A duplicate ID replaces the earlier comic
+        String genre = fold(comic.getGenre());
+        genreNames.putIfAbsent(genre, comic.getGenre() == null ? "" : comic.getGenre().trim());
+        int band = priceBandOf(comic.getPrice());
+        all.add(id);
+        byGenre.computeIfAbsent(genre, g -> new CompressedBitmap()).add(id);
+        byYear.computeIfAbsent(comic.getYear(), y -> new CompressedBitmap()).add(id);
+        byPriceBand[band].add(id);
+        filed.put(id, new Filed(genre, comic.getYear(), band, comic.getPrice()));
+    }
+
+    /**
+     * Removes a comic from every bitmap it was filed in, dropping facet values left empty.
+     */
+    private void unfile(int id) {
+        Filed was = filed.remove(id);
+        if (was == null) return;
+        all.remove(id);
+        CompressedBitmap genre = byGenre.get(was.genre);
+        if (genre != null && genre.remove(id) && genre.isEmpty()) {
+            byGenre.remove(was.genre);
+            genreNames.remove(was.genre);
+        }
+        CompressedBitmap year = byYear.get(was.year);
+        if (year != null && year.remove(id) && year.isEmpty()) byYear.remove(was.year);
+        byPriceBand[was.priceBand].remove(id);
+    }
+
+    private static void addCount(Map<String, Integer> counts, String name, CompressedBitmap matches, CompressedBitmap ids) {
+        int count = CompressedBitmap.andCardinality(matches, ids);
+        if (count > 0) counts.merge(name, count, Integer::sum);
+    }
+
+    private static String fold(String genre) {
+        return genre == null ? "" : genre.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static int priceBandOf(double price) {
+        int band = 0;
+        while (band + 1 < PRICE_BANDS.length && price >= PRICE_BANDS[band + 1]) band++;
+        return band;
+    }
+
+    private static String priceBandName(int band) {
+        if (band == 0) return "Under P" + (int) PRICE_BANDS[1];
+        if (band == PRICE_BANDS.length - 1) return "P" + (int) PRICE_BANDS[band] + " and up";
+        return "P" + (int) PRICE_BANDS[band] + "-P" + ((int) PRICE_BANDS[band + 1] - 1);
+    }
+
+    private static String yearBucketName(int year) {
+        int start = Math.floorDiv(year, YEAR_BUCKET) * YEAR_BUCKET;
+        return start + "-" + (start + YEAR_BUCKET - 1);
+    }
+
+    /**
+     * The facet values a comic is filed under.
+     */
+    private static final class Filed {
+        final String genre;
+        final int year;
+        final int priceBand;
+        final double price;
+
+        Filed(String genre, int year, int priceBand, double price) {
+            this.genre = genre;
+            this.year = year;
+            this.priceBand = priceBand;
+            this.price = price;
+        }
+    }
+
+    /**
+     * The facet values to keep. Within a facet any chosen value matches; every facet
+     * with a choice must match.
+     */
+    public static class Filter {
+        private final Set<String> genres = new LinkedHashSet<>();
+        private int fromYear = Integer.MIN_VALUE;
+        private int toYear = Integer.MAX_VALUE;
+        private final Set<Integer> priceBands = new TreeSet<>();
+        private double priceCap; // 0 when no cap is set
+        private boolean inStockOnly;
+
+        /**
+         * Keeps comics of a genre (case-insensitive); may be called for several genres.
+         *
+         * @param genre The genre to keep
+         * @return This filter, for chaining
+         */
+        public Filter genre(String genre) {
+            genres.add(genre);
+            return this;
+        }
+
+        /**
+         * Keeps comics published within a range of years.
+         *
+         * @param from The first year to keep
+         * @param to The last year to keep
+         * @return This filter, for chaining
+         * @throws IllegalArgumentException if from is after to
+         */
+        public Filter years(int from, int to) {
+            if (from > to) throw new IllegalArgumentException("First year cannot be after last year");
+            fromYear = from;
+            toYear = to;
+            return this;
+        }
+
+        /**
+         * Keeps comics in a price band; may be called for several bands.
+         *
+         * @param band The band's position in priceBandNames()
+         * @return This filter, for chaining
+         * @throws IllegalArgumentException if there is no such band
+         */
+        public Filter priceBand(int band) {
+            if (band < 0 || band >= PRICE_BANDS.length) throw new IllegalArgumentException("No such price band: " + band);
+            priceBands.add(band);
+            return this;
+        }
+
+        /**
+         * Keeps comics priced under an amount. Like a price band, this adds to any bands
+         * chosen; if called more than once, the highest amount is kept.
+         *
+         * @param price The amount; only comics priced below it are kept
+         * @return This filter, for chaining
+         * @throws IllegalArgumentException if the amount is not positive
+         */
+        public Filter under(double price) {
+            if (!(price > 0)) throw new IllegalArgumentException("Price must be positive: " + price);
+            priceCap = Math.max(priceCap, price);
+            return this;
+        }
+
+        /**
+         * Keeps only comics with stock on hand.
+         *
+         * @return This filter, for chaining
+         */
+        public Filter inStock() {
+            inStockOnly = true;
+            return this;
+        }
+    }
+
+    /**
+     * The comics matching a filter, with how many of them have each facet value.
+     */
+    public static class Result {
+        private final CompressedBitmap matches;
+        private final ComicManager comics;
+        private final Map<String, Integer> genreCounts = new LinkedHashMap<>();
+        private final Map<String, Integer> yearCounts = new LinkedHashMap<>();
+        private final Map<String, Integer> priceBandCounts = new LinkedHashMap<>();
+        private int inStockCount;
+
+        Result(CompressedBitmap matches, ComicManager comics) {
+            this.matches = matches;
+            this.comics = comics;
+        }
+
+        /**
+         * Gets the number of matching comics.
+         *
+         * @return The number of matches
+         */
+        public int getCount() { return matches.cardinality(); }
+
+        /**
+         * Gets matching comics in ID order.
+         *
+         * @param limit The most comics to return
+         * @return Up to limit matching comics
+         */
+        public List<Comic> getComics(int limit) {
+            List<Comic> found = new ArrayList<>();
+            for (int id : matches.toArray(limit)) {
+                Comic comic = comics.findById(id);
+                if (comic != null) found.add(comic);
+            }
+            return found;
+        }
+
+        /** @return Matching comics per genre, genres in alphabetical order */
+        public Map<String, Integer> getGenreCounts() { return genreCounts; }
+
+        /** @return Matching comics per bucket of years, oldest first */
+        public Map<String, Integer> getYearCounts() { return yearCounts; }
+
+        /** @return Matching comics per price band, cheapest first */
+        public Map<String, Integer> getPriceBandCounts() { return priceBandCounts; }
+
+        /** @return Matching comics with stock on hand */
+        public int getInStockCount() { return inStockCount; }
+    }
+}
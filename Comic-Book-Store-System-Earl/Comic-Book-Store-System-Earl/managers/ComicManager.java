@@ -2,6 +2,14 @@ package managers;
 
 import entities.Comic;
 import java.util.*;
+import java.io.IOException;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import utils.CsvWriter;
+import utils.LatencyHistogram;
+import utils.Metrics;
+import utils.SnapshotReader;
+import utils.SnapshotWriter;
 
 /**
  * ComicManager class - Specialized manager for Comic entities.
@@ -16,13 +24,43 @@ import java.util.*;
  */
 public class ComicManager extends EntityManager<Comic> {
 
+    // Secondary indexes for case-insensitive lookups by title, author and genre
+    private final EntityIndex<Comic> titleIndex;
+    private final EntityIndex<Comic> authorIndex;
+    private final EntityIndex<Comic> genreIndex;
+
+    // Full-text index over title, author and genre; a title match ranks highest
+    private final TextIndex<Comic> textIndex;
+
+    // Latency of the lookups customers wait on
+    private static final LatencyHistogram FIND_LATENCY =
+            Metrics.histogram("store_find_by_id_or_name_seconds", "Time to find a comic by ID or exact title");
+    private static final LatencyHistogram SEARCH_LATENCY =
+            Metrics.histogram("store_search_seconds", "Time to run a full-text comic search");
+
+    // Sorted indexes for price and publication year ranges
+    private final RangeIndex<Comic> priceIndex;
+    private final RangeIndex<Comic> yearIndex;
+
     /**
      * Constructor for creating a ComicManager instance.
      * 
      * @param filename The path to the comics data file
      */
     public ComicManager(String filename) {
-        super(filename); // Call parent constructor to initialize with data file
+        super(filename, new SnapshotColumns()); // Call parent constructor to initialize with data file
+        titleIndex = addIndex("title", Comic::getTitle, false, true);
+        authorIndex = addIndex("author", Comic::getAuthor, false, true);
+        genreIndex = addIndex("genre", Comic::getGenre, false, true);
+        textIndex = new TextIndex<>(Comic::getId, this::getAll, this::findById)
+                .field(Comic::getTitle, 3)
+                .field(Comic::getAuthor, 2)
+                .field(Comic::getGenre, 1);
+        addListener(textIndex);
+        priceIndex = new RangeIndex<>(Comic::getId, Comic::getPrice, this::getAll, this::findById);
+        yearIndex = new RangeIndex<>(Comic::getId, Comic::getYear, this::getAll, this::findById);
+        addListener(priceIndex);
+        addListener(yearIndex);
     }
 
     /**
@@ -45,6 +83,24 @@ public class ComicManager extends EntityManager<Comic> {
     @Override
     protected String serialize(Comic entity) { return entity.toString(); }
 
+    /**
+     * Parses a record read from the mapped data file without copying it into a String.
+     *
+     * @param record The comma-separated record of a comic
+     * @return Comic object if parsing is successful, null otherwise
+     */
+    @Override
+    protected Comic parseRecord(CharSequence record) { return Comic.fromCsv(csvCursor.reset(record)); }
+
+    /**
+     * Serializes a Comic object straight into the reusable record writer.
+     *
+     * @param entity The Comic entity to serialize
+     * @param out The writer to append the record to
+     */
+    @Override
+    protected void serialize(Comic entity, CsvWriter out) { entity.writeCsv(out); }
+
     /**
      * Gets the ID from a Comic entity.
      * 
@@ -181,24 +237,108 @@ public class ComicManager extends EntityManager<Comic> {
 
     //Find an entity by its name
     public Comic findByName(String Title) {
-        for (Comic e : entities)
-            if (e.getTitle().equalsIgnoreCase(Title))
-                return e;
+        return titleIndex.findFirst(Title);
+    }
+
+    /**
+     * Finds all comics by an author, ignoring case.
+     *
+     * @param author The author to search for
+     * @return List of comics by the author (empty if none)
+     */
+    public List<Comic> findByAuthor(String author) {
+        return authorIndex.findAll(author);
+    }
 
-        return null;
+    /**
+     * Finds all comics in a genre, ignoring case.
+     *
+     * @param genre The genre to search for
+     * @return List of comics in the genre (empty if none)
+     */
+    public List<Comic> findByGenre(String genre) {
+        return genreIndex.findAll(genre);
     }
 
     //Find a comic by ID or title
     public Comic findByIdOrName(String input) {
-        input = input.trim();
+        long start = System.nanoTime();
         try {
-            int id = Integer.parseInt(input);
-            return findById(id);
-        } catch (NumberFormatException e) {
-            return findByName(input);
+            input = input.trim();
+            try {
+                int id = Integer.parseInt(input);
+                return findById(id);
+            } catch (NumberFormatException e) {
+                return findByName(input);
+            }
+        } finally {
+            FIND_LATENCY.recordSince(start);
         }
     }
 
+    /**
+     * Searches the words of comic titles, authors and genres.
+     * Words next to each other must all match; OR between words matches either side.
+     *
+     * @param query The words to search for, e.g. "saga" or "one piece OR naruto"
+     * @param limit The most results to return
+     * @return Matching comics, best match first
+     */
+    public List<Comic> search(String query, int limit) {
+        long start = System.nanoTime();
+        try {
+            return textIndex.search(query, limit);
+        } finally {
+            SEARCH_LATENCY.recordSince(start);
+        }
+    }
+
+    /**
+     * Finds the comics priced within a range, cheapest first.
+     *
+     * @param min The lowest price to include, in pesos
+     * @param max The highest price to include, in pesos
+     * @param limit The most comics to return
+     * @return Matching comics in ascending order of price
+     */
+    public List<Comic> findByPriceRange(double min, double max, int limit) {
+        return priceIndex.range(min, max, limit);
+    }
+
+    /**
+     * Counts the comics priced within a range.
+     *
+     * @param min The lowest price to include, in pesos
+     * @param max The highest price to include, in pesos
+     * @return The number of matching comics
+     */
+    public int countByPriceRange(double min, double max) {
+        return priceIndex.count(min, max);
+    }
+
+    /**
+     * Finds the comics published within a range of years, oldest first.
+     *
+     * @param from The first year to include
+     * @param to The last year to include
+     * @param limit The most comics to return
+     * @return Matching comics in ascending order of year
+     */
+    public List<Comic> findByYearRange(int from, int to, int limit) {
+        return yearIndex.range(from, to, limit);
+    }
+
+    /**
+     * Counts the comics published within a range of years.
+     *
+     * @param from The first year to include
+     * @param to The last year to include
+     * @return The number of matching comics
+     */
+    public int countByYearRange(int from, int to) {
+        return yearIndex.count(from, to);
+    }
+
     /**
      * Gets the price of a comic by its title.
      *
@@ -282,4 +422,65 @@ public class ComicManager extends EntityManager<Comic> {
         add(new Comic(nextId(), title, author, price, genre, year));
         System.out.println("            Comic added!");
     }
+
+    /**
+     * Writes and reads comics in the binary snapshot.
+     */
+    private static final class SnapshotColumns implements SnapshotCodec<Comic> {
+        /**
+         * Writes the comics as columns. Titles, authors and genres are stored as ordinals
+         * into one shared dictionary, so repeated values such as genres are written once.
+         *
+         * @param out The snapshot to write to
+         * @param rows The comics to write
+         * @throws IOException if writing fails
+         */
+        @Override
+        public void writeColumns(SnapshotWriter out, List<Comic> rows) throws IOException {
+            int n = rows.size();
+            int[] ids = new int[n], years = new int[n], titles = new int[n], authors = new int[n], genres = new int[n];
+            double[] prices = new double[n];
+            SnapshotWriter.Dictionary dictionary = new SnapshotWriter.Dictionary();
+            for (int i = 0; i < n; i++) {
+                Comic comic = rows.get(i);
+                ids[i] = comic.getId();
+                titles[i] = dictionary.encode(comic.getTitle());
+                authors[i] = dictionary.encode(comic.getAuthor());
+                prices[i] = comic.getPrice();
+                genres[i] = dictionary.encode(comic.getGenre());
+                years[i] = comic.getYear();
+            }
+            out.writeDictionary(dictionary);
+            out.writeInts(ids);
+            out.writeInts(titles);
+            out.writeInts(authors);
+            out.writeDoubles(prices);
+            out.writeInts(genres);
+            out.writeInts(years);
+        }
+
+        /**
+         * Rebuilds the comics from the columns written by writeColumns.
+         *
+         * @param in The snapshot to read from
+         * @param rows The number of comics in the snapshot
+         * @return The comics in their original order
+         */
+        @Override
+        public List<Comic> readColumns(SnapshotReader in, int rows) {
+            String[] dictionary = in.readDictionary();
+            IntBuffer ids = in.intColumn();
+            IntBuffer titles = in.intColumn();
+            IntBuffer authors = in.intColumn();
+            DoubleBuffer prices = in.doubleColumn();
+            IntBuffer genres = in.intColumn();
+            IntBuffer years = in.intColumn();
+            List<Comic> comics = new ArrayList<>(rows);
+            for (int i = 0; i < rows; i++) {
+                comics.add(new Comic(ids.get(i), dictionary[titles.get(i)], dictionary[authors.get(i)], prices.get(i),
+                                     dictionary[genres.get(i)], years.get(i)));
+            }
+            return comics;
+        }
+    }
 }
@@ -0,0 +1,265 @@
+package managers;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import utils.IntHashIndex;
+
+/**
+ * EntityIndex class - A secondary hash index over one field of a managed entity.
+ *
+ * Indexes are declared by EntityManager subclasses through addIndex and are kept
+ * current by the manager on every add, delete and update. Each index remembers the
+ * key an entity was filed under, so an entity edited in place by updateEntity can
+ * be moved to its new key without scanning the index.
+ *
+ * An index is built from the manager's entities the first time it is queried, so
+ * loading a large catalog does not pay for indexes that are never used. Until then
+ * add, delete and update leave it alone, since the build will see their results.
+ *
+ * @param <T> The type of entity being indexed
+ * @author Comic Book Store System
+ * @version 1.0
+ */
+public class EntityIndex<T> {
+    // Name of the indexed field, used in error messages
+    private final String name;
+
+    // Extracts the key from an entity
+    private final Function<T, ?> keyExtractor;
+
+    // Extracts the primary ID from an entity
+    private final ToIntFunction<T> idExtractor;
+
+    // Whether at most one entity may hold each key
+    private final boolean unique;
+
+    // Whether string keys are compared case-insensitively
+    private final boolean caseFolded;
+
+    // Key -> entity, or key -> List of entities once a non-unique key is shared
+    private final Map<Object, Object> buckets = new HashMap<>();
+
+    // Entity ID -> the key the entity is currently filed under
+    private final IntHashIndex<Object> keysById = new IntHashIndex<>();
+
+    // Supplies the entities to index when the index is first queried
+    private final Supplier<? extends Collection<T>> source;
+
+    // Whether the index has been filled from the source; set only once it is full,
+    // so threads reading concurrently never see a half-built index
+    private volatile boolean built;
+
+    /**
+     * Constructor for creating an EntityIndex.
+     *
+     * @param name The name of the indexed field
+     * @param keyExtractor Function that extracts the key from an entity
+     * @param idExtractor Function that extracts the primary ID from an entity
+     * @param unique true if each key may belong to only one entity
+     * @param caseFolded true if string keys should be matched ignoring case
+     * @param source Supplies the entities to index on first use
+     */
+    EntityIndex(String name, Function<T, ?> keyExtractor, ToIntFunction<T> idExtractor,
+                boolean unique, boolean caseFolded, Supplier<? extends Collection<T>> source) {
+        this.name = name;
+        this.source = source;
+        this.keyExtractor = keyExtractor;
+        this.idExtractor = idExtractor;
+        this.unique = unique;
+        this.caseFolded = caseFolded;
+    }
+
+    /**
+     * Gets the name of the indexed field.
+     *
+     * @return The index name
+     */
+    public String getName() { return name; }
+
+    /**
+     * Checks whether this index enforces one entity per key.
+     *
+     * @return true if the index is unique
+     */
+    public boolean isUnique() { return unique; }
+
+    /**
+     * Finds the first entity filed under a key.
+     *
+     * @param key The key to look up
+     * @return The first matching entity, or null if none match
+     */
+    @SuppressWarnings("unchecked")
+    public T findFirst(Object key) {
+        ensureBuilt();
+        Object bucket = buckets.get(normalize(key));
+        if (bucket instanceof EntityList) return ((EntityList<T>) bucket).get(0);
+        return (T) bucket;
+    }
+
+    /**
+     * Finds every entity filed under a key.
+     *
+     * @param key The key to look up
+     * @return List of matching entities in the order they were indexed (empty if none)
+     */
+    @SuppressWarnings("unchecked")
+    public List<T> findAll(Object key) {
+        ensureBuilt();
+        Object bucket = buckets.get(normalize(key));
+        if (bucket == null) return Collections.emptyList();
+        if (bucket instanceof EntityList) return Collections.unmodifiableList((EntityList<T>) bucket);
+        return Collections.singletonList((T) bucket);
+    }
+
+    /**
+     * Checks whether any entity is filed under a key.
+     *
+     * @param key The key to check
+     * @return true if at least one entity has the key
+     */
+    public boolean contains(Object key) {
+        ensureBuilt();
+        return buckets.containsKey(normalize(key));
+    }
+
+    /**
+     * Checks whether adding an entity would break this index's unique constraint.
+     *
+     * @param entity The entity about to be added
+     * @throws IllegalArgumentException if the index is unique and another entity holds the key
+     */
+    void checkUnique(T entity) {
+        if (!unique) return;
+        ensureBuilt();
+        Object key = normalize(keyExtractor.apply(entity));
+        if (key == null) return;
+        Object holder = buckets.get(key);
+        if (holder != null && holder != entity) {
+            throw new IllegalArgumentException("Duplicate " + name + ": " + keyExtractor.apply(entity));
+        }
+    }
+
+    /**
+     * Files an entity under its current key.
+     *
+     * @param entity The entity to index
+     * @return true if the entity was indexed, false if a unique key was already taken
+     */
+    boolean insert(T entity) {
+        if (!built) return true; // Picked up when the index is built
+        return file(entity);
+    }
+
+    /**
+     * Files an entity under its current key, whether or not the index is built yet.
+     */
+    @SuppressWarnings("unchecked")
+    private boolean file(T entity) {
+        Object key = normalize(keyExtractor.apply(entity));
+        if (key == null) return true; // Entities without a key are simply not indexed
+        Object bucket = buckets.get(key);
+        if (bucket == null) {
+            buckets.put(key, entity);
+        } else if (unique) {
+            return bucket == entity;
+        } else if (bucket instanceof EntityList) {
+            ((EntityList<T>) bucket).add(entity);
+        } else {
+            EntityList<T> list = new EntityList<>();
+            list.add((T) bucket);
+            list.add(entity);
+            buckets.put(key, list);
+        }
+        keysById.put(idExtractor.applyAsInt(entity), key);
+        return true;
+    }
+
+    /**
+     * Removes an entity from the key it was filed under.
+     * Uses the remembered key, so this works even after the entity's fields have changed.
+     *
+     * @param entity The entity to remove
+     */
+    @SuppressWarnings("unchecked")
+    void remove(T entity) {
+        if (!built) return;
+        Object key = keysById.remove(idExtractor.applyAsInt(entity));
+        if (key == null) return; // Entity was never indexed
+        Object bucket = buckets.get(key);
+        if (bucket instanceof EntityList) {
+            EntityList<T> list = (EntityList<T>) bucket;
+            list.remove(entity);
+            if (list.size() == 1) buckets.put(key, list.get(0));
+        } else if (bucket == entity) {
+            buckets.remove(key);
+        }
+    }
+
+    /**
+     * Moves an entity to its current key after its fields were edited.
+     *
+     * @param entity The entity that changed
+     * @throws IllegalArgumentException if the new key is already held under a unique constraint
+     */
+    void update(T entity) {
+        if (!built) return;
+        Object current = normalize(keyExtractor.apply(entity));
+        Object filed = keysById.get(idExtractor.applyAsInt(entity));
+        if (Objects.equals(current, filed)) return; // Key unchanged, nothing to move
+        remove(entity);
+        if (!insert(entity)) {
+            throw new IllegalArgumentException("Duplicate " + name + ": " + keyExtractor.apply(entity));
+        }
+    }
+
+    /**
+     * Empties the index so that it is built again from the source on next use.
+     * Called when the manager's entities are replaced wholesale, such as on load.
+     */
+    void invalidate() {
+        buckets.clear();
+        keysById.clear();
+        built = false;
+    }
+
+    /**
+     * Fills the index from the source if that has not happened yet.
+     * Entities whose unique key is already taken are left out with a warning.
+     */
+    private void ensureBuilt() {
+        if (built) return;
+        synchronized (this) {
+            if (built) return; // Another thread built it while this one waited
+            for (T entity : source.get()) {
+                if (!file(entity)) {
+                    System.err.println("Warning: Duplicate " + name + " for ID " + idExtractor.applyAsInt(entity) + " ignored by index.");
+                }
+            }
+            built = true;
+        }
+    }
+
+    /**
+     * Normalizes a key for storage and lookup, folding case for strings when enabled.
+     *
+     * @param key The raw key
+     * @return The normalized key
+     */
+    private Object normalize(Object key) {
+        if (caseFolded && key instanceof String) return ((String) key).toLowerCase(Locale.ROOT);
+        return key;
+    }
+
+    /**
+     * Marker list type for keys shared by several entities, so a bucket holding a
+     * list can never be confused with a bucket holding a single entity.
+     */
+    private static class EntityList<E> extends ArrayList<E> {
+        private static final long serialVersionUID = 1L;
+
+        EntityList() { super(2); }
+    }
+}
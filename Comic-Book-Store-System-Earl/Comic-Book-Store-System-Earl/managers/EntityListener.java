@@ -0,0 +1,51 @@
+package managers;
+
+import java.util.Collection;
+
+/**
+ * EntityListener interface - Receives every change made through an EntityManager.
+ *
+ * Used by structures derived from the managed entities, such as search and filter
+ * indexes, to stay current incrementally instead of being rebuilt. Listeners are
+ * called after the change has been applied in memory, on the thread that made it.
+ *
+ * @param <T> The type of entity being managed
+ * @author Comic Book Store System
+ * @version 1.0
+ */
+public interface EntityListener<T> {
+    /**
+     * Called after an entity has been added.
+     *
+     * @param entity The new entity
+     */
+    void added(T entity);
+
+    /**
+     * Called after an entity has been deleted.
+     *
+     * @param entity The deleted entity
+     */
+    void removed(T entity);
+
+    /**
+     * Called after an entity's fields have been edited in place.
+     *
+     * @param entity The edited entity, with its new field values
+     */
+    void changed(T entity);
+
+    /**
+     * Called once after a batch of entities has been added or edited together,
+     * instead of one call per entity. By default each entity is passed on to added
+     * or changed; a listener that is cheaper to rebuild than to update one entity at
+     * a time can override this.
+     *
+     * @param added The new entities
+     * @param changed The edited entities, with their new field values
+     */
+    default void batchApplied(Collection<T> added, Collection<T> changed) {
+        for (T entity : added) added(entity);
+        for (T entity : changed) changed(entity);
+    }
+}
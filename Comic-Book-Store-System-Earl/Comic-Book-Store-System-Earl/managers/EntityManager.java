@@ -2,7 +2,26 @@ package managers;
 
 import java.util.*;
 //import java.io.*;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import utils.CsvCursor;
+import utils.CsvWriter;
 import utils.FileHandler;
+import utils.IdSequence;
+import utils.IntHashIndex;
+import utils.LatencyHistogram;
+import utils.LoadStats;
+import utils.MappedFileReader;
+import utils.Metrics;
+import utils.SnapshotReader;
+import utils.SnapshotWriter;
 
 /**
  * Abstract base class for managing entities in the Comic Book Store System.
@@ -18,10 +37,89 @@ import utils.FileHandler;
 public abstract class EntityManager<T> {
     /** List of entities currently loaded in memory */
     protected List<T> entities = new ArrayList<>();
+
+    /** Primary-key index mapping each entity ID to its entity for constant-time lookups */
+    private final IntHashIndex<T> idIndex = new IntHashIndex<>();
+
+    /** Deleted entities still in the list; they are dropped in one pass before the list is next read */
+    private final Set<T> deleted = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /** Secondary indexes declared by subclasses through addIndex */
+    private final List<EntityIndex<T>> indexes = new ArrayList<>();
+
+    /** Listeners told about every add, delete and in-place edit */
+    private final List<EntityListener<T>> listeners = new CopyOnWriteArrayList<>();
     
     /** File path for data persistence */
     protected String filename;
 
+    /** Cursor reused to parse every record read from disk */
+    protected final CsvCursor csvCursor = new CsvCursor();
+
+    /** Writer reused to serialize every record written to disk */
+    private final CsvWriter csvWriter = new CsvWriter();
+
+    /** How mutations are written to disk */
+    private volatile PersistenceMode persistenceMode = PersistenceMode.REWRITE;
+
+    /** Guards the commit groups below; never held while writing */
+    private final Object commitLock = new Object();
+
+    /** Writer reused to serialize records joining a commit group */
+    private final CsvWriter commitWriter = new CsvWriter();
+
+    /** The commit group that changes are currently joining */
+    private CommitGroup openGroup = new CommitGroup();
+
+    /** Whether a leader is writing a commit group */
+    private boolean writing;
+
+    /** Group writes made, and changes they carried */
+    private long commitWrites;
+    private long commitRequests;
+
+    /** Number of records appended to the log since the last compaction */
+    private int logRecords;
+
+    /** Durable source of new IDs and the name of this manager's sequence in it, if one is used */
+    private IdSequence idSequence;
+    private String sequenceName;
+
+    /** Writes and reads the entities in the binary snapshot, or null if this manager has no snapshot */
+    private final SnapshotCodec<T> snapshotCodec;
+
+    /** Timing of the most recent load of the base file */
+    private LoadStats lastLoadStats;
+
+    /** Latency of load, save and findById, labelled with the concrete manager class */
+    private final LatencyHistogram loadLatency = Metrics.histogram(
+            "store_load_seconds", "Time to load a manager's entities from disk", "manager", getClass().getSimpleName());
+    private final LatencyHistogram saveLatency = Metrics.histogram(
+            "store_save_seconds", "Time to rewrite a manager's base file", "manager", getClass().getSimpleName());
+    private final LatencyHistogram findLatency = Metrics.histogram(
+            "store_find_by_id_seconds", "Time to look an entity up by ID", "manager", getClass().getSimpleName());
+
+    /** The background compaction rewriting the base file, if one has been started */
+    private Future<?> compaction;
+
+    /** Log records are folded into the base file once there are this many, or one per two entities if more */
+    private static final int MIN_RECORDS_BEFORE_COMPACTION = 1000;
+
+    /** Log record prefixes for a stored entity and for a deleted ID */
+    private static final String PUT = "P ";
+    private static final String TOMBSTONE = "D ";
+
+    /** Snapshot header: file type marker and format version */
+    private static final int SNAPSHOT_MAGIC = 0x43425353; // "CBSS"
+    private static final int SNAPSHOT_VERSION = 2; // 2: stock records carry a reorder threshold
+
+    /** Single background thread shared by all managers for log compaction */
+    private static final ExecutorService COMPACTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "log-compactor");
+        t.setDaemon(true);
+        return t;
+    });
+
     /**
      * Constructor for creating an EntityManager instance.
      * Initializes the manager with a data file and loads existing data.
@@ -29,7 +127,19 @@ public abstract class EntityManager<T> {
      * @param filename The path to the data file for persistence
      */
     public EntityManager(String filename) {
+        this(filename, null);
+    }
+
+    /**
+     * Constructor for creating an EntityManager instance that keeps a binary snapshot.
+     * The codec is used by the load made here, so it must not depend on the subclass's own fields.
+     *
+     * @param filename The path to the data file for persistence
+     * @param snapshotCodec Writes and reads the entities in the snapshot, or null for none
+     */
+    public EntityManager(String filename, SnapshotCodec<T> snapshotCodec) {
         this.filename = filename;
+        this.snapshotCodec = snapshotCodec;
         load(); // Load existing data from file on initialization
     }
 
@@ -41,6 +151,18 @@ public abstract class EntityManager<T> {
      * @return The parsed entity object, or null if parsing fails
      */
     protected abstract T parse(String line);
+
+    /**
+     * Parses a record read straight from the mapped data file into an entity object.
+     * The record is only valid during the call. The default copies it into a String
+     * for parse; subclasses can override this to read fields without the copy.
+     *
+     * @param record The record text, trimmed and without its line terminator
+     * @return The parsed entity object, or null if parsing fails
+     */
+    protected T parseRecord(CharSequence record) {
+        return parse(record.toString());
+    }
     
     /**
      * Abstract method to serialize an entity to a string.
@@ -50,6 +172,18 @@ public abstract class EntityManager<T> {
      * @return String representation of the entity
      */
     protected abstract String serialize(T entity);
+
+    /**
+     * Serializes an entity into a reusable record writer.
+     * The default appends serialize(entity); subclasses can override this to write
+     * fields directly and avoid building a String per entity.
+     *
+     * @param entity The entity to serialize
+     * @param out The writer to append the record to
+     */
+    protected void serialize(T entity, CsvWriter out) {
+        out.raw(serialize(entity));
+    }
     
     /**
      * Abstract method to get the ID of an entity.
@@ -71,14 +205,108 @@ public abstract class EntityManager<T> {
      */
     protected abstract void updateEntity(T entity, Scanner sc);
 
+    /**
+     * Declares a secondary index over one field of the managed entities.
+     * The index is filled from the loaded entities the first time it is queried
+     * and is kept current on every add, delete and update from then on.
+     *
+     * @param name The name of the indexed field, used in error messages
+     * @param keyExtractor Function that extracts the key from an entity
+     * @param unique true if each key may belong to only one entity
+     * @param caseFolded true if string keys should be matched ignoring case
+     * @return The new index, for the subclass to query
+     */
+    protected EntityIndex<T> addIndex(String name, java.util.function.Function<T, ?> keyExtractor,
+                                      boolean unique, boolean caseFolded) {
+        EntityIndex<T> index = new EntityIndex<>(name, keyExtractor, this::getId, unique, caseFolded,
+                                                 this::rows);
+        indexes.add(index);
+        return index;
+    }
+
+    /**
+     * Registers a listener to be told about every add, delete and in-place edit from now on.
+     *
+     * @param listener The listener to register
+     */
+    public void addListener(EntityListener<T> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Refreshes every secondary index and listener for an entity whose fields were edited in place.
+     *
+     * @param entity The entity that changed
+     */
+    protected void reindex(T entity) {
+        for (EntityIndex<T> index : indexes)
+            index.update(entity);
+        notifyChanged(entity);
+    }
+
+    /**
+     * Tells every listener that an entity changed, without touching the secondary
+     * indexes; for edits to fields that no index is keyed on.
+     *
+     * @param entity The entity that changed
+     */
+    protected void notifyChanged(T entity) {
+        for (EntityListener<T> listener : listeners)
+            listener.changed(entity);
+    }
+
     /**
      * Adds a new entity to the collection and persists to file.
      * 
      * @param entity The entity to add
      */
     public void add(T entity) {
+        for (EntityIndex<T> index : indexes)
+            index.checkUnique(entity); // Reject the entity before anything is changed
+        insert(entity);
+        for (EntityListener<T> listener : listeners)
+            listener.added(entity);
+        persist(entity); // Persist changes to file
+    }
+
+    /**
+     * Adds new entities and takes in in-place edits to existing ones as one batch.
+     * The entities in changed must already hold their new field values. Listeners are
+     * told about the whole batch in one call, and every record is persisted in one
+     * write, so a batch of any size costs one rewrite of the file (or one log append).
+     *
+     * @param added The new entities to add
+     * @param changed Existing entities whose fields were edited in place
+     * @throws IllegalArgumentException if a new entity breaks a unique index; nothing is changed then
+     */
+    public void applyBatch(Collection<T> added, Collection<T> changed) {
+        for (T entity : added)
+            for (EntityIndex<T> index : indexes)
+                index.checkUnique(entity); // Reject the batch before anything is changed
+        for (T entity : added)
+            insert(entity);
+        for (T entity : changed)
+            for (EntityIndex<T> index : indexes)
+                index.update(entity);
+        for (EntityListener<T> listener : listeners)
+            listener.batchApplied(added, changed);
+        List<T> written = new ArrayList<>(added.size() + changed.size());
+        written.addAll(added);
+        written.addAll(changed);
+        persistAll(written); // One write for the whole batch
+    }
+
+    /**
+     * Puts a new entity in memory and in every index, without telling listeners or persisting.
+     */
+    private void insert(T entity) {
+        int id = getId(entity);
+        if (idSequence != null) idSequence.advancePast(sequenceName, id); // Never hand this ID out later
+        if (deleted.contains(entity)) rows(); // Re-adding a deleted entity; drop its old slot first
         entities.add(entity);
-        save(); // Persist changes to file
+        idIndex.put(id, entity); // Keep the primary-key index in sync
+        for (EntityIndex<T> index : indexes)
+            index.insert(entity);
     }
 
     /**
@@ -86,16 +314,39 @@ public abstract class EntityManager<T> {
      * 
      * @return List of all entities
      */
-    public List<T> getAll() { return entities; }
+    public List<T> getAll() { return rows(); }
+
+    /**
+     * Gets the list of entities after dropping any deleted since it was last read.
+     * Deleted entities are all removed in one pass, which costs no more than the
+     * reader's own walk over the list, and the remaining entities keep their order.
+     *
+     * @return The entities, in file order
+     */
+    private List<T> rows() {
+        if (!deleted.isEmpty()) {
+            entities.removeIf(deleted::contains);
+            deleted.clear();
+        }
+        return entities;
+    }
 
     /**
      * Deletes an entity by its ID and persists changes to file.
+     * The entity is only marked in the list here and dropped the next time the list
+     * is read, so a run of deletes does not shift the list once per delete.
      * 
      * @param id The ID of the entity to delete
      */
     public void delete(int id) {
-        entities.removeIf(e -> getId(e) == id); // Remove entity with matching ID
-        save(); // Persist changes to file
+        T entity = idIndex.remove(id);
+        if (entity == null) return; // Nothing to delete, so no need to rewrite the file
+        deleted.add(entity);
+        for (EntityIndex<T> index : indexes)
+            index.remove(entity);
+        for (EntityListener<T> listener : listeners)
+            listener.removed(entity);
+        persistDelete(id); // Persist changes to file
     }
 
     /**
@@ -105,10 +356,10 @@ public abstract class EntityManager<T> {
      * @return The entity with the matching ID, or null if not found
      */
     public T findById(int id) {
-        for (T e : entities)
-            if (getId(e) == id)
-                return e;
-        return null; // Entity not found
+        long start = System.nanoTime();
+        T entity = idIndex.get(id); // Hash probe instead of scanning the list; null if not found
+        findLatency.recordSince(start);
+        return entity;
     }
 
 
@@ -123,7 +374,8 @@ public abstract class EntityManager<T> {
         T entity = findById(id);
         if (entity != null) {
             updateEntity(entity, sc); // Delegate to subclass for entity-specific update
-            save(); // Persist changes to file
+            reindex(entity); // Move the entity to its new keys in every secondary index
+            persist(entity); // Persist changes to file
             System.out.println("Updated successfully!");
         } else {
             System.out.println("Entity not found.");
@@ -137,45 +389,518 @@ public abstract class EntityManager<T> {
      * @param displayFunc Function that converts an entity to a display string
      */
     public void displayAll(java.util.function.Function<T, String> displayFunc) {
-        if (entities.isEmpty()) {
+        List<T> rows = rows();
+        if (rows.isEmpty()) {
             System.out.println("No records found.");
             return;
         }
-        for (T e : entities)
+        for (T e : rows)
             System.out.println(displayFunc.apply(e)); // Apply display function to each entity
     }
 
     /**
      * Loads entities from the data file.
-     * Reads each line from the file and parses it into entity objects.
+     * Reads the binary snapshot if one matches the base file; otherwise maps the base
+     * file into memory and parses each record into an entity object. Either way, any
+     * log records written since the base file was last compacted are then replayed.
      */
     public void load() {
-        List<String> lines = FileHandler.readFile(filename);
+        long start = System.nanoTime();
+        if (!loadSnapshot()) {
+            // Records are parsed straight out of the memory-mapped file, without a List of lines
+            lastLoadStats = MappedFileReader.read(filename, record -> {
+                T entity = parseRecord(record); // Parse each line into an entity
+                if (entity == null) return; // Add valid entities only
+                int id = getId(entity);
+                if (!idIndex.containsKey(id)) idIndex.put(id, entity); // First record wins on duplicate IDs
+                entities.add(entity);
+            });
+        }
+
+        // A leftover rotated log means a compaction was interrupted; it is older than the current log
+        File rotated = new File(rotatedLogFilename());
+        boolean interrupted = rotated.exists();
+        if (interrupted) replayLog(FileHandler.readCompleteLines(rotated.getPath()));
+        replayLog(FileHandler.readCompleteLines(logFilename()));
+
+        for (EntityIndex<T> index : indexes)
+            index.invalidate(); // Rebuilt from the loaded entities on first use
+
+        if (interrupted) save(); // Finish the interrupted compaction before accepting new writes
+        loadLatency.recordSince(start);
+    }
+
+    /**
+     * Loads the entities and the primary-key index from the binary snapshot.
+     * The snapshot is only used if it was written for the current base file, so a
+     * base file that has been rewritten or edited since is read as text instead.
+     *
+     * @return true if the snapshot was loaded, false if the text file must be read
+     */
+    private boolean loadSnapshot() {
+        if (snapshotCodec == null) return false;
+        File snapshot = new File(snapshotFilename());
+        File base = new File(filename);
+        if (!snapshot.exists() || !base.exists() || new File(rotatedLogFilename()).exists()) return false;
+        long start = System.nanoTime();
+        try (SnapshotReader in = new SnapshotReader(snapshot.getPath())) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION
+                    || in.readLong() != base.length() || in.readLong() != base.lastModified()) {
+                return false; // Stale or foreign snapshot
+            }
+            int rows = in.readInt();
+            List<T> loaded = snapshotCodec.readColumns(in, rows);
+            if (loaded.size() != rows) throw new IllegalStateException("Expected " + rows + " rows, read " + loaded.size());
+
+            // The primary-key table is stored slot by slot, so it is adopted without rehashing
+            int[] slotKeys = in.readInts();
+            int[] slotRows = in.readInts();
+            if (slotRows.length != slotKeys.length) throw new IllegalStateException("Mismatched primary-key table");
+            Object[] slotValues = new Object[slotKeys.length];
+            for (int slot = 0; slot < slotRows.length; slot++) {
+                if (slotRows[slot] < 0) continue; // Free slot
+                T entity = loaded.get(slotRows[slot]);
+                if (getId(entity) != slotKeys[slot]) throw new IllegalStateException("Primary-key table does not match rows");
+                slotValues[slot] = entity;
+            }
+            idIndex.restoreSlots(slotKeys, slotValues);
+            entities = loaded;
+            deleted.clear();
+            lastLoadStats = new LoadStats(in.size(), rows, System.nanoTime() - start);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Warning: Ignoring unreadable snapshot " + snapshot.getPath() + ": " + e);
+            return false;
+        }
+    }
+
+    /**
+     * Writes a binary snapshot of the entities and the primary-key index, which the
+     * next load reads instead of parsing the text file. Any pending log records are
+     * first folded into the base file, since the snapshot describes the base file.
+     *
+     * @throws UncheckedIOException if the snapshot cannot be written
+     */
+    public synchronized void writeSnapshot() {
+        if (snapshotCodec == null) return;
+        awaitCompaction();
+        if (logRecords > 0 || new File(logFilename()).exists()) save();
+        List<T> rows = rows();
+        File base = new File(filename);
+        long baseLength = base.length();
+        long baseModified = base.lastModified();
+        FileHandler.writeBinaryFile(snapshotFilename(), data -> {
+            SnapshotWriter out = new SnapshotWriter(data);
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeLong(baseLength);
+            out.writeLong(baseModified);
+            out.writeInt(rows.size());
+            snapshotCodec.writeColumns(out, rows);
+
+            // Record which row each occupied slot of the primary-key table points at
+            int[] slotKeys = new int[idIndex.capacity()];
+            int[] slotRows = new int[slotKeys.length];
+            Arrays.fill(slotRows, -1);
+            for (int row = 0; row < rows.size(); row++) {
+                T entity = rows.get(row);
+                int id = getId(entity);
+                if (idIndex.get(id) != entity) continue; // A shadowed duplicate ID
+                int slot = idIndex.slotOf(id);
+                slotKeys[slot] = id;
+                slotRows[slot] = row;
+            }
+            out.writeInts(slotKeys);
+            out.writeInts(slotRows);
+        });
+    }
+
+    /**
+     * Gets the timing of the most recent load of the base file.
+     *
+     * @return Load time, size and throughput of the last load
+     */
+    public LoadStats getLastLoadStats() { return lastLoadStats; }
+
+    /**
+     * Applies log records on top of the entities loaded from the base file.
+     * Each put record carries the full entity, so replaying a record twice is harmless.
+     * A record whose length or checksum does not match is skipped, as is an
+     * unterminated last line, so a torn record is never applied as data.
+     *
+     * @param lines The log lines to replay, oldest first
+     */
+    private void replayLog(List<String> lines) {
+        if (lines.isEmpty()) return;
         for (String line : lines) {
-            T entity = parse(line); // Parse each line into an entity
-            if (entity != null) entities.add(entity); // Add valid entities only
+            if (line.isEmpty()) continue; // Ends a line torn by a failed append
+            String record = unframe(line);
+            if (record == null) {
+                System.err.println("Warning: Skipping corrupt log record in " + logFilename());
+                continue;
+            }
+            try {
+                if (record.startsWith(PUT)) {
+                    T entity = parse(record.substring(PUT.length()));
+                    if (entity == null) continue;
+                    if (idIndex.put(getId(entity), entity) == null) entities.add(entity); // New IDs keep log order
+                } else if (record.startsWith(TOMBSTONE)) {
+                    idIndex.remove(Integer.parseInt(record.substring(TOMBSTONE.length()).trim()));
+                }
+            } catch (RuntimeException e) {
+                // Intact but not parseable, e.g. written by a newer version
+                System.err.println("Warning: Skipping unreadable log record in " + logFilename());
+            }
+        }
+
+        // Rebuild the list in its original order from whatever the index now holds for each ID
+        IntHashIndex<T> emitted = new IntHashIndex<>(entities.size());
+        List<T> replayed = new ArrayList<>(idIndex.size());
+        for (T entity : entities) {
+            int id = getId(entity);
+            T current = idIndex.get(id);
+            if (current != null && emitted.put(id, current) == null) replayed.add(current);
+        }
+        entities = replayed;
+        deleted.clear();
+        logRecords += lines.size();
+    }
+
+    /**
+     * Wraps a log record with its length and checksum: "length crc record", where the
+     * length is in UTF-8 bytes and the CRC32 is in hex.
+     *
+     * @param record The record to write
+     * @return The log line
+     */
+    private static String frame(String record) {
+        byte[] bytes = record.getBytes(StandardCharsets.UTF_8);
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return bytes.length + " " + Long.toHexString(crc.getValue()) + " " + record;
+    }
+
+    /**
+     * Checks a log line written by frame and returns the record it carries.
+     * Lines from before records were framed start with the record itself and are
+     * returned as they are.
+     *
+     * @param line The log line
+     * @return The record, or null if its length or checksum does not match
+     */
+    private static String unframe(String line) {
+        if (line.startsWith(PUT) || line.startsWith(TOMBSTONE)) return line; // Unframed, from an older version
+        int lengthEnd = line.indexOf(' ');
+        int crcEnd = lengthEnd < 0 ? -1 : line.indexOf(' ', lengthEnd + 1);
+        if (crcEnd < 0) return null;
+        try {
+            int length = Integer.parseInt(line.substring(0, lengthEnd));
+            long expected = Long.parseLong(line.substring(lengthEnd + 1, crcEnd), 16);
+            byte[] bytes = line.substring(crcEnd + 1).getBytes(StandardCharsets.UTF_8);
+            if (bytes.length != length) return null;
+            CRC32 crc = new CRC32();
+            crc.update(bytes);
+            return crc.getValue() == expected ? line.substring(crcEnd + 1) : null;
+        } catch (NumberFormatException e) {
+            return null;
         }
     }
 
     /**
      * Saves all entities to the data file.
-     * Serializes each entity and writes to the file.
+     * Serializes each entity and writes to the file. In log mode this also
+     * empties the log, since the base file now holds everything it recorded.
+     */
+    public synchronized void save() {
+        long start = System.nanoTime();
+        awaitCompaction(); // An older snapshot must not land on top of this one
+        // Stream every entity through the reused writer instead of building a List of lines
+        FileHandler.writeFile(filename, out -> {
+            for (T entity : rows()) {
+                serialize(entity, csvWriter.reset()); // Serialize each entity
+                csvWriter.writeTo(out);
+                out.newLine();
+            }
+        });
+        new File(snapshotFilename()).delete(); // Describes the old base file
+        new File(rotatedLogFilename()).delete();
+        new File(logFilename()).delete();
+        logRecords = 0;
+        saveLatency.recordSince(start);
+    }
+
+    /**
+     * Sets how mutations are written to disk.
+     * Leaving log mode folds the log into the base file straight away.
+     *
+     * @param mode The persistence mode to use from now on
+     */
+    public synchronized void setPersistenceMode(PersistenceMode mode) {
+        PersistenceMode previous = persistenceMode;
+        persistenceMode = mode;
+        if (previous == PersistenceMode.LOG && mode != PersistenceMode.LOG) save();
+    }
+
+    /**
+     * Gets the current persistence mode.
+     *
+     * @return The persistence mode
+     */
+    public PersistenceMode getPersistenceMode() { return persistenceMode; }
+
+    /**
+     * Persists an added or edited entity.
+     * Rewrites the whole file in rewrite mode, or appends one put record in log mode.
+     *
+     * @param entity The entity that was added or changed
+     */
+    protected void persist(T entity) {
+        persistAll(Collections.singletonList(entity));
+    }
+
+    /**
+     * Persists several added or edited entities as one write.
+     * Appends all of their put records in a single append in log mode, or rewrites
+     * the whole file once in rewrite mode, so a multi-record change costs one write.
+     * The write is group-committed with any others made at the same time.
+     *
+     * @param changed The entities that were added or changed
+     */
+    protected void persistAll(Collection<T> changed) {
+        if (changed.isEmpty()) return;
+        groupCommit(records -> {
+            for (T entity : changed) {
+                serialize(entity, commitWriter.reset().raw(PUT));
+                records.add(commitWriter.toString());
+            }
+        });
+    }
+
+    /**
+     * Persists the deletion of an entity.
+     * Rewrites the whole file in rewrite mode, or appends one tombstone record in log mode.
+     *
+     * @param id The ID of the deleted entity
+     */
+    protected void persistDelete(int id) {
+        groupCommit(records -> records.add(TOMBSTONE + id));
+    }
+
+    /**
+     * Adds a change to the open commit group and returns once the group is on disk.
+     *
+     * The first caller to find no write in progress becomes the leader: it closes the
+     * open group and writes it, with one append and one force in log mode or one
+     * rewrite in rewrite mode. Callers arriving meanwhile join the next group and wait.
+     * When the write finishes, the next waiting caller leads the group that built up,
+     * so under load many changes share each write without any fixed delay.
+     * Records are serialized while joining, so groups reach the disk in the same
+     * order as the changes were made.
+     *
+     * @param change Adds the change's log records to the open group
+     * @throws java.io.UncheckedIOException if the group could not be written
+     */
+    private void groupCommit(java.util.function.Consumer<List<String>> change) {
+        CommitGroup group;
+        synchronized (commitLock) {
+            group = openGroup;
+            if (persistenceMode == PersistenceMode.LOG) change.accept(group.records);
+            else group.rewrite = true; // Nothing to append; the whole file is rewritten instead
+            commitRequests++;
+
+            boolean interrupted = false;
+            while (writing && !group.done) {
+                try {
+                    commitLock.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true; // The change must still be durable before returning
+                }
+            }
+            if (interrupted) Thread.currentThread().interrupt();
+            if (group.done) {
+                if (group.failure != null) throw group.failure;
+                return; // Another caller wrote this group
+            }
+            writing = true; // Lead this group
+            openGroup = new CommitGroup();
+        }
+
+        RuntimeException failure = null;
+        try {
+            synchronized (this) {
+                if (group.rewrite || persistenceMode != PersistenceMode.LOG) save();
+                else appendToLog(group.records);
+            }
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+        synchronized (commitLock) {
+            group.failure = failure;
+            group.done = true;
+            writing = false;
+            commitWrites++;
+            commitLock.notifyAll();
+        }
+        if (failure != null) throw failure;
+    }
+
+    /**
+     * Gets the number of writes made for persisted changes.
+     * Compared with getCommitRequests this shows how many changes each write carried.
+     *
+     * @return The number of group writes
+     */
+    public long getCommitWrites() {
+        synchronized (commitLock) {
+            return commitWrites;
+        }
+    }
+
+    /**
+     * Gets the number of changes persisted through add, update, delete and the stock operations.
+     *
+     * @return The number of persisted changes
+     */
+    public long getCommitRequests() {
+        synchronized (commitLock) {
+            return commitRequests;
+        }
+    }
+
+    /**
+     * Appends records to the log and starts a background compaction once the log
+     * has grown to half the size of the data it describes, which keeps the
+     * amortized cost of each mutation independent of the catalog size.
+     *
+     * @param records The log records to append, written together in one append
+     */
+    private void appendToLog(List<String> records) {
+        List<String> lines = new ArrayList<>(records.size());
+        for (String record : records)
+            lines.add(frame(record)); // Length and checksum let replay tell a torn record from a real one
+        FileHandler.appendLines(logFilename(), lines); // Cut back to its old end if the append fails
+        logRecords += records.size();
+        if (logRecords >= Math.max(MIN_RECORDS_BEFORE_COMPACTION, (entities.size() - deleted.size()) / 2)) {
+            compactInBackground();
+        }
+    }
+
+    /**
+     * Folds the log into a fresh base file on the compactor thread.
+     * The snapshot is taken and the log is rotated while holding the manager's lock,
+     * so records appended afterwards go to a new log and are never lost.
+     */
+    private void compactInBackground() {
+        if (compaction != null && !compaction.isDone()) return; // Already compacting
+        File rotated = new File(rotatedLogFilename());
+        if (rotated.exists()) {
+            save(); // A previous compaction failed; fold both logs in synchronously instead
+            return;
+        }
+        if (!new File(logFilename()).renameTo(rotated)) return; // Try again after the next append
+        new File(snapshotFilename()).delete(); // The base file is about to change
+        List<String> snapshot = serializeAll();
+        logRecords = 0;
+        compaction = COMPACTOR.submit(() -> {
+            FileHandler.writeFile(filename, snapshot);
+            rotated.delete();
+        });
+    }
+
+    /**
+     * Waits for a running background compaction to finish.
+     */
+    private void awaitCompaction() {
+        if (compaction == null) return;
+        try {
+            compaction.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // The rotated log is still on disk and is replayed on the next load
+            System.err.println("Warning: Background compaction of " + filename + " failed: " + e.getCause());
+        }
+        compaction = null;
+    }
+
+    /**
+     * Serializes every entity into file lines.
+     *
+     * @return List of serialized entities
+     */
+    private List<String> serializeAll() {
+        List<T> rows = rows();
+        List<String> lines = new ArrayList<>(rows.size());
+        for (T entity : rows) {
+            serialize(entity, csvWriter.reset()); // Serialize each entity
+            lines.add(csvWriter.toString());
+        }
+        return lines;
+    }
+
+    /**
+     * Gets the path of the log file that records mutations in log mode.
+     *
+     * @return The log file path
+     */
+    protected String logFilename() { return filename + ".log"; }
+
+    /**
+     * Gets the path the log is moved to while a compaction is running.
+     *
+     * @return The rotated log file path
+     */
+    private String rotatedLogFilename() { return filename + ".log.old"; }
+
+    /**
+     * Gets the path of the binary snapshot of the base file.
+     *
+     * @return The snapshot file path
+     */
+    protected String snapshotFilename() { return filename + ".snap"; }
+
+    /**
+     * Makes nextId hand out IDs from a durable sequence, which never reuses an ID,
+     * even one whose entity was deleted. The sequence is moved past every ID already loaded.
+     *
+     * @param sequence The sequence store to take IDs from
+     * @param name The name of this manager's sequence in the store
      */
-    public void save() {
-        List<String> lines = new ArrayList<>();
-        for (T entity : entities)
-            lines.add(serialize(entity)); // Serialize each entity
-        FileHandler.writeFile(filename, lines); // Write to file
+    public void useIdSequence(IdSequence sequence, String name) {
+        int maxId = 0;
+        for (T entity : rows())
+            maxId = Math.max(maxId, getId(entity));
+        sequence.advancePast(name, maxId);
+        this.idSequence = sequence;
+        this.sequenceName = name;
     }
 
     /**
      * Generates the next available ID for a new entity.
-     * Assumes IDs are sequential and based on the last entity's ID.
+     * Takes it from the ID sequence if one is in use; otherwise assumes IDs are
+     * sequential and based on the last entity's ID.
      * 
      * @return The next available ID
      */
     public int nextId() {
-        if (entities.isEmpty()) return 1; // Start with ID 1 if no entities exist
-        return getId(entities.get(entities.size() - 1)) + 1; // Increment last ID
+        if (idSequence != null) return idSequence.next(sequenceName);
+        List<T> rows = rows();
+        if (rows.isEmpty()) return 1; // Start with ID 1 if no entities exist
+        return getId(rows.get(rows.size() - 1)) + 1; // Increment last ID
+    }
+
+    /**
+     * Changes waiting to be written together by one commit group leader.
+     */
+    private static class CommitGroup {
+        // Log records of every change in the group, in the order they were made
+        final List<String> records = new ArrayList<>();
+
+        // Whether a change in the group needs the whole file rewritten
+        boolean rewrite;
+
+        // Whether the group has been written, and the error if the write failed
+        boolean done;
+        RuntimeException failure;
     }
 }
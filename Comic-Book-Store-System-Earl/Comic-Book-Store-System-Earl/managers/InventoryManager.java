@@ -1,7 +1,13 @@
 package managers;
 import entities.Comic;
+import entities.Order;
 import entities.Stock;
 import java.util.*;
+import java.io.IOException;
+import java.nio.IntBuffer;
+import utils.CsvWriter;
+import utils.SnapshotReader;
+import utils.SnapshotWriter;
 
 /**
  * InventoryManager class - Specialized manager for Stock entities.
@@ -16,13 +22,26 @@ public class InventoryManager extends EntityManager<Stock> {
 
     ComicManager c;
 
+    // Unique index enforcing one stock record per comic
+    private final EntityIndex<Stock> comicIdIndex;
+
+    // Records at or below their reorder threshold, kept current on every stock change
+    private final LowStockTracker lowStock;
+
+    // Comics joined with their stock records for the displays, and the manager it joins
+    private CatalogView catalogView;
+    private ComicManager catalogComics;
+
     /**
      * Constructor for creating an InventoryManager instance.
      * 
      * @param filename The path to the stocks data file
      */
     public InventoryManager(String filename) {
-        super(filename); // Call parent constructor to initialize with data file
+        super(filename, new SnapshotColumns()); // Call parent constructor to initialize with data file
+        comicIdIndex = addIndex("comic ID", Stock::getComicId, true, false);
+        lowStock = new LowStockTracker(this::getAll);
+        addListener(lowStock);
     }
 
     /**
@@ -45,6 +64,24 @@ public class InventoryManager extends EntityManager<Stock> {
     @Override
     protected String serialize(Stock entity) { return entity.toString(); }
 
+    /**
+     * Parses a record read from the mapped data file without copying it into a String.
+     *
+     * @param record The comma-separated record of a stock
+     * @return Stock object if parsing is successful, null otherwise
+     */
+    @Override
+    protected Stock parseRecord(CharSequence record) { return Stock.fromCsv(csvCursor.reset(record)); }
+
+    /**
+     * Serializes a Stock object straight into the reusable record writer.
+     *
+     * @param entity The Stock entity to serialize
+     * @param out The writer to append the record to
+     */
+    @Override
+    protected void serialize(Stock entity, CsvWriter out) { entity.writeCsv(out); }
+
     /**
      * Gets the ID from a Stock entity.
      * 
@@ -75,8 +112,10 @@ public class InventoryManager extends EntityManager<Stock> {
             System.out.println("    [2] Add Stock" + "\n                                                    ");
             
             System.out.println("    [3] Remove Stock" + "\n                                                    ");
+
+            System.out.println("    [4] Reorder Threshold" + "\n                                                    ");
             
-            System.out.println("    [4] Finish Updating" + "\n");
+            System.out.println("    [5] Finish Updating" + "\n");
 
             System.out.println("           Select field to update:");
 
@@ -132,6 +171,22 @@ public class InventoryManager extends EntityManager<Stock> {
                     break;
 
                 case 4:
+                    boolean validThreshold = false;
+                    while (!validThreshold) {
+                        try {
+                            System.out.print("    Enter new reorder threshold: ");
+                            int newThreshold = sc.nextInt();
+                            sc.nextLine(); 
+                            s.setReorderThreshold(newThreshold);
+                            System.out.println("    Reorder threshold updated!");
+                            validThreshold = true;
+                        } catch (IllegalArgumentException e) {
+                            System.out.println("    Error: " + e.getMessage());
+                        }
+                    }
+                    break;
+
+                case 5:
                     updating = false;
                     System.out.println("        Update completed!");
                     break;
@@ -164,7 +219,7 @@ public class InventoryManager extends EntityManager<Stock> {
         int comicId = comic.getId();
 
         // Check if stock already exists for this comic
-        if (findByComicId(comicId) != null) {
+        if (comicIdIndex.contains(comicId)) {
             System.out.println("    Error: Stock record already exists for comic '" + comic.getTitle() + "' (ID " + comicId +
                              "). Each comic can have only one stock record.");
             return;
@@ -187,8 +242,22 @@ public class InventoryManager extends EntityManager<Stock> {
             }
         }
 
+        int threshold = Stock.DEFAULT_REORDER_THRESHOLD;
+        while (true) {
+            System.out.print("    Enter reorder threshold (blank for " + Stock.DEFAULT_REORDER_THRESHOLD + "): ");
+            String thresholdInput = sc.nextLine().trim();
+            if (thresholdInput.isEmpty()) break;
+            try {
+                threshold = Integer.parseInt(thresholdInput);
+                if (threshold >= 0) break;
+                System.out.println("    Error: Reorder threshold cannot be negative");
+            } catch (NumberFormatException e) {
+                System.out.println("    Error: Please enter a whole number.");
+            }
+        }
+
         // Create new stock with comicId as stockId and add to collection
-        add(new Stock(comicId, quantity));
+        add(new Stock(comicId, quantity, threshold));
         System.out.println("    Stock record added!");
     }
 
@@ -209,18 +278,30 @@ public class InventoryManager extends EntityManager<Stock> {
         System.out.println("                                   All Stock Records                             ");
         System.out.println("                                                                                        ");
         System.out.println("───────────────────────────────────────────────────────────────────────────────────────");
-        for (Stock stock : getAll()) {
-            String comicName = "Unknown Comic";
-            // Look up comic name using comic ID
-            entities.Comic comic = comicManager.findById(stock.getComicId());
-            if (comic != null) {
-                comicName = comic.getTitle();
-            }
+        // One pass over the joined rows; each already holds the comic's name
+        catalogView(comicManager).forEach(row -> {
+            Stock stock = row.getStock();
+            if (stock == null) return; // A comic without a stock record
             System.out.println("     Stock ID: " + stock.getId() + 
-                             "     Comic: " + comicName + 
+                             "     Comic: " + row.getTitle() + 
                              "      ID: " + stock.getComicId() + ")" +
                              "     Quantity: " + stock.getQuantity());
+        });
+    }
+
+    /**
+     * Gets the view joining each comic with its stock record, creating it on first use.
+     * The view is kept current by both managers from then on.
+     *
+     * @param comicManager The ComicManager holding the comics to join
+     * @return The joined view of comics and stock records
+     */
+    public synchronized CatalogView catalogView(ComicManager comicManager) {
+        if (catalogView == null || catalogComics != comicManager) {
+            catalogView = new CatalogView(comicManager, this);
+            catalogComics = comicManager;
         }
+        return catalogView;
     }
 
     /**
@@ -230,12 +311,7 @@ public class InventoryManager extends EntityManager<Stock> {
      * @return The stock record with the matching comic ID, or null if not found
      */
     public Stock findByComicId(int comicId) {
-        for (Stock s : getAll()) {
-            if (s.getComicId() == comicId) {
-                return s;
-            }
-        }
-        return null; // Stock record not found
+        return comicIdIndex.findFirst(comicId); // null if stock record not found
     }
 
 
@@ -251,7 +327,8 @@ public class InventoryManager extends EntityManager<Stock> {
         if (stock != null) {
             try {
                 stock.setQuantity(newQuantity);
-                save(); // Persist changes to file
+                notifyChanged(stock);
+                persist(stock); // Persist changes to file
                 return true;
             } catch (IllegalArgumentException e) {
                 System.out.println("Error updating stock: " + e.getMessage());
@@ -273,7 +350,8 @@ public class InventoryManager extends EntityManager<Stock> {
         if (stock != null) {
             try {
                 stock.addStock(amount);
-                save(); // Persist changes to file
+                notifyChanged(stock);
+                persist(stock); // Persist changes to file
                 return true;
             } catch (IllegalArgumentException e) {
                 System.out.println("Error adding stock: " + e.getMessage());
@@ -295,7 +373,8 @@ public class InventoryManager extends EntityManager<Stock> {
         if (stock != null) {
             try {
                 stock.removeStock(amount);
-                save(); // Persist changes to file
+                notifyChanged(stock);
+                persist(stock); // Persist changes to file
                 return true;
             } catch (IllegalArgumentException e) {
                 System.out.println("Error removing stock: " + e.getMessage());
@@ -305,6 +384,85 @@ public class InventoryManager extends EntityManager<Stock> {
         return false;
     }
 
+    /**
+     * Removes stock from a specific comic only if enough is left, atomically.
+     * Safe to call from several threads at once: concurrent sales of the same comic
+     * race on the stock record's counter, and only as many succeed as there is stock.
+     * Looks the record up by primary key (stock ID equals comic ID), which is safe to
+     * read while other threads sell, as long as records are not added or deleted.
+     *
+     * @param comicId The comic ID to remove stock from
+     * @param amount The amount to remove
+     * @return true if the stock was removed, false if the record is missing or has too little stock
+     * @throws IllegalArgumentException if amount is negative
+     */
+    public boolean decrementIfSufficient(int comicId, int amount) {
+        Stock stock = findById(comicId);
+        if (stock == null || !stock.tryRemoveStock(amount)) return false;
+        notifyChanged(stock);
+        persist(stock); // Written after the counter changed, so the record holds at least this sale
+        return true;
+    }
+
+    /**
+     * Takes the stock for every line of a cart, or for none of them.
+     * Each line is taken atomically from its stock counter; if any line is short,
+     * the lines already taken are handed back before returning. Nothing is written
+     * to disk here: the caller commits or rolls back the returned reservation.
+     *
+     * @param lines The cart lines to reserve
+     * @return The reservation holding the taken stock
+     * @throws IllegalArgumentException if a comic has no stock record or too little stock
+     */
+    public StockReservation reserve(List<Order> lines) {
+        List<Stock> taken = new ArrayList<>(lines.size());
+        int[] amounts = new int[lines.size()];
+        for (Order line : lines) {
+            Comic comic = line.getComic();
+            Stock stock = findById(comic.getId());
+            if (stock == null || !stock.tryRemoveStock(line.getQuantity())) {
+                for (int i = 0; i < taken.size(); i++) {
+                    taken.get(i).addStock(amounts[i]); // Hand back what was already taken
+                    notifyChanged(taken.get(i));
+                }
+                if (stock == null) {
+                    throw new IllegalArgumentException("No stock record found for " + comic.getTitle());
+                }
+                throw new IllegalArgumentException("Insufficient stock for " + comic.getTitle() + ". Available: " + stock.getQuantity());
+            }
+            notifyChanged(stock);
+            amounts[taken.size()] = line.getQuantity();
+            taken.add(stock);
+        }
+        return new StockReservation(this, taken, amounts);
+    }
+
+    /**
+     * Sets the reorder threshold for a specific comic.
+     *
+     * @param comicId The comic ID to set the threshold for
+     * @param threshold The quantity at or below which the comic should be reordered
+     * @return true if the threshold was set, false if stock record not found
+     * @throws IllegalArgumentException if threshold is negative
+     */
+    public boolean setReorderThreshold(int comicId, int threshold) {
+        Stock stock = findByComicId(comicId);
+        if (stock == null) return false;
+        stock.setReorderThreshold(threshold);
+        notifyChanged(stock);
+        persist(stock); // Persist changes to file
+        return true;
+    }
+
+    /**
+     * Gets the stock records at or below their reorder threshold.
+     *
+     * @return The low records, furthest below threshold first
+     */
+    public List<Stock> getLowStock() {
+        return lowStock.getLowStock();
+    }
+
     /**
      * Gets the current stock quantity for a specific comic.
      * 
@@ -329,18 +487,15 @@ public class InventoryManager extends EntityManager<Stock> {
     }
 
     /**
-     * Displays a dashboard showing only low stock alerts (quantity <= 10).
-     * This method requires access to a ComicManager to look up comic names.
+     * Displays a dashboard showing only low stock alerts: records at or below their
+     * reorder threshold, furthest below first. Reads the maintained low-stock set
+     * instead of checking every record, and takes names from the catalog view.
      *
      * @param comicManager The ComicManager instance to look up comic details
      */
     public void displayLowStockDashboard(ComicManager comicManager) {
-        List<Stock> lowStockItems = new ArrayList<>();
-        for (Stock stock : getAll()) {
-            if (stock.getQuantity() <= 10) {
-                lowStockItems.add(stock);
-            }
-        }
+        List<Stock> lowStockItems = getLowStock();
+        CatalogView catalog = catalogView(comicManager);
         System.out.println("───────────────────────────────────────────────────────────────────────────────────────");
         System.out.println("                                   STOCK DASHBOARD                       ");
         System.out.println("───────────────────────────────────────────────────────────────────────────────────────");
@@ -349,24 +504,65 @@ public class InventoryManager extends EntityManager<Stock> {
             return;
         }
 
-        System.out.println("         The following comics are low on stock (quantity <= 10):");
+        System.out.println("         The following comics are at or below their reorder threshold:");
         System.out.println();
 
         for (Stock stock : lowStockItems) {
-            String comicName = "Unknown Comic";
-            // Look up comic name using comic ID
-            entities.Comic comic = comicManager.findById(stock.getComicId());
-            if (comic != null) {
-                comicName = comic.getTitle();
-            }
+            CatalogView.Row row = catalog.get(stock.getComicId());
+            String comicName = row != null ? row.getTitle() : "Unknown Comic";
             System.out.println("                                   LOW STOCK ALERT                 ");
             System.out.println("───────────────────────────────────────────────────────────────────────────────────────");
             System.out.println("Comic: " + comicName + " (ID: " + stock.getComicId() + ")");
-            System.out.println("Current Stock: " + stock.getQuantity());
+            System.out.println("Current Stock: " + stock.getQuantity() + "  Reorder At: " + stock.getReorderThreshold() +
+                               "  Short By: " + Math.max(0, stock.getShortfall()));
             System.out.println();
         }
 
         System.out.println("Total low stock items: " + lowStockItems.size());
     }
+
+    /**
+     * Writes and reads stock records in the binary snapshot.
+     */
+    private static final class SnapshotColumns implements SnapshotCodec<Stock> {
+        /**
+         * Writes the stock records as comic ID, quantity and reorder threshold columns.
+         * The stock ID always equals the comic ID, so it is not stored separately.
+         *
+         * @param out The snapshot to write to
+         * @param rows The stock records to write
+         * @throws IOException if writing fails
+         */
+        @Override
+        public void writeColumns(SnapshotWriter out, List<Stock> rows) throws IOException {
+            int n = rows.size();
+            int[] comicIds = new int[n], quantities = new int[n], thresholds = new int[n];
+            for (int i = 0; i < n; i++) {
+                comicIds[i] = rows.get(i).getComicId();
+                quantities[i] = rows.get(i).getQuantity();
+                thresholds[i] = rows.get(i).getReorderThreshold();
+            }
+            out.writeInts(comicIds);
+            out.writeInts(quantities);
+            out.writeInts(thresholds);
+        }
+
+        /**
+         * Rebuilds the stock records from the columns written by writeColumns.
+         *
+         * @param in The snapshot to read from
+         * @param rows The number of stock records in the snapshot
+         * @return The stock records in their original order
+         */
+        @Override
+        public List<Stock> readColumns(SnapshotReader in, int rows) {
+            IntBuffer comicIds = in.intColumn();
+            IntBuffer quantities = in.intColumn();
+            IntBuffer thresholds = in.intColumn();
+            List<Stock> stocks = new ArrayList<>(rows);
+            for (int i = 0; i < rows; i++)
+                stocks.add(new Stock(comicIds.get(i), quantities.get(i), thresholds.get(i)));
+            return stocks;
+        }
+    }
 }
-    
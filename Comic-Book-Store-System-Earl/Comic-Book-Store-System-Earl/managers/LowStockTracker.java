@@ -0,0 +1,121 @@
+package managers;
+
+import entities.Stock;
+import java.util.*;
+import java.util.function.Supplier;
+import utils.IntHashIndex;
+
+/**
+ * LowStockTracker class - The set of stock records at or below their reorder threshold.
+ *
+ * The low records are kept in a sorted set ordered by how far each is below its
+ * threshold, furthest first. As an EntityListener on the InventoryManager the
+ * tracker moves one record in or out of the set, or to its new place in it, on
+ * every quantity or threshold change, in O(log N); reading the dashboard never
+ * scans the inventory.
+ *
+ * @author Comic Book Store System
+ * @version 1.0
+ */
+public class LowStockTracker implements EntityListener<Stock> {
+    // Furthest below threshold first, then by comic ID
+    private static final Comparator<Entry> MOST_SHORT_FIRST =
+            Comparator.comparingLong((Entry e) -> -e.shortfall).thenComparingInt(e -> e.stock.getComicId());
+
+    // Supplies the stock records on first use
+    private final Supplier<? extends Collection<Stock>> source;
+
+    // Low records, most short first
+    private final TreeSet<Entry> low = new TreeSet<>(MOST_SHORT_FIRST);
+
+    // Comic ID -> its entry in the set, to find it again once the quantity has changed
+    private final IntHashIndex<Entry> entries = new IntHashIndex<>();
+
+    // Whether the set has been filled from the source
+    private boolean built;
+
+    /**
+     * Constructor for creating a LowStockTracker.
+     *
+     * @param source Supplies the stock records on first use
+     */
+    public LowStockTracker(Supplier<? extends Collection<Stock>> source) {
+        this.source = source;
+    }
+
+    /**
+     * Gets the low stock records, furthest below threshold first.
+     *
+     * @return A copy of the low records in dashboard order
+     */
+    public synchronized List<Stock> getLowStock() {
+        ensureBuilt();
+        List<Stock> stocks = new ArrayList<>(low.size());
+        for (Entry entry : low) stocks.add(entry.stock);
+        return stocks;
+    }
+
+    /**
+     * Counts the low stock records.
+     *
+     * @return The number of records at or below their threshold
+     */
+    public synchronized int size() {
+        ensureBuilt();
+        return low.size();
+    }
+
+    @Override
+    public synchronized void added(Stock stock) {
+        if (built) track(stock);
+    }
+
+    @Override
+    public synchronized void removed(Stock stock) {
+        if (built) untrack(stock.getComicId());
+    }
+
+    @Override
+    public synchronized void changed(Stock stock) {
+        if (built) track(stock);
+    }
+
+    /**
+     * Fills the set from the source if that has not happened yet.
+     */
+    private void ensureBuilt() {
+        if (built) return;
+        built = true;
+        for (Stock stock : source.get()) track(stock);
+    }
+
+    /**
+     * Puts a record in its place in the set if it is low, and takes it out otherwise.
+     */
+    private void track(Stock stock) {
+        untrack(stock.getComicId());
+        long shortfall = stock.getShortfall(); // Read once; the counter may move while sorting
+        if (shortfall < 0) return;
+        Entry entry = new Entry(stock, shortfall);
+        low.add(entry);
+        entries.put(stock.getComicId(), entry);
+    }
+
+    private void untrack(int comicId) {
+        Entry entry = entries.remove(comicId);
+        if (entry != null) low.remove(entry);
+    }
+
+    /**
+     * A low record with the shortfall it is sorted under.
+     */
+    private static final class Entry {
+        final Stock stock;
+        final long shortfall;
+
+        Entry(Stock stock, long shortfall) {
+            this.stock = stock;
+            this.shortfall = shortfall;
+        }
+    }
+}
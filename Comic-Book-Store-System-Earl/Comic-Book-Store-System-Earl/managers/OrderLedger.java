@@ -0,0 +1,697 @@
+package managers;
+
+import entities.OrderRecord;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import utils.Durability;
+import utils.FileHandler;
+import utils.IdSequence;
+
+/**
+ * OrderLedger class - Append-only file of every completed order.
+ *
+ * Orders are stored one after another as binary records:
+ * length, order ID, timestamp, line count, then comic ID, title, quantity and unit
+ * price per line, followed by a CRC32 of the record. A separate index file holds
+ * one fixed-size entry per order (order ID, timestamp, record offset) in order ID
+ * order, so an order is found by a binary search over the index and fetched with
+ * a single positioned read of the ledger. Neither file is ever rewritten.
+ *
+ * On open, records past the last indexed one are indexed and a torn record left by
+ * a crash mid-append is cut off, so the two files always agree.
+ *
+ * Appends are group-committed like EntityManager's changes: orders made while a
+ * group is being written join the next group, whose leader writes all of their
+ * records at once and forces the ledger once for the whole group. No lock is held
+ * while writing or forcing, so waiting checkouts keep joining the next group.
+ *
+ * @author Comic Book Store System
+ * @version 1.0
+ */
+public class OrderLedger implements AutoCloseable {
+    // Bytes per index entry: int order ID, long timestamp, long offset
+    private static final int ENTRY_SIZE = 20;
+
+    // Bytes read at once when fetching a record; most orders fit in one read
+    private static final int READ_AHEAD = 512;
+
+    // Largest record body accepted when reading, to reject garbage lengths
+    private static final int MAX_RECORD_SIZE = 1 << 24;
+
+    // Path of the ledger file, used in error messages
+    private final String filename;
+
+    // The ledger and its index, open for the lifetime of the ledger
+    private final FileChannel ledger;
+    private final FileChannel index;
+
+    // Number of orders in the index
+    private volatile int entries;
+
+    // Offset just past the last record; only changed by a group leader
+    private long ledgerEnd;
+
+    // ID and timestamp of the last order given to a commit group, or 0 if the ledger is empty
+    private int lastOrderId;
+    private long lastTimestamp;
+
+    // Guards the commit groups and the order IDs below; never held while writing
+    private final ReentrantLock commitLock = new ReentrantLock();
+    private final Condition groupWritten = commitLock.newCondition();
+
+    // The commit group that orders are currently joining
+    private CommitGroup openGroup = new CommitGroup();
+
+    // Whether a leader is writing a commit group
+    private boolean writing;
+
+    // Group writes made, and orders they carried
+    private long commitWrites;
+    private long commitRequests;
+
+    // Told about every group once it is durable
+    private final List<AppendListener> listeners = new CopyOnWriteArrayList<>();
+
+    // Durable source of new order IDs and the sequence name in it, if one is used
+    private IdSequence idSequence;
+    private String sequenceName;
+
+    /**
+     * Constructor for opening a ledger, creating it if it doesn't exist.
+     * The index is kept next to it, with ".idx" appended to the name.
+     *
+     * @param filename The path to the ledger file
+     * @throws UncheckedIOException if the files cannot be opened or recovered
+     */
+    public OrderLedger(String filename) {
+        this.filename = filename;
+        Path path = Paths.get(filename).toAbsolutePath();
+        try {
+            path.getParent().toFile().mkdirs();
+            ledger = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            index = FileChannel.open(path.resolveSibling(path.getFileName() + ".idx"),
+                                     StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error opening order ledger: " + filename, e);
+        }
+    }
+
+    /**
+     * Makes record take order IDs from a durable sequence, so an ID is never reused,
+     * even if the last order is lost from the ledger in a crash. The sequence is moved
+     * past the last order ID, which is known without reading the order history.
+     *
+     * @param sequence The sequence store to take IDs from
+     * @param name The name of the order sequence in the store
+     */
+    public void useIdSequence(IdSequence sequence, String name) {
+        commitLock.lock();
+        try {
+            sequence.advancePast(name, lastOrderId);
+            this.idSequence = sequence;
+            this.sequenceName = name;
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    /**
+     * Registers a listener to be told about every group of orders appended from now on.
+     *
+     * @param listener The listener to register
+     */
+    public void addListener(AppendListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Records a new order placed now, assigning it the next order ID, and returns
+     * once it is on disk according to the durability level. The timestamp is taken
+     * with the ID, so timestamps rise with order IDs however many checkouts run at once.
+     *
+     * @param lines The items sold
+     * @return The stored order record
+     * @throws UncheckedIOException if the order cannot be written
+     */
+    public OrderRecord record(List<OrderRecord.Line> lines) {
+        return commit(0, 0, lines);
+    }
+
+    /**
+     * Appends an order with an ID of its own, such as one imported from an older store.
+     * The ledger is forced to disk according to the durability level before the
+     * index entry is written, so an indexed order is never lost. An order dated
+     * before the last one is stored with the last one's timestamp, which keeps
+     * timestamps in ledger order for positionAtOrBefore.
+     *
+     * @param order The order to append
+     * @throws IllegalArgumentException if the order ID is not above every stored order ID
+     * @throws UncheckedIOException if the order cannot be written
+     */
+    public void append(OrderRecord order) {
+        if (order.getOrderId() <= 0) throw new IllegalArgumentException("Order ID " + order.getOrderId() + " is not positive");
+        commit(order.getOrderId(), order.getTimestamp(), order.getLines());
+    }
+
+    /**
+     * Adds an order to the open commit group and returns once the group is on disk.
+     *
+     * The first caller to find no write in progress becomes the leader: it closes the
+     * open group and writes it with one ledger write, one force and one index write.
+     * Callers arriving meanwhile join the next group and wait; when the write
+     * finishes, the next waiting caller leads the group that built up. Order IDs are
+     * given out while joining, so IDs rise with position in the ledger, and so do
+     * timestamps: each is at least the one before it.
+     *
+     * @param orderId The order's own ID, or 0 to assign the next one and the current time
+     * @param timestamp When the order was placed, if it has its own ID
+     * @param lines The items sold
+     * @return The stored order record
+     */
+    private OrderRecord commit(int orderId, long timestamp, List<OrderRecord.Line> lines) {
+        CommitGroup group;
+        OrderRecord order;
+        commitLock.lock();
+        try {
+            if (orderId == 0) {
+                orderId = idSequence != null ? idSequence.next(sequenceName) : lastOrderId + 1;
+                timestamp = System.currentTimeMillis();
+            } else if (orderId <= lastOrderId) {
+                throw new IllegalArgumentException("Order ID " + orderId + " is not after " + lastOrderId);
+            }
+            timestamp = Math.max(timestamp, lastTimestamp); // The clock may step back; the ledger may not
+            lastOrderId = orderId;
+            lastTimestamp = timestamp;
+            order = new OrderRecord(orderId, timestamp, lines);
+            group = openGroup;
+            group.orders.add(order);
+            commitRequests++;
+
+            boolean interrupted = false;
+            while (writing && !group.done) {
+                try {
+                    groupWritten.await();
+                } catch (InterruptedException e) {
+                    interrupted = true; // The order must still be durable before returning
+                }
+            }
+            if (interrupted) Thread.currentThread().interrupt();
+            if (group.done) {
+                if (group.failure != null) throw group.failure;
+                return order; // Another caller wrote this group
+            }
+            writing = true; // Lead this group
+            openGroup = new CommitGroup();
+        } finally {
+            commitLock.unlock();
+        }
+
+        RuntimeException failure = null;
+        try {
+            write(group.orders);
+            int firstPosition = entries - group.orders.size();
+            for (AppendListener listener : listeners) {
+                try {
+                    listener.appended(firstPosition, group.orders);
+                } catch (RuntimeException e) {
+                    System.err.println("Warning: Order ledger listener failed: " + e);
+                }
+            }
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+        commitLock.lock();
+        try {
+            group.failure = failure;
+            group.done = true;
+            writing = false;
+            commitWrites++;
+            groupWritten.signalAll();
+        } finally {
+            commitLock.unlock();
+        }
+        if (failure != null) throw failure;
+        return order;
+    }
+
+    /**
+     * Writes a commit group's records after the last one, forces the ledger, and
+     * then indexes them. Called by the group leader only, with no lock held.
+     * A failed write is cut off again, so the ledger ends where it did before.
+     */
+    private void write(List<OrderRecord> orders) {
+        List<byte[]> bodies = new ArrayList<>(orders.size());
+        int size = 0;
+        for (OrderRecord order : orders) {
+            byte[] body = encode(order);
+            bodies.add(body);
+            size += body.length + 8;
+        }
+        long start = ledgerEnd;
+        ByteBuffer records = ByteBuffer.allocate(size);
+        ByteBuffer entryRun = ByteBuffer.allocate(orders.size() * ENTRY_SIZE);
+        for (int i = 0; i < orders.size(); i++) {
+            OrderRecord order = orders.get(i);
+            byte[] body = bodies.get(i);
+            entryRun.putInt(order.getOrderId()).putLong(order.getTimestamp()).putLong(start + records.position());
+            records.putInt(body.length).put(body).putInt(checksum(body));
+        }
+        records.flip();
+        entryRun.flip();
+        int indexed = entries;
+        try {
+            writeFully(ledger, records, start);
+            if (FileHandler.getDurability() != Durability.NONE) ledger.force(false);
+            writeFully(index, entryRun, (long) indexed * ENTRY_SIZE);
+        } catch (IOException e) {
+            try {
+                ledger.truncate(start); // Leave no half-written record behind
+                index.truncate((long) indexed * ENTRY_SIZE);
+            } catch (IOException ignored) {
+                // Recovery on the next open cuts the torn record off instead
+            }
+            throw new UncheckedIOException("Error appending to order ledger: " + filename, e);
+        }
+        ledgerEnd = start + records.capacity();
+        entries = indexed + orders.size(); // Readers see the whole group at once
+    }
+
+    /**
+     * Gets the number of group writes made for appended orders.
+     * Compared with getCommitRequests this shows how many orders each write carried.
+     *
+     * @return The number of group writes
+     */
+    public long getCommitWrites() {
+        commitLock.lock();
+        try {
+            return commitWrites;
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    /**
+     * Gets the number of orders appended through record and append.
+     *
+     * @return The number of appended orders
+     */
+    public long getCommitRequests() {
+        commitLock.lock();
+        try {
+            return commitRequests;
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    /**
+     * Gets the number of orders in the ledger.
+     *
+     * @return The number of orders
+     */
+    public int size() { return entries; }
+
+    /**
+     * Gets the ID of the most recent order.
+     *
+     * @return The last order ID, or 0 if the ledger is empty
+     */
+    public int getLastOrderId() {
+        commitLock.lock();
+        try {
+            return lastOrderId;
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    /**
+     * Finds an order by its ID.
+     *
+     * @param orderId The order ID to look up
+     * @return The order, or null if no order has that ID
+     * @throws UncheckedIOException if the ledger cannot be read
+     */
+    public OrderRecord find(int orderId) {
+        int position = positionOf(orderId);
+        return position < 0 ? null : get(position);
+    }
+
+    /**
+     * Gets the order at a position in the ledger, counting from the oldest at 0.
+     *
+     * @param position The position of the order
+     * @return The order at that position
+     * @throws IndexOutOfBoundsException if the position is outside the ledger
+     * @throws UncheckedIOException if the ledger cannot be read
+     */
+    public OrderRecord get(int position) {
+        checkPosition(position);
+        try {
+            byte[] body = readBody(readEntry(position).getLong(12));
+            if (body == null) throw new IOException("Corrupt order record at position " + position);
+            return decode(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error reading order ledger: " + filename, e);
+        }
+    }
+
+    /**
+     * Gets the order ID at a position without reading the order itself.
+     *
+     * @param position The position of the order
+     * @return The order ID
+     */
+    public int orderIdAt(int position) {
+        checkPosition(position);
+        try {
+            return readEntry(position).getInt(0);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error reading order index: " + filename, e);
+        }
+    }
+
+    /**
+     * Gets the timestamp at a position without reading the order itself.
+     *
+     * @param position The position of the order
+     * @return The order's timestamp in milliseconds since the epoch
+     */
+    public long timestampAt(int position) {
+        checkPosition(position);
+        try {
+            return readEntry(position).getLong(4);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error reading order index: " + filename, e);
+        }
+    }
+
+    /**
+     * Finds the position of an order by binary search over the index.
+     *
+     * @param orderId The order ID to look up
+     * @return The position of the order, or -1 if no order has that ID
+     */
+    public int positionOf(int orderId) {
+        int low = 0, high = entries - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int id = orderIdAt(mid);
+            if (id < orderId) low = mid + 1;
+            else if (id > orderId) high = mid - 1;
+            else return mid;
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the newest order placed at or before a time, by binary search over the
+     * index timestamps, which never decrease with position.
+     *
+     * @param timestamp The time to search for, in milliseconds since the epoch
+     * @return The position of the order, or -1 if every order is later
+     */
+    public int positionAtOrBefore(long timestamp) {
+        int low = 0, high = entries - 1, found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (timestampAt(mid) <= timestamp) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Walks the orders from a position towards the oldest, reading each order only
+     * when it is reached, so paging through any amount of history uses flat memory.
+     * Orders appended while walking are not visited.
+     *
+     * @param fromPosition The position of the first order to return
+     * @return Iterator over the orders, newest first
+     */
+    public Iterator<OrderRecord> newestFirst(int fromPosition) {
+        if (fromPosition >= entries) throw new IndexOutOfBoundsException("Order position " + fromPosition + " of " + entries);
+        return new Iterator<OrderRecord>() {
+            private int next = fromPosition;
+
+            @Override
+            public boolean hasNext() { return next >= 0; }
+
+            @Override
+            public OrderRecord next() {
+                if (next < 0) throw new NoSuchElementException();
+                return get(next--);
+            }
+        };
+    }
+
+    /**
+     * Reads a run of orders, oldest first, with one read of their index entries and
+     * one read of their records instead of two reads per order. Memory use is the
+     * size of the run's records, so callers scanning history read it a block at a
+     * time. Safe to call from many threads at once.
+     *
+     * @param from The position of the first order to read
+     * @param to The position just past the last order to read
+     * @param action What to do with each order
+     * @throws IndexOutOfBoundsException if the run is outside the ledger
+     * @throws UncheckedIOException if the ledger cannot be read or a record is corrupt
+     */
+    public void scan(int from, int to, Consumer<OrderRecord> action) {
+        if (from < 0 || to > entries || from > to) {
+            throw new IndexOutOfBoundsException("Order positions " + from + "-" + to + " of " + entries);
+        }
+        if (from == to) return;
+        try {
+            int count = to - from;
+            ByteBuffer entryRun = ByteBuffer.allocate(count * ENTRY_SIZE);
+            readFully(index, entryRun, (long) from * ENTRY_SIZE);
+            long start = entryRun.getLong(12);
+            long lastOffset = entryRun.getLong((count - 1) * ENTRY_SIZE + 12);
+            ByteBuffer lastHead = ByteBuffer.allocate(4);
+            readFully(ledger, lastHead, lastOffset);
+            long end = lastOffset + lastHead.getInt(0) + 8;
+            if (end - start > Integer.MAX_VALUE) throw new IOException("Order run too large: " + (end - start) + " bytes");
+
+            ByteBuffer records = ByteBuffer.allocate((int) (end - start));
+            readFully(ledger, records, start);
+            for (int i = 0; i < count; i++) {
+                int at = (int) (entryRun.getLong(i * ENTRY_SIZE + 12) - start);
+                int length = records.getInt(at);
+                if (length < 0 || at + length + 8L > records.capacity()) {
+                    throw new IOException("Corrupt order record at position " + (from + i));
+                }
+                byte[] body = new byte[length];
+                records.get(at + 4, body);
+                if (records.getInt(at + 4 + length) != checksum(body)) {
+                    throw new IOException("Corrupt order record at position " + (from + i));
+                }
+                action.accept(decode(body));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error reading order ledger: " + filename, e);
+        }
+    }
+
+    /**
+     * Closes the ledger files, after any group being written is on disk.
+     */
+    @Override
+    public void close() {
+        commitLock.lock();
+        try {
+            while (writing) groupWritten.awaitUninterruptibly();
+            ledger.close();
+            index.close();
+        } catch (IOException e) {
+            System.err.println("Warning: Error closing order ledger: " + e.getMessage());
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    /**
+     * Brings the index in line with the ledger after open.
+     * Index entries whose record is missing or torn are dropped, records after the
+     * last indexed one are indexed, and anything after the last intact record is cut off.
+     */
+    private void recover() throws IOException {
+        int indexed = (int) (index.size() / ENTRY_SIZE);
+        long end = 0;
+        while (indexed > 0) {
+            long offset = readEntry(indexed - 1).getLong(12);
+            byte[] body = readBody(offset);
+            if (body != null) {
+                end = offset + body.length + 8;
+                lastOrderId = readEntry(indexed - 1).getInt(0);
+                lastTimestamp = readEntry(indexed - 1).getLong(4);
+                break;
+            }
+            indexed--; // The ledger lost this record, so the index must too
+        }
+        entries = indexed;
+        index.truncate((long) indexed * ENTRY_SIZE);
+
+        // Index records that were appended but not indexed before a crash
+        byte[] body;
+        while ((body = readBody(end)) != null) {
+            OrderRecord order = decode(body);
+            if (order.getOrderId() <= lastOrderId) break; // Out of order; treat as garbage
+            ByteBuffer entry = ByteBuffer.allocate(ENTRY_SIZE);
+            entry.putInt(order.getOrderId()).putLong(order.getTimestamp()).putLong(end).flip();
+            writeFully(index, entry, (long) entries * ENTRY_SIZE);
+            entries++;
+            lastOrderId = order.getOrderId();
+            lastTimestamp = Math.max(lastTimestamp, order.getTimestamp());
+            end += body.length + 8;
+        }
+        if (ledger.size() > end) {
+            System.err.println("Warning: Discarding " + (ledger.size() - end) + " unreadable bytes at the end of " + filename);
+            ledger.truncate(end);
+        }
+        ledgerEnd = end;
+    }
+
+    /**
+     * Reads one index entry.
+     */
+    private ByteBuffer readEntry(int position) throws IOException {
+        ByteBuffer entry = ByteBuffer.allocate(ENTRY_SIZE);
+        readFully(index, entry, (long) position * ENTRY_SIZE);
+        return entry;
+    }
+
+    /**
+     * Reads and verifies the body of the record at an offset.
+     * The first read usually covers the whole record; a second is made only for large orders.
+     *
+     * @return The record body, or null if there is no intact record at the offset
+     */
+    private byte[] readBody(long offset) throws IOException {
+        long available = ledger.size() - offset;
+        if (available < 8) return null;
+        ByteBuffer head = ByteBuffer.allocate((int) Math.min(READ_AHEAD, available));
+        readFully(ledger, head, offset);
+        head.flip();
+        int length = head.getInt();
+        if (length < 0 || length > MAX_RECORD_SIZE || length + 8L > available) return null;
+        ByteBuffer record = head;
+        if (length + 8 > head.limit()) {
+            record = ByteBuffer.allocate(length + 8);
+            readFully(ledger, record, offset);
+            record.flip();
+            record.getInt();
+        }
+        byte[] body = new byte[length];
+        record.get(body);
+        return record.getInt() == checksum(body) ? body : null;
+    }
+
+    /**
+     * Encodes an order into a record body.
+     */
+    private static byte[] encode(OrderRecord order) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + order.getLines().size() * 48);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(order.getOrderId());
+            out.writeLong(order.getTimestamp());
+            out.writeInt(order.getLines().size());
+            for (OrderRecord.Line line : order.getLines()) {
+                out.writeInt(line.getComicId());
+                out.writeUTF(line.getTitle() == null ? "" : line.getTitle());
+                out.writeInt(line.getQuantity());
+                out.writeDouble(line.getUnitPrice());
+            }
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // Cannot happen with an in-memory stream
+        }
+    }
+
+    /**
+     * Decodes a record body back into an order.
+     */
+    private static OrderRecord decode(byte[] body) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+        int orderId = in.readInt();
+        long timestamp = in.readLong();
+        int count = in.readInt();
+        if (count < 0 || count > body.length) throw new IOException("Corrupt line count: " + count);
+        List<OrderRecord.Line> lines = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int comicId = in.readInt();
+            String title = in.readUTF();
+            int quantity = in.readInt();
+            double unitPrice = in.readDouble();
+            lines.add(new OrderRecord.Line(comicId, title, quantity, unitPrice));
+        }
+        return new OrderRecord(orderId, timestamp, lines);
+    }
+
+    private static int checksum(byte[] body) {
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        return (int) crc.getValue();
+    }
+
+    private void checkPosition(int position) {
+        if (position < 0 || position >= entries) {
+            throw new IndexOutOfBoundsException("Order position " + position + " of " + entries);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) throw new EOFException("Unexpected end of " + channel);
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining())
+            channel.write(buffer, position + buffer.position());
+    }
+
+    /**
+     * Receives every group of orders appended to a ledger.
+     */
+    public interface AppendListener {
+        /**
+         * Called once a group of orders is durable and indexed, before any of their
+         * appends return. Groups are passed one at a time, in ledger order.
+         *
+         * @param firstPosition The position of the group's first order
+         * @param orders The orders of the group, oldest first
+         */
+        void appended(int firstPosition, List<OrderRecord> orders);
+    }
+
+    /**
+     * Orders waiting to be written together by one commit group leader.
+     */
+    private static class CommitGroup {
+        // Orders of the group, in the order they joined
+        final List<OrderRecord> orders = new ArrayList<>();
+
+        // Whether the group has been written, and the error if the write failed
+        boolean done;
+        RuntimeException failure;
+    }
+}
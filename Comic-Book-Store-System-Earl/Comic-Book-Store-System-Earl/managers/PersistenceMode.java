@@ -0,0 +1,19 @@
+package managers;
+
+/**
+ * PersistenceMode enum - Selects how an EntityManager writes its changes to disk.
+ *
+ * @author Comic Book Store System
+ * @version 1.0
+ */
+public enum PersistenceMode {
+    /** Every change rewrites the whole data file */
+    REWRITE,
+
+    /**
+     * Every change appends one record to a log file next to the data file.
+     * The log is folded into the data file in the background once it grows
+     * to half the size of the data itself.
+     */
+    LOG
+}
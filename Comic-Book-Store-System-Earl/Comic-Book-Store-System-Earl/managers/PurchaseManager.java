@@ -1,13 +1,23 @@
 package managers;
 import entities.Comic;
 import entities.Order;
+import entities.OrderRecord;
 import entities.Stock;
 import utils.FileHandler;
+import utils.IdSequence;
+import utils.LatencyHistogram;
+import utils.Metrics;
 
 import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.io.File;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 
 
 
@@ -16,7 +26,21 @@ public class PurchaseManager extends EntityManager<Order> {
     ArrayList<Order> cart = new ArrayList<>();
     ComicManager comicManager;
     InventoryManager stock;
-    private int orderIdCounter;
+    private final OrderLedger ledger;
+
+    // Running sales totals, added to as each order is recorded
+    private final SalesAggregates sales;
+
+    // Checkout latency, from reserving the cart to the order being recorded
+    private static final LatencyHistogram CHECKOUT_LATENCY =
+            Metrics.histogram("store_checkout_seconds", "Time to reserve, commit and record a checkout");
+
+    // Checkouts by how they ended
+    private static final String CHECKOUTS = "store_checkouts_total";
+    private static final String CHECKOUTS_HELP = "Checkouts attempted, by result";
+    private static final LongAdder CHECKOUTS_OK = Metrics.counter(CHECKOUTS, CHECKOUTS_HELP, "result", "ok");
+    private static final LongAdder CHECKOUTS_SHORT = Metrics.counter(CHECKOUTS, CHECKOUTS_HELP, "result", "insufficient_stock");
+    private static final LongAdder CHECKOUTS_FAILED = Metrics.counter(CHECKOUTS, CHECKOUTS_HELP, "result", "failed");
    
 
 
@@ -46,25 +70,122 @@ public class PurchaseManager extends EntityManager<Order> {
         this.comicManager = comicManager;
         this.stock = stock;
 
-        // Initialize orderIdCounter based on existing order files
-        File dataDir = new File("data");
-        File[] orderFiles = dataDir.listFiles((dir, name) -> name.startsWith("order_") && name.endsWith(".txt"));
-        if (orderFiles != null && orderFiles.length > 0) {
-            int maxId = 0;
-            for (File file : orderFiles) {
-                String name = file.getName(); // order_N.txt
-                try {
-                    int id = Integer.parseInt(name.substring(6, name.length() - 4));
-                    if (id > maxId) maxId = id;
-                } catch (NumberFormatException e) {
-                    // Skip invalid filename
+        // Completed orders live in one append-only ledger next to the orders file
+        File dataDir = new File(filename).getAbsoluteFile().getParentFile();
+        ledger = new OrderLedger(new File(dataDir, "orders.ledger").getPath());
+        if (ledger.size() == 0) importLegacyOrders(dataDir);
+        sales = new SalesAggregates(new File(dataDir, "sales.agg").getPath(), ledger, comicManager);
+
+    }
+
+    /**
+     * Takes order IDs from a durable sequence instead of from the last order in the ledger.
+     *
+     * @param sequence The sequence store to take IDs from
+     * @param name The name of the order sequence in the store
+     */
+    @Override
+    public void useIdSequence(IdSequence sequence, String name) {
+        ledger.useIdSequence(sequence, name);
+    }
+
+    /**
+     * Gets the ledger of completed orders.
+     *
+     * @return The order ledger
+     */
+    public OrderLedger getLedger() { return ledger; }
+
+    /**
+     * Gets the running sales totals.
+     *
+     * @return The sales totals, current as of the last checkout
+     */
+    public SalesAggregates getSales() { return sales; }
+
+    /**
+     * Copies the order_N.txt receipts written by older versions of the store into the
+     * empty ledger, oldest first, keeping their order IDs. Comics are matched by title;
+     * lines whose comic no longer exists keep the title with comic ID -1. A receipt
+     * dated before the receipt ahead of it takes that receipt's time, as the ledger
+     * keeps timestamps in order. The old files are left where they are.
+     *
+     * Runs while the store starts, so a receipt that cannot be imported is skipped
+     * with a warning instead of stopping the store: one whose number is not a valid
+     * order ID, one repeating another's number (order_1.txt and order_01.txt), or
+     * one with an unreadable item line.
+     *
+     * @param dataDir The directory holding the receipt files
+     */
+    private void importLegacyOrders(File dataDir) {
+        File[] orderFiles = dataDir.listFiles((dir, name) -> name.matches("order_\\d+\\.txt"));
+        if (orderFiles == null || orderFiles.length == 0) return;
+
+        // Order ID -> receipt, in ID order; the first file by name wins an ID
+        Arrays.sort(orderFiles);
+        TreeMap<Integer, File> receipts = new TreeMap<>();
+        for (File file : orderFiles) {
+            int orderId = legacyOrderId(file);
+            if (orderId <= 0) {
+                System.err.println("Warning: Skipping order receipt " + file.getName() + ": not a valid order number.");
+                continue;
+            }
+            File first = receipts.putIfAbsent(orderId, file);
+            if (first != null) {
+                System.err.println("Warning: Skipping order receipt " + file.getName() + ": order " + orderId
+                                   + " was already imported from " + first.getName() + ".");
+            }
+        }
+
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+        int imported = 0;
+        for (Map.Entry<Integer, File> receipt : receipts.entrySet()) {
+            File file = receipt.getValue();
+            long timestamp = file.lastModified();
+            List<OrderRecord.Line> lines = new ArrayList<>();
+            try {
+                for (String line : FileHandler.readFile(file.getPath())) {
+                    line = line.trim();
+                    if (line.startsWith("Date: ")) {
+                        try {
+                            timestamp = LocalDateTime.parse(line.substring(6), formatter)
+                                    .atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+                        } catch (DateTimeParseException e) {
+                            // Keep the file's modification time
+                        }
+                        continue;
+                    }
+                    Matcher item = LEGACY_ITEM.matcher(line);
+                    if (!item.matches()) continue;
+                    Comic comic = comicManager.findByName(item.group(1));
+                    lines.add(new OrderRecord.Line(comic != null ? comic.getId() : -1, item.group(1),
+                            Integer.parseInt(item.group(2)), Double.parseDouble(item.group(3))));
                 }
+                ledger.append(new OrderRecord(receipt.getKey(), timestamp, lines));
+                imported++;
+            } catch (IllegalArgumentException | UncheckedIOException e) { // Includes NumberFormatException
+                System.err.println("Warning: Skipping order receipt " + file.getName() + ": " + e.getMessage());
             }
-            orderIdCounter = maxId + 1;
-        } else {
-            orderIdCounter = 1;
         }
+        System.out.println("Imported " + imported + " order receipts into the order ledger.");
+    }
 
+    // An item line of an old receipt: "Comic: <title> Quantity: <n> Price: P<price> Total: P<total>"
+    private static final Pattern LEGACY_ITEM =
+            Pattern.compile("Comic: (.*) Quantity: (\\d+) Price: P([0-9.Ee+-]+) Total: P[0-9.Ee+-]+");
+
+    /**
+     * Gets the order ID from a receipt's name, order_N.txt.
+     *
+     * @return The order ID, or -1 if N does not fit an int
+     */
+    private static int legacyOrderId(File file) {
+        String name = file.getName();
+        try {
+            return Integer.parseInt(name.substring(6, name.length() - 4));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
     }
 
 
@@ -94,18 +215,18 @@ public class PurchaseManager extends EntityManager<Order> {
          System.out.println("───────────────────────────────────────────────────────────────────────────────────────");
         System.out.println("                                   AVAILABLE COMICS               " + 
                      "\n ─────────────────────────────────────────────────────────────────────────────────────");
-        List<Comic> comics = comicManager.getAll();
-        boolean found = false;
-        for (Comic comic : comics) {
-            int stockQty = stock.getStockQuantity(comic.getId());
-            if (stockQty > 0) {
-                found = true;
-                System.out.println(comic.display());
+        int[] found = {0};
+        // One pass over comics joined with their stock, instead of a stock lookup per comic
+        stock.catalogView(comicManager).forEach(row -> {
+            int stockQty = row.getQuantity();
+            if (row.getComic() != null && stockQty > 0) {
+                found[0]++;
+                System.out.println(row.getComic().display());
                 System.out.println("Stock available: " + stockQty);
                 System.out.println();
             }
-        }
-        if (!found) {
+        });
+        if (found[0] == 0) {
             System.out.println("No comics with available stock found.");
         }
     }
@@ -163,6 +284,10 @@ public class PurchaseManager extends EntityManager<Order> {
         }
 
 
+    /**
+     * Checks out the console cart and prints the receipt.
+     * The cart is kept if the checkout fails, so the customer can retry.
+     */
     public void checkout() {
 
         if (cart.isEmpty()) {
@@ -170,61 +295,84 @@ public class PurchaseManager extends EntityManager<Order> {
             return;
         }
 
-        // First, check if all items have sufficient stock
-        boolean canCheckout = true;
-        for (Order order : cart) {
-            int comicId = order.getComic().getId();
-            if (!stock.hasSufficientStock(comicId, order.getQuantity())) {
-                System.out.println("                                    Insufficient stock for " + order.getComic().getTitle() + ". Available: " + stock.getStockQuantity(comicId));
-                canCheckout = false;
-            } else if (stock.getStockQuantity(comicId) == -1) {
-                System.out.println("                                    No stock record found for " + order.getComic().getTitle());
-                canCheckout = false;
-            }
-        }
-
-        if (!canCheckout) {
+        OrderRecord order;
+        try {
+            order = checkout(cart);
+        } catch (IllegalArgumentException e) {
+            System.out.println("                                    " + e.getMessage());
             System.out.println("                                    Checkout failed due to insufficient stock.");
             return;
+        } catch (IllegalStateException e) {
+            System.out.println("                                    " + e.getMessage());
+            System.out.println("                                    No stock was deducted. Please try again.");
+            return;
         }
 
-        // Assign order ID
-        int orderId = orderIdCounter++;
-        LocalDateTime now = LocalDateTime.now();
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-
-        // Now, deduct stocks and process orders
-        double cartTotal = 0.0;
         System.out.println("───────────────────────────────────────────────────────────────────────────────────────");
         System.out.println("                                      OFFICIAL RECEIPT");
         System.out.println("───────────────────────────────────────────────────────────────────────────────────────");
-        
-        StringBuilder receipt = new StringBuilder();
-        receipt.append("Order ID: ").append(orderId).append("\n");
-        receipt.append("Date: ").append(now.format(formatter)).append("\n");
-        receipt.append("Items:\n");
-        for (Order order : cart) {
-            int comicId = order.getComic().getId();
-            stock.removeStockFromComic(comicId, order.getQuantity());
+        printReceipt(order);
 
-            String itemLine = "                           Comic: " + order.getComic().getTitle() + " Quantity: " + order.getQuantity() + " Price: P" + order.getComic().getPrice() + " Total: P" + order.getComicTotal() + "\n                                                                                      ";
-            System.out.println(itemLine.trim());
-            receipt.append(itemLine);
+        System.out.println("              " + "\n Purchase completed successfully! Recorded as order " + order.getOrderId() + ".");
 
-            cartTotal += order.getComicTotal();
-        }
-
-        System.out.println("                           Your Total is: P" + cartTotal);
-        receipt.append("              Total: P").append(cartTotal).append("\n");
+        // Clear cart after successful checkout
+        cart.clear();
+    }
 
-        // Save to file
-        String filename = "data/order_" + orderId + ".txt";
-        List<String> lines = Arrays.asList(receipt.toString().split("\n"));
-        FileHandler.writeFile(filename, lines);
+    /**
+     * Checks out a cart as one all-or-nothing transaction.
+     * Every line is reserved from the stock counters first; if any line is short,
+     * nothing has changed and nothing is written. The stock changes are then written
+     * in one persist, followed by the order record in the ledger, which also adds the
+     * order to the running sales totals. If either write fails, the stock is handed
+     * back (on disk too). The cart itself is not changed.
+     *
+     * Safe to call from many threads at once, each with its own cart.
+     *
+     * @param lines The cart to check out
+     * @return The recorded order
+     * @throws IllegalArgumentException if the cart is empty or a comic has too little stock
+     * @throws IllegalStateException if the sale could not be written; no stock was deducted
+     */
+    public OrderRecord checkout(List<Order> lines) {
+        if (lines.isEmpty()) throw new IllegalArgumentException("Cart is empty. Nothing to checkout.");
+
+        // Reserve every line at once; a short line releases the others and changes nothing
+        long start = System.nanoTime();
+        StockReservation reservation;
+        try {
+            reservation = stock.reserve(lines);
+        } catch (IllegalArgumentException e) {
+            CHECKOUT_LATENCY.recordSince(start);
+            CHECKOUTS_SHORT.increment();
+            throw e;
+        }
 
-        System.out.println("              " + "\n Purchase completed successfully! Receipt saved as order_" + orderId + ".txt");
+        // Commit the stock changes and the order record together, or neither
+        OrderRecord order;
+        try {
+            reservation.commit();
+            order = sales.record(OrderRecord.linesOf(lines)); // Ledger and totals together; timed by the ledger
+        } catch (RuntimeException e) {
+            reservation.rollback();
+            CHECKOUT_LATENCY.recordSince(start);
+            CHECKOUTS_FAILED.increment();
+            throw new IllegalStateException("Checkout failed: " + e.getMessage(), e);
+        }
+        CHECKOUT_LATENCY.recordSince(start);
+        CHECKOUTS_OK.increment();
+        sales.checkpointIfDue();
+        return order;
+    }
 
-        // Clear cart after successful checkout
-        cart.clear();
+    /**
+     * Prints the receipt of a completed order, rendered from its ledger record.
+     *
+     * @param order The order to print
+     */
+    public void printReceipt(OrderRecord order) {
+        for (String line : order.toReceipt()) {
+            System.out.println("                           " + line);
+        }
     }
 }
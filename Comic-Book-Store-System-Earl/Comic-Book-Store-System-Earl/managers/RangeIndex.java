@@ -0,0 +1,238 @@
+package managers;
+
+import java.util.*;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import utils.IntHashIndex;
+
+/**
+ * RangeIndex class - A sorted index on one numeric field of an entity.
+ *
+ * The field values and entity IDs are kept in two parallel primitive arrays, sorted
+ * by value and then by ID. A range query is two binary searches for its ends and a
+ * walk over the k entries between them, O(log N + k), and the results come out in
+ * value order without sorting.
+ *
+ * The index is built from the manager's entities on first use and is then kept
+ * current as an EntityListener: an entity whose value was edited in place is moved
+ * from the position of the value it was indexed under to the position of its new one.
+ *
+ * @param <T> The type of entity being indexed
+ * @author Comic Book Store System
+ * @version 1.0
+ */
+public class RangeIndex<T> implements EntityListener<T> {
+    // A batch touching more than 1/REBUILD_FRACTION of the index is cheaper to rebuild
+    // from, with one sort, than to apply one shifting insert at a time
+    private static final int REBUILD_FRACTION = 16;
+
+    // Extracts the primary ID from an entity
+    private final ToIntFunction<T> idExtractor;
+
+    // Extracts the indexed value from an entity
+    private final ToDoubleFunction<T> keyExtractor;
+
+    // Supplies the entities to index on first use
+    private final Supplier<? extends Collection<T>> source;
+
+    // Looks an entity up by ID to return it as a result
+    private final IntFunction<T> lookup;
+
+    // Indexed values, ascending, and the ID at each position
+    private double[] keys = new double[0];
+    private int[] ids = new int[0];
+    private int size;
+
+    // Entity ID -> the value it is indexed under, to find it again after an edit
+    private final IntHashIndex<Double> keyById = new IntHashIndex<>();
+
+    // Whether the index has been filled from the source
+    private boolean built;
+
+    /**
+     * Constructor for creating a RangeIndex.
+     *
+     * @param idExtractor Function that extracts the primary ID from an entity
+     * @param keyExtractor Function that extracts the indexed value from an entity
+     * @param source Supplies the entities to index on first use
+     * @param lookup Function that finds an entity by its ID
+     */
+    public RangeIndex(ToIntFunction<T> idExtractor, ToDoubleFunction<T> keyExtractor,
+                      Supplier<? extends Collection<T>> source, IntFunction<T> lookup) {
+        this.idExtractor = idExtractor;
+        this.keyExtractor = keyExtractor;
+        this.source = source;
+        this.lookup = lookup;
+    }
+
+    /**
+     * Finds the entities whose value lies in a range, in ascending order of value.
+     *
+     * @param from The lowest value to include
+     * @param to The highest value to include
+     * @param limit The most entities to return
+     * @return Up to limit matching entities, lowest value first, then lowest ID
+     */
+    public synchronized List<T> range(double from, double to, int limit) {
+        ensureBuilt();
+        int start = lowerBound(from, Integer.MIN_VALUE);
+        int end = Math.max(start, upperBound(to));
+        if (end - start > limit) end = start + Math.max(0, limit);
+        List<T> found = new ArrayList<>(Math.max(0, end - start));
+        for (int i = start; i < end; i++) {
+            T entity = lookup.apply(ids[i]);
+            if (entity != null) found.add(entity);
+        }
+        return found;
+    }
+
+    /**
+     * Counts the entities whose value lies in a range, without visiting them.
+     *
+     * @param from The lowest value to include
+     * @param to The highest value to include
+     * @return The number of matching entities
+     */
+    public synchronized int count(double from, double to) {
+        ensureBuilt();
+        return Math.max(0, upperBound(to) - lowerBound(from, Integer.MIN_VALUE));
+    }
+
+    @Override
+    public synchronized void added(T entity) {
+        if (built) insert(entity);
+    }
+
+    @Override
+    public synchronized void removed(T entity) {
+        if (built) remove(idExtractor.applyAsInt(entity));
+    }
+
+    @Override
+    public synchronized void changed(T entity) {
+        if (!built) return;
+        int id = idExtractor.applyAsInt(entity);
+        Double was = keyById.get(id);
+        if (was != null && Double.compare(was, keyExtractor.applyAsDouble(entity)) == 0) return; // Value unchanged
+        remove(id);
+        insert(entity);
+    }
+
+    @Override
+    public synchronized void batchApplied(Collection<T> added, Collection<T> changed) {
+        if (!built) return;
+        if ((long) (added.size() + changed.size()) * REBUILD_FRACTION < size) {
+            EntityListener.super.batchApplied(added, changed);
+            return;
+        }
+        built = false; // Rebuilt from the source on next use
+        keys = new double[0];
+        ids = new int[0];
+        size = 0;
+        keyById.clear();
+    }
+
+    /**
+     * Fills the index from the source if that has not happened yet.
+     * Sorts once with primitive sorts: values are replaced by their rank among the
+     * distinct values, and each (rank, ID) pair is packed into one long.
+     */
+    private void ensureBuilt() {
+        if (built) return;
+        built = true;
+        Collection<T> entities = source.get();
+        double[] values = new double[entities.size()];
+        long[] packed = new long[entities.size()];
+        int n = 0;
+        for (T entity : entities) {
+            int id = idExtractor.applyAsInt(entity);
+            double key = keyExtractor.applyAsDouble(entity);
+            if (keyById.containsKey(id)) continue; // Keep the first of duplicate IDs
+            keyById.put(id, key);
+            values[n] = key;
+            packed[n++] = id;
+        }
+        double[] distinct = Arrays.copyOf(values, n);
+        Arrays.sort(distinct);
+        for (int i = 0; i < n; i++) {
+            long rank = Arrays.binarySearch(distinct, values[i]);
+            packed[i] = (rank << 32) | (packed[i] + 0x8000_0000L); // Offset so negative IDs sort first
+        }
+        Arrays.sort(packed, 0, n);
+        keys = new double[Math.max(16, n)];
+        ids = new int[keys.length];
+        for (int i = 0; i < n; i++) {
+            keys[i] = distinct[(int) (packed[i] >>> 32)];
+            ids[i] = (int) ((packed[i] & 0xFFFF_FFFFL) - 0x8000_0000L);
+        }
+        size = n;
+    }
+
+    /**
+     * Puts an entity at the position of its value.
+     */
+    private void insert(T entity) {
+        int id = idExtractor.applyAsInt(entity);
+        if (keyById.containsKey(id)) remove(id); // A duplicate ID replaces the earlier entity
+        double key = keyExtractor.applyAsDouble(entity);
+        int at = lowerBound(key, id);
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, Math.max(16, size * 2));
+            ids = Arrays.copyOf(ids, keys.length);
+        }
+        System.arraycopy(keys, at, keys, at + 1, size - at);
+        System.arraycopy(ids, at, ids, at + 1, size - at);
+        keys[at] = key;
+        ids[at] = id;
+        size++;
+        keyById.put(id, key);
+    }
+
+    /**
+     * Takes an entity out of the position of the value it was indexed under.
+     */
+    private void remove(int id) {
+        Double key = keyById.remove(id);
+        if (key == null) return;
+        int at = lowerBound(key, id);
+        if (at == size || ids[at] != id) return; // Not where it was filed; nothing to remove
+        System.arraycopy(keys, at + 1, keys, at, size - at - 1);
+        System.arraycopy(ids, at + 1, ids, at, size - at - 1);
+        size--;
+    }
+
+    /**
+     * Finds the first position whose (value, ID) is not below the given pair.
+     */
+    private int lowerBound(double key, int id) {
+        int low = 0, high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int byKey = Double.compare(keys[mid], key);
+            if (byKey < 0 || (byKey == 0 && ids[mid] < id)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Finds the first position whose value is above the given one.
+     */
+    private int upperBound(double key) {
+        int low = 0, high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (Double.compare(keys[mid], key) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,581 @@
+package managers;
+
+import entities.Comic;
+import entities.OrderRecord;
+import java.io.*;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+import utils.CsvCursor;
+import utils.CsvWriter;
+import utils.FileHandler;
+import utils.IntHashIndex;
+
+/**
+ * SalesAggregates class - Running sales totals, kept up to date at every checkout.
+ *
+ * Holds revenue, units and orders per comic, per genre and per day, so the
+ * questions asked all day ("today's revenue", "best sellers this week") are
+ * answered from memory instead of by scanning the order history. A checkout adds
+ * its order in time proportional to its number of lines. Totals per day are kept
+ * for all time; totals per comic and genre are kept for all time and, day by day,
+ * for the last ROLLING_DAYS days.
+ *
+ * The order ledger stays the record of every sale. The ledger hands each commit
+ * group to the totals once it is on disk and before its checkouts return, in
+ * ledger order, so the totals always cover exactly the first N orders of the
+ * ledger and no lock is held while the ledger is written. A checkpoint file saves the totals with N, every
+ * CHECKPOINT_SALES sales and when the store closes. On open, the checkpoint is
+ * loaded and the orders after it are replayed from the ledger, so sales made
+ * after the last checkpoint survive a crash. If the checkpoint is missing or does
+ * not fit the ledger, the totals are rebuilt from the whole ledger.
+ *
+ * Genres are joined from the catalog as each order is added.
+ *
+ * @author Comic Book Store System
+ * @version 1.0
+ */
+public class SalesAggregates implements OrderLedger.AppendListener {
+    // Days for which totals per comic and genre are kept day by day
+    public static final int ROLLING_DAYS = 35;
+
+    // Sales between checkpoints
+    private static final int CHECKPOINT_SALES = 1000;
+
+    // Orders read from the ledger at once when catching up
+    private static final int REPLAY_BLOCK = 4096;
+
+    // Genre of comics no longer in the catalog
+    private static final String UNKNOWN = "(unknown)";
+
+    // Where the checkpoint is saved, and what it is rebuilt from
+    private final String filename;
+    private final OrderLedger ledger;
+    private final ComicManager comics;
+    private final ZoneId zone;
+
+    // Number of ledger orders included in the totals
+    private int covered;
+
+    // Sales since the last checkpoint
+    private int unsaved;
+
+    // Held while a checkpoint is written, so one is written at a time; never a monitor, as it is held during I/O
+    private final ReentrantLock saveLock = new ReentrantLock();
+
+    // Totals for all time
+    private final SalesReport.Totals total = new SalesReport.Totals("total", "total");
+    private final GroupTotals allTime = new GroupTotals();
+
+    // Totals per day, oldest first; days in the rolling window also hold per comic and genre totals
+    private final TreeMap<LocalDate, Day> days = new TreeMap<>();
+
+    // Newest day with a sale, which the rolling window ends at
+    private LocalDate newestDay;
+
+    /**
+     * Constructor for opening the totals, loading the checkpoint and catching up with the ledger.
+     *
+     * @param filename The path to the checkpoint file
+     * @param ledger The order ledger the totals are kept over
+     * @param comics The catalog genres are joined from
+     */
+    public SalesAggregates(String filename, OrderLedger ledger, ComicManager comics) {
+        this.filename = filename;
+        this.ledger = ledger;
+        this.comics = comics;
+        this.zone = ZoneId.systemDefault();
+        synchronized (this) {
+            ledger.addListener(this); // Groups appended from now on wait for the catch-up, then skip what it added
+            if (!load()) clear();
+            catchUp();
+        }
+    }
+
+    /**
+     * Records a new order in the ledger, placed now; it is in the totals by the time
+     * this returns. Called by checkout; the totals can never miss an order that was
+     * recorded or include one that was not.
+     *
+     * @param lines The items sold
+     * @return The stored order record
+     * @throws UncheckedIOException if the order cannot be written; the totals are unchanged
+     */
+    public OrderRecord record(List<OrderRecord.Line> lines) {
+        return ledger.record(lines); // The ledger calls appended before returning
+    }
+
+    /**
+     * Adds a group of orders the ledger has just made durable. Orders already
+     * covered, by a catch-up or rebuild that read them from the ledger, are skipped.
+     *
+     * @param firstPosition The ledger position of the group's first order
+     * @param orders The orders, oldest first
+     */
+    @Override
+    public synchronized void appended(int firstPosition, List<OrderRecord> orders) {
+        if (firstPosition > covered) { // Cannot happen unless a group was missed; read it back
+            catchUp();
+            return;
+        }
+        for (int i = covered - firstPosition; i < orders.size(); i++) {
+            add(orders.get(i));
+            covered++;
+            unsaved++;
+        }
+    }
+
+    /**
+     * Saves a checkpoint if enough sales have been made since the last one.
+     * A failed save is reported and retried with the next sale; no sale is lost by
+     * it, as the ledger holds every sale the checkpoint misses.
+     */
+    public void checkpointIfDue() {
+        synchronized (this) {
+            if (unsaved < CHECKPOINT_SALES) return;
+        }
+        if (!saveLock.tryLock()) return; // Another checkout is saving one already
+        try {
+            writeCheckpoint();
+        } catch (UncheckedIOException e) {
+            System.err.println("Warning: Could not save sales totals: " + e.getMessage());
+        } finally {
+            saveLock.unlock();
+        }
+    }
+
+    /**
+     * Saves a checkpoint of the totals now. Only the numbers are copied out under the
+     * lock; they are formatted and written after it is released, so checkouts wait on
+     * neither the formatting nor the disk.
+     *
+     * @throws UncheckedIOException if the checkpoint cannot be written
+     */
+    public void save() {
+        saveLock.lock();
+        try {
+            writeCheckpoint();
+        } finally {
+            saveLock.unlock();
+        }
+    }
+
+    private void writeCheckpoint() {
+        Checkpoint checkpoint;
+        int saving;
+        synchronized (this) {
+            checkpoint = new Checkpoint(covered);
+            checkpoint.add("total", null, null, null, total);
+            allTime.copyTo(checkpoint, null, "comic", "genre");
+            for (Map.Entry<LocalDate, Day> entry : days.entrySet()) {
+                String date = entry.getKey().toString();
+                checkpoint.add("day", date, null, null, entry.getValue().total);
+                if (entry.getValue().groups != null) entry.getValue().groups.copyTo(checkpoint, date, "daycomic", "daygenre");
+            }
+            saving = unsaved;
+            unsaved = 0;
+        }
+        try {
+            FileHandler.writeFile(filename, checkpoint::writeTo); // Any checkpoint is consistent; the ledger fills in after it
+        } catch (UncheckedIOException e) {
+            synchronized (this) {
+                unsaved += saving; // Still in no checkpoint, so the next sale tries again
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Throws the totals away and adds up the whole ledger again.
+     */
+    public void rebuild() {
+        synchronized (this) {
+            clear();
+            catchUp();
+        }
+        save();
+    }
+
+    /**
+     * Gets the number of ledger orders the totals include.
+     *
+     * @return The number of orders covered
+     */
+    public synchronized int getOrdersCovered() { return covered; }
+
+    /**
+     * Gets the totals for all time.
+     *
+     * @return A copy of the totals
+     */
+    public synchronized SalesReport.Totals getTotal() { return copy(total, "total", "total"); }
+
+    /**
+     * Gets the totals of a run of days.
+     *
+     * @param from The first day
+     * @param to The last day
+     * @return The summed totals; zero if nothing was sold
+     */
+    public synchronized SalesReport.Totals getDays(LocalDate from, LocalDate to) {
+        SalesReport.Totals sum = new SalesReport.Totals(from + ".." + to, from + ".." + to);
+        if (!from.isAfter(to)) {
+            for (Day day : days.subMap(from, true, to, true).values()) sum.add(day.total);
+        }
+        return sum;
+    }
+
+    /**
+     * Gets a comic's totals for all time.
+     *
+     * @param comicId The comic's ID
+     * @return A copy of the totals; zero if the comic has not sold
+     */
+    public synchronized SalesReport.Totals getComic(int comicId) {
+        SalesReport.Totals comic = allTime.comics.get(comicId);
+        return comic == null ? new SalesReport.Totals(String.valueOf(comicId), String.valueOf(comicId))
+                             : copy(comic, comic.getKey(), comic.getName());
+    }
+
+    /**
+     * Lists the best-selling comics of a run of days, most units first.
+     *
+     * @param from The first day, or null for all time
+     * @param to The last day (ignored for all time)
+     * @param limit Most comics to list
+     * @return Copies of the comics' totals over the days
+     * @throws IllegalArgumentException if from is before the rolling window
+     */
+    public synchronized List<SalesReport.Totals> topComics(LocalDate from, LocalDate to, int limit) {
+        if (from == null) return top(allTime.comicList, limit);
+        Collection<Day> held = window(from, to);
+        if (held.size() == 1) return top(held.iterator().next().groups.comicList, limit); // Nothing to add up
+        Map<String, SalesReport.Totals> sum = new HashMap<>();
+        for (Day day : held)
+            for (SalesReport.Totals comic : day.groups.comicList) merge(sum, comic);
+        return top(sum.values(), limit);
+    }
+
+    /**
+     * Lists the best-selling genres of a run of days, most units first.
+     *
+     * @param from The first day, or null for all time
+     * @param to The last day (ignored for all time)
+     * @param limit Most genres to list
+     * @return Copies of the genres' totals over the days
+     * @throws IllegalArgumentException if from is before the rolling window
+     */
+    public synchronized List<SalesReport.Totals> topGenres(LocalDate from, LocalDate to, int limit) {
+        if (from == null) return top(allTime.genres.values(), limit);
+        Collection<Day> held = window(from, to);
+        if (held.size() == 1) return top(held.iterator().next().groups.genres.values(), limit);
+        Map<String, SalesReport.Totals> sum = new HashMap<>();
+        for (Day day : held)
+            for (SalesReport.Totals genre : day.groups.genres.values()) merge(sum, genre);
+        return top(sum.values(), limit);
+    }
+
+    /**
+     * Gets the days of a run that are held in detail.
+     */
+    private Collection<Day> window(LocalDate from, LocalDate to) {
+        LocalDate windowStart = windowStart();
+        if (windowStart != null && from.isBefore(windowStart)) {
+            throw new IllegalArgumentException("Totals per comic and genre are kept from " + windowStart + " only");
+        }
+        if (from.isAfter(to)) return Collections.emptyList();
+        List<Day> held = new ArrayList<>();
+        for (Day day : days.subMap(from, true, to, true).values())
+            if (day.groups != null) held.add(day);
+        return held;
+    }
+
+    private LocalDate windowStart() {
+        return newestDay == null ? null : newestDay.minusDays(ROLLING_DAYS - 1);
+    }
+
+    /**
+     * Adds one order to every total it counts in.
+     */
+    private void add(OrderRecord order) {
+        LocalDate date = LocalDate.ofInstant(Instant.ofEpochMilli(order.getTimestamp()), zone);
+        if (newestDay == null || date.isAfter(newestDay)) {
+            newestDay = date;
+            LocalDate windowStart = windowStart();
+            for (Day old : days.headMap(windowStart, false).values()) old.groups = null; // Out of the window
+        }
+        Day day = days.computeIfAbsent(date, d -> new Day(!d.isBefore(windowStart())));
+        long orderId = order.getOrderId();
+        for (OrderRecord.Line line : order.getLines()) {
+            int quantity = line.getQuantity();
+            double amount = line.getTotal();
+            Comic comic = comics.findById(line.getComicId());
+            String title = comic == null ? line.getTitle() : comic.getTitle();
+            String genre = comic == null ? UNKNOWN : comic.getGenre();
+            total.count(orderId, quantity, amount);
+            day.total.count(orderId, quantity, amount);
+            allTime.count(orderId, line.getComicId(), title, genre, quantity, amount);
+            if (day.groups != null) day.groups.count(orderId, line.getComicId(), title, genre, quantity, amount);
+        }
+    }
+
+    /**
+     * Adds the ledger orders the totals do not include yet, a block at a time.
+     */
+    private void catchUp() {
+        int end = ledger.size();
+        if (covered < end) unsaved = CHECKPOINT_SALES; // Save the caught-up totals with the next sale
+        while (covered < end) {
+            int to = Math.min(end, covered + REPLAY_BLOCK);
+            ledger.scan(covered, to, this::add);
+            covered = to;
+        }
+    }
+
+    private void clear() {
+        covered = 0;
+        total.set(0, 0, 0);
+        allTime.clear();
+        days.clear();
+        newestDay = null;
+    }
+
+    /**
+     * Loads the checkpoint.
+     *
+     * @return false if there is no checkpoint or it cannot be used, with a warning
+     *         if it was there; the totals must be cleared then
+     */
+    private boolean load() {
+        if (!new File(filename).isFile()) return false;
+        List<String> lines;
+        try {
+            lines = FileHandler.readFile(filename);
+        } catch (UncheckedIOException e) {
+            System.err.println("Warning: Rebuilding sales totals from the order ledger, " + e.getMessage());
+            return false;
+        }
+        if (lines.isEmpty()) return false;
+        try {
+            CsvCursor cursor = new CsvCursor();
+            for (String line : lines) {
+                if (line.isEmpty()) continue;
+                cursor.reset(line);
+                String kind = cursor.nextString();
+                switch (kind) {
+                    case "covered":
+                        covered = cursor.nextInt();
+                        break;
+                    case "total":
+                        read(cursor, total);
+                        break;
+                    case "comic":
+                    case "genre":
+                        allTime.read(kind, cursor);
+                        break;
+                    case "day": {
+                        LocalDate date = LocalDate.parse(cursor.nextString());
+                        Day day = new Day(true); // Trimmed to the window below
+                        read(cursor, day.total);
+                        days.put(date, day);
+                        if (newestDay == null || date.isAfter(newestDay)) newestDay = date;
+                        break;
+                    }
+                    case "daycomic":
+                    case "daygenre": {
+                        Day day = days.get(LocalDate.parse(cursor.nextString()));
+                        if (day == null) throw new IllegalArgumentException("Detail before its day: " + line);
+                        day.groups.read(kind.substring(3), cursor);
+                        break;
+                    }
+                    default:
+                        throw new IllegalArgumentException("Unknown record: " + line);
+                }
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) { // Includes NumberFormatException
+            System.err.println("Warning: Rebuilding sales totals from the order ledger, " + filename + " is unreadable: " + e.getMessage());
+            return false;
+        }
+        if (covered > ledger.size()) { // The ledger lost orders the checkpoint counted
+            System.err.println("Warning: Rebuilding sales totals from the order ledger, " + filename + " is ahead of it.");
+            return false;
+        }
+        LocalDate windowStart = windowStart();
+        if (windowStart != null) {
+            for (Day old : days.headMap(windowStart, false).values()) old.groups = null;
+        }
+        return true;
+    }
+
+    private static void read(CsvCursor cursor, SalesReport.Totals totals) {
+        totals.set(Long.parseLong(cursor.nextString()), Long.parseLong(cursor.nextString()), cursor.nextDouble());
+    }
+
+    private static SalesReport.Totals copy(SalesReport.Totals totals, String key, String name) {
+        SalesReport.Totals copy = new SalesReport.Totals(key, name);
+        copy.add(totals);
+        return copy;
+    }
+
+    private static void merge(Map<String, SalesReport.Totals> sum, SalesReport.Totals totals) {
+        SalesReport.Totals into = sum.get(totals.getKey());
+        if (into == null) sum.put(totals.getKey(), copy(totals, totals.getKey(), totals.getName()));
+        else into.add(totals);
+    }
+
+    /**
+     * Picks the best sellers with a heap of the limit's size, copying only those.
+     */
+    private static List<SalesReport.Totals> top(Collection<SalesReport.Totals> totals, int limit) {
+        Comparator<SalesReport.Totals> best = Comparator.comparingLong(SalesReport.Totals::getUnits).reversed()
+                .thenComparing(Comparator.comparingDouble(SalesReport.Totals::getRevenue).reversed())
+                .thenComparing(SalesReport.Totals::getKey);
+        PriorityQueue<SalesReport.Totals> kept = new PriorityQueue<>(best.reversed()); // Worst kept at the head
+        for (SalesReport.Totals t : totals) {
+            if (kept.size() < limit) {
+                kept.add(t);
+            } else if (limit > 0 && best.compare(t, kept.peek()) < 0) {
+                kept.poll();
+                kept.add(t);
+            }
+        }
+        List<SalesReport.Totals> sorted = new ArrayList<>(kept.size());
+        for (SalesReport.Totals t : kept) sorted.add(copy(t, t.getKey(), t.getName()));
+        sorted.sort(best);
+        return sorted;
+    }
+
+    /**
+     * One day's totals, and its totals per comic and genre while it is in the window.
+     */
+    private static final class Day {
+        final SalesReport.Totals total = new SalesReport.Totals("day", "day");
+        GroupTotals groups;
+
+        Day(boolean detailed) {
+            groups = detailed ? new GroupTotals() : null;
+        }
+    }
+
+    /**
+     * The rows of a checkpoint, copied out of the totals as references and numbers
+     * so the copy is quick, and only turned into text when written.
+     */
+    private static final class Checkpoint {
+        private final int covered;
+        private int size;
+        private String[] kinds = new String[64];
+        private String[] dates = new String[64];
+        private String[] keys = new String[64];
+        private String[] names = new String[64];
+        private long[] orders = new long[64];
+        private long[] units = new long[64];
+        private double[] revenue = new double[64];
+
+        Checkpoint(int covered) {
+            this.covered = covered;
+        }
+
+        /**
+         * Adds a row; a null date, key or name is a column the row does not have.
+         */
+        void add(String kind, String date, String key, String name, SalesReport.Totals totals) {
+            if (size == kinds.length) {
+                int capacity = size * 2;
+                kinds = Arrays.copyOf(kinds, capacity);
+                dates = Arrays.copyOf(dates, capacity);
+                keys = Arrays.copyOf(keys, capacity);
+                names = Arrays.copyOf(names, capacity);
+                orders = Arrays.copyOf(orders, capacity);
+                units = Arrays.copyOf(units, capacity);
+                revenue = Arrays.copyOf(revenue, capacity);
+            }
+            kinds[size] = kind;
+            dates[size] = date;
+            keys[size] = key;
+            names[size] = name;
+            orders[size] = totals.getOrders();
+            units[size] = totals.getUnits();
+            revenue[size] = totals.getRevenue();
+            size++;
+        }
+
+        void writeTo(BufferedWriter out) throws IOException {
+            CsvWriter row = new CsvWriter();
+            row.reset().field("covered").field(covered).writeTo(out);
+            out.newLine();
+            for (int i = 0; i < size; i++) {
+                row.reset().field(kinds[i]);
+                if (dates[i] != null) row.field(dates[i]);
+                if (keys[i] != null) row.field(keys[i]);
+                if (names[i] != null) row.field(names[i]);
+                row.field(orders[i]).field(units[i]).field(revenue[i]).writeTo(out);
+                out.newLine();
+            }
+        }
+    }
+
+    /**
+     * Totals per comic and per genre.
+     */
+    private static final class GroupTotals {
+        // Comic ID -> totals, for lookup; the same totals in a list, for listing
+        final IntHashIndex<SalesReport.Totals> comics = new IntHashIndex<>();
+        final List<SalesReport.Totals> comicList = new ArrayList<>();
+
+        final Map<String, SalesReport.Totals> genres = new HashMap<>();
+
+        void count(long orderId, int comicId, String title, String genre, int quantity, double amount) {
+            comic(comicId, title).count(orderId, quantity, amount);
+            genres.computeIfAbsent(genre, g -> new SalesReport.Totals(g, g)).count(orderId, quantity, amount);
+        }
+
+        private SalesReport.Totals comic(int comicId, String title) {
+            SalesReport.Totals comic = comics.get(comicId);
+            if (comic == null) {
+                comic = new SalesReport.Totals(String.valueOf(comicId), title);
+                comics.put(comicId, comic);
+                comicList.add(comic);
+            }
+            return comic;
+        }
+
+        void clear() {
+            comics.clear();
+            comicList.clear();
+            genres.clear();
+        }
+
+        /**
+         * Adds a row per comic and genre to a checkpoint, with a day for the rolling totals.
+         */
+        void copyTo(Checkpoint checkpoint, String date, String comicKind, String genreKind) {
+            for (SalesReport.Totals comic : comicList)
+                checkpoint.add(comicKind, date, comic.getKey(), comic.getName(), comic);
+            for (SalesReport.Totals genre : genres.values())
+                checkpoint.add(genreKind, date, genre.getKey(), null, genre);
+        }
+
+        /**
+         * Reads back a row written by write, after its kind and day.
+         */
+        void read(String kind, CsvCursor cursor) {
+            if (kind.equals("comic")) {
+                int comicId = cursor.nextInt();
+                read(cursor, comic(comicId, cursor.nextString()));
+            } else {
+                String genre = cursor.nextString();
+                SalesReport.Totals totals = new SalesReport.Totals(genre, genre);
+                read(cursor, totals);
+                genres.put(genre, totals);
+            }
+        }
+
+        private static void read(CsvCursor cursor, SalesReport.Totals totals) {
+            SalesAggregates.read(cursor, totals);
+        }
+    }
+}
@@ -0,0 +1,458 @@
+package managers;
+
+import entities.Comic;
+import entities.OrderRecord;
+import java.io.*;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.stream.IntStream;
+import utils.CsvWriter;
+import utils.IntHashIndex;
+
+/**
+ * SalesReport class - Revenue and units sold, scanned from the order ledger.
+ *
+ * A report covers the orders placed in a range of days and totals them by comic,
+ * genre, author and day, along with the average basket (units and pesos per
+ * order). Line items carry the comic ID, quantity and the price paid, so revenue
+ * is what was actually charged; genre and author are joined from the catalog, and
+ * comics since deleted are reported under their title at sale time.
+ *
+ * The ledger is scanned in blocks of orders on the common fork/join pool, each
+ * block read with OrderLedger.scan and totalled into a partial report of its own;
+ * partials are merged pairwise. The catalog is joined once per report, not once
+ * per line. Memory grows with the size of the catalog and the number of days
+ * covered, never with the number of orders, so years of history are scanned in a
+ * few megabytes.
+ *
+ * @author Comic Book Store System
+ * @version 1.0
+ */
+public class SalesReport {
+    // Orders read and totalled by one task
+    private static final int BLOCK_ORDERS = 2048;
+
+    // Genre and author of comics no longer in the catalog
+    private static final String UNKNOWN = "(unknown)";
+
+    // Where the orders are read from and joined to
+    private final OrderLedger ledger;
+    private final ComicManager comics;
+
+    // Time zone days are counted in
+    private final ZoneId zone;
+
+    /**
+     * Constructor for creating a report over a ledger, counting days in the store's time zone.
+     *
+     * @param ledger The order ledger to scan
+     * @param comics The catalog to join line items to
+     */
+    public SalesReport(OrderLedger ledger, ComicManager comics) {
+        this(ledger, comics, ZoneId.systemDefault());
+    }
+
+    /**
+     * Constructor for creating a report over a ledger, counting days in a given time zone.
+     *
+     * @param ledger The order ledger to scan
+     * @param comics The catalog to join line items to
+     * @param zone The time zone days start and end in
+     */
+    public SalesReport(OrderLedger ledger, ComicManager comics, ZoneId zone) {
+        this.ledger = ledger;
+        this.comics = comics;
+        this.zone = zone;
+    }
+
+    /**
+     * Totals the orders placed from the start of one day to the end of another.
+     * Orders are found by binary search over the ledger's timestamps, so a short
+     * range at the end of a long history reads only its own orders; each order read
+     * is still checked against the range, so none is counted on the wrong side of it.
+     *
+     * @param from The first day to include, or null to start at the oldest order
+     * @param to The last day to include, or null to end at the newest order
+     * @return The totals
+     * @throws IllegalArgumentException if from is after to
+     * @throws UncheckedIOException if the ledger cannot be read
+     */
+    public Result run(LocalDate from, LocalDate to) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("Start date " + from + " is after end date " + to);
+        }
+        int end = ledger.size(); // Orders placed while scanning are left out
+        long rangeStart = from == null ? Long.MIN_VALUE : startOf(from);
+        long rangeEnd = to == null ? Long.MAX_VALUE : startOf(to.plusDays(1));
+        int first = from == null ? 0 : ledger.positionAtOrBefore(rangeStart - 1) + 1;
+        int last = to == null ? end : Math.min(end, ledger.positionAtOrBefore(rangeEnd - 1) + 1);
+        long start = System.nanoTime();
+
+        Catalog catalog = new Catalog(comics.getAll()); // Joined once, not once per line
+        int blocks = Math.max(0, (last - first + BLOCK_ORDERS - 1) / BLOCK_ORDERS);
+        Partial total = IntStream.range(0, blocks).parallel()
+                .mapToObj(block -> {
+                    Partial partial = new Partial(catalog, rangeStart, rangeEnd);
+                    int blockStart = first + block * BLOCK_ORDERS;
+                    ledger.scan(blockStart, Math.min(last, blockStart + BLOCK_ORDERS), partial::add);
+                    return partial;
+                })
+                .reduce(Partial::merge)
+                .orElseGet(() -> new Partial(catalog, rangeStart, rangeEnd));
+        return new Result(from, to, total, System.nanoTime() - start);
+    }
+
+    private long startOf(LocalDate day) {
+        return day.atStartOfDay(zone).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Totals of one group: a comic, a genre, an author or a day.
+     */
+    public static class Totals {
+        private final String key;
+        private final String name;
+        private long orders;
+        private long units;
+        private double revenue;
+
+        // Number of the last order counted in orders, so an order with several lines in the group counts once
+        private long lastOrder = -1;
+
+        Totals(String key, String name) {
+            this.key = key;
+            this.name = name;
+        }
+
+        /** @return The comic ID, genre, author or date (yyyy-MM-dd) */
+        public String getKey() { return key; }
+
+        /** @return The comic's title; the same as the key for other groups */
+        public String getName() { return name; }
+
+        /** @return Orders with at least one comic in the group */
+        public long getOrders() { return orders; }
+
+        /** @return Units sold */
+        public long getUnits() { return units; }
+
+        /** @return Revenue, in pesos */
+        public double getRevenue() { return revenue; }
+
+        void count(long order, int quantity, double amount) {
+            units += quantity;
+            revenue += amount;
+            if (lastOrder != order) {
+                lastOrder = order;
+                orders++;
+            }
+        }
+
+        void add(Totals other) {
+            orders += other.orders;
+            units += other.units;
+            revenue += other.revenue;
+        }
+
+        /**
+         * Sets the totals, as read back from a saved file.
+         */
+        void set(long orders, long units, double revenue) {
+            this.orders = orders;
+            this.units = units;
+            this.revenue = revenue;
+        }
+    }
+
+    /**
+     * The catalog as it was when the report started, numbered for the scan: each
+     * comic, genre and author gets a slot, so a line item is joined with one hash
+     * lookup and totalled into arrays. Read by every task, written by none.
+     */
+    private static final class Catalog {
+        // Comic ID -> slot
+        final IntHashIndex<Integer> slotOf;
+
+        // Per comic slot: key, title, genre slot and author slot
+        final String[] comicKeys;
+        final String[] titles;
+        final int[] genreOf;
+        final int[] authorOf;
+
+        // Names per genre and author slot; slot 0 is for comics no longer in the catalog
+        final List<String> genres = new ArrayList<>();
+        final List<String> authors = new ArrayList<>();
+
+        Catalog(List<Comic> comics) {
+            int size = comics.size();
+            slotOf = new IntHashIndex<>(size);
+            comicKeys = new String[size];
+            titles = new String[size];
+            genreOf = new int[size];
+            authorOf = new int[size];
+            Map<String, Integer> genreSlots = new HashMap<>();
+            Map<String, Integer> authorSlots = new HashMap<>();
+            genres.add(UNKNOWN);
+            authors.add(UNKNOWN);
+            for (int i = 0; i < size; i++) {
+                Comic comic = comics.get(i);
+                slotOf.put(comic.getId(), i);
+                comicKeys[i] = String.valueOf(comic.getId());
+                titles[i] = comic.getTitle();
+                genreOf[i] = slot(comic.getGenre(), genreSlots, genres);
+                authorOf[i] = slot(comic.getAuthor(), authorSlots, authors);
+            }
+        }
+
+        private static int slot(String name, Map<String, Integer> slots, List<String> names) {
+            Integer slot = slots.get(name);
+            if (slot == null) {
+                slot = names.size();
+                slots.put(name, slot);
+                names.add(name);
+            }
+            return slot;
+        }
+    }
+
+    /**
+     * The totals of one block of orders, or of several merged.
+     */
+    private final class Partial {
+        final Catalog catalog;
+
+        // Orders placed in [rangeStart, rangeEnd) are counted
+        final long rangeStart;
+        final long rangeEnd;
+
+        // Totals per comic, genre and author slot, created on the first sale
+        final Totals[] byComic;
+        final Totals[] byGenre;
+        final Totals[] byAuthor;
+
+        // Comics sold but no longer in the catalog, by ID
+        final IntHashIndex<Totals> byDeletedComic = new IntHashIndex<>();
+        final List<Totals> deletedComics = new ArrayList<>();
+
+        final Map<LocalDate, Totals> byDay = new HashMap<>();
+
+        long orders;
+        long units;
+        double revenue;
+
+        // The day the last order fell on, its bounds and its totals; orders in a block are close in time
+        long dayStart = Long.MAX_VALUE;
+        long dayEnd = Long.MIN_VALUE;
+        Totals dayTotals;
+
+        Partial(Catalog catalog, long rangeStart, long rangeEnd) {
+            this.catalog = catalog;
+            this.rangeStart = rangeStart;
+            this.rangeEnd = rangeEnd;
+            byComic = new Totals[catalog.titles.length];
+            byGenre = new Totals[catalog.genres.size()];
+            byAuthor = new Totals[catalog.authors.size()];
+        }
+
+        void add(OrderRecord order) {
+            long timestamp = order.getTimestamp();
+            if (timestamp < rangeStart || timestamp >= rangeEnd) return; // Out of order in an older ledger
+            if (timestamp < dayStart || timestamp >= dayEnd) {
+                LocalDate day = LocalDate.ofInstant(Instant.ofEpochMilli(timestamp), zone);
+                dayStart = day.atStartOfDay(zone).toInstant().toEpochMilli();
+                dayEnd = day.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+                dayTotals = byDay.computeIfAbsent(day, d -> new Totals(d.toString(), d.toString()));
+            }
+            long number = orders++;
+            dayTotals.orders++;
+
+            for (OrderRecord.Line line : order.getLines()) {
+                int quantity = line.getQuantity();
+                double amount = line.getTotal();
+                units += quantity;
+                revenue += amount;
+                dayTotals.units += quantity;
+                dayTotals.revenue += amount;
+
+                Integer slot = catalog.slotOf.get(line.getComicId());
+                int genre = 0, author = 0;
+                Totals comic;
+                if (slot != null) {
+                    comic = byComic[slot];
+                    if (comic == null) comic = byComic[slot] = new Totals(catalog.comicKeys[slot], catalog.titles[slot]);
+                    genre = catalog.genreOf[slot];
+                    author = catalog.authorOf[slot];
+                } else {
+                    comic = byDeletedComic.get(line.getComicId());
+                    if (comic == null) {
+                        comic = new Totals(String.valueOf(line.getComicId()), line.getTitle());
+                        byDeletedComic.put(line.getComicId(), comic);
+                        deletedComics.add(comic);
+                    }
+                }
+                comic.count(number, quantity, amount);
+                if (byGenre[genre] == null) byGenre[genre] = new Totals(catalog.genres.get(genre), catalog.genres.get(genre));
+                byGenre[genre].count(number, quantity, amount);
+                if (byAuthor[author] == null) byAuthor[author] = new Totals(catalog.authors.get(author), catalog.authors.get(author));
+                byAuthor[author].count(number, quantity, amount);
+            }
+        }
+
+        Partial merge(Partial other) {
+            mergeInto(byComic, other.byComic);
+            mergeInto(byGenre, other.byGenre);
+            mergeInto(byAuthor, other.byAuthor);
+            for (Totals comic : other.deletedComics) {
+                int id = Integer.parseInt(comic.getKey());
+                Totals existing = byDeletedComic.get(id);
+                if (existing == null) {
+                    byDeletedComic.put(id, comic);
+                    deletedComics.add(comic);
+                } else {
+                    existing.add(comic);
+                }
+            }
+            for (Map.Entry<LocalDate, Totals> entry : other.byDay.entrySet()) {
+                Totals existing = byDay.putIfAbsent(entry.getKey(), entry.getValue());
+                if (existing != null) existing.add(entry.getValue());
+            }
+            orders += other.orders;
+            units += other.units;
+            revenue += other.revenue;
+            return this;
+        }
+
+        private void mergeInto(Totals[] into, Totals[] from) {
+            for (int i = 0; i < into.length; i++) {
+                if (from[i] == null) continue;
+                if (into[i] == null) into[i] = from[i];
+                else into[i].add(from[i]);
+            }
+        }
+
+        List<Totals> comics() {
+            List<Totals> sold = present(byComic);
+            sold.addAll(deletedComics);
+            return sold;
+        }
+
+        List<Totals> present(Totals[] slots) {
+            List<Totals> sold = new ArrayList<>();
+            for (Totals totals : slots)
+                if (totals != null) sold.add(totals);
+            return sold;
+        }
+    }
+
+    /**
+     * A finished report.
+     */
+    public static final class Result {
+        private final LocalDate from;
+        private final LocalDate to;
+        private final long orders;
+        private final long units;
+        private final double revenue;
+        private final List<Totals> byComic;
+        private final List<Totals> byGenre;
+        private final List<Totals> byAuthor;
+        private final List<Totals> byDay;
+        private final long scanNanos;
+
+        private Result(LocalDate from, LocalDate to, SalesReport.Partial total, long scanNanos) {
+            this.from = from;
+            this.to = to;
+            this.orders = total.orders;
+            this.units = total.units;
+            this.revenue = total.revenue;
+            this.byComic = byRevenue(total.comics());
+            this.byGenre = byRevenue(total.present(total.byGenre));
+            this.byAuthor = byRevenue(total.present(total.byAuthor));
+            List<Totals> days = new ArrayList<>(total.byDay.values());
+            days.sort(Comparator.comparing(Totals::getKey)); // yyyy-MM-dd sorts by date
+            this.byDay = Collections.unmodifiableList(days);
+            this.scanNanos = scanNanos;
+        }
+
+        private static List<Totals> byRevenue(List<Totals> sorted) {
+            sorted.sort(Comparator.comparingDouble(Totals::getRevenue).reversed().thenComparing(Totals::getKey));
+            return Collections.unmodifiableList(sorted);
+        }
+
+        /** @return The first day covered, or null if the report starts at the oldest order */
+        public LocalDate getFrom() { return from; }
+
+        /** @return The last day covered, or null if the report ends at the newest order */
+        public LocalDate getTo() { return to; }
+
+        /** @return Orders in the report */
+        public long getOrders() { return orders; }
+
+        /** @return Units sold */
+        public long getUnits() { return units; }
+
+        /** @return Revenue, in pesos */
+        public double getRevenue() { return revenue; }
+
+        /** @return Average units per order, or 0 with no orders */
+        public double getAverageBasketUnits() { return orders == 0 ? 0 : (double) units / orders; }
+
+        /** @return Average pesos per order, or 0 with no orders */
+        public double getAverageBasketRevenue() { return orders == 0 ? 0 : revenue / orders; }
+
+        /** @return Totals per comic, highest revenue first */
+        public List<Totals> getByComic() { return byComic; }
+
+        /** @return Totals per genre, highest revenue first */
+        public List<Totals> getByGenre() { return byGenre; }
+
+        /** @return Totals per author, highest revenue first */
+        public List<Totals> getByAuthor() { return byAuthor; }
+
+        /** @return Totals per day, oldest first */
+        public List<Totals> getByDay() { return byDay; }
+
+        /** @return Time taken to scan and total the orders, in milliseconds */
+        public double getScanMillis() { return scanNanos / 1e6; }
+
+        /**
+         * Writes the report as CSV, one group per row under the header
+         * dimension,key,name,orders,units,revenue. The summary rows come first, then
+         * the days, comics, genres and authors. Rows are written one at a time, so
+         * the output is never held whole.
+         *
+         * @param out Where to write the report
+         * @throws IOException if writing fails
+         */
+        public void writeCsv(Writer out) throws IOException {
+            CsvWriter row = new CsvWriter();
+            out.write("dimension,key,name,orders,units,revenue\n");
+            row.reset().field("total").field(from == null ? "" : from.toString()).field(to == null ? "" : to.toString())
+               .field(orders).field(units).field(money(revenue)).writeTo(out);
+            out.write('\n');
+            row.reset().field("basket").field("average").field("").field(1)
+               .field(String.format(Locale.ROOT, "%.2f", getAverageBasketUnits())).field(money(getAverageBasketRevenue()))
+               .writeTo(out);
+            out.write('\n');
+            write(out, row, "day", byDay);
+            write(out, row, "comic", byComic);
+            write(out, row, "genre", byGenre);
+            write(out, row, "author", byAuthor);
+            out.flush();
+        }
+
+        private static void write(Writer out, CsvWriter row, String dimension, List<Totals> totals) throws IOException {
+            for (Totals t : totals) {
+                row.reset().field(dimension).field(t.getKey()).field(t.getName())
+                   .field(t.getOrders()).field(t.getUnits()).field(money(t.getRevenue())).writeTo(out);
+                out.write('\n');
+            }
+        }
+
+        private static String money(double pesos) {
+            return String.format(Locale.ROOT, "%.2f", pesos);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package managers;
+
+import java.io.IOException;
+import java.util.List;
+import utils.SnapshotReader;
+import utils.SnapshotWriter;
+
+/**
+ * SnapshotCodec interface - Writes and reads a manager's entities as snapshot columns.
+ *
+ * A manager that is given a codec writes a binary snapshot of its base file and
+ * loads from it on startup instead of parsing the text; a manager without one
+ * always reads the text file. The snapshot header, row count and primary-key table
+ * are handled by EntityManager; the codec only deals with the entity fields.
+ *
+ * @param <T> The type of entity being managed
+ * @author Comic Book Store System
+ * @version 1.0
+ */
+public interface SnapshotCodec<T> {
+    /**
+     * Writes the fields of every entity as columns, one array per field.
+     *
+     * @param out The snapshot to write to
+     * @param rows The entities to write, in list order
+     * @throws IOException if writing fails
+     */
+    void writeColumns(SnapshotWriter out, List<T> rows) throws IOException;
+
+    /**
+     * Reads back the columns written by writeColumns and rebuilds the entities.
+     *
+     * @param in The snapshot to read from
+     * @param rows The number of entities in the snapshot
+     * @return A modifiable list of the entities, in the order they were written
+     */
+    List<T> readColumns(SnapshotReader in, int rows);
+}
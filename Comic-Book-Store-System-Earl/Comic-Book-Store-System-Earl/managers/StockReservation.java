@@ -0,0 +1,86 @@
+package managers;
+
+import entities.Stock;
+import java.util.*;
+
+/**
+ * StockReservation class - Stock taken for a checkout that has not been finished yet.
+ *
+ * Created by InventoryManager.reserve once every line of a cart has been taken from
+ * the stock counters. Nothing has been written to disk at that point: commit writes
+ * all of the changed stock records together, and rollback hands the stock back,
+ * also on disk if it had already been committed.
+ *
+ * @author Comic Book Store System
+ * @version 1.0
+ */
+public class StockReservation {
+    // The manager the stock was taken from
+    private final InventoryManager inventory;
+
+    // Stock record and amount taken for each reserved line
+    private final List<Stock> stocks;
+    private final int[] amounts;
+
+    // Whether writing the changed records has been started
+    private boolean committed;
+
+    // Whether the stock has been handed back
+    private boolean rolledBack;
+
+    /**
+     * Constructor for creating a StockReservation.
+     *
+     * @param inventory The manager the stock was taken from
+     * @param stocks The stock record of each reserved line
+     * @param amounts The amount taken for each reserved line
+     */
+    StockReservation(InventoryManager inventory, List<Stock> stocks, int[] amounts) {
+        this.inventory = inventory;
+        this.stocks = stocks;
+        this.amounts = amounts;
+    }
+
+    /**
+     * Writes every changed stock record in one persist.
+     *
+     * @throws IllegalStateException if the reservation was rolled back
+     * @throws java.io.UncheckedIOException if the records cannot be written
+     */
+    public void commit() {
+        if (rolledBack) throw new IllegalStateException("Reservation was rolled back");
+        if (committed) return;
+        committed = true; // Set first, so a failed write is still undone on disk by rollback
+        inventory.persistAll(distinctStocks());
+    }
+
+    /**
+     * Hands the reserved stock back. If the reservation was already committed, the
+     * restored records are written as well, so the disk does not keep the sale;
+     * otherwise nothing is written at all. Calling this more than once has no effect.
+     */
+    public void rollback() {
+        if (rolledBack) return;
+        rolledBack = true;
+        for (int i = 0; i < stocks.size(); i++) {
+            stocks.get(i).addStock(amounts[i]);
+            inventory.notifyChanged(stocks.get(i));
+        }
+        if (!committed) return; // Nothing reached the disk
+        try {
+            inventory.persistAll(distinctStocks());
+        } catch (RuntimeException e) {
+            // The counters are restored; the log replays whatever did reach the disk
+            System.err.println("Warning: Could not write restored stock: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Gets each reserved stock record once, even if several lines share a comic.
+     */
+    private Collection<Stock> distinctStocks() {
+        Set<Stock> distinct = Collections.newSetFromMap(new IdentityHashMap<>());
+        distinct.addAll(stocks);
+        return distinct;
+    }
+}
@@ -0,0 +1,447 @@
+package managers;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import utils.IntHashIndex;
+
+/**
+ * TextIndex class - A tokenized inverted index for full-text search over entity fields.
+ *
+ * Every indexed field is split into lower-case words. For each word the index keeps a
+ * postings list: the IDs of the entities containing it, sorted, with a bit mask of
+ * the fields it appears in. Queries are words joined by AND (the default) or OR;
+ * matches are ranked by the sum, over the query words they contain, of the weights
+ * of the fields holding the word times the word's rarity (inverse document frequency).
+ *
+ * The index is built from the manager's entities on the first search and is then
+ * kept current as an EntityListener, one entity at a time. Searches share a read lock
+ * and run side by side; building the index and applying changes take the write lock.
+ *
+ * @param <T> The type of entity being indexed
+ * @author Comic Book Store System
+ * @version 1.0
+ */
+public class TextIndex<T> implements EntityListener<T> {
+    // A batch touching more than 1/REBUILD_FRACTION of the entities is cheaper to
+    // rebuild from than to apply one posting-list insert at a time
+    private static final int REBUILD_FRACTION = 16;
+
+    // Most fields an index can hold, one bit each in a postings entry
+    private static final int MAX_FIELDS = 8;
+
+    // Extracts the primary ID from an entity
+    private final ToIntFunction<T> idExtractor;
+
+    // Supplies the entities to index on first use
+    private final Supplier<? extends Collection<T>> source;
+
+    // Looks an entity up by ID to return it as a result
+    private final IntFunction<T> lookup;
+
+    // Indexed fields and their ranking weights
+    private final List<Function<T, String>> fields = new ArrayList<>();
+    private final List<Integer> weights = new ArrayList<>();
+
+    // Word -> postings list
+    private final Map<String, Postings> postings = new HashMap<>();
+
+    // Entity ID -> the words it was indexed under, so it can be removed after being edited
+    private final IntHashIndex<String[]> wordsById = new IntHashIndex<>();
+
+    // Whether the index has been filled from the source
+    private boolean built;
+
+    // Shared by searches, held alone by the build and by every change to the postings
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Constructor for creating an empty TextIndex; fields are added with field().
+     *
+     * @param idExtractor Function that extracts the primary ID from an entity
+     * @param source Supplies the entities to index on first use
+     * @param lookup Function that finds an entity by its ID
+     */
+    public TextIndex(ToIntFunction<T> idExtractor, Supplier<? extends Collection<T>> source, IntFunction<T> lookup) {
+        this.idExtractor = idExtractor;
+        this.source = source;
+        this.lookup = lookup;
+    }
+
+    /**
+     * Adds a field to the index.
+     *
+     * @param extractor Function that extracts the field's text from an entity
+     * @param weight How much a match in this field counts towards the ranking
+     * @return This index, for chaining
+     * @throws IllegalStateException if the index already has the most fields it can hold
+     */
+    public TextIndex<T> field(Function<T, String> extractor, int weight) {
+        if (fields.size() == MAX_FIELDS) throw new IllegalStateException("A text index holds at most " + MAX_FIELDS + " fields");
+        fields.add(extractor);
+        weights.add(weight);
+        return this;
+    }
+
+    /**
+     * Searches the index.
+     * Words are matched case-insensitively and whole. Words next to each other must all
+     * match (AND); OR between words or groups matches either side. For example
+     * "one piece OR naruto" finds entities containing both "one" and "piece", or "naruto".
+     *
+     * @param query The query text
+     * @param limit The most results to return
+     * @return Matching entities, best match first
+     */
+    public List<T> search(String query, int limit) {
+        List<List<String>> clauses = parse(query);
+        lockBuilt();
+        try {
+            Hits result = null;
+            for (List<String> clause : clauses) {
+                Hits hits = matchAll(clause);
+                result = result == null ? hits : union(result, hits);
+            }
+            if (result == null || result.size == 0 || limit <= 0) return Collections.emptyList();
+            return topResults(result, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Counts the entities containing a word.
+     *
+     * @param word The word to look up
+     * @return The number of entities containing the word
+     */
+    public int documentFrequency(String word) {
+        lockBuilt();
+        try {
+            Postings list = postings.get(word.toLowerCase(Locale.ROOT));
+            return list == null ? 0 : list.size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void added(T entity) {
+        lock.writeLock().lock();
+        try {
+            if (built) insert(entity);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void removed(T entity) {
+        lock.writeLock().lock();
+        try {
+            if (built) remove(idExtractor.applyAsInt(entity));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void changed(T entity) {
+        lock.writeLock().lock();
+        try {
+            if (!built) return;
+            remove(idExtractor.applyAsInt(entity));
+            insert(entity);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void batchApplied(Collection<T> added, Collection<T> changed) {
+        lock.writeLock().lock();
+        try {
+            if (!built) return;
+            if ((long) (added.size() + changed.size()) * REBUILD_FRACTION < wordsById.size()) {
+                EntityListener.super.batchApplied(added, changed); // Re-enters the write lock per entity
+                return;
+            }
+            built = false; // Rebuilt from the source on next search
+            postings.clear();
+            wordsById.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Takes the read lock, first filling the index from the source under the write
+     * lock if that has not happened yet. The caller must release the read lock.
+     */
+    private void lockBuilt() {
+        lock.readLock().lock();
+        if (built) return;
+        lock.readLock().unlock(); // A read lock cannot be upgraded
+        lock.writeLock().lock();
+        try {
+            if (!built) {
+                built = true;
+                for (T entity : source.get())
+                    insert(entity);
+            }
+            lock.readLock().lock(); // Downgrade, so no change lands between the build and the read
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Files an entity under every word of every field.
+     */
+    private void insert(T entity) {
+        int id = idExtractor.applyAsInt(entity);
+        if (wordsById.containsKey(id)) remove(id); // A duplicate ID replaces the earlier entity
+        List<String> words = new ArrayList<>();
+        byte[] masks = new byte[8];
+        for (int f = 0; f < fields.size(); f++) {
+            for (String word : tokenize(fields.get(f).apply(entity))) {
+                int at = words.indexOf(word); // A handful of words per entity, so a scan beats a map
+                if (at < 0) {
+                    at = words.size();
+                    words.add(word);
+                    if (at == masks.length) masks = Arrays.copyOf(masks, at * 2);
+                }
+                masks[at] |= (byte) (1 << f);
+            }
+        }
+        String[] filed = new String[words.size()];
+        for (int i = 0; i < filed.length; i++) {
+            Postings list = postings.get(words.get(i));
+            if (list == null) {
+                list = new Postings(words.get(i));
+                postings.put(list.word, list);
+            }
+            list.add(id, masks[i]);
+            filed[i] = list.word; // Share one copy of each word instead of keeping every entity's own
+        }
+        wordsById.put(id, filed);
+    }
+
+    /**
+     * Removes an entity from every word it was filed under.
+     */
+    private void remove(int id) {
+        String[] words = wordsById.remove(id);
+        if (words == null) return;
+        for (String word : words) {
+            Postings list = postings.get(word);
+            if (list == null) continue;
+            list.remove(id);
+            if (list.size == 0) postings.remove(word);
+        }
+    }
+
+    /**
+     * Splits a query into OR-separated clauses of words that must all match.
+     */
+    private static List<List<String>> parse(String query) {
+        List<List<String>> clauses = new ArrayList<>();
+        List<String> clause = new ArrayList<>();
+        for (String part : query.trim().split("\\s+")) {
+            if (part.equals("OR")) {
+                if (!clause.isEmpty()) clauses.add(clause);
+                clause = new ArrayList<>();
+            } else if (!part.equals("AND")) {
+                clause.addAll(tokenize(part));
+            }
+        }
+        if (!clause.isEmpty()) clauses.add(clause);
+        return clauses;
+    }
+
+    /**
+     * Splits text into lower-case words of letters and digits.
+     *
+     * @param text The text to split (null gives no words)
+     * @return The words, in order, with repeats
+     */
+    static List<String> tokenize(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) return words;
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                words.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Finds the entities containing every word of a clause, intersecting the postings
+     * lists from the shortest up, so the cost follows the rarest word.
+     */
+    private Hits matchAll(List<String> words) {
+        List<Postings> lists = new ArrayList<>(words.size());
+        List<Double> idfs = new ArrayList<>(words.size());
+        int total = Math.max(1, wordsById.size());
+        for (String word : new LinkedHashSet<>(words)) {
+            Postings list = postings.get(word);
+            if (list == null) return new Hits(0); // A missing word matches nothing
+            lists.add(list);
+            idfs.add(Math.log(1.0 + (double) total / list.size));
+        }
+        Integer[] order = new Integer[lists.size()];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, Comparator.comparingInt(i -> lists.get(i).size));
+
+        Postings first = lists.get(order[0]);
+        Hits hits = new Hits(first.size);
+        double firstIdf = idfs.get(order[0]);
+        for (int i = 0; i < first.size; i++)
+            hits.add(first.ids[i], firstIdf * weightOf(first.fields[i]));
+
+        for (int k = 1; k < order.length && hits.size > 0; k++) {
+            Postings list = lists.get(order[k]);
+            double idf = idfs.get(order[k]);
+            int kept = 0, from = 0;
+            for (int i = 0; i < hits.size; i++) {
+                int at = Arrays.binarySearch(list.ids, from, list.size, hits.ids[i]);
+                if (at < 0) {
+                    from = -at - 1;
+                    continue;
+                }
+                from = at + 1;
+                hits.ids[kept] = hits.ids[i];
+                hits.scores[kept++] = hits.scores[i] + idf * weightOf(list.fields[at]);
+            }
+            hits.size = kept;
+        }
+        return hits;
+    }
+
+    /**
+     * Merges two sorted hit lists, adding the scores of entities found in both.
+     */
+    private static Hits union(Hits a, Hits b) {
+        Hits merged = new Hits(a.size + b.size);
+        int i = 0, j = 0;
+        while (i < a.size || j < b.size) {
+            if (j == b.size || (i < a.size && a.ids[i] < b.ids[j])) {
+                merged.add(a.ids[i], a.scores[i++]);
+            } else if (i == a.size || b.ids[j] < a.ids[i]) {
+                merged.add(b.ids[j], b.scores[j++]);
+            } else {
+                merged.add(a.ids[i], a.scores[i++] + b.scores[j++]);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Picks the best-scoring hits with a bounded min-heap, highest score first,
+     * lower ID first on ties.
+     */
+    private List<T> topResults(Hits hits, int limit) {
+        Comparator<Integer> worstFirst = (x, y) -> {
+            int byScore = Double.compare(hits.scores[x], hits.scores[y]);
+            return byScore != 0 ? byScore : Integer.compare(hits.ids[y], hits.ids[x]);
+        };
+        PriorityQueue<Integer> best = new PriorityQueue<>(Math.min(limit, hits.size) + 1, worstFirst);
+        for (int i = 0; i < hits.size; i++) {
+            if (best.size() < limit) {
+                best.add(i);
+            } else if (worstFirst.compare(i, best.peek()) > 0) {
+                best.poll();
+                best.add(i);
+            }
+        }
+        List<T> results = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            T entity = lookup.apply(hits.ids[best.poll()]);
+            if (entity != null) results.add(entity);
+        }
+        Collections.reverse(results);
+        return results;
+    }
+
+    /**
+     * Sums the weights of the fields in a mask.
+     */
+    private int weightOf(byte mask) {
+        int weight = 0;
+        for (int f = 0; f < fields.size(); f++)
+            if ((mask & (1 << f)) != 0) weight += weights.get(f);
+        return weight;
+    }
+
+    /**
+     * Sorted entity IDs containing one word, each with the mask of fields holding it.
+     */
+    private static final class Postings {
+        final String word;
+        int[] ids = new int[2];
+        byte[] fields = new byte[2];
+        int size;
+
+        Postings(String word) {
+            this.word = word;
+        }
+
+        void add(int id, byte mask) {
+            int at = size;
+            if (size > 0 && ids[size - 1] >= id) { // IDs usually arrive in order; insert otherwise
+                at = Arrays.binarySearch(ids, 0, size, id);
+                if (at >= 0) {
+                    fields[at] = mask;
+                    return;
+                }
+                at = -at - 1;
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                fields = Arrays.copyOf(fields, size * 2);
+            }
+            System.arraycopy(ids, at, ids, at + 1, size - at);
+            System.arraycopy(fields, at, fields, at + 1, size - at);
+            ids[at] = id;
+            fields[at] = mask;
+            size++;
+        }
+
+        void remove(int id) {
+            int at = Arrays.binarySearch(ids, 0, size, id);
+            if (at < 0) return;
+            System.arraycopy(ids, at + 1, ids, at, size - at - 1);
+            System.arraycopy(fields, at + 1, fields, at, size - at - 1);
+            size--;
+        }
+    }
+
+    /**
+     * Matching entity IDs in ascending order with their scores so far.
+     */
+    private static final class Hits {
+        int[] ids;
+        double[] scores;
+        int size;
+
+        Hits(int capacity) {
+            ids = new int[Math.max(1, capacity)];
+            scores = new double[ids.length];
+        }
+
+        void add(int id, double score) {
+            ids[size] = id;
+            scores[size++] = score;
+        }
+    }
+}
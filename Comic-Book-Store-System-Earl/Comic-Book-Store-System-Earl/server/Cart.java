@@ -0,0 +1,123 @@
+package server;
+
+import entities.Comic;
+import entities.Order;
+import entities.OrderRecord;
+import java.util.*;
+import managers.PurchaseManager;
+
+/**
+ * Cart class - One customer's cart, held by a server for a client or a till.
+ *
+ * The console keeps a single cart inside PurchaseManager; a server keeps one of
+ * these per client instead, and checks each out through the shared
+ * PurchaseManager. Adding a comic that is already in the cart raises its quantity.
+ * Every method is synchronized, so a client sending requests for the same cart
+ * at once sees them applied one after another.
+ *
+ * @author Comic Book Store System
+ * @version 1.0
+ */
+public class Cart {
+    // Cart lines in the order their comics were first added
+    private final List<Order> lines = new ArrayList<>();
+
+    // When the cart was created or last used, in milliseconds since the epoch
+    private volatile long lastUsed = System.currentTimeMillis();
+
+    /**
+     * Marks the cart as used now, for servers that drop idle carts.
+     */
+    public void touch() {
+        lastUsed = System.currentTimeMillis();
+    }
+
+    /**
+     * Gets when the cart was created or last touched.
+     *
+     * @return The time in milliseconds since the epoch
+     */
+    public long getLastUsed() { return lastUsed; }
+
+    /**
+     * Adds a comic to the cart, or raises its quantity if it is already there.
+     *
+     * @param comic The comic to add
+     * @param quantity How many copies to add
+     * @throws IllegalArgumentException if quantity is not positive
+     */
+    public synchronized void add(Comic comic, int quantity) {
+        for (Order line : lines) {
+            if (line.getComic().getId() == comic.getId()) {
+                line.setQuantity(Math.addExact(line.getQuantity(), checkQuantity(quantity)));
+                return;
+            }
+        }
+        lines.add(new Order(comic, quantity));
+    }
+
+    /**
+     * Removes a comic from the cart.
+     *
+     * @param comicId The ID of the comic to remove
+     * @return true if the comic was in the cart
+     */
+    public synchronized boolean remove(int comicId) {
+        return lines.removeIf(line -> line.getComic().getId() == comicId);
+    }
+
+    /**
+     * Gets the lines of the cart.
+     *
+     * @return A copy of the cart lines
+     */
+    public synchronized List<Order> getLines() {
+        return new ArrayList<>(lines);
+    }
+
+    /**
+     * Gets the cart total at the current prices.
+     *
+     * @return The total in pesos
+     */
+    public synchronized double getTotal() {
+        double total = 0;
+        for (Order line : lines) total += line.getComicTotal();
+        return total;
+    }
+
+    /**
+     * Checks whether the cart is empty.
+     *
+     * @return true if the cart has no lines
+     */
+    public synchronized boolean isEmpty() {
+        return lines.isEmpty();
+    }
+
+    /**
+     * Empties the cart.
+     */
+    public synchronized void clear() {
+        lines.clear();
+    }
+
+    /**
+     * Checks the cart out and empties it. If the checkout fails the cart is kept.
+     *
+     * @param purchases The purchase manager recording the sale
+     * @return The recorded order
+     * @throws IllegalArgumentException if the cart is empty or a comic has too little stock
+     * @throws IllegalStateException if the sale could not be written
+     */
+    public synchronized OrderRecord checkout(PurchaseManager purchases) {
+        OrderRecord order = purchases.checkout(lines);
+        lines.clear();
+        return order;
+    }
+
+    private static int checkQuantity(int quantity) {
+        if (quantity <= 0) throw new IllegalArgumentException("Quantity must be greater than 0");
+        return quantity;
+    }
+}
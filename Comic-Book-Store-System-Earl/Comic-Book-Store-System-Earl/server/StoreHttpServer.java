@@ -0,0 +1,586 @@
+package server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import entities.Comic;
+import entities.Order;
+import entities.OrderRecord;
+import entities.Stock;
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import managers.ComicManager;
+import managers.InventoryManager;
+import managers.PurchaseManager;
+import utils.LatencyHistogram;
+import utils.Metrics;
+
+/**
+ * StoreHttpServer class - Headless HTTP API over the store's managers.
+ *
+ * Serves catalog search, stock lookup, carts and checkout as JSON from the JDK's
+ * built-in com.sun.net.httpserver, so several tills or a web storefront can share
+ * one store process. Each request runs on a thread of its own (a virtual thread
+ * where the runtime has them) against the shared managers; each client's cart
+ * lives on the server under the ID returned when it was created.
+ *
+ * Routes (parameters go in the query string or a form-encoded body):
+ *   GET    /comics?q=words&amp;limit=n      Ranked catalog search
+ *   GET    /comics/{id}                  One comic with its stock
+ *   GET    /stock/{comicId}              Quantity in stock
+ *   POST   /carts                        Create a cart
+ *   GET    /carts/{id}                   Cart lines and total
+ *   POST   /carts/{id}/items?comic=&amp;quantity=   Add a comic by ID or title
+ *   DELETE /carts/{id}/items/{comicId}   Remove a comic
+ *   POST   /carts/{id}/checkout          Check out; the cart is then closed
+ *   DELETE /carts/{id}                   Abandon a cart
+ *   GET    /metrics                      Metrics in the Prometheus text format
+ *
+ * A cart not used for CART_IDLE_MILLIS is dropped by a sweep that runs every
+ * minute, and at most MAX_OPEN_CARTS carts are open at once, so clients that
+ * create carts and walk away cannot fill the heap.
+ *
+ * Errors are returned as {"error": "..."} with 400 for bad input, 404 for an
+ * unknown comic or cart (including an expired one), 409 for insufficient stock,
+ * and 503 if a sale could not be written or too many carts are open.
+ *
+ * @author Comic Book Store System
+ * @version 1.0
+ */
+public class StoreHttpServer implements AutoCloseable {
+    // Most search results returned, whatever the client asks for
+    private static final int MAX_SEARCH_LIMIT = 100;
+
+    // Connections queued before the server accepts them
+    private static final int BACKLOG = 1024;
+
+    // Idle keep-alive connections the server holds open. The JDK default of 200 makes
+    // every client beyond that reconnect for each request, which under load queues
+    // new connections behind the busy accept loop for seconds.
+    private static final String MAX_IDLE_PROPERTY = "sun.net.httpserver.maxIdleConnections";
+    private static final int MAX_IDLE_CONNECTIONS = 10_000;
+
+    // Carts unused for this long are dropped, as TillServer drops idle tills
+    private static final long CART_IDLE_MILLIS = 30 * 60 * 1000;
+
+    // Most carts open at once; creating another is refused with 503
+    private static final int MAX_OPEN_CARTS = 100_000;
+
+    // How often idle carts are swept
+    private static final long SWEEP_MILLIS = 60 * 1000;
+
+    // Carts dropped for being idle
+    private static final LongAdder CARTS_EXPIRED =
+            Metrics.counter("store_http_carts_expired_total", "HTTP carts dropped after going unused");
+
+    // Shared managers every request runs against
+    private final ComicManager comics;
+    private final InventoryManager inventory;
+    private final PurchaseManager purchases;
+
+    // Open carts by ID
+    private final Map<Long, Cart> carts = new ConcurrentHashMap<>();
+    private final AtomicLong nextCartId = new AtomicLong();
+
+    // Limits on open carts
+    private final int maxOpenCarts;
+    private final long cartIdleMillis;
+
+    // The running server, the threads its requests run on, and the idle cart sweep
+    private HttpServer server;
+    private ExecutorService workers;
+    private ScheduledExecutorService sweeper;
+
+    /**
+     * Constructor for creating a server over the store's managers.
+     *
+     * @param comics The comic catalog
+     * @param inventory The stock records
+     * @param purchases The purchase manager that records sales
+     */
+    public StoreHttpServer(ComicManager comics, InventoryManager inventory, PurchaseManager purchases) {
+        this(comics, inventory, purchases, MAX_OPEN_CARTS, CART_IDLE_MILLIS);
+    }
+
+    /**
+     * Constructor for creating a server with its own limits on open carts.
+     *
+     * @param comics The comic catalog
+     * @param inventory The stock records
+     * @param purchases The purchase manager that records sales
+     * @param maxOpenCarts Most carts open at once
+     * @param cartIdleMillis How long a cart may go unused before it is dropped
+     */
+    public StoreHttpServer(ComicManager comics, InventoryManager inventory, PurchaseManager purchases,
+                           int maxOpenCarts, long cartIdleMillis) {
+        this.comics = comics;
+        this.inventory = inventory;
+        this.purchases = purchases;
+        this.maxOpenCarts = maxOpenCarts;
+        this.cartIdleMillis = cartIdleMillis;
+    }
+
+    /**
+     * Starts serving on a port of the local machine.
+     *
+     * @param port The port to listen on, or 0 for any free port
+     * @throws IOException if the port cannot be bound
+     * @throws IllegalStateException if the server is already running
+     */
+    public synchronized void start(int port) throws IOException {
+        if (server != null) throw new IllegalStateException("Server is already running");
+        if (System.getProperty(MAX_IDLE_PROPERTY) == null) {
+            System.setProperty(MAX_IDLE_PROPERTY, String.valueOf(MAX_IDLE_CONNECTIONS)); // Read when the first server starts
+        }
+        server = HttpServer.create(new InetSocketAddress(port), BACKLOG);
+        route("/comics", "comics", this::comics);
+        route("/stock", "stock", this::stock);
+        route("/carts", "carts", this::carts);
+        route("/metrics", "metrics", this::metrics);
+        workers = VirtualThreads.newPerTaskExecutor("http-worker");
+        server.setExecutor(workers);
+        sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "http-cart-sweeper");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.min(SWEEP_MILLIS, Math.max(1, cartIdleMillis));
+        sweeper.scheduleWithFixedDelay(this::expireIdleCarts, period, period, TimeUnit.MILLISECONDS);
+        server.start();
+    }
+
+    /**
+     * Drops every cart that has not been used for the idle time.
+     *
+     * @return The number of carts dropped
+     */
+    public int expireIdleCarts() {
+        long cutoff = System.currentTimeMillis() - cartIdleMillis;
+        int expired = 0;
+        for (Map.Entry<Long, Cart> entry : carts.entrySet()) {
+            if (entry.getValue().getLastUsed() < cutoff && carts.remove(entry.getKey(), entry.getValue())) expired++;
+        }
+        CARTS_EXPIRED.add(expired);
+        return expired;
+    }
+
+    /**
+     * Gets the port the server listens on.
+     *
+     * @return The bound port
+     */
+    public synchronized int getPort() {
+        if (server == null) throw new IllegalStateException("Server is not running");
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Counts the carts that are open.
+     *
+     * @return The number of carts created and not yet checked out or abandoned
+     */
+    public int getOpenCarts() { return carts.size(); }
+
+    /**
+     * Stops accepting requests, waits up to a second for running ones, and stops.
+     */
+    @Override
+    public synchronized void close() {
+        if (server == null) return;
+        server.stop(1);
+        sweeper.shutdownNow();
+        workers.shutdown();
+        try {
+            workers.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        server = null;
+    }
+
+    private Response comics(Request request) {
+        request.requireMethod("GET");
+        if (request.path.length == 1) {
+            String query = request.param("q");
+            if (query == null || query.isBlank()) throw new HttpError(400, "Missing search words: q");
+            int limit = Math.min(MAX_SEARCH_LIMIT, request.intParam("limit", 10));
+            Json json = new Json().open('[');
+            for (Comic comic : comics.search(query, limit)) comicJson(json, comic);
+            return Response.ok(json.close(']'));
+        }
+        Comic comic = comics.findById(request.intSegment(1));
+        if (comic == null) throw new HttpError(404, "Comic not found");
+        return Response.ok(comicJson(new Json(), comic));
+    }
+
+    private Response stock(Request request) {
+        request.requireMethod("GET");
+        if (request.path.length != 2) throw new HttpError(404, "Use /stock/{comicId}");
+        int comicId = request.intSegment(1);
+        Stock stock = inventory.findByComicId(comicId);
+        if (stock == null) throw new HttpError(404, "No stock record for comic " + comicId);
+        return Response.ok(new Json().open('{')
+                .field("comicId").value(comicId)
+                .field("quantity").value(stock.getQuantity())
+                .field("reorderThreshold").value(stock.getReorderThreshold())
+                .close('}'));
+    }
+
+    private Response carts(Request request) {
+        if (request.path.length == 1) {
+            request.requireMethod("POST");
+            if (carts.size() >= maxOpenCarts) {
+                expireIdleCarts(); // Make room if any have gone idle since the last sweep
+                if (carts.size() >= maxOpenCarts) throw new HttpError(503, "Too many open carts; try again later");
+            }
+            long id = nextCartId.incrementAndGet();
+            carts.put(id, new Cart());
+            return new Response(201, new Json().open('{').field("cartId").value(id).close('}'));
+        }
+        long id = request.longSegment(1);
+        Cart cart = carts.get(id);
+        if (cart == null) throw new HttpError(404, "Cart not found");
+        cart.touch(); // Keeps the cart from being swept while it is in use
+
+        if (request.path.length == 2) {
+            if (request.method.equals("DELETE")) {
+                carts.remove(id);
+                return new Response(204, null);
+            }
+            request.requireMethod("GET");
+            return Response.ok(cartJson(id, cart));
+        }
+        switch (request.path[2]) {
+            case "items":
+                if (request.path.length == 3) {
+                    request.requireMethod("POST");
+                    String input = request.param("comic");
+                    if (input == null || input.isBlank()) throw new HttpError(400, "Missing comic ID or title: comic");
+                    Comic comic = comics.findByIdOrName(input);
+                    if (comic == null) throw new HttpError(404, "Comic not found");
+                    cart.add(comic, request.intParam("quantity", 1));
+                    return Response.ok(cartJson(id, cart));
+                }
+                request.requireMethod("DELETE");
+                if (!cart.remove(request.intSegment(3))) throw new HttpError(404, "Item not found in cart");
+                return Response.ok(cartJson(id, cart));
+            case "checkout": {
+                request.requireMethod("POST");
+                OrderRecord order;
+                try {
+                    order = cart.checkout(purchases);
+                } catch (IllegalArgumentException e) {
+                    throw new HttpError(cart.isEmpty() ? 400 : 409, e.getMessage());
+                } catch (IllegalStateException e) {
+                    throw new HttpError(503, e.getMessage());
+                }
+                carts.remove(id);
+                return Response.ok(orderJson(order));
+            }
+            default:
+                throw new HttpError(404, "Unknown cart operation: " + request.path[2]);
+        }
+    }
+
+    private Response metrics(Request request) {
+        request.requireMethod("GET");
+        return new Response(200, String.join("\n", Metrics.toPrometheus()) + "\n", "text/plain; version=0.0.4");
+    }
+
+    private Json comicJson(Json json, Comic comic) {
+        return json.open('{')
+                .field("id").value(comic.getId())
+                .field("title").value(comic.getTitle())
+                .field("author").value(comic.getAuthor())
+                .field("genre").value(comic.getGenre())
+                .field("year").value(comic.getYear())
+                .field("price").value(comic.getPrice())
+                .field("stock").value(inventory.getStockQuantity(comic.getId()))
+                .close('}');
+    }
+
+    private static Json cartJson(long id, Cart cart) {
+        Json json = new Json().open('{').field("cartId").value(id).field("items").open('[');
+        double total = 0;
+        for (Order line : cart.getLines()) {
+            json.open('{')
+                .field("comicId").value(line.getComic().getId())
+                .field("title").value(line.getComic().getTitle())
+                .field("quantity").value(line.getQuantity())
+                .field("price").value(line.getComic().getPrice())
+                .close('}');
+            total += line.getComicTotal();
+        }
+        return json.close(']').field("total").value(total).close('}');
+    }
+
+    private static Json orderJson(OrderRecord order) {
+        Json json = new Json().open('{')
+                .field("orderId").value(order.getOrderId())
+                .field("timestamp").value(order.getTimestamp())
+                .field("items").open('[');
+        for (OrderRecord.Line line : order.getLines()) {
+            json.open('{')
+                .field("comicId").value(line.getComicId())
+                .field("title").value(line.getTitle())
+                .field("quantity").value(line.getQuantity())
+                .field("price").value(line.getUnitPrice())
+                .close('}');
+        }
+        return json.close(']').field("total").value(order.getTotal()).close('}');
+    }
+
+    /**
+     * Handles one route, timing each request and turning errors into JSON responses.
+     */
+    private void route(String context, String name, java.util.function.Function<Request, Response> handler) {
+        LatencyHistogram latency = Metrics.histogram("store_http_request_seconds", "Time to serve an HTTP request", "route", name);
+        server.createContext(context, exchange -> {
+            long start = System.nanoTime();
+            Response response;
+            try {
+                response = handler.apply(new Request(exchange, context));
+            } catch (HttpError e) {
+                response = error(e.status, e.getMessage());
+            } catch (IllegalArgumentException e) {
+                response = error(400, e.getMessage());
+            } catch (RuntimeException e) {
+                response = error(500, "Internal error: " + e);
+            }
+            try {
+                response.send(exchange);
+            } finally {
+                exchange.close();
+                latency.recordSince(start);
+            }
+        });
+    }
+
+    private static Response error(int status, String message) {
+        return new Response(status, new Json().open('{').field("error").value(message).close('}'));
+    }
+
+    /**
+     * An error with the HTTP status to answer it with.
+     */
+    private static final class HttpError extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        HttpError(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    /**
+     * A request's method, path segments below the route and parameters.
+     */
+    private static final class Request {
+        final String method;
+        final String[] path;
+        final Map<String, String> params = new HashMap<>();
+
+        Request(HttpExchange exchange, String context) {
+            method = exchange.getRequestMethod();
+            String rest = exchange.getRequestURI().getPath().substring(context.length());
+            List<String> segments = new ArrayList<>();
+            segments.add(context.substring(1));
+            for (String segment : rest.split("/")) {
+                if (!segment.isEmpty()) segments.add(segment);
+            }
+            path = segments.toArray(new String[0]);
+            parseParams(exchange.getRequestURI().getRawQuery());
+            String type = exchange.getRequestHeaders().getFirst("Content-Type");
+            if (type != null && type.startsWith("application/x-www-form-urlencoded")) {
+                try (InputStream body = exchange.getRequestBody()) {
+                    parseParams(new String(body.readAllBytes(), StandardCharsets.UTF_8));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+
+        void requireMethod(String expected) {
+            if (!method.equals(expected)) throw new HttpError(405, "Use " + expected + " for this path");
+        }
+
+        String param(String name) {
+            return params.get(name);
+        }
+
+        int intParam(String name, int defaultValue) {
+            String value = params.get(name);
+            if (value == null || value.isBlank()) return defaultValue;
+            try {
+                return Integer.parseInt(value.trim());
+            } catch (NumberFormatException e) {
+                throw new HttpError(400, "Not a number: " + name + "=" + value);
+            }
+        }
+
+        int intSegment(int index) {
+            long value = longSegment(index);
+            if (value != (int) value) throw new HttpError(404, "Not an ID: " + path[index]);
+            return (int) value;
+        }
+
+        long longSegment(int index) {
+            try {
+                return Long.parseLong(path[index]);
+            } catch (NumberFormatException e) {
+                throw new HttpError(404, "Not an ID: " + path[index]);
+            }
+        }
+
+        private void parseParams(String encoded) {
+            if (encoded == null || encoded.isEmpty()) return;
+            for (String pair : encoded.split("&")) {
+                int eq = pair.indexOf('=');
+                String name = eq < 0 ? pair : pair.substring(0, eq);
+                String value = eq < 0 ? "" : pair.substring(eq + 1);
+                params.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    /**
+     * A status and body to send back.
+     */
+    private static final class Response {
+        final int status;
+        final String body;
+        final String contentType;
+
+        Response(int status, Json json) {
+            this(status, json == null ? null : json.toString(), "application/json; charset=utf-8");
+        }
+
+        Response(int status, String body, String contentType) {
+            this.status = status;
+            this.body = body;
+            this.contentType = contentType;
+        }
+
+        static Response ok(Json json) {
+            return new Response(200, json);
+        }
+
+        void send(HttpExchange exchange) throws IOException {
+            if (body == null) {
+                exchange.sendResponseHeaders(status, -1);
+                return;
+            }
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", contentType);
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    /**
+     * Minimal JSON writer: objects, arrays, strings and numbers, with commas placed
+     * automatically between the members of each open object or array.
+     */
+    private static final class Json {
+        private final StringBuilder out = new StringBuilder(256);
+
+        // Whether the innermost open object or array already has a member
+        private boolean[] hasMember = new boolean[8];
+        private int depth;
+
+        // Whether the next value completes a field name
+        private boolean afterName;
+
+        Json open(char bracket) {
+            separate();
+            out.append(bracket);
+            if (++depth == hasMember.length) hasMember = Arrays.copyOf(hasMember, depth * 2);
+            hasMember[depth] = false;
+            return this;
+        }
+
+        Json close(char bracket) {
+            out.append(bracket);
+            depth--;
+            return this;
+        }
+
+        Json field(String name) {
+            separate();
+            string(name);
+            out.append(':');
+            afterName = true;
+            return this;
+        }
+
+        Json value(String value) {
+            separate();
+            if (value == null) {
+                out.append("null");
+            } else {
+                string(value);
+            }
+            return this;
+        }
+
+        Json value(long value) {
+            separate();
+            out.append(value);
+            return this;
+        }
+
+        Json value(double value) {
+            separate();
+            out.append(Double.isFinite(value) ? Double.toString(value) : "null");
+            return this;
+        }
+
+        private void separate() {
+            if (afterName) {
+                afterName = false;
+                return;
+            }
+            if (depth > 0 && hasMember[depth]) out.append(',');
+            if (depth > 0) hasMember[depth] = true;
+        }
+
+        private void string(String value) {
+            out.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '"': out.append("\\\""); break;
+                    case '\\': out.append("\\\\"); break;
+                    case '\n': out.append("\\n"); break;
+                    case '\r': out.append("\\r"); break;
+                    case '\t': out.append("\\t"); break;
+                    default:
+                        if (c < 0x20) {
+                            out.append(String.format("\\u%04x", (int) c));
+                        } else {
+                            out.append(c);
+                        }
+                }
+            }
+            out.append('"');
+        }
+
+        @Override
+        public String toString() {
+            return out.toString();
+        }
+    }
+}
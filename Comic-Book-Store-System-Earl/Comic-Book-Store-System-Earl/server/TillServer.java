@@ -0,0 +1,162 @@
+package server;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import managers.ComicManager;
+import managers.InventoryManager;
+import managers.PurchaseManager;
+
+/**
+ * TillServer class - Lets many tills share one store process over plain sockets.
+ *
+ * Each connection is a till (e.g. "nc storehost 7070") and gets a TillSession of
+ * its own, run on a thread of its own (a virtual thread where the runtime has
+ * them), with its own cart and menu. All sessions share one set of managers, so
+ * there is one copy of the catalog and the stock in memory and one writer of the
+ * data files, instead of one JVM per till each overwriting stocks.txt.
+ *
+ * Sharing is safe because tills only read the catalog, and every stock change
+ * goes through the atomic stock counters and PurchaseManager.checkout.
+ *
+ * @author Comic Book Store System
+ * @version 1.0
+ */
+public class TillServer implements AutoCloseable {
+    // A till that sends nothing for this long is disconnected and its cart dropped
+    private static final int IDLE_TIMEOUT_MILLIS = 30 * 60 * 1000;
+
+    // Shared store
+    private final ComicManager comics;
+    private final InventoryManager inventory;
+    private final PurchaseManager purchases;
+
+    // Connections of the running sessions, closed on shutdown
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger tillsConnected = new AtomicInteger();
+
+    // The listening socket, the thread accepting on it and the session threads
+    private ServerSocket listener;
+    private Thread acceptor;
+    private ExecutorService sessions;
+
+    /**
+     * Constructor for creating a till server over the store's managers.
+     *
+     * @param comics The comic catalog
+     * @param inventory The stock records
+     * @param purchases The purchase manager that records sales
+     */
+    public TillServer(ComicManager comics, InventoryManager inventory, PurchaseManager purchases) {
+        this.comics = comics;
+        this.inventory = inventory;
+        this.purchases = purchases;
+    }
+
+    /**
+     * Starts accepting tills on a port of the local machine.
+     *
+     * @param port The port to listen on, or 0 for any free port
+     * @throws IOException if the port cannot be bound
+     * @throws IllegalStateException if the server is already running
+     */
+    public synchronized void start(int port) throws IOException {
+        if (listener != null) throw new IllegalStateException("Till server is already running");
+        listener = new ServerSocket(port, 256);
+        sessions = VirtualThreads.newPerTaskExecutor("till-session");
+        ServerSocket accepting = listener;
+        acceptor = new Thread(() -> accept(accepting), "till-acceptor");
+        acceptor.start(); // Not a daemon: keeps a headless store running
+    }
+
+    /**
+     * Gets the port the server listens on.
+     *
+     * @return The bound port
+     */
+    public synchronized int getPort() {
+        if (listener == null) throw new IllegalStateException("Till server is not running");
+        return listener.getLocalPort();
+    }
+
+    /**
+     * Counts the tills connected now.
+     *
+     * @return The number of running sessions
+     */
+    public int getActiveSessions() { return connections.size(); }
+
+    /**
+     * Stops accepting tills and disconnects the connected ones. Carts not checked
+     * out are dropped; completed sales are already on disk.
+     */
+    @Override
+    public synchronized void close() {
+        if (listener == null) return;
+        try {
+            listener.close(); // Ends the accept loop
+        } catch (IOException e) {
+            // Closing anyway
+        }
+        for (Socket connection : connections) closeQuietly(connection); // Ends each session's blocked read
+        sessions.shutdown();
+        try {
+            sessions.awaitTermination(1, TimeUnit.SECONDS);
+            acceptor.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        listener = null;
+    }
+
+    /**
+     * Accepts tills until the listening socket is closed, starting a session for each.
+     */
+    private void accept(ServerSocket accepting) {
+        while (true) {
+            Socket connection;
+            try {
+                connection = accepting.accept();
+            } catch (IOException e) {
+                if (accepting.isClosed()) return; // Closed by close()
+                continue; // A connection that failed while being accepted
+            }
+            try {
+                connection.setSoTimeout(IDLE_TIMEOUT_MILLIS);
+                connection.setTcpNoDelay(true); // Prompts are small and awaited
+            } catch (IOException e) {
+                closeQuietly(connection); // Already broken
+                continue;
+            }
+            TillSession session = new TillSession(tillsConnected.incrementAndGet(), connection, comics, inventory, purchases);
+            connections.add(connection);
+            try {
+                sessions.execute(() -> {
+                    try {
+                        session.run();
+                    } finally {
+                        connections.remove(connection);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                connections.remove(connection); // Accepted just as the server closed
+                closeQuietly(connection);
+                return;
+            }
+        }
+    }
+
+    private static void closeQuietly(Socket connection) {
+        try {
+            connection.close();
+        } catch (IOException e) {
+            // Closing anyway
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package server;
+
+import entities.Comic;
+import entities.Order;
+import entities.OrderRecord;
+import java.io.*;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import managers.ComicManager;
+import managers.InventoryManager;
+import managers.PurchaseManager;
+
+/**
+ * TillSession class - One till connected to the TillServer.
+ *
+ * Runs the till's menu over its connection, one line of input at a time, like the
+ * console's cart menu: search, add to cart, view, remove, check stock and check
+ * out. The cart and the position in the menu belong to the session; the catalog,
+ * the stock and the order ledger are the shared managers, so a sale at one till
+ * is seen by every other till straight away.
+ *
+ * Every prompt ends with "> " and no line break, so a scripted till can read up
+ * to it before sending its next line.
+ *
+ * @author Comic Book Store System
+ * @version 1.0
+ */
+public class TillSession implements Runnable {
+    // Horizontal rule printed around menus and receipts
+    private static final String LINE = "─────────────────────────────────────────────────────────";
+
+    // Most comics listed for a search
+    private static final int SEARCH_RESULT_LIMIT = 10;
+
+    // Number shown to the till, and the connection it talks over
+    private final int tillNumber;
+    private final Socket socket;
+
+    // Shared store
+    private final ComicManager comics;
+    private final InventoryManager inventory;
+    private final PurchaseManager purchases;
+
+    // This till's own cart
+    private final Cart cart = new Cart();
+
+    private BufferedReader in;
+    private PrintWriter out;
+
+    /**
+     * Constructor for creating a session over an accepted connection.
+     *
+     * @param tillNumber The number of the till, shown in its menu
+     * @param socket The till's connection
+     * @param comics The shared comic catalog
+     * @param inventory The shared stock records
+     * @param purchases The shared purchase manager that records sales
+     */
+    public TillSession(int tillNumber, Socket socket, ComicManager comics, InventoryManager inventory,
+                       PurchaseManager purchases) {
+        this.tillNumber = tillNumber;
+        this.socket = socket;
+        this.comics = comics;
+        this.inventory = inventory;
+        this.purchases = purchases;
+    }
+
+    /**
+     * Gets the number of the till.
+     *
+     * @return The till number
+     */
+    public int getTillNumber() { return tillNumber; }
+
+    /**
+     * Runs the till's menu until it exits, disconnects or stays idle too long.
+     */
+    @Override
+    public void run() {
+        try (Socket s = socket) {
+            in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+            out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8)));
+            menu();
+        } catch (SocketTimeoutException e) {
+            // Idle too long; the cart is dropped with the session
+        } catch (IOException e) {
+            // The till disconnected
+        }
+    }
+
+    /**
+     * Shows the till menu and runs the chosen option until the till exits.
+     */
+    private void menu() throws IOException {
+        while (true) {
+            out.println(LINE);
+            out.println("  TILL " + tillNumber + "                              Items in cart: " + cart.getLines().size());
+            out.println(LINE);
+            out.println("    [1] Search Comics");
+            out.println("    [2] Add to Cart");
+            out.println("    [3] View Cart");
+            out.println("    [4] Remove Item From Cart");
+            out.println("    [5] Checkout Cart");
+            out.println("    [6] Check Stock");
+            out.println("    [7] Exit");
+            out.println(LINE);
+            String choice = prompt("What would you like to do?");
+            if (choice == null) return;
+            switch (choice) {
+                case "1": search(); break;
+                case "2": addToCart(); break;
+                case "3": viewCart(); break;
+                case "4": removeFromCart(); break;
+                case "5": checkout(); break;
+                case "6": checkStock(); break;
+                case "7": {
+                    out.println("Goodbye from till " + tillNumber + ".");
+                    out.flush();
+                    return;
+                }
+                default: out.println("Invalid option!"); break;
+            }
+        }
+    }
+
+    private void search() throws IOException {
+        String query = prompt("Search words:");
+        if (query == null || query.isBlank()) return;
+        List<Comic> found = comics.search(query, SEARCH_RESULT_LIMIT);
+        if (found.isEmpty()) {
+            out.println("No comics match \"" + query + "\".");
+            return;
+        }
+        for (Comic comic : found) {
+            out.println(comic.getId() + "  " + comic.getTitle() + " by " + comic.getAuthor() + "  P" + comic.getPrice()
+                        + "  (" + Math.max(0, inventory.getStockQuantity(comic.getId())) + " in stock)");
+        }
+    }
+
+    private void addToCart() throws IOException {
+        String input = prompt("Enter comic ID or Title:");
+        if (input == null || input.isBlank()) return;
+        Comic comic = comics.findByIdOrName(input);
+        if (comic == null) {
+            out.println("Comic not found!");
+            return;
+        }
+        String quantity = prompt("Quantity:");
+        if (quantity == null) return;
+        try {
+            cart.add(comic, Integer.parseInt(quantity.trim()));
+            out.println("Item was successfully added to cart!");
+        } catch (NumberFormatException e) {
+            out.println("Invalid quantity: " + quantity);
+        } catch (IllegalArgumentException e) {
+            out.println("Error: " + e.getMessage());
+        }
+    }
+
+    private void viewCart() {
+        List<Order> lines = cart.getLines();
+        if (lines.isEmpty()) {
+            out.println("Cart is currently empty");
+            return;
+        }
+        for (Order line : lines) {
+            out.println(line.getComic().getId() + "  " + line.getComic().getTitle() + "  x" + line.getQuantity()
+                        + "  P" + line.getComicTotal());
+        }
+        out.println("Total: P" + cart.getTotal());
+    }
+
+    private void removeFromCart() throws IOException {
+        if (cart.isEmpty()) {
+            out.println("There's nothing to remove because the cart is empty.");
+            return;
+        }
+        String input = prompt("Enter comic ID or Title to remove:");
+        if (input == null || input.isBlank()) return;
+        Comic comic = comics.findByIdOrName(input);
+        if (comic != null && cart.remove(comic.getId())) {
+            out.println("Item has successfully been removed from Cart!");
+        } else {
+            out.println("Item not found in cart!");
+        }
+    }
+
+    private void checkout() {
+        OrderRecord order;
+        try {
+            order = cart.checkout(purchases);
+        } catch (IllegalArgumentException e) {
+            out.println(e.getMessage());
+            if (!cart.isEmpty()) out.println("Checkout failed due to insufficient stock.");
+            return;
+        } catch (IllegalStateException e) {
+            out.println(e.getMessage());
+            out.println("No stock was deducted. Please try again.");
+            return;
+        }
+        out.println(LINE);
+        out.println("                 OFFICIAL RECEIPT");
+        out.println(LINE);
+        for (String line : order.toReceipt()) out.println("  " + line);
+        out.println("Purchase completed successfully! Recorded as order " + order.getOrderId() + ".");
+    }
+
+    private void checkStock() throws IOException {
+        String input = prompt("Enter comic ID or Title:");
+        if (input == null || input.isBlank()) return;
+        Comic comic = comics.findByIdOrName(input);
+        if (comic == null) {
+            out.println("Comic not found!");
+            return;
+        }
+        int quantity = inventory.getStockQuantity(comic.getId());
+        out.println(comic.getTitle() + ": " + (quantity < 0 ? "not stocked" : quantity + " in stock"));
+    }
+
+    /**
+     * Shows a prompt and reads the till's answer.
+     *
+     * @return The trimmed line, or null if the till disconnected
+     */
+    private String prompt(String message) throws IOException {
+        out.print(message + " > ");
+        out.flush();
+        String line = in.readLine();
+        return line == null ? null : line.trim();
+    }
+}
@@ -0,0 +1,55 @@
+package server;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * VirtualThreads utility class - Thread-per-task executors for the store's servers.
+ *
+ * On Java 21 and later each task runs on its own virtual thread, so thousands of
+ * requests or sessions blocked on a socket or a disk write cost a few kilobytes
+ * each instead of a platform thread. The store still builds for Java 17, so the
+ * virtual-thread executor is looked up by reflection; on older runtimes a cached
+ * pool of daemon platform threads is used instead, which behaves the same but
+ * holds one OS thread per task in flight.
+ *
+ * @author Comic Book Store System
+ * @version 1.0
+ */
+public class VirtualThreads {
+    private VirtualThreads() { }
+
+    /**
+     * Creates an executor that runs every task on a thread of its own.
+     *
+     * @param name Name prefix for platform threads, used when virtual threads are unavailable
+     * @return A virtual-thread-per-task executor, or a cached daemon thread pool
+     */
+    public static ExecutorService newPerTaskExecutor(String name) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger count = new AtomicInteger();
+            return Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, name + "-" + count.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    /**
+     * Checks whether tasks run on virtual threads on this runtime.
+     *
+     * @return true on Java 21 and later
+     */
+    public static boolean isAvailable() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,406 @@
+package utils;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * CompressedBitmap utility class - A compressed set of non-negative ints.
+ *
+ * Values are grouped by their upper 16 bits into chunks of 65,536. A sparse chunk
+ * stores its values as a sorted array of 16-bit numbers (2 bytes per value); once it
+ * holds more than 4,096 values it switches to a plain bitmap of 8 KB, which is
+ * smaller from that point on. This is the layout of Roaring bitmaps: set operations
+ * work chunk by chunk, skipping chunks missing from either side, and intersecting
+ * two dense chunks is a loop of word-wide ANDs.
+ *
+ * Values are visited in ascending order. Not thread-safe.
+ *
+ * @author Comic Book Store System
+ * @version 1.0
+ */
+public class CompressedBitmap {
+    // Most values a chunk keeps as a sorted array before switching to a bitmap
+    private static final int ARRAY_MAX = 4096;
+
+    // Upper 16 bits of each chunk, ascending
+    private char[] keys = new char[4];
+
+    // The chunk for each key
+    private Chunk[] chunks = new Chunk[4];
+
+    // Number of chunks in use
+    private int size;
+
+    /**
+     * Adds a value to the set.
+     *
+     * @param value The value to add
+     * @return true if the value was not in the set before
+     * @throws IllegalArgumentException if value is negative
+     */
+    public boolean add(int value) {
+        if (value < 0) throw new IllegalArgumentException("Bitmap values cannot be negative: " + value);
+        int at = indexOf((char) (value >>> 16));
+        if (at < 0) {
+            at = -at - 1;
+            insertChunk(at, (char) (value >>> 16), new Chunk());
+        }
+        return chunks[at].add((char) value);
+    }
+
+    /**
+     * Removes a value from the set.
+     *
+     * @param value The value to remove
+     * @return true if the value was in the set
+     */
+    public boolean remove(int value) {
+        if (value < 0) return false;
+        int at = indexOf((char) (value >>> 16));
+        if (at < 0 || !chunks[at].remove((char) value)) return false;
+        if (chunks[at].cardinality == 0) removeChunk(at);
+        return true;
+    }
+
+    /**
+     * Checks whether a value is in the set.
+     *
+     * @param value The value to look for
+     * @return true if the value is in the set
+     */
+    public boolean contains(int value) {
+        if (value < 0) return false;
+        int at = indexOf((char) (value >>> 16));
+        return at >= 0 && chunks[at].contains((char) value);
+    }
+
+    /**
+     * Counts the values in the set.
+     *
+     * @return The number of values
+     */
+    public int cardinality() {
+        int total = 0;
+        for (int i = 0; i < size; i++) total += chunks[i].cardinality;
+        return total;
+    }
+
+    /**
+     * Checks whether the set is empty.
+     *
+     * @return true if the set has no values
+     */
+    public boolean isEmpty() { return size == 0; }
+
+    /**
+     * Visits every value in ascending order.
+     *
+     * @param action Called with each value
+     */
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < size; i++)
+            chunks[i].forEach(keys[i] << 16, action);
+    }
+
+    /**
+     * Gets the values as an array.
+     *
+     * @param limit The most values to return
+     * @return Up to limit values, ascending
+     */
+    public int[] toArray(int limit) {
+        int[] values = new int[Math.min(limit, cardinality())];
+        int filled = 0;
+        for (int i = 0; i < size && filled < values.length; i++)
+            filled = chunks[i].copyTo(keys[i] << 16, values, filled);
+        return values;
+    }
+
+    /**
+     * Creates a set holding the values found in both sets.
+     *
+     * @param a The first set
+     * @param b The second set
+     * @return A new set with the intersection
+     */
+    public static CompressedBitmap and(CompressedBitmap a, CompressedBitmap b) {
+        CompressedBitmap result = new CompressedBitmap();
+        int i = 0, j = 0;
+        while (i < a.size && j < b.size) {
+            if (a.keys[i] < b.keys[j]) {
+                i++;
+            } else if (a.keys[i] > b.keys[j]) {
+                j++;
+            } else {
+                Chunk chunk = Chunk.and(a.chunks[i], b.chunks[j]);
+                if (chunk.cardinality > 0) result.insertChunk(result.size, a.keys[i], chunk);
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Counts the values found in both sets without building the intersection.
+     *
+     * @param a The first set
+     * @param b The second set
+     * @return The size of the intersection
+     */
+    public static int andCardinality(CompressedBitmap a, CompressedBitmap b) {
+        int total = 0, i = 0, j = 0;
+        while (i < a.size && j < b.size) {
+            if (a.keys[i] < b.keys[j]) {
+                i++;
+            } else if (a.keys[i] > b.keys[j]) {
+                j++;
+            } else {
+                total += Chunk.andCardinality(a.chunks[i++], b.chunks[j++]);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Creates a set holding the values found in either set.
+     *
+     * @param a The first set
+     * @param b The second set
+     * @return A new set with the union
+     */
+    public static CompressedBitmap or(CompressedBitmap a, CompressedBitmap b) {
+        CompressedBitmap result = new CompressedBitmap();
+        int i = 0, j = 0;
+        while (i < a.size || j < b.size) {
+            if (j == b.size || (i < a.size && a.keys[i] < b.keys[j])) {
+                result.insertChunk(result.size, a.keys[i], a.chunks[i++].copy());
+            } else if (i == a.size || b.keys[j] < a.keys[i]) {
+                result.insertChunk(result.size, b.keys[j], b.chunks[j++].copy());
+            } else {
+                result.insertChunk(result.size, a.keys[i], Chunk.or(a.chunks[i++], b.chunks[j++]));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Creates an independent copy of the set.
+     *
+     * @return A new set with the same values
+     */
+    public CompressedBitmap copy() {
+        CompressedBitmap copy = new CompressedBitmap();
+        copy.keys = Arrays.copyOf(keys, Math.max(4, size));
+        copy.chunks = new Chunk[copy.keys.length];
+        for (int i = 0; i < size; i++) copy.chunks[i] = chunks[i].copy();
+        copy.size = size;
+        return copy;
+    }
+
+    /**
+     * Finds the chunk for an upper 16 bits, as Arrays.binarySearch reports it.
+     */
+    private int indexOf(char key) {
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+
+    private void insertChunk(int at, char key, Chunk chunk) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            chunks = Arrays.copyOf(chunks, size * 2);
+        }
+        System.arraycopy(keys, at, keys, at + 1, size - at);
+        System.arraycopy(chunks, at, chunks, at + 1, size - at);
+        keys[at] = key;
+        chunks[at] = chunk;
+        size++;
+    }
+
+    private void removeChunk(int at) {
+        System.arraycopy(keys, at + 1, keys, at, size - at - 1);
+        System.arraycopy(chunks, at + 1, chunks, at, size - at - 1);
+        chunks[--size] = null;
+    }
+
+    /**
+     * The lower 16 bits of the values sharing one upper 16 bits: a sorted array
+     * while sparse (bits == null), a 65,536-bit bitmap once dense.
+     */
+    private static final class Chunk {
+        char[] values = new char[4];
+        long[] bits;
+        int cardinality;
+
+        boolean add(char low) {
+            if (bits != null) {
+                long mask = 1L << low;
+                if ((bits[low >>> 6] & mask) != 0) return false;
+                bits[low >>> 6] |= mask;
+                cardinality++;
+                return true;
+            }
+            int at = Arrays.binarySearch(values, 0, cardinality, low);
+            if (at >= 0) return false;
+            at = -at - 1;
+            if (cardinality == ARRAY_MAX) {
+                toBits();
+                return add(low);
+            }
+            if (cardinality == values.length) values = Arrays.copyOf(values, Math.min(ARRAY_MAX, cardinality * 2));
+            System.arraycopy(values, at, values, at + 1, cardinality - at);
+            values[at] = low;
+            cardinality++;
+            return true;
+        }
+
+        boolean remove(char low) {
+            if (bits != null) {
+                long mask = 1L << low;
+                if ((bits[low >>> 6] & mask) == 0) return false;
+                bits[low >>> 6] &= ~mask;
+                if (--cardinality <= ARRAY_MAX / 2) toValues(); // Halfway down, so add/remove at the edge does not flip back and forth
+                return true;
+            }
+            int at = Arrays.binarySearch(values, 0, cardinality, low);
+            if (at < 0) return false;
+            System.arraycopy(values, at + 1, values, at, cardinality - at - 1);
+            cardinality--;
+            return true;
+        }
+
+        boolean contains(char low) {
+            if (bits != null) return (bits[low >>> 6] & (1L << low)) != 0;
+            return Arrays.binarySearch(values, 0, cardinality, low) >= 0;
+        }
+
+        void forEach(int high, IntConsumer action) {
+            if (bits == null) {
+                for (int i = 0; i < cardinality; i++) action.accept(high | values[i]);
+                return;
+            }
+            for (int w = 0; w < bits.length; w++) {
+                long word = bits[w];
+                while (word != 0) {
+                    action.accept(high | (w << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+        }
+
+        int copyTo(int high, int[] out, int from) {
+            if (bits == null) {
+                for (int i = 0; i < cardinality && from < out.length; i++) out[from++] = high | values[i];
+                return from;
+            }
+            for (int w = 0; w < bits.length && from < out.length; w++) {
+                long word = bits[w];
+                while (word != 0 && from < out.length) {
+                    out[from++] = high | (w << 6) | Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                }
+            }
+            return from;
+        }
+
+        Chunk copy() {
+            Chunk copy = new Chunk();
+            copy.cardinality = cardinality;
+            if (bits != null) {
+                copy.bits = bits.clone();
+                copy.values = null;
+            } else {
+                copy.values = Arrays.copyOf(values, Math.max(4, cardinality));
+            }
+            return copy;
+        }
+
+        static Chunk and(Chunk a, Chunk b) {
+            Chunk result = new Chunk();
+            if (a.bits != null && b.bits != null) {
+                result.bits = new long[1024];
+                result.values = null;
+                for (int w = 0; w < 1024; w++) {
+                    result.bits[w] = a.bits[w] & b.bits[w];
+                    result.cardinality += Long.bitCount(result.bits[w]);
+                }
+                if (result.cardinality <= ARRAY_MAX) result.toValues();
+                return result;
+            }
+            if (a.bits != null) { // Keep the array side on the left
+                Chunk swap = a;
+                a = b;
+                b = swap;
+            }
+            result.values = new char[Math.max(4, a.cardinality)];
+            for (int i = 0, j = 0; i < a.cardinality; i++) {
+                char low = a.values[i];
+                if (b.bits != null) {
+                    if ((b.bits[low >>> 6] & (1L << low)) != 0) result.values[result.cardinality++] = low;
+                } else {
+                    while (j < b.cardinality && b.values[j] < low) j++;
+                    if (j < b.cardinality && b.values[j] == low) result.values[result.cardinality++] = low;
+                }
+            }
+            return result;
+        }
+
+        static int andCardinality(Chunk a, Chunk b) {
+            int count = 0;
+            if (a.bits != null && b.bits != null) {
+                for (int w = 0; w < 1024; w++) count += Long.bitCount(a.bits[w] & b.bits[w]);
+                return count;
+            }
+            if (a.bits != null) {
+                Chunk swap = a;
+                a = b;
+                b = swap;
+            }
+            for (int i = 0, j = 0; i < a.cardinality; i++) {
+                char low = a.values[i];
+                if (b.bits != null) {
+                    if ((b.bits[low >>> 6] & (1L << low)) != 0) count++;
+                } else {
+                    while (j < b.cardinality && b.values[j] < low) j++;
+                    if (j < b.cardinality && b.values[j] == low) count++;
+                }
+            }
+            return count;
+        }
+
+        static Chunk or(Chunk a, Chunk b) {
+            Chunk result = a.copy();
+            if (result.bits == null && a.cardinality + b.cardinality > ARRAY_MAX) result.toBits();
+            if (result.bits != null && b.bits != null) {
+                result.cardinality = 0;
+                for (int w = 0; w < 1024; w++) {
+                    result.bits[w] |= b.bits[w];
+                    result.cardinality += Long.bitCount(result.bits[w]);
+                }
+                return result;
+            }
+            b.forEach(0, v -> result.add((char) v));
+            return result;
+        }
+
+        private void toBits() {
+            bits = new long[1024];
+            for (int i = 0; i < cardinality; i++) bits[values[i] >>> 6] |= 1L << values[i];
+            values = null;
+        }
+
+        private void toValues() {
+            char[] sorted = new char[Math.max(4, cardinality)];
+            int filled = 0;
+            for (int w = 0; w < bits.length; w++) {
+                long word = bits[w];
+                while (word != 0) {
+                    sorted[filled++] = (char) ((w << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            values = sorted;
+            bits = null;
+        }
+    }
+}
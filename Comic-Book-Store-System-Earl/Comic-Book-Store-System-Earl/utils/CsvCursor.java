@@ -0,0 +1,238 @@
+package utils;
+
+/**
+ * CsvCursor utility class - Reads the fields of one comma-separated record in place.
+ *
+ * A cursor is reset onto a record and then read field by field. Numbers are parsed
+ * straight from the characters without creating substrings, and strings may be
+ * wrapped in double quotes (with "" standing for a quote) so that they can contain
+ * commas. A field is quoted only if it starts with a quote and its closing quote
+ * ends the field; any other quote is an ordinary character, so records written
+ * before quoting was added, such as 12" Figure, read as they always did. One
+ * cursor is meant to be reused for every record of a file.
+ *
+ * @author Comic Book Store System
+ * @version 1.0
+ */
+public class CsvCursor {
+    // Powers of ten that are exactly representable as doubles
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    // Record being read
+    private CharSequence text;
+
+    // Position of the next unread character
+    private int pos;
+
+    // Whether the last field has been read
+    private boolean done;
+
+    // Reused buffer for building string fields
+    private final StringBuilder field = new StringBuilder(64);
+
+    /**
+     * Constructor for creating a cursor with no record; call reset before reading.
+     */
+    public CsvCursor() {
+        reset("");
+    }
+
+    /**
+     * Constructor for creating a cursor over one record.
+     *
+     * @param text The record to read
+     */
+    public CsvCursor(CharSequence text) {
+        reset(text);
+    }
+
+    /**
+     * Moves the cursor to the start of a new record.
+     *
+     * @param text The record to read
+     * @return This cursor, for chaining
+     */
+    public CsvCursor reset(CharSequence text) {
+        this.text = text;
+        this.pos = 0;
+        this.done = false;
+        return this;
+    }
+
+    /**
+     * Counts the fields of the record, honouring quotes, without moving the cursor.
+     *
+     * @return The number of fields in the record
+     */
+    public int countFields() {
+        int count = 1;
+        for (int start = 0; ; count++) {
+            int end = quotedEnd(start);
+            if (end < 0) end = fieldEnd(start);
+            if (end >= text.length()) return count;
+            start = end + 1; // Step over the comma
+        }
+    }
+
+    /**
+     * Checks whether there are fields left to read.
+     *
+     * @return true if another field can be read
+     */
+    public boolean hasNext() { return !done; }
+
+    /**
+     * Reads the next field as an int.
+     *
+     * @return The parsed value
+     * @throws NumberFormatException if the field is not a valid int
+     */
+    public int nextInt() {
+        int start = beginField();
+        int end = fieldEnd(start);
+        int i = start;
+        boolean negative = false;
+        if (i < end && (text.charAt(i) == '-' || text.charAt(i) == '+')) negative = text.charAt(i++) == '-';
+        if (i == end) throw invalid("int", start, end);
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) throw invalid("int", start, end);
+            value = value * 10 + digit;
+            if (value > (long) Integer.MAX_VALUE + 1) throw invalid("int", start, end);
+        }
+        if (negative) value = -value;
+        if (value > Integer.MAX_VALUE) throw invalid("int", start, end);
+        finishField(end);
+        return (int) value;
+    }
+
+    /**
+     * Reads the next field as a double.
+     * Plain decimals such as 450.75 are converted exactly from their digits; anything
+     * else (exponents, very long numbers) falls back to Double.parseDouble.
+     *
+     * @return The parsed value
+     * @throws NumberFormatException if the field is not a valid number
+     */
+    public double nextDouble() {
+        int start = beginField();
+        int end = fieldEnd(start);
+        int i = start;
+        boolean negative = false;
+        if (i < end && (text.charAt(i) == '-' || text.charAt(i) == '+')) negative = text.charAt(i++) == '-';
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean seenPoint = false;
+        boolean anyDigit = false;
+        boolean simple = i < end;
+        for (; i < end && simple; i++) {
+            char ch = text.charAt(i);
+            if (ch >= '0' && ch <= '9') {
+                anyDigit = true;
+                mantissa = mantissa * 10 + (ch - '0');
+                if (seenPoint) fractionDigits++;
+                if (mantissa != 0) digits++;
+            } else if (ch == '.' && !seenPoint) {
+                seenPoint = true;
+            } else {
+                simple = false;
+            }
+        }
+        double value;
+        // Mantissa below 2^53 and an exact power of ten give a correctly rounded quotient
+        if (simple && anyDigit && digits <= 15 && fractionDigits < POWERS_OF_TEN.length) {
+            value = mantissa / POWERS_OF_TEN[fractionDigits];
+            if (negative) value = -value;
+        } else {
+            try {
+                value = Double.parseDouble(text.subSequence(start, end).toString());
+            } catch (NumberFormatException e) {
+                throw invalid("number", start, end);
+            }
+        }
+        finishField(end);
+        return value;
+    }
+
+    /**
+     * Reads the next field as a string, removing quotes if the field is quoted.
+     *
+     * @return The field text
+     */
+    public String nextString() {
+        int start = beginField();
+        field.setLength(0);
+        int quotedEnd = quotedEnd(start);
+        if (quotedEnd >= 0) {
+            for (int i = start + 1; i < quotedEnd - 1; i++) {
+                char ch = text.charAt(i);
+                field.append(ch);
+                if (ch == '"') i++; // Escaped quote; skip its second half
+            }
+            finishField(quotedEnd);
+        } else {
+            int end = fieldEnd(start);
+            finishField(end);
+            if (text instanceof String) return ((String) text).substring(start, end); // Single copy
+            for (int i = start; i < end; i++) field.append(text.charAt(i));
+        }
+        return field.toString();
+    }
+
+    /**
+     * Skips the next field without creating a String for it.
+     */
+    public void skip() {
+        int start = beginField();
+        int end = quotedEnd(start);
+        finishField(end >= 0 ? end : fieldEnd(start));
+    }
+
+    private int beginField() {
+        if (done) throw new IllegalStateException("No more fields in record: " + text);
+        return pos;
+    }
+
+    /**
+     * Finds the end of a quoted field: one that opens with a quote and whose closing
+     * quote is followed by a comma or the end of the record.
+     *
+     * @param start The position of the field's first character
+     * @return The position just past the closing quote, or -1 if the field is not quoted
+     */
+    private int quotedEnd(int start) {
+        if (start >= text.length() || text.charAt(start) != '"') return -1;
+        int i = start + 1;
+        while (i < text.length()) {
+            if (text.charAt(i++) == '"') {
+                if (i < text.length() && text.charAt(i) == '"') i++; // Escaped quote
+                else return i == text.length() || text.charAt(i) == ',' ? i : -1; // Text after the quote: not quoted
+            }
+        }
+        return -1; // Never closed, so the quote is part of the text
+    }
+
+    private int fieldEnd(int start) {
+        int end = start;
+        while (end < text.length() && text.charAt(end) != ',') end++;
+        return end;
+    }
+
+    private void finishField(int end) {
+        if (end >= text.length()) {
+            done = true;
+            pos = text.length();
+        } else {
+            pos = end + 1; // Step over the comma
+        }
+    }
+
+    private NumberFormatException invalid(String type, int start, int end) {
+        return new NumberFormatException("Invalid " + type + ": \"" + text.subSequence(start, end) + "\"");
+    }
+}
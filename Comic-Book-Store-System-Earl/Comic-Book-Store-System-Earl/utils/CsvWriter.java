@@ -0,0 +1,150 @@
+package utils;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * CsvWriter utility class - Builds comma-separated records in a reused buffer.
+ *
+ * Fields are appended one at a time and separated automatically. Strings that
+ * contain a comma, quote or line break are wrapped in double quotes so that they
+ * read back unchanged through CsvCursor. Numbers are appended without creating
+ * intermediate strings. One writer is meant to be reused for every record of a file.
+ *
+ * @author Comic Book Store System
+ * @version 1.0
+ */
+public class CsvWriter {
+    // Record being built
+    private final StringBuilder buffer = new StringBuilder(128);
+
+    // Scratch array for copying the record into a Writer
+    private char[] chars = new char[128];
+
+    // Whether the next field is the first of the record
+    private boolean first = true;
+
+    /**
+     * Clears the buffer to start a new record.
+     *
+     * @return This writer, for chaining
+     */
+    public CsvWriter reset() {
+        buffer.setLength(0);
+        first = true;
+        return this;
+    }
+
+    /**
+     * Appends an int field.
+     *
+     * @param value The value to append
+     * @return This writer, for chaining
+     */
+    public CsvWriter field(int value) {
+        separate();
+        buffer.append(value);
+        return this;
+    }
+
+    /**
+     * Appends a long field.
+     *
+     * @param value The value to append
+     * @return This writer, for chaining
+     */
+    public CsvWriter field(long value) {
+        separate();
+        buffer.append(value);
+        return this;
+    }
+
+    /**
+     * Appends a double field in the same form as Double.toString.
+     *
+     * @param value The value to append
+     * @return This writer, for chaining
+     */
+    public CsvWriter field(double value) {
+        separate();
+        buffer.append(value);
+        return this;
+    }
+
+    /**
+     * Appends a string field, quoting it if needed.
+     *
+     * @param value The value to append (null is written as an empty field)
+     * @return This writer, for chaining
+     */
+    public CsvWriter field(String value) {
+        separate();
+        if (value == null) return this;
+        if (!needsQuotes(value)) {
+            buffer.append(value);
+            return this;
+        }
+        buffer.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            if (ch == '"') buffer.append('"'); // Double the quote to escape it
+            buffer.append(ch);
+        }
+        buffer.append('"');
+        return this;
+    }
+
+    /**
+     * Appends preformatted text to the record as it is, without a separator.
+     * Text written before the first field acts as a prefix to the record.
+     *
+     * @param text The text to append
+     * @return This writer, for chaining
+     */
+    public CsvWriter raw(CharSequence text) {
+        buffer.append(text);
+        return this;
+    }
+
+    /**
+     * Gets the number of characters in the current record.
+     *
+     * @return The record length
+     */
+    public int length() { return buffer.length(); }
+
+    /**
+     * Writes the current record to a Writer without creating a String.
+     *
+     * @param out The Writer to write to
+     * @throws IOException if writing fails
+     */
+    public void writeTo(Writer out) throws IOException {
+        int length = buffer.length();
+        if (chars.length < length) chars = new char[Math.max(length, chars.length * 2)];
+        buffer.getChars(0, length, chars, 0);
+        out.write(chars, 0, length);
+    }
+
+    /**
+     * Gets the current record as a String.
+     *
+     * @return The record text
+     */
+    @Override
+    public String toString() { return buffer.toString(); }
+
+    private void separate() {
+        if (!first) buffer.append(',');
+        first = false;
+    }
+
+    private static boolean needsQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            if (ch == ',' || ch == '"' || ch == '\n' || ch == '\r') return true;
+        }
+        // Records are trimmed when read, so edge whitespace must be protected too
+        return !value.isEmpty() && (value.charAt(0) <= ' ' || value.charAt(value.length() - 1) <= ' ');
+    }
+}
@@ -0,0 +1,23 @@
+package utils;
+
+/**
+ * Durability enum - Selects how hard FileHandler works to get a write onto disk
+ * before returning.
+ *
+ * Every level replaces files atomically, so a crash leaves either the old or the
+ * new content in place. The levels only differ in how much is lost if the machine
+ * loses power right after a write returns.
+ *
+ * @author Comic Book Store System
+ * @version 1.0
+ */
+public enum Durability {
+    /** Leave flushing to the operating system; fastest, recent writes may be lost on power failure */
+    NONE,
+
+    /** Force the file contents to disk before the write returns */
+    DATA,
+
+    /** Force the file contents and the directory entry of the renamed file to disk */
+    DATA_AND_DIRECTORY
+}
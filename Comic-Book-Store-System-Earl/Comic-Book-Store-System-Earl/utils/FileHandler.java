@@ -1,6 +1,10 @@
 package utils;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
 import java.util.*;
 
 /**
@@ -8,21 +12,48 @@ import java.util.*;
  * 
  * This class contains static methods for reading from and writing to text files.
  * It handles file creation, directory creation, and basic error handling for file operations.
+ * Whole-file writes go to a temporary file that is renamed over the target, so a crash
+ * mid-write never leaves a truncated data file behind. All files are read and written as UTF-8.
  * 
  * @author Comic Book Store System
  * @version 1.0
  */
 public class FileHandler {
+    // How far writes are forced to disk before returning
+    private static volatile Durability durability = Durability.NONE;
+
+    // Latency of whole-file reads and replacing writes
+    private static final LatencyHistogram READ_LATENCY =
+            Metrics.histogram("store_file_read_seconds", "Time to read a whole text file");
+    private static final LatencyHistogram WRITE_LATENCY =
+            Metrics.histogram("store_file_write_seconds", "Time to write and replace a whole file");
+
+    /**
+     * Sets how far writes are forced to disk before returning.
+     *
+     * @param level The durability level to use for all later writes
+     */
+    public static void setDurability(Durability level) { durability = level; }
+
+    /**
+     * Gets the durability level used for writes.
+     *
+     * @return The current durability level
+     */
+    public static Durability getDurability() { return durability; }
+
     /**
      * Reads all lines from a text file and returns them as a list of strings.
      * Creates the file and necessary directories if they don't exist.
      * 
      * @param filename The path to the file to read
      * @return List of strings, each representing a line from the file
+     * @throws UncheckedIOException if the file cannot be created or read
      */
     public static List<String> readFile(String filename) {
+        long start = System.nanoTime();
         List<String> lines = new ArrayList<>();
-        File file = new File(filename);
+        File file = new File(filename).getAbsoluteFile();
         try {
             // Ensure parent directories exist
             file.getParentFile().mkdirs();
@@ -30,35 +61,251 @@ public class FileHandler {
             if (!file.exists()) file.createNewFile();
 
             // Read all lines from the file
-            BufferedReader br = new BufferedReader(new FileReader(file));
-            String line;
-            while ((line = br.readLine()) != null)
-                lines.add(line.trim()); // Trim whitespace and add to list
-            br.close();
+            try (BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = br.readLine()) != null)
+                    lines.add(line.trim()); // Trim whitespace and add to list
+            }
         } catch (IOException e) {
-            // Handle file reading errors gracefully
-            System.out.println("Error reading file: " + filename);
+            throw new UncheckedIOException("Error reading file: " + filename, e);
+        } finally {
+            READ_LATENCY.recordSince(start);
         }
         return lines;
     }
 
     /**
-     * Writes a list of strings to a text file, overwriting any existing content.
-     * Uses try-with-resources to ensure the file is properly closed.
+     * Callback that writes the content of a file being replaced.
+     */
+    public interface ContentWriter {
+        /**
+         * Writes the file content.
+         *
+         * @param out The writer for the temporary file
+         * @throws IOException if writing fails
+         */
+        void writeTo(BufferedWriter out) throws IOException;
+    }
+
+    /**
+     * Writes a list of strings to a text file, replacing any existing content.
      * 
      * @param filename The path to the file to write
      * @param data List of strings to write to the file
+     * @throws UncheckedIOException if the file cannot be written or replaced
      */
     public static void writeFile(String filename, List<String> data) {
-        try (BufferedWriter bw = new BufferedWriter(new FileWriter(filename))) {
+        writeFile(filename, bw -> {
             // Write each string as a separate line in the file
             for (String line : data) {
                 bw.write(line);
                 bw.newLine(); // Add line separator after each line
             }
+        });
+    }
+
+    /**
+     * Writes a text file from a callback, replacing any existing content.
+     * The content is written to a temporary file next to the target, forced to disk
+     * according to the durability level, and then renamed over the target in one step.
+     *
+     * @param filename The path to the file to write
+     * @param content Callback that writes the file content
+     * @throws UncheckedIOException if the file cannot be written or replaced
+     */
+    public static void writeFile(String filename, ContentWriter content) {
+        replaceFile(filename, out -> {
+            BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+            content.writeTo(bw);
+            bw.flush();
+        });
+    }
+
+    /**
+     * Callback that writes the content of a binary file being replaced.
+     */
+    public interface BinaryContentWriter {
+        /**
+         * Writes the file content.
+         *
+         * @param out The stream for the temporary file
+         * @throws IOException if writing fails
+         */
+        void writeTo(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * Writes a binary file from a callback, replacing any existing content.
+     * Uses the same temporary file, durability and rename steps as writeFile.
+     *
+     * @param filename The path to the file to write
+     * @param content Callback that writes the file content
+     * @throws UncheckedIOException if the file cannot be written or replaced
+     */
+    public static void writeBinaryFile(String filename, BinaryContentWriter content) {
+        replaceFile(filename, out -> {
+            DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+            content.writeTo(data);
+            data.flush();
+        });
+    }
+
+    /**
+     * Writes a temporary file next to the target, forces it to disk according to the
+     * durability level, and then renames it over the target in one step.
+     *
+     * @param filename The path to the file to write
+     * @param content Callback that writes the raw file content
+     * @throws UncheckedIOException if the file cannot be written or replaced
+     */
+    private static void replaceFile(String filename, StreamWriter content) {
+        long start = System.nanoTime();
+        Path target = Paths.get(filename).toAbsolutePath();
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        Durability level = durability;
+        try {
+            try (FileOutputStream out = new FileOutputStream(temp.toFile())) {
+                content.writeTo(out);
+                if (level != Durability.NONE) out.getChannel().force(true);
+            }
+            replace(temp, target);
+            if (level == Durability.DATA_AND_DIRECTORY) forceDirectory(target.getParent());
+        } catch (IOException e) {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignored) {
+                // The original error is the one worth reporting
+            }
+            throw new UncheckedIOException("Error writing file: " + filename, e);
+        } finally {
+            WRITE_LATENCY.recordSince(start);
+        }
+    }
+
+    /**
+     * Callback that writes raw bytes to the temporary file; it must flush any buffering it adds.
+     */
+    private interface StreamWriter {
+        void writeTo(FileOutputStream out) throws IOException;
+    }
+
+    /**
+     * Appends lines to the end of a text file, creating the file if it doesn't exist.
+     * The cost depends only on the lines written, not on the size of the file.
+     * If the file ends in a line torn by an earlier failed write, the new lines start
+     * on a line of their own. If the append fails, the file is cut back to where it
+     * ended, so no partial line is left for the next append to run on from.
+     *
+     * @param filename The path to the file to append to
+     * @param data List of strings to append, one per line
+     * @throws UncheckedIOException if the lines cannot be appended
+     */
+    public static void appendLines(String filename, List<String> data) {
+        Durability level = durability;
+        File file = new File(filename);
+        boolean created = !file.exists();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                                                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long end = channel.size();
+            StringBuilder text = new StringBuilder();
+            if (end > 0 && !endsWithNewline(channel, end)) text.append(System.lineSeparator()); // End the torn line first
+            for (String line : data)
+                text.append(line).append(System.lineSeparator()); // Add line separator after each line
+            ByteBuffer bytes = ByteBuffer.wrap(text.toString().getBytes(StandardCharsets.UTF_8));
+            try {
+                while (bytes.hasRemaining())
+                    channel.write(bytes, end + bytes.position());
+                if (level != Durability.NONE) channel.force(true);
+            } catch (IOException e) {
+                try {
+                    channel.truncate(end);
+                } catch (IOException ignored) {
+                    // The next append starts on a new line instead
+                }
+                throw e;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error appending to file: " + filename, e);
+        }
+        // A brand-new file is only durable once its directory entry is
+        if (created && level == Durability.DATA_AND_DIRECTORY) {
+            forceDirectory(file.getAbsoluteFile().toPath().getParent());
+        }
+    }
+
+    /**
+     * Reads the lines of a file written by appendLines. A last line with no line
+     * terminator is a write cut short by a crash; it is left out and cut off the file,
+     * so later appends cannot complete it. Lines are not trimmed. A missing file reads
+     * as no lines.
+     *
+     * @param filename The path to the file to read
+     * @return List of the complete lines
+     * @throws UncheckedIOException if the file exists but cannot be read
+     */
+    public static List<String> readCompleteLines(String filename) {
+        long start = System.nanoTime();
+        List<String> lines = new ArrayList<>();
+        Path path = Paths.get(filename);
+        if (!Files.exists(path)) return lines;
+        try {
+            byte[] bytes = Files.readAllBytes(path);
+            int complete = bytes.length;
+            while (complete > 0 && bytes[complete - 1] != '\n') complete--;
+            String text = new String(bytes, 0, complete, StandardCharsets.UTF_8);
+            for (int lineStart = 0, newline; (newline = text.indexOf('\n', lineStart)) >= 0; lineStart = newline + 1) {
+                int lineEnd = newline > lineStart && text.charAt(newline - 1) == '\r' ? newline - 1 : newline;
+                lines.add(text.substring(lineStart, lineEnd));
+            }
+            if (complete < bytes.length) {
+                System.err.println("Warning: Discarding unterminated last line of " + filename);
+                try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                    channel.truncate(complete);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error reading file: " + filename, e);
+        } finally {
+            READ_LATENCY.recordSince(start);
+        }
+        return lines;
+    }
+
+    /**
+     * Checks whether the last byte of a file is a line feed.
+     */
+    private static boolean endsWithNewline(FileChannel channel, long size) throws IOException {
+        ByteBuffer last = ByteBuffer.allocate(1);
+        return channel.read(last, size - 1) == 1 && last.get(0) == '\n';
+    }
+
+    /**
+     * Renames a file over another in one atomic step where the file system allows it.
+     *
+     * @param source The file to move
+     * @param target The file to replace
+     * @throws IOException if the file cannot be moved
+     */
+    private static void replace(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Forces a directory's entries to disk so that a rename inside it survives a power failure.
+     * Some platforms cannot open directories for this; there the rename is as durable as
+     * the platform makes it.
+     *
+     * @param directory The directory to force
+     */
+    private static void forceDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
         } catch (IOException e) {
-            // Handle file writing errors gracefully
-            System.out.println("Error writing file: " + filename);
+            // Not supported on this platform (e.g. Windows)
         }
     }
 }
@@ -0,0 +1,154 @@
+package utils;
+
+import java.util.*;
+
+/**
+ * IdSequence utility class - Durable allocator of IDs for several named sequences.
+ *
+ * IDs are handed out from blocks reserved in advance: the sequence file records,
+ * for each name, the first ID that has not been reserved yet, and it is rewritten
+ * only when a block runs out. A restart or crash skips whatever was left of the
+ * reserved block, so an ID is never handed out twice, and opening the sequences
+ * costs one read of a small file however many IDs have been used. A sequence file
+ * that cannot be read stops the sequences from opening at all, since starting over
+ * from 1 would hand out IDs again.
+ *
+ * File format, one sequence per line: name=firstUnreservedId
+ *
+ * @author Comic Book Store System
+ * @version 1.0
+ */
+public class IdSequence {
+    // IDs reserved per write of the sequence file
+    public static final int DEFAULT_BLOCK_SIZE = 100;
+
+    // Path of the sequence file
+    private final String filename;
+
+    // IDs reserved per block
+    private final int blockSize;
+
+    // Name -> the range of IDs reserved for it, in file order
+    private final Map<String, Range> ranges = new LinkedHashMap<>();
+
+    /**
+     * Constructor for opening the sequences with the default block size.
+     *
+     * @param filename The path to the sequence file
+     * @throws java.io.UncheckedIOException if the sequence file cannot be read
+     * @throws IllegalStateException if a line of the sequence file is corrupt
+     */
+    public IdSequence(String filename) {
+        this(filename, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Constructor for opening the sequences, creating the file if it doesn't exist.
+     *
+     * @param filename The path to the sequence file
+     * @param blockSize The number of IDs to reserve per write
+     * @throws IllegalArgumentException if blockSize is not positive
+     * @throws java.io.UncheckedIOException if the sequence file cannot be read
+     * @throws IllegalStateException if a line of the sequence file is corrupt
+     */
+    public IdSequence(String filename, int blockSize) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Block size must be positive");
+        }
+        this.filename = filename;
+        this.blockSize = blockSize;
+        for (String line : FileHandler.readFile(filename)) { // Throws rather than reading as empty
+            if (line.isEmpty()) continue;
+            int separator = line.indexOf('=');
+            try {
+                if (separator <= 0) throw new NumberFormatException("no name=value");
+                int reserved = Integer.parseInt(line.substring(separator + 1).trim());
+                // Nothing below the reserved mark is trusted to be unused after a restart
+                ranges.put(line.substring(0, separator).trim(), new Range(reserved, reserved));
+            } catch (NumberFormatException e) {
+                // Skipping the line would restart that sequence at 1
+                throw new IllegalStateException("Corrupt sequence line in " + filename + ": " + line, e);
+            }
+        }
+    }
+
+    /**
+     * Hands out the next ID of a sequence, reserving a new block first if needed.
+     * A sequence that has never been used starts at 1.
+     *
+     * @param name The name of the sequence
+     * @return An ID that this sequence has never handed out before
+     * @throws java.io.UncheckedIOException if a new block cannot be reserved
+     */
+    public synchronized int next(String name) {
+        Range range = range(name);
+        if (range.next >= range.limit) reserve(range, range.next + blockSize);
+        return range.next++;
+    }
+
+    /**
+     * Makes sure a sequence will only hand out IDs above one already in use,
+     * such as an ID loaded from a data file or given explicitly to a new entity.
+     * An ID inside the reserved block does not touch the disk; an ID at or past its
+     * end reserves a new block above it first, so the file never records a mark
+     * below an ID that was used.
+     *
+     * @param name The name of the sequence
+     * @param id An ID that is in use
+     * @throws java.io.UncheckedIOException if a new block cannot be reserved
+     */
+    public synchronized void advancePast(String name, int id) {
+        Range range = range(name);
+        if (range.next > id) return;
+        if (range.limit <= id) reserve(range, id + 1 + blockSize);
+        range.next = id + 1;
+    }
+
+    /**
+     * Gets the ID a sequence will hand out next, without using it.
+     *
+     * @param name The name of the sequence
+     * @return The next ID
+     */
+    public synchronized int peek(String name) {
+        return range(name).next;
+    }
+
+    /**
+     * Gets the range of a sequence, starting a new one at 1 if the name is unknown.
+     */
+    private Range range(String name) {
+        return ranges.computeIfAbsent(name, n -> new Range(1, 1));
+    }
+
+    /**
+     * Records a new reserved mark for a sequence in the file before any ID below it
+     * is handed out, so a crash can never lead to an ID being reused.
+     */
+    private void reserve(Range range, int limit) {
+        int previous = range.limit;
+        range.limit = limit;
+        try {
+            List<String> lines = new ArrayList<>(ranges.size());
+            for (Map.Entry<String, Range> entry : ranges.entrySet())
+                lines.add(entry.getKey() + "=" + entry.getValue().limit);
+            FileHandler.writeFile(filename, lines);
+        } catch (RuntimeException e) {
+            range.limit = previous; // Not reserved after all
+            throw e;
+        }
+    }
+
+    /**
+     * The IDs reserved for one sequence: next is handed out next, limit is the first unreserved.
+     */
+    private static class Range {
+        int next;
+        int limit;
+
+        Range(int next, int limit) {
+            this.next = next;
+            this.limit = limit;
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package utils;
+
+import java.util.Arrays;
+
+/**
+ * IntHashIndex utility class - An open-addressing hash table keyed by primitive ints.
+ *
+ * This class maps int keys (entity IDs) to values without boxing the keys into
+ * Integer objects. Collisions are resolved with linear probing and deletions use
+ * backward-shift, so no tombstones are left behind and lookups stay short even
+ * after many deletes.
+ *
+ * @param <V> The type of value stored against each key
+ * @author Comic Book Store System
+ * @version 1.0
+ */
+public class IntHashIndex<V> {
+    // Smallest table capacity; must be a power of two
+    private static final int MIN_CAPACITY = 16;
+
+    // Keys of occupied slots
+    private int[] keys;
+
+    // Values of occupied slots; a null value marks a free slot
+    private Object[] values;
+
+    // Number of occupied slots
+    private int size;
+
+    // Capacity - 1, used to wrap probe positions
+    private int mask;
+
+    /**
+     * Constructor for creating an empty IntHashIndex.
+     */
+    public IntHashIndex() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * Constructor for creating an IntHashIndex sized for an expected number of keys.
+     *
+     * @param expectedSize The number of keys expected to be stored
+     */
+    public IntHashIndex(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    /**
+     * Gets the value stored for a key.
+     *
+     * @param key The key to look up
+     * @return The value for the key, or null if the key is not present
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int slot = mix(key) & mask;
+        while (values[slot] != null) {
+            if (keys[slot] == key) return (V) values[slot];
+            slot = (slot + 1) & mask;
+        }
+        return null; // Key not found
+    }
+
+    /**
+     * Checks whether a key is present.
+     *
+     * @param key The key to check
+     * @return true if the key is present, false otherwise
+     */
+    public boolean containsKey(int key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Stores a value for a key, replacing any existing value.
+     *
+     * @param key The key to store
+     * @param value The value to store (must not be null)
+     * @return The previous value for the key, or null if there was none
+     * @throws IllegalArgumentException if value is null
+     */
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Value cannot be null");
+        }
+        int slot = mix(key) & mask;
+        while (values[slot] != null) {
+            if (keys[slot] == key) {
+                V previous = (V) values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        // Grow once the table is three quarters full to keep probe chains short
+        if (++size > (mask + 1) - ((mask + 1) >>> 2)) {
+            rehash((mask + 1) << 1);
+        }
+        return null;
+    }
+
+    /**
+     * Removes a key and its value.
+     *
+     * @param key The key to remove
+     * @return The removed value, or null if the key was not present
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        int slot = mix(key) & mask;
+        while (values[slot] != null) {
+            if (keys[slot] == key) {
+                V previous = (V) values[slot];
+                shiftBack(slot);
+                size--;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null; // Key not found
+    }
+
+    /**
+     * Gets the number of keys stored.
+     *
+     * @return The number of keys
+     */
+    public int size() { return size; }
+
+    /**
+     * Removes every key from the index.
+     */
+    public void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    /**
+     * Gets the number of slots in the table.
+     * Together with slotOf and keyAt this lets the table layout be saved and
+     * later restored with restoreSlots, without rehashing every key.
+     *
+     * @return The table capacity (a power of two)
+     */
+    public int capacity() { return mask + 1; }
+
+    /**
+     * Finds the slot holding a key.
+     *
+     * @param key The key to look up
+     * @return The slot of the key, or -1 if the key is not present
+     */
+    public int slotOf(int key) {
+        int slot = mix(key) & mask;
+        while (values[slot] != null) {
+            if (keys[slot] == key) return slot;
+            slot = (slot + 1) & mask;
+        }
+        return -1; // Key not found
+    }
+
+    /**
+     * Gets the key stored in a slot.
+     *
+     * @param slot The slot to read
+     * @return The key in the slot (meaningless if the slot is free)
+     */
+    public int keyAt(int slot) { return keys[slot]; }
+
+    /**
+     * Replaces the whole table with a previously saved layout.
+     * The arrays are adopted as they are, so they must come from a table of the same
+     * capacity: every key must sit in the slot it was probed into when it was saved.
+     *
+     * @param savedKeys The key of each slot
+     * @param savedValues The value of each slot, null for free slots
+     * @throws IllegalArgumentException if the arrays are not a valid table layout
+     */
+    public void restoreSlots(int[] savedKeys, Object[] savedValues) {
+        int capacity = savedKeys.length;
+        if (capacity < MIN_CAPACITY || Integer.bitCount(capacity) != 1 || savedValues.length != capacity) {
+            throw new IllegalArgumentException("Invalid table capacity: " + capacity);
+        }
+        int occupied = 0;
+        for (Object value : savedValues)
+            if (value != null) occupied++;
+        if (occupied > capacity - (capacity >>> 2)) {
+            throw new IllegalArgumentException("Table is over its load factor: " + occupied + "/" + capacity);
+        }
+        keys = savedKeys;
+        values = savedValues;
+        mask = capacity - 1;
+        size = occupied;
+    }
+
+    /**
+     * Closes the gap left at a freed slot by moving later entries of the same
+     * probe chain back, so that lookups never stop early at the hole.
+     *
+     * @param gap The slot that has just been freed
+     */
+    private void shiftBack(int gap) {
+        int slot = gap;
+        while (true) {
+            slot = (slot + 1) & mask;
+            if (values[slot] == null) break;
+            int home = mix(keys[slot]) & mask;
+            // Move the entry only if its home slot is not between the gap and its current slot
+            boolean movable = gap <= slot ? (home <= gap || home > slot) : (home <= gap && home > slot);
+            if (movable) {
+                keys[gap] = keys[slot];
+                values[gap] = values[slot];
+                gap = slot;
+            }
+        }
+        keys[gap] = 0;
+        values[gap] = null;
+    }
+
+    /**
+     * Rebuilds the table with a new capacity.
+     *
+     * @param capacity The new capacity (a power of two)
+     */
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] == null) continue;
+            int slot = mix(oldKeys[i]) & mask;
+            while (values[slot] != null) slot = (slot + 1) & mask;
+            keys[slot] = oldKeys[i];
+            values[slot] = oldValues[i];
+        }
+    }
+
+    /**
+     * Allocates empty key and value arrays.
+     *
+     * @param capacity The capacity to allocate (a power of two)
+     */
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Computes the smallest power-of-two capacity that holds the expected size
+     * without exceeding the load factor.
+     *
+     * @param expectedSize The number of keys expected to be stored
+     * @return The capacity to allocate
+     */
+    private static int capacityFor(int expectedSize) {
+        long needed = Math.max(MIN_CAPACITY, (long) expectedSize * 4 / 3 + 1);
+        return (int) Math.min(1 << 30, Long.highestOneBit(needed - 1) << 1);
+    }
+
+    /**
+     * Scrambles the key bits so that sequential IDs spread across the table.
+     *
+     * @param key The key to hash
+     * @return The mixed hash code
+     */
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
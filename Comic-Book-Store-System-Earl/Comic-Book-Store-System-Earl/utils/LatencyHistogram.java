@@ -0,0 +1,120 @@
+package utils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LatencyHistogram utility class - A lock-free histogram of durations in nanoseconds.
+ *
+ * Buckets follow the HdrHistogram layout: values below 128 ns get a bucket each, and
+ * every power of two above that is split into 64 equal buckets, so any recorded
+ * value is known to within 1/64 (about 1.6%) from one nanosecond up to hours, in a
+ * fixed table of a few thousand counters. Recording is one array increment and
+ * never blocks; percentiles are read from a pass over the table.
+ *
+ * @author Comic Book Store System
+ * @version 1.0
+ */
+public class LatencyHistogram {
+    // Values below this get a bucket each
+    private static final int LINEAR = 128;
+
+    // Buckets per power of two above LINEAR
+    private static final int SUB_BUCKETS = 64;
+
+    // Powers of two covered above LINEAR (up to Long.MAX_VALUE)
+    private static final int LEVELS = 57;
+
+    // Recorded values per bucket
+    private final AtomicLongArray counts = new AtomicLongArray(LINEAR + LEVELS * SUB_BUCKETS);
+
+    // Number and sum of recorded values, and the largest
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Records one duration.
+     *
+     * @param nanos The duration in nanoseconds; negative values count as zero
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucketOf(value));
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * Records the time elapsed since a System.nanoTime() reading.
+     *
+     * @param startNanos The reading taken when the operation started
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Gets the number of recorded values.
+     *
+     * @return The count
+     */
+    public long getCount() { return count.sum(); }
+
+    /**
+     * Gets the sum of recorded values.
+     *
+     * @return The total in nanoseconds
+     */
+    public long getSum() { return sum.sum(); }
+
+    /**
+     * Gets the largest recorded value.
+     *
+     * @return The maximum in nanoseconds, or 0 if nothing was recorded
+     */
+    public long getMax() { return max.get(); }
+
+    /**
+     * Gets the value below which a fraction of the recorded values fall.
+     *
+     * @param percentile The percentile, from 0 to 100
+     * @return The highest value in the bucket holding that percentile, in nanoseconds,
+     *         never above the maximum; 0 if nothing was recorded
+     */
+    public long getPercentile(double percentile) {
+        long total = 0;
+        long[] snapshot = new long[counts.length()];
+        for (int i = 0; i < snapshot.length; i++) total += snapshot[i] = counts.get(i);
+        if (total == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(total * Math.min(100.0, Math.max(0.0, percentile)) / 100.0));
+        long seen = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) return Math.min(highestValueIn(i), getMax());
+        }
+        return getMax();
+    }
+
+    /**
+     * Finds the bucket of a value.
+     */
+    static int bucketOf(long value) {
+        if (value < LINEAR) return (int) value;
+        int shift = 63 - Long.numberOfLeadingZeros(value) - 6; // Leaves the value's top 7 bits, 64..127
+        return LINEAR + (shift - 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+    }
+
+    /**
+     * Gets the largest value that falls in a bucket.
+     */
+    static long highestValueIn(int bucket) {
+        if (bucket < LINEAR) return bucket;
+        int shift = (bucket - LINEAR) / SUB_BUCKETS + 1;
+        long sub = (bucket - LINEAR) % SUB_BUCKETS + SUB_BUCKETS;
+        long next = (sub + 1) << shift;
+        return next <= 0 ? Long.MAX_VALUE : next - 1;
+    }
+}
@@ -0,0 +1,62 @@
+package utils;
+
+/**
+ * LoadStats class - Records how long a data file took to load and how fast it was read.
+ *
+ * @author Comic Book Store System
+ * @version 1.0
+ */
+public class LoadStats {
+    // Bytes read from the file
+    private final long bytes;
+
+    // Records handed to the parser
+    private final long records;
+
+    // Wall-clock load time in nanoseconds
+    private final long nanos;
+
+    /**
+     * Constructor for creating a LoadStats instance.
+     *
+     * @param bytes The number of bytes read
+     * @param records The number of records read
+     * @param nanos The time taken in nanoseconds
+     */
+    public LoadStats(long bytes, long records, long nanos) {
+        this.bytes = bytes;
+        this.records = records;
+        this.nanos = nanos;
+    }
+
+    public long getBytes() { return bytes; }
+    public long getRecords() { return records; }
+    public long getNanos() { return nanos; }
+
+    /**
+     * Gets the load time in milliseconds.
+     *
+     * @return The load time in milliseconds
+     */
+    public double getMillis() { return nanos / 1e6; }
+
+    /**
+     * Gets the read throughput.
+     *
+     * @return Bytes read per second, or 0 if nothing was timed
+     */
+    public double getBytesPerSecond() {
+        return nanos == 0 ? 0 : bytes * 1e9 / nanos;
+    }
+
+    /**
+     * Formats the statistics for console output.
+     *
+     * @return Formatted string for display purposes
+     */
+    @Override
+    public String toString() {
+        return String.format("%d records, %d bytes in %.1f ms (%.1f MB/s)",
+                records, bytes, getMillis(), getBytesPerSecond() / (1024 * 1024));
+    }
+}
@@ -0,0 +1,208 @@
+package utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * MappedFileReader utility class - Bulk loader that scans a memory-mapped data file.
+ *
+ * Instead of reading the file through a Reader and collecting every line into a
+ * List, the file is mapped with FileChannel and record boundaries are found directly
+ * in the mapped bytes. Each non-empty, trimmed record is handed to a RecordHandler as
+ * a CharSequence. Pure-ASCII records (the normal case for the store's files) are passed
+ * as a reusable view over the mapped bytes with no copying; records containing other
+ * UTF-8 characters are decoded into a String first.
+ *
+ * @author Comic Book Store System
+ * @version 1.0
+ */
+public class MappedFileReader {
+    // Largest region mapped at once; files bigger than this are mapped in pieces
+    private static final long CHUNK_SIZE = 256L * 1024 * 1024;
+
+    // Unsafe.invokeCleaner and its receiver, or null if mappings must wait for garbage collection
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            java.lang.reflect.Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = field.get(null);
+            invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Not available on this JDK
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    /**
+     * Callback receiving each record of a file.
+     */
+    public interface RecordHandler {
+        /**
+         * Handles one record.
+         * The CharSequence is only valid during this call; copy it (e.g. toString) to keep it.
+         *
+         * @param record The trimmed record text, without the line terminator
+         */
+        void record(CharSequence record);
+    }
+
+    /**
+     * Reads every record of a file.
+     * Creates the file and necessary directories if they don't exist, like FileHandler.readFile.
+     *
+     * @param filename The path to the file to read
+     * @param handler Callback invoked once per non-empty record, in file order
+     * @return Statistics about the load
+     * @throws UncheckedIOException if the file cannot be read
+     */
+    public static LoadStats read(String filename, RecordHandler handler) {
+        long start = System.nanoTime();
+        File file = new File(filename);
+        long records = 0;
+        long size;
+        try {
+            File parent = file.getAbsoluteFile().getParentFile();
+            if (parent != null) parent.mkdirs();
+            if (!file.exists()) file.createNewFile();
+
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                size = channel.size();
+                ByteSlice slice = new ByteSlice();
+                long position = 0;
+                while (position < size) {
+                    long length = Math.min(CHUNK_SIZE, size - position);
+                    MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                    boolean lastChunk = position + length == size;
+                    int consumed;
+                    try {
+                        slice.buffer = buffer;
+                        consumed = scan(buffer, (int) length, lastChunk, slice, handler);
+                        records += slice.records;
+                        slice.records = 0;
+                    } finally {
+                        slice.buffer = null;
+                        unmap(buffer);
+                    }
+                    if (consumed == 0 && !lastChunk) {
+                        throw new IOException("Record longer than " + CHUNK_SIZE + " bytes in " + filename);
+                    }
+                    position += consumed; // Resume at the start of a record cut off by the chunk end
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error reading file: " + filename, e);
+        }
+        return new LoadStats(size, records, System.nanoTime() - start);
+    }
+
+    /**
+     * Scans one mapped region for records and hands each complete one to the handler.
+     *
+     * @param buffer The mapped region
+     * @param limit The number of bytes in the region
+     * @param lastChunk true if the region runs to the end of the file
+     * @param slice The reusable view passed to the handler
+     * @param handler The record callback
+     * @return The number of bytes consumed; bytes after this belong to an unfinished record
+     */
+    private static int scan(ByteBuffer buffer, int limit, boolean lastChunk, ByteSlice slice, RecordHandler handler) {
+        int lineStart = 0;
+        int highBits = 0; // OR of every byte in the current line; bit 7 set means non-ASCII
+        for (int i = 0; i < limit; i++) {
+            byte b = buffer.get(i);
+            if (b == '\n') {
+                emit(buffer, lineStart, i, highBits, slice, handler);
+                lineStart = i + 1;
+                highBits = 0;
+            } else {
+                highBits |= b;
+            }
+        }
+        if (lineStart < limit && lastChunk) {
+            emit(buffer, lineStart, limit, highBits, slice, handler); // Final line without a terminator
+            return limit;
+        }
+        return lineStart;
+    }
+
+    /**
+     * Trims a record and passes it to the handler, skipping blank records.
+     */
+    private static void emit(ByteBuffer buffer, int from, int to, int highBits, ByteSlice slice, RecordHandler handler) {
+        // Trim the same characters String.trim does, which also drops a Windows '\r'
+        while (from < to && (buffer.get(from) & 0xff) <= ' ') from++;
+        while (to > from && (buffer.get(to - 1) & 0xff) <= ' ') to--;
+        if (from == to) return;
+        slice.records++;
+        if ((highBits & 0x80) == 0) {
+            slice.offset = from;
+            slice.length = to - from;
+            handler.record(slice); // ASCII fast path: a view over the mapped bytes
+        } else {
+            byte[] bytes = new byte[to - from];
+            buffer.get(from, bytes);
+            handler.record(new String(bytes, StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Releases a mapping straight away instead of waiting for garbage collection,
+     * so the file can be replaced by a rename right after loading (required on Windows).
+     * Falls back to the garbage collector if the JDK does not allow it.
+     *
+     * @param buffer The mapping to release
+     */
+    static void unmap(MappedByteBuffer buffer) {
+        if (INVOKE_CLEANER == null) return;
+        try {
+            INVOKE_CLEANER.invoke(UNSAFE, buffer);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Unmapped later by the garbage collector
+        }
+    }
+
+    /**
+     * Reusable CharSequence view over an ASCII record inside a mapped buffer.
+     */
+    private static class ByteSlice implements CharSequence {
+        ByteBuffer buffer;
+        int offset;
+        int length;
+        long records;
+
+        @Override
+        public int length() { return length; }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= length) throw new IndexOutOfBoundsException("index " + index + ", length " + length);
+            return (char) (buffer.get(offset + index) & 0xff);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return toString().substring(start, end);
+        }
+
+        @Override
+        public String toString() {
+            byte[] bytes = new byte[length];
+            buffer.get(offset, bytes);
+            return new String(bytes, StandardCharsets.ISO_8859_1); // ASCII only, so Latin-1 decoding is exact
+        }
+    }
+}
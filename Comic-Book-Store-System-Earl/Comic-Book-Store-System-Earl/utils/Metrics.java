@@ -0,0 +1,196 @@
+package utils;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics utility class - Process-wide registry of counters and latency histograms.
+ *
+ * Counters are LongAdders and histograms are LatencyHistograms, so recording never
+ * takes a lock. Metrics are identified by a Prometheus-style name and optional
+ * labels, e.g. store_save_seconds{manager="ComicManager"}; asking for the same name
+ * and labels again returns the same instance, so callers look a metric up once and
+ * keep it in a field.
+ *
+ * The registry can be written in the Prometheus text exposition format, once or
+ * periodically to a file that a local scraper (e.g. node_exporter's textfile
+ * collector) can read. Histograms are exposed as summaries in seconds, with 0.5,
+ * 0.9, 0.99 and 0.999 quantiles and the maximum as quantile 1.
+ *
+ * @author Comic Book Store System
+ * @version 1.0
+ */
+public class Metrics {
+    // Quantiles written for every histogram
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    // Full name with labels -> metric, sorted so output groups by name
+    private static final Map<String, LongAdder> COUNTERS = new ConcurrentSkipListMap<>();
+    private static final Map<String, LatencyHistogram> HISTOGRAMS = new ConcurrentSkipListMap<>();
+
+    // Help text per metric name
+    private static final Map<String, String> HELP = new ConcurrentSkipListMap<>();
+
+    // Thread writing the periodic dump, started on first use
+    private static ScheduledExecutorService dumper;
+    private static ScheduledFuture<?> dump;
+
+    private Metrics() { }
+
+    /**
+     * Gets or creates a counter.
+     *
+     * @param name The metric name, e.g. store_checkouts_total
+     * @param help What the counter counts
+     * @param labels Label names and values, alternating
+     * @return The counter
+     */
+    public static LongAdder counter(String name, String help, String... labels) {
+        HELP.putIfAbsent(name, help);
+        return COUNTERS.computeIfAbsent(key(name, labels), k -> new LongAdder());
+    }
+
+    /**
+     * Gets or creates a latency histogram.
+     *
+     * @param name The metric name, e.g. store_checkout_seconds
+     * @param help What the histogram times
+     * @param labels Label names and values, alternating
+     * @return The histogram
+     */
+    public static LatencyHistogram histogram(String name, String help, String... labels) {
+        HELP.putIfAbsent(name, help);
+        return HISTOGRAMS.computeIfAbsent(key(name, labels), k -> new LatencyHistogram());
+    }
+
+    /**
+     * Gets every histogram by its full name with labels.
+     *
+     * @return An unmodifiable sorted view of the histograms
+     */
+    public static Map<String, LatencyHistogram> getHistograms() {
+        return Collections.unmodifiableMap(HISTOGRAMS);
+    }
+
+    /**
+     * Gets every counter by its full name with labels.
+     *
+     * @return An unmodifiable sorted view of the counters
+     */
+    public static Map<String, LongAdder> getCounters() {
+        return Collections.unmodifiableMap(COUNTERS);
+    }
+
+    /**
+     * Renders every metric in the Prometheus text exposition format.
+     *
+     * @return The lines of the exposition
+     */
+    public static List<String> toPrometheus() {
+        List<String> lines = new ArrayList<>();
+        String previous = null;
+        for (Map.Entry<String, LongAdder> entry : COUNTERS.entrySet()) {
+            String name = nameOf(entry.getKey());
+            if (!name.equals(previous)) header(lines, name, "counter");
+            previous = name;
+            lines.add(entry.getKey() + " " + entry.getValue().sum());
+        }
+        for (Map.Entry<String, LatencyHistogram> entry : HISTOGRAMS.entrySet()) {
+            String name = nameOf(entry.getKey());
+            String labels = labelsOf(entry.getKey());
+            LatencyHistogram histogram = entry.getValue();
+            if (!name.equals(previous)) header(lines, name, "summary");
+            previous = name;
+            String prefix = name + "{" + labels + (labels.isEmpty() ? "" : ",") + "quantile=\"";
+            for (double quantile : QUANTILES) {
+                lines.add(prefix + quantile + "\"} " + seconds(histogram.getPercentile(quantile * 100)));
+            }
+            lines.add(prefix + "1.0\"} " + seconds(histogram.getMax()));
+            String suffix = labels.isEmpty() ? "" : "{" + labels + "}";
+            lines.add(name + "_sum" + suffix + " " + seconds(histogram.getSum()));
+            lines.add(name + "_count" + suffix + " " + histogram.getCount());
+        }
+        return lines;
+    }
+
+    /**
+     * Writes the Prometheus exposition to a file now, replacing it atomically so a
+     * scraper never reads half a file.
+     *
+     * @param filename The file to write
+     */
+    public static void writePrometheus(String filename) {
+        FileHandler.writeFile(filename, toPrometheus());
+    }
+
+    /**
+     * Starts writing the Prometheus exposition to a file at a fixed interval, on a
+     * daemon thread. Calling it again replaces the previous schedule.
+     *
+     * @param filename The file to write
+     * @param periodSeconds Seconds between writes
+     * @throws IllegalArgumentException if periodSeconds is not positive
+     */
+    public static synchronized void startDumping(String filename, long periodSeconds) {
+        if (periodSeconds <= 0) throw new IllegalArgumentException("Dump period must be positive");
+        if (dumper == null) {
+            dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "metrics-dump");
+                t.setDaemon(true); // Never keeps the application alive
+                return t;
+            });
+        }
+        if (dump != null) dump.cancel(false);
+        dump = dumper.scheduleAtFixedRate(() -> {
+            try {
+                writePrometheus(filename);
+            } catch (RuntimeException e) {
+                System.err.println("Warning: Could not write metrics to " + filename + ": " + e.getMessage());
+            }
+        }, periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stops the periodic dump, if one is running.
+     */
+    public static synchronized void stopDumping() {
+        if (dump != null) dump.cancel(false);
+        dump = null;
+    }
+
+    private static void header(List<String> lines, String name, String type) {
+        lines.add("# HELP " + name + " " + HELP.getOrDefault(name, name));
+        lines.add("# TYPE " + name + " " + type);
+    }
+
+    private static String key(String name, String[] labels) {
+        if (labels.length % 2 != 0) throw new IllegalArgumentException("Labels must be name/value pairs");
+        if (labels.length == 0) return name;
+        StringBuilder key = new StringBuilder(name).append('{');
+        for (int i = 0; i < labels.length; i += 2) {
+            if (i > 0) key.append(',');
+            key.append(labels[i]).append("=\"")
+               .append(labels[i + 1].replace("\\", "\\\\").replace("\"", "\\\"")).append('"');
+        }
+        return key.append('}').toString();
+    }
+
+    private static String nameOf(String key) {
+        int brace = key.indexOf('{');
+        return brace < 0 ? key : key.substring(0, brace);
+    }
+
+    private static String labelsOf(String key) {
+        int brace = key.indexOf('{');
+        return brace < 0 ? "" : key.substring(brace + 1, key.length() - 1);
+    }
+
+    private static String seconds(long nanos) {
+        return Double.toString(nanos / 1e9);
+    }
+}
@@ -0,0 +1,128 @@
+package utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * SnapshotReader utility class - Reads the binary snapshot format written by SnapshotWriter.
+ *
+ * The snapshot file is memory-mapped and its columns are copied out in bulk, so
+ * no text is parsed. The mapping is released when the reader is closed.
+ *
+ * @author Comic Book Store System
+ * @version 1.0
+ */
+public class SnapshotReader implements AutoCloseable {
+    // The mapped snapshot file
+    private final MappedByteBuffer buffer;
+
+    // Size of the snapshot file in bytes
+    private final long size;
+
+    /**
+     * Constructor for opening a snapshot file.
+     *
+     * @param filename The path to the snapshot file
+     * @throws IOException if the file cannot be mapped
+     */
+    public SnapshotReader(String filename) throws IOException {
+        try (FileChannel channel = FileChannel.open(new File(filename).toPath(), StandardOpenOption.READ)) {
+            size = channel.size();
+            if (size > Integer.MAX_VALUE) throw new IOException("Snapshot too large: " + filename);
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+    }
+
+    /**
+     * Gets the size of the snapshot file.
+     *
+     * @return The size in bytes
+     */
+    public long size() { return size; }
+
+    public int readInt() { return buffer.getInt(); }
+    public long readLong() { return buffer.getLong(); }
+
+    /**
+     * Reads an int column.
+     *
+     * @return The column values
+     */
+    public int[] readInts() {
+        int[] values = new int[checkedLength(4)];
+        buffer.asIntBuffer().get(values); // Bulk copy, for columns that are kept after the reader closes
+        buffer.position(buffer.position() + values.length * 4);
+        return values;
+    }
+
+    /**
+     * Reads an int column as a view of the mapped file, without copying it.
+     * The view is only valid until the reader is closed.
+     *
+     * @return The column values
+     */
+    public IntBuffer intColumn() {
+        int length = checkedLength(4);
+        IntBuffer column = buffer.asIntBuffer();
+        column.limit(length);
+        buffer.position(buffer.position() + length * 4);
+        return column;
+    }
+
+    /**
+     * Reads a double column as a view of the mapped file, without copying it.
+     * The view is only valid until the reader is closed.
+     *
+     * @return The column values
+     */
+    public DoubleBuffer doubleColumn() {
+        int length = checkedLength(8);
+        DoubleBuffer column = buffer.asDoubleBuffer();
+        column.limit(length);
+        buffer.position(buffer.position() + length * 8);
+        return column;
+    }
+
+    /**
+     * Reads a string dictionary.
+     *
+     * @return The dictionary entries indexed by ordinal
+     */
+    public String[] readDictionary() {
+        String[] values = new String[checkedLength(4)];
+        byte[] bytes = new byte[64];
+        for (int i = 0; i < values.length; i++) {
+            int length = checkedLength(1);
+            if (bytes.length < length) bytes = new byte[Math.max(length, bytes.length * 2)];
+            buffer.get(bytes, 0, length);
+            values[i] = new String(bytes, 0, length, StandardCharsets.UTF_8);
+        }
+        return values;
+    }
+
+    /**
+     * Releases the mapping.
+     */
+    @Override
+    public void close() {
+        MappedFileReader.unmap(buffer);
+    }
+
+    /**
+     * Reads a length prefix and checks it fits in the rest of the file, so a corrupt
+     * snapshot fails cleanly instead of allocating a huge array.
+     */
+    private int checkedLength(int elementSize) {
+        int length = buffer.getInt();
+        if (length < 0 || (long) length * elementSize > buffer.remaining()) {
+            throw new IllegalStateException("Corrupt snapshot column length: " + length);
+        }
+        return length;
+    }
+}
@@ -0,0 +1,96 @@
+package utils;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * SnapshotWriter utility class - Writes the column-oriented binary snapshot format.
+ *
+ * A snapshot is a sequence of primitive columns (one array per field) and
+ * dictionaries of strings. Columns are written as a length followed by the raw
+ * values so that SnapshotReader can copy them back in bulk.
+ *
+ * @author Comic Book Store System
+ * @version 1.0
+ */
+public class SnapshotWriter {
+    // Stream the snapshot is written to
+    private final DataOutputStream out;
+
+    /**
+     * Constructor for creating a SnapshotWriter.
+     *
+     * @param out The stream to write to
+     */
+    public SnapshotWriter(DataOutputStream out) {
+        this.out = out;
+    }
+
+    public void writeInt(int value) throws IOException { out.writeInt(value); }
+    public void writeLong(long value) throws IOException { out.writeLong(value); }
+
+    /**
+     * Writes an int column.
+     *
+     * @param values The column values
+     * @throws IOException if writing fails
+     */
+    public void writeInts(int[] values) throws IOException {
+        out.writeInt(values.length);
+        for (int value : values) out.writeInt(value);
+    }
+
+    /**
+     * Writes a double column.
+     *
+     * @param values The column values
+     * @throws IOException if writing fails
+     */
+    public void writeDoubles(double[] values) throws IOException {
+        out.writeInt(values.length);
+        for (double value : values) out.writeDouble(value);
+    }
+
+    /**
+     * Writes a string dictionary as UTF-8, one entry per ordinal.
+     *
+     * @param dictionary The dictionary to write
+     * @throws IOException if writing fails
+     */
+    public void writeDictionary(Dictionary dictionary) throws IOException {
+        out.writeInt(dictionary.values.size());
+        for (String value : dictionary.values) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Dictionary that assigns each distinct string a small ordinal, so string columns
+     * can be stored as int columns with every distinct value written only once.
+     */
+    public static class Dictionary {
+        private final Map<String, Integer> ordinals = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        /**
+         * Gets the ordinal of a string, adding it to the dictionary if it is new.
+         *
+         * @param value The string to encode (null is stored as an empty string)
+         * @return The string's ordinal
+         */
+        public int encode(String value) {
+            if (value == null) value = "";
+            Integer ordinal = ordinals.get(value);
+            if (ordinal == null) {
+                ordinal = values.size();
+                ordinals.put(value, ordinal);
+                values.add(value);
+            }
+            return ordinal;
+        }
+    }
+}